@@ -34,6 +34,7 @@ import org.wso2.carbon.analytics.auth.rest.api.util.AuthRESTAPIConstants;
 import org.wso2.carbon.analytics.auth.rest.api.util.AuthUtil;
 import org.wso2.carbon.analytics.idp.client.core.exception.IdPClientException;
 import org.wso2.carbon.analytics.idp.client.core.utils.IdPClientConstants;
+import org.wso2.carbon.streaming.integrator.common.utils.AccessTokenCache;
 import org.wso2.carbon.streaming.integrator.common.utils.SPConstants;
 import org.wso2.msf4j.Request;
 
@@ -89,6 +90,8 @@ public class LogoutApiServiceImpl extends LogoutApiService {
                 logoutProperties.put(IdPClientConstants.DOMAIN, AuthUtil.getDomainFromHeader(request));
 
                 DataHolder.getInstance().getIdPClient().logout(logoutProperties);
+                // The token is invalidated once revoked, as it could be cached again by requests made till then.
+                AccessTokenCache.getInstance().invalidate(accessToken);
 
                 // Lets invalidate all the cookies saved.
                 NewCookie appContextCookie = AuthUtil
@@ -137,6 +140,10 @@ public class LogoutApiServiceImpl extends LogoutApiService {
                 logoutProperties.put(IdPClientConstants.ID_TOKEN_KEY, idToken);
                 logoutProperties.put(IdPClientConstants.DOMAIN, AuthUtil.getDomainFromHeader(request));
                 Map<String, String> returnProperties = DataHolder.getInstance().getIdPClient().logout(logoutProperties);
+                // The token is invalidated once revoked, as it could be cached again by requests made till then.
+                if (accessToken != null) {
+                    AccessTokenCache.getInstance().invalidate(accessToken);
+                }
 
                 boolean doReturnProperties = Boolean.
                         parseBoolean(returnProperties.get(IdPClientConstants.RETURN_LOGOUT_PROPERTIES));
@@ -25,13 +25,13 @@ import org.wso2.carbon.analytics.idp.client.core.exception.AuthenticationExcepti
 import org.wso2.carbon.analytics.idp.client.core.utils.IdPClientConstants;
 import org.wso2.carbon.analytics.msf4j.interceptor.common.internal.DataHolder;
 import org.wso2.carbon.analytics.msf4j.interceptor.common.util.InterceptorConstants;
+import org.wso2.carbon.streaming.integrator.common.utils.AccessTokenCache;
 import org.wso2.carbon.streaming.integrator.common.utils.SPConstants;
 import org.wso2.msf4j.Request;
 import org.wso2.msf4j.Response;
 import org.wso2.msf4j.interceptor.RequestInterceptor;
 
 import java.nio.charset.Charset;
-import java.util.Arrays;
 import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
@@ -55,36 +55,35 @@ public class AuthenticationInterceptor implements RequestInterceptor {
         if (!DataHolder.getInstance().isInterceptorEnabled()) {
             return true;
         } else {
-            for (Pattern url : DataHolder.getInstance().getExcludeURLPatternList()) {
-                if (url.matcher(request.getUri()).matches()) {
-                    return true;
-                }
+            Pattern excludeURLPattern = DataHolder.getInstance().getExcludeURLPattern();
+            if (excludeURLPattern != null && excludeURLPattern.matcher(request.getUri()).matches()) {
+                return true;
             }
             IdPClient idPClient = DataHolder.getInstance().getIdPClient();
             HttpHeaders headers = request.getHeaders();
             String authorizationHeader = request.getHeader(SPConstants.AUTHORIZATION_HEADER);
-            if (authorizationHeader != null && authorizationHeader.contains(" ")) {
-                String headerPrefix = authorizationHeader.split(" ")[0];
-                String headerPostfix = authorizationHeader.split(" ")[1];
-                if (headerPostfix != null) {
+            int prefixEnd = (authorizationHeader != null) ? authorizationHeader.indexOf(' ') : -1;
+            if (prefixEnd != -1) {
+                String headerPrefix = authorizationHeader.substring(0, prefixEnd);
+                int postfixEnd = authorizationHeader.indexOf(' ', prefixEnd + 1);
+                String headerPostfix = (postfixEnd != -1) ?
+                        authorizationHeader.substring(prefixEnd + 1, postfixEnd) :
+                        authorizationHeader.substring(prefixEnd + 1);
+                if (!headerPostfix.isEmpty()) {
                     if (headerPrefix.equalsIgnoreCase(InterceptorConstants.BEARER_PREFIX)) {
-                        String cookieHeader = headers.getHeaderString(SPConstants.COOKIE_HEADER);
-                        String partialTokenFromCookie = null;
-                        if (cookieHeader != null) {
-                            cookieHeader = cookieHeader.trim();
-                            String[] cookies = cookieHeader.split(";");
-                            String token2 = Arrays.stream(cookies)
-                                    .filter(name -> name.contains(SPConstants.WSO2_SP_TOKEN_2))
-                                    .findFirst().orElse("");
-                            String tokensArr[] = token2.split("=");
-                            if (tokensArr.length == 2) {
-                                partialTokenFromCookie = tokensArr[1];
-                            }
-                        }
+                        String partialTokenFromCookie =
+                                getPartialTokenFromCookie(headers.getHeaderString(SPConstants.COOKIE_HEADER));
                         String accessToken = (partialTokenFromCookie != null) ?
                                 headerPostfix + partialTokenFromCookie :
                                 headerPostfix;
-                        String username = idPClient.authenticate(accessToken);
+                        AccessTokenCache accessTokenCache = AccessTokenCache.getInstance();
+                        String username = accessTokenCache.getUsername(accessToken);
+                        if (username == null) {
+                            username = idPClient.authenticate(accessToken);
+                            if (username != null) {
+                                accessTokenCache.put(accessToken, username);
+                            }
+                        }
                         if (username != null) {
                             request.setProperty(InterceptorConstants.PROPERTY_USERNAME, username);
                             return true;
@@ -169,6 +168,35 @@ public class AuthenticationInterceptor implements RequestInterceptor {
         return false;
     }
 
+    /**
+     * Get the second part of the access token, which is stored in a http only cookie.
+     *
+     * @param cookieHeader Cookie header of the request
+     * @return second part of the access token, or null if the cookie is not found
+     */
+    private String getPartialTokenFromCookie(String cookieHeader) {
+        if (cookieHeader == null) {
+            return null;
+        }
+        String cookieName = SPConstants.WSO2_SP_TOKEN_2 + "=";
+        int cookieStart = 0;
+        while (cookieStart < cookieHeader.length()) {
+            int cookieEnd = cookieHeader.indexOf(';', cookieStart);
+            if (cookieEnd == -1) {
+                cookieEnd = cookieHeader.length();
+            }
+            while (cookieStart < cookieEnd && cookieHeader.charAt(cookieStart) == ' ') {
+                cookieStart++;
+            }
+            if (cookieHeader.startsWith(cookieName, cookieStart)) {
+                String cookieValue = cookieHeader.substring(cookieStart + cookieName.length(), cookieEnd).trim();
+                return (cookieValue.isEmpty() || cookieValue.indexOf('=') != -1) ? null : cookieValue;
+            }
+            cookieStart = cookieEnd + 1;
+        }
+        return null;
+    }
+
     private String getAppContext(String uri) {
         int appContextEnd = uri.indexOf("/", 1);
         if (appContextEnd != -1) {
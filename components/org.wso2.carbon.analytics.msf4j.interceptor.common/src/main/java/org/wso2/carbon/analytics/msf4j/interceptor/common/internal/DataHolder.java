@@ -20,7 +20,6 @@ package org.wso2.carbon.analytics.msf4j.interceptor.common.internal;
 import org.wso2.carbon.analytics.idp.client.core.api.IdPClient;
 import org.wso2.carbon.config.provider.ConfigProvider;
 
-import java.util.List;
 import java.util.regex.Pattern;
 
 /**
@@ -31,7 +30,7 @@ public class DataHolder {
     private IdPClient idPClient;
     private ConfigProvider configProvider;
     private boolean isInterceptorEnabled;
-    private List<Pattern> excludeURLPatternList;
+    private Pattern excludeURLPattern;
 
     private DataHolder() {
     }
@@ -69,11 +68,16 @@ public class DataHolder {
         isInterceptorEnabled = interceptorEnabled;
     }
 
-    public List<Pattern> getExcludeURLPatternList() {
-        return excludeURLPatternList;
+    /**
+     * Provide the pattern matching any of the URLs excluded from authentication.
+     *
+     * @return Pattern of the excluded URLs, or null if no URL is excluded
+     */
+    public Pattern getExcludeURLPattern() {
+        return excludeURLPattern;
     }
 
-    public void setExcludeURLList(List<Pattern> excludeURLPatternList) {
-        this.excludeURLPatternList = excludeURLPatternList;
+    public void setExcludeURLPattern(Pattern excludeURLPattern) {
+        this.excludeURLPattern = excludeURLPattern;
     }
 }
@@ -24,15 +24,21 @@ import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.osgi.service.component.annotations.ReferencePolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.wso2.carbon.analytics.idp.client.core.api.IdPClient;
 import org.wso2.carbon.analytics.idp.client.core.utils.IdPClientConstants;
 import org.wso2.carbon.analytics.idp.client.core.utils.config.IdPClientConfiguration;
 import org.wso2.carbon.config.ConfigurationException;
 import org.wso2.carbon.config.provider.ConfigProvider;
+import org.wso2.carbon.streaming.integrator.common.utils.AccessTokenCache;
 
+import java.lang.management.ManagementFactory;
 import java.util.List;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import javax.management.JMException;
+import javax.management.ObjectName;
 
 /**
  * component to get the registered IdPClient OSGi service.
@@ -43,6 +49,7 @@ import java.util.stream.Collectors;
         immediate = true
 )
 public class ServiceComponent {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ServiceComponent.class);
 
     @Activate
     protected void start(BundleContext bundleContext) throws ConfigurationException {
@@ -57,7 +64,7 @@ public class ServiceComponent {
         Boolean isInterceptorEnabled = Boolean.parseBoolean(enableInterceptor);
         DataHolder.getInstance().setInterceptorEnabled(isInterceptorEnabled);
 
-        List<Pattern> excludeURI = idPClientConfiguration.getRestAPIAuthConfigs().getExclude().stream().map((glob) -> {
+        List<String> excludeURI = idPClientConfiguration.getRestAPIAuthConfigs().getExclude().stream().map((glob) -> {
             StringBuilder out = new StringBuilder();
             for (int i = 0; i < glob.length(); ++i) {
                 final char c = glob.charAt(i);
@@ -78,13 +85,28 @@ public class ServiceComponent {
                         out.append(c);
                 }
             }
-            return Pattern.compile(out.toString());
+            return "(?:" + out + ")";
         }).collect(Collectors.toList());
-        DataHolder.getInstance().setExcludeURLList(excludeURI);
+        // Excluded URLs are matched against a single alternation of their patterns, compiled once.
+        DataHolder.getInstance().setExcludeURLPattern(excludeURI.isEmpty() ? null :
+                Pattern.compile(String.join("|", excludeURI)));
+
+        // the hit and miss counts of the access token cache are exposed over JMX
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(AccessTokenCache.getInstance(),
+                    new ObjectName(AccessTokenCache.OBJECT_NAME));
+        } catch (JMException e) {
+            LOGGER.warn("Failed to register the access token cache MBean '{}'.", AccessTokenCache.OBJECT_NAME, e);
+        }
     }
 
     @Deactivate
     protected void stop() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(AccessTokenCache.OBJECT_NAME));
+        } catch (JMException e) {
+            LOGGER.warn("Failed to unregister the access token cache MBean '{}'.", AccessTokenCache.OBJECT_NAME, e);
+        }
     }
 
 
@@ -28,9 +28,8 @@ import org.wso2.carbon.data.provider.exception.DataProviderException;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+
+import static org.wso2.carbon.data.provider.utils.DataProviderValueHolder.getDataProviderHelper;
 
 /**
  * Abstract data provider class.
@@ -39,8 +38,6 @@ public abstract class AbstractDataProvider implements DataProvider {
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractDataProvider.class);
     private String topic;
     private String sessionId;
-    private ScheduledExecutorService dataPublishingExecutorService = Executors.newSingleThreadScheduledExecutor();
-    private ScheduledExecutorService dataPurgingExecutorService = Executors.newSingleThreadScheduledExecutor();
     private long publishingInterval;
     private long purgingInterval;
     private boolean isPurgingEnable;
@@ -65,21 +62,16 @@ public abstract class AbstractDataProvider implements DataProvider {
 
     @Override
     public void stop() {
-        dataPublishingExecutorService.shutdown();
-        dataPurgingExecutorService.shutdown();
+        getDataProviderHelper().getPollingEngine().unsubscribe(this);
     }
 
     @Override
     public void start() {
         if (!this.isPaginationEnabled) {
-            this.dataPublishingExecutorService.scheduleAtFixedRate(() -> {
-                this.publish(this.topic, this.sessionId);
-            }, 0L, this.publishingInterval, TimeUnit.SECONDS);
+            getDataProviderHelper().getPollingEngine().subscribe(this);
         }
         if (isPurgingEnable) {
-            dataPublishingExecutorService.scheduleAtFixedRate(() -> {
-                purging();
-            }, 0, purgingInterval, TimeUnit.SECONDS);
+            getDataProviderHelper().getPollingEngine().schedulePurging(this);
         }
     }
 
@@ -99,6 +91,64 @@ public abstract class AbstractDataProvider implements DataProvider {
 
     public abstract void purging();
 
+    /**
+     * Get the key identifying the data published by the provider. Providers having the same key and publishing
+     * interval share a single poll, which fetches the data using fetchData() and publishes it to all of them.
+     *
+     * @return polling key, or null if the provider publishes its data on its own using publish().
+     */
+    public String getPollingKey() {
+        return null;
+    }
+
+    /**
+     * Get the key identifying the data purged by the provider. Providers having the same key and purging interval
+     * share a single purging task.
+     *
+     * @return purging key, or null if the provider purges its data on its own.
+     */
+    public String getPurgingKey() {
+        return null;
+    }
+
+    /**
+     * Fetch the data to be published to the providers sharing the poll of this provider. This is required only if
+     * the provider has a polling key.
+     *
+     * @return data to be published, or null if there is no data to be published.
+     */
+    public ArrayList<Object[]> fetchData() {
+        return null;
+    }
+
+    /**
+     * Update the snapshot of a shared poll, which is published to the providers subscribing to the poll after it
+     * has fetched data. By default, the data fetched last is the snapshot.
+     *
+     * @param snapshot snapshot of the poll, or null if the poll has not fetched data yet.
+     * @param data     data fetched by the poll.
+     * @return updated snapshot.
+     */
+    public ArrayList<Object[]> updateSnapshot(ArrayList<Object[]> snapshot, ArrayList<Object[]> data) {
+        return data;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public long getPublishingInterval() {
+        return publishingInterval;
+    }
+
+    public long getPurgingInterval() {
+        return purgingInterval;
+    }
+
     /**
      * Set the provider configuration, child class will be maintained
      * its own provider configuration bean object.
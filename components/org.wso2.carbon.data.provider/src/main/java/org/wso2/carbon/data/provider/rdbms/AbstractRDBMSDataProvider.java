@@ -42,6 +42,7 @@ import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -323,6 +324,28 @@ public class AbstractRDBMSDataProvider extends AbstractDataProvider {
 
     @Override
     public void publish(String topic, String sessionId) {
+        ArrayList<Object[]> data = fetchData();
+        if (data != null) {
+            publishToEndPoint(data, sessionId, topic);
+        }
+    }
+
+    @Override
+    public String getPollingKey() {
+        if (recordLimitQuery == null) {
+            return null;
+        }
+        return providerName() + ":" + rdbmsProviderConfig.getDatasourceName() + ":" + recordLimitQuery + ":" +
+                rdbmsProviderConfig.getTimeColumns();
+    }
+
+    @Override
+    public String getPurgingKey() {
+        if (totalRecordCountQuery == null || purgingQuery == null) {
+            return null;
+        }
+        return rdbmsProviderConfig.getDatasourceName() + ":" + purgingQuery + ":" +
+                rdbmsProviderConfig.getPurgingLimit();
     }
 
     @Override
@@ -39,7 +39,7 @@ public class RDBMSBatchDataProvider extends AbstractRDBMSDataProvider {
     private static final Logger LOGGER = LoggerFactory.getLogger(RDBMSBatchDataProvider.class);
 
     @Override
-    public void publish(String topic, String sessionId) {
+    public ArrayList<Object[]> fetchData() {
         String customQuery = getRecordLimitQuery();
         DataSetMetadata metadata = getMetadata();
         int columnCount = getColumnCount();
@@ -72,7 +72,7 @@ public class RDBMSBatchDataProvider extends AbstractRDBMSDataProvider {
                         }
                         data.add(rowData);
                     }
-                    publishToEndPoint(data, sessionId, topic);
+                    return data;
                 } catch (SQLException e) {
                     LOGGER.error("SQL exception occurred " + e.getMessage(), e);
                 } finally {
@@ -82,5 +82,6 @@ public class RDBMSBatchDataProvider extends AbstractRDBMSDataProvider {
                 LOGGER.error("Failed to create a connection to the database " + e.getMessage(), e);
             }
         }
+        return null;
     }
 }
@@ -42,7 +42,7 @@ public class RDBMSStreamingDataProvider extends AbstractRDBMSDataProvider {
     private double lastRecordValue = 0;
 
     @Override
-    public void publish(String topic, String sessionId) {
+    public synchronized ArrayList<Object[]> fetchData() {
         String customQuery = getRecordLimitQuery();
         DataSetMetadata metadata = getMetadata();
         int columnCount = getColumnCount();
@@ -96,7 +96,7 @@ public class RDBMSStreamingDataProvider extends AbstractRDBMSDataProvider {
                         data.add(rowData);
                     }
                     if (!data.isEmpty() || lastRecordValue == 0) {
-                        publishToEndPoint(data, sessionId, topic);
+                        return data;
                     }
                 } catch (SQLException e) {
                     LOGGER.error("SQL exception occurred " + e.getMessage(), e);
@@ -107,5 +107,24 @@ public class RDBMSStreamingDataProvider extends AbstractRDBMSDataProvider {
                 LOGGER.error("Failed to create a connection to the database " + e.getMessage(), e);
             }
         }
+        return null;
+    }
+
+    /**
+     * The snapshot of a shared poll holds the latest records up to the publishing limit, as the records fetched
+     * after the first poll are only the records newer than those already published.
+     */
+    @Override
+    public ArrayList<Object[]> updateSnapshot(ArrayList<Object[]> snapshot, ArrayList<Object[]> data) {
+        if (snapshot == null) {
+            return data;
+        }
+        // records are ordered from the latest record
+        ArrayList<Object[]> latestRecords = new ArrayList<>(data);
+        long publishingLimit = getRdbmsProviderConfig().getPublishingLimit();
+        for (int i = 0; i < snapshot.size() && latestRecords.size() < publishingLimit; i++) {
+            latestRecords.add(snapshot.get(i));
+        }
+        return latestRecords;
     }
 }
@@ -20,6 +20,8 @@ package org.wso2.carbon.data.provider.siddhi;
 
 import io.siddhi.core.SiddhiAppRuntime;
 import io.siddhi.core.SiddhiManager;
+import io.siddhi.query.api.execution.query.OnDemandQuery;
+import io.siddhi.query.compiler.SiddhiCompiler;
 import io.siddhi.query.compiler.exception.SiddhiParserException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,13 +32,23 @@ import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
 import java.util.Base64;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 public class SiddhiAppRuntimeHolder {
     private static final Logger logger = LoggerFactory.getLogger(SiddhiAppRuntimeHolder.class);
     static Map<String, SiddhiAppRuntime> siddhiAppRuntimeMap = new HashMap<>();
     static SiddhiManager siddhiManager;
+    private static final int MAX_CACHED_QUERIES = 1000;
+    private static final Map<String, OnDemandQuery> onDemandQueryMap = Collections.synchronizedMap(
+            new LinkedHashMap<String, OnDemandQuery>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, OnDemandQuery> eldest) {
+                    return size() > MAX_CACHED_QUERIES;
+                }
+            });
 
     public static SiddhiAppRuntime getSiddhiAppRuntime(String siddhiApp) throws DataProviderException {
         logger.debug("Siddhi App Runtime Map key set size :" + siddhiAppRuntimeMap.size());
@@ -65,6 +77,17 @@ public class SiddhiAppRuntimeHolder {
         }
     }
 
+    /**
+     * Get the parsed store query. Queries are parsed once and reused, so that the Siddhi app runtimes find the
+     * compiled query runtimes using the same query objects.
+     *
+     * @param query store query string
+     * @return parsed store query
+     */
+    public static OnDemandQuery getOnDemandQuery(String query) {
+        return onDemandQueryMap.computeIfAbsent(query, SiddhiCompiler::parseOnDemandQuery);
+    }
+
     private static SiddhiManager getSiddhiManager() {
         if (siddhiManager == null) {
             siddhiManager = new SiddhiManager();
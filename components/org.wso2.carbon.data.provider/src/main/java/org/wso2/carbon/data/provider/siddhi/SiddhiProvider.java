@@ -21,8 +21,7 @@ package org.wso2.carbon.data.provider.siddhi;
 import com.google.gson.Gson;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
-import io.siddhi.query.api.execution.query.StoreQuery;
-import io.siddhi.query.compiler.SiddhiCompiler;
+import io.siddhi.query.api.execution.query.OnDemandQuery;
 import org.osgi.service.component.annotations.Component;
 import org.wso2.carbon.data.provider.AbstractDataProvider;
 import org.wso2.carbon.data.provider.DataProvider;
@@ -64,6 +63,7 @@ public class SiddhiProvider extends AbstractDataProvider {
     private SiddhiDataProviderConfig siddhiDataProviderConfig;
     private DataSetMetadata metadata;
     private SiddhiAppRuntime siddhiAppRuntime;
+    private OnDemandQuery onDemandQuery;
     private String[] linearTypes = new String[]{"INT", "LONG", "FLOAT", "DOUBLE"};
     private String[] ordinalTypes = new String[]{"STRING", "BOOL"};
     private List<String> timeColumns;
@@ -78,9 +78,9 @@ public class SiddhiProvider extends AbstractDataProvider {
         super.init(topic, sessionId, siddhiDataProviderConfig);
         this.siddhiAppRuntime = SiddhiAppRuntimeHolder.
                 getSiddhiAppRuntime(siddhiDataProviderConfig.getSiddhiAppContext());
-        StoreQuery storeQuery = SiddhiCompiler.parseStoreQuery(siddhiDataProviderConfig.getQueryData()
+        onDemandQuery = SiddhiAppRuntimeHolder.getOnDemandQuery(siddhiDataProviderConfig.getQueryData()
                 .getAsJsonObject().get(QUERY).getAsString());
-        Attribute[] outputAttributeList = siddhiAppRuntime.getStoreQueryOutputAttributes(storeQuery);
+        Attribute[] outputAttributeList = siddhiAppRuntime.getOnDemandQueryOutputAttributes(onDemandQuery);
         metadata = new DataSetMetadata(outputAttributeList.length);
         Attribute outputAttribute;
         for (int i = 0; i < outputAttributeList.length; i++) {
@@ -127,15 +127,26 @@ public class SiddhiProvider extends AbstractDataProvider {
 
     @Override
     public void publish(String topic, String sessionId) {
-        Event[] events = siddhiAppRuntime.query(siddhiDataProviderConfig.getQueryData().getAsJsonObject().get
-                (QUERY).getAsString());
+        publishToEndPoint(fetchData(), sessionId, topic);
+    }
+
+    @Override
+    public ArrayList<Object[]> fetchData() {
+        Event[] events = siddhiAppRuntime.query(onDemandQuery);
         ArrayList<Object[]> data = new ArrayList<>();
         if (events != null) {
             for (Event event : events) {
                 data.add(event.getData());
             }
         }
-        publishToEndPoint(data, sessionId, topic);
+        return data;
+    }
+
+    @Override
+    public String getPollingKey() {
+        return PROVIDER_NAME + ":" + siddhiDataProviderConfig.getSiddhiAppContext() + ":" +
+                siddhiDataProviderConfig.getQueryData().getAsJsonObject().get(QUERY).getAsString() + ":" +
+                siddhiDataProviderConfig.getTimeColumns();
     }
 
     public void publishWithPagination(JsonElement jsonElement, String topic, String sessionId) {
@@ -183,7 +194,7 @@ public class SiddhiProvider extends AbstractDataProvider {
             } else {
                 query = query + " limit " + newLimit + " offset " + newOffset;
             }
-            Event[] events = siddhiAppRuntime.query(query);
+            Event[] events = siddhiAppRuntime.query(SiddhiAppRuntimeHolder.getOnDemandQuery(query));
             if (events != null) {
                 for (Event event : events) {
                     data.add(event.getData());
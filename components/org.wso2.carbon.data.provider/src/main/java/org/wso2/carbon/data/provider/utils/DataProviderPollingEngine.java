@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.data.provider.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.data.provider.AbstractDataProvider;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Polling engine shared by the data providers.
+ * Data providers subscribing with the same polling key and publishing interval share a single poll, which fetches
+ * the data once per interval and publishes it to each of the subscribed providers. Hence a query is run once per
+ * interval no matter how many sessions subscribe to it. A provider subscribing to a poll which has already fetched
+ * data first receives the snapshot of the poll, followed by the data fetched thereafter.
+ * Data providers without a polling key are polled individually. Purging is shared in the same manner using the
+ * purging key. All polls run on a single bounded scheduler pool.
+ */
+public class DataProviderPollingEngine {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DataProviderPollingEngine.class);
+    private static final String POLLING_THREAD_POOL_SIZE = "dataProviderPollingThreadPoolSize";
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, SharedPoll> sharedPolls = new HashMap<>();
+    private final Map<String, SharedPurge> sharedPurges = new HashMap<>();
+    private final Map<AbstractDataProvider, ScheduledFuture<?>> providerPolls = new IdentityHashMap<>();
+    private final Map<AbstractDataProvider, ScheduledFuture<?>> providerPurges = new IdentityHashMap<>();
+
+    public DataProviderPollingEngine() {
+        this(Integer.getInteger(POLLING_THREAD_POOL_SIZE, Math.max(2, Runtime.getRuntime().availableProcessors())));
+    }
+
+    public DataProviderPollingEngine(int poolSize) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(poolSize, runnable -> {
+            Thread thread = new Thread(runnable, "data-provider-polling-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        this.scheduler = executor;
+    }
+
+    /**
+     * Subscribe the data provider to the poll publishing its data.
+     *
+     * @param dataProvider data provider to be published to.
+     */
+    public synchronized void subscribe(AbstractDataProvider dataProvider) {
+        String pollingKey = dataProvider.getPollingKey();
+        if (pollingKey == null) {
+            providerPolls.computeIfAbsent(dataProvider, provider -> scheduler.scheduleAtFixedRate(
+                    () -> provider.publish(provider.getTopic(), provider.getSessionId()),
+                    0L, provider.getPublishingInterval(), TimeUnit.SECONDS));
+            return;
+        }
+        String key = dataProvider.getPublishingInterval() + ":" + pollingKey;
+        SharedPoll sharedPoll = sharedPolls.get(key);
+        if (sharedPoll == null) {
+            sharedPoll = new SharedPoll(key, dataProvider);
+            sharedPoll.addSubscriber(dataProvider);
+            sharedPolls.put(key, sharedPoll);
+            sharedPoll.future = scheduler.scheduleAtFixedRate(sharedPoll::poll, 0L,
+                    dataProvider.getPublishingInterval(), TimeUnit.SECONDS);
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Started shared poll '" + key + "'.");
+            }
+        } else {
+            sharedPoll.addSubscriber(dataProvider);
+            scheduler.execute(sharedPoll::publishSnapshot);
+        }
+    }
+
+    /**
+     * Schedule purging of the data of the data provider.
+     *
+     * @param dataProvider data provider whose data is to be purged.
+     */
+    public synchronized void schedulePurging(AbstractDataProvider dataProvider) {
+        String purgingKey = dataProvider.getPurgingKey();
+        if (purgingKey == null) {
+            providerPurges.computeIfAbsent(dataProvider, provider -> scheduler.scheduleAtFixedRate(
+                    provider::purging, 0L, provider.getPurgingInterval(), TimeUnit.SECONDS));
+            return;
+        }
+        String key = dataProvider.getPurgingInterval() + ":" + purgingKey;
+        SharedPurge sharedPurge = sharedPurges.get(key);
+        if (sharedPurge == null) {
+            sharedPurge = new SharedPurge();
+            sharedPurges.put(key, sharedPurge);
+            sharedPurge.future = scheduler.scheduleAtFixedRate(dataProvider::purging, 0L,
+                    dataProvider.getPurgingInterval(), TimeUnit.SECONDS);
+        }
+        sharedPurge.subscribers.put(dataProvider, Boolean.TRUE);
+    }
+
+    /**
+     * Unsubscribe the data provider from its poll and purging. Shared polls and purging are stopped once the last
+     * data provider is unsubscribed.
+     *
+     * @param dataProvider data provider to be unsubscribed.
+     */
+    public synchronized void unsubscribe(AbstractDataProvider dataProvider) {
+        ScheduledFuture<?> future = providerPolls.remove(dataProvider);
+        if (future != null) {
+            future.cancel(false);
+        }
+        future = providerPurges.remove(dataProvider);
+        if (future != null) {
+            future.cancel(false);
+        }
+        sharedPolls.values().removeIf(sharedPoll -> {
+            if (sharedPoll.removeSubscriber(dataProvider) && sharedPoll.isEmpty()) {
+                sharedPoll.future.cancel(false);
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("Stopped shared poll '" + sharedPoll.key + "'.");
+                }
+                return true;
+            }
+            return false;
+        });
+        sharedPurges.values().removeIf(sharedPurge -> {
+            if (sharedPurge.subscribers.remove(dataProvider) != null && sharedPurge.subscribers.isEmpty()) {
+                sharedPurge.future.cancel(false);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Stop all the polls.
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Poll shared by the data providers subscribed with the same polling key and publishing interval. The data is
+     * fetched using the provider which started the poll, which is kept as the source of the poll even if it is
+     * unsubscribed later, so that the state of incremental polling is not lost.
+     */
+    private static class SharedPoll {
+        private final String key;
+        private final AbstractDataProvider source;
+        private final List<AbstractDataProvider> subscribers = new ArrayList<>();
+        private final List<AbstractDataProvider> pendingSubscribers = new ArrayList<>();
+        private ArrayList<Object[]> snapshot;
+        private ScheduledFuture<?> future;
+
+        SharedPoll(String key, AbstractDataProvider source) {
+            this.key = key;
+            this.source = source;
+        }
+
+        void poll() {
+            try {
+                ArrayList<Object[]> data = source.fetchData();
+                synchronized (this) {
+                    if (data != null) {
+                        snapshot = source.updateSnapshot(snapshot, data);
+                        for (AbstractDataProvider subscriber : subscribers) {
+                            subscriber.publishToEndPoint(data, subscriber.getSessionId(), subscriber.getTopic());
+                        }
+                    }
+                    publishSnapshot();
+                }
+            } catch (RuntimeException e) {
+                // an exception would suppress the subsequent executions of the poll
+                LOGGER.error("Error occurred while polling data for '" + key + "'. " + e.getMessage(), e);
+            }
+        }
+
+        synchronized void publishSnapshot() {
+            if (snapshot == null || pendingSubscribers.isEmpty()) {
+                return;
+            }
+            for (AbstractDataProvider subscriber : pendingSubscribers) {
+                subscriber.publishToEndPoint(snapshot, subscriber.getSessionId(), subscriber.getTopic());
+                subscribers.add(subscriber);
+            }
+            pendingSubscribers.clear();
+        }
+
+        synchronized void addSubscriber(AbstractDataProvider subscriber) {
+            pendingSubscribers.add(subscriber);
+        }
+
+        synchronized boolean removeSubscriber(AbstractDataProvider subscriber) {
+            return subscribers.removeIf(provider -> provider == subscriber)
+                    | pendingSubscribers.removeIf(provider -> provider == subscriber);
+        }
+
+        synchronized boolean isEmpty() {
+            return subscribers.isEmpty() && pendingSubscribers.isEmpty();
+        }
+    }
+
+    /**
+     * Purging shared by the data providers subscribed with the same purging key and purging interval.
+     */
+    private static class SharedPurge {
+        private final Map<AbstractDataProvider, Boolean> subscribers = new IdentityHashMap<>();
+        private ScheduledFuture<?> future;
+    }
+}
@@ -39,6 +39,7 @@ public class DataProviderValueHolder {
     private Map<String, Class> dataProviderClassMap = new ConcurrentHashMap<>();
     private Map<String, DataProviderAuthorizer> dataProviderAuthorizerClassMap = new ConcurrentHashMap<>();
     private IdPClient idpClient = null;
+    private DataProviderPollingEngine pollingEngine = new DataProviderPollingEngine();
 
     public static DataProviderValueHolder getDataProviderHelper() {
         return dataProviderHelper;
@@ -119,6 +120,10 @@ public class DataProviderValueHolder {
         }
     }
 
+    public DataProviderPollingEngine getPollingEngine() {
+        return pollingEngine;
+    }
+
     public IdPClient getIdpClient() {
         return idpClient;
     }
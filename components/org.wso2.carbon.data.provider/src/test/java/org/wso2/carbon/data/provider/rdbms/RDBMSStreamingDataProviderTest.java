@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.data.provider.rdbms;
+
+import com.google.gson.Gson;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.data.provider.rdbms.config.RDBMSDataProviderConf;
+
+import java.util.ArrayList;
+
+/**
+ * Tests the snapshot of the polls shared by the RDBMS streaming data providers.
+ */
+public class RDBMSStreamingDataProviderTest {
+
+    @Test
+    public void testFirstFetchIsSnapshot() {
+        RDBMSStreamingDataProvider dataProvider = createDataProvider(3);
+        ArrayList<Object[]> data = rows(5.0, 4.0, 3.0);
+        Assert.assertSame(dataProvider.updateSnapshot(null, data), data);
+    }
+
+    @Test
+    public void testSnapshotRespectsPublishingLimit() {
+        RDBMSStreamingDataProvider dataProvider = createDataProvider(3);
+        ArrayList<Object[]> snapshot = rows(3.0, 2.0, 1.0);
+        ArrayList<Object[]> updatedSnapshot = dataProvider.updateSnapshot(snapshot, rows(5.0, 4.0));
+        assertRows(updatedSnapshot, 5.0, 4.0, 3.0);
+        updatedSnapshot = dataProvider.updateSnapshot(updatedSnapshot, rows(6.0));
+        assertRows(updatedSnapshot, 6.0, 5.0, 4.0);
+        assertRows(snapshot, 3.0, 2.0, 1.0);
+    }
+
+    @Test
+    public void testSnapshotBelowPublishingLimit() {
+        RDBMSStreamingDataProvider dataProvider = createDataProvider(30);
+        ArrayList<Object[]> updatedSnapshot = dataProvider.updateSnapshot(rows(2.0, 1.0), rows(4.0, 3.0));
+        assertRows(updatedSnapshot, 4.0, 3.0, 2.0, 1.0);
+    }
+
+    private RDBMSStreamingDataProvider createDataProvider(long publishingLimit) {
+        RDBMSStreamingDataProvider dataProvider = new RDBMSStreamingDataProvider();
+        dataProvider.setProviderConfig(new Gson().fromJson("{\"publishingLimit\":" + publishingLimit + "}",
+                RDBMSDataProviderConf.class));
+        return dataProvider;
+    }
+
+    private ArrayList<Object[]> rows(double... values) {
+        ArrayList<Object[]> rows = new ArrayList<>();
+        for (double value : values) {
+            rows.add(new Object[]{value});
+        }
+        return rows;
+    }
+
+    private void assertRows(ArrayList<Object[]> rows, double... values) {
+        Assert.assertEquals(rows.size(), values.length);
+        for (int i = 0; i < values.length; i++) {
+            Assert.assertEquals(rows.get(i)[0], values[i]);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.data.provider.utils;
+
+import com.google.gson.JsonElement;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.data.provider.AbstractDataProvider;
+import org.wso2.carbon.data.provider.DataProvider;
+import org.wso2.carbon.data.provider.ProviderConfig;
+import org.wso2.carbon.data.provider.bean.DataSetMetadata;
+import org.wso2.carbon.data.provider.exception.DataProviderException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests the sharing of polls between the data providers subscribed to the polling engine.
+ */
+public class DataProviderPollingEngineTest {
+    private static final String POLLING_KEY = "TestPollingKey";
+    private static final long PUBLISH_TIMEOUT = 5;
+    private DataProviderPollingEngine pollingEngine;
+
+    @BeforeMethod
+    public void init() {
+        pollingEngine = new DataProviderPollingEngine(2);
+    }
+
+    @AfterMethod
+    public void shutdown() {
+        pollingEngine.shutdown();
+    }
+
+    @Test
+    public void testSubscribersShareOneFetch() throws Exception {
+        // the first poll runs right away and the next poll is not due within the test
+        PolledDataProvider first = new PolledDataProvider("first", 60);
+        PolledDataProvider second = new PolledDataProvider("second", 60);
+        pollingEngine.subscribe(first);
+        pollingEngine.subscribe(second);
+        first.awaitPublish();
+        second.awaitPublish();
+        Assert.assertEquals(first.fetchCount.get(), 1);
+        Assert.assertEquals(second.fetchCount.get(), 0, "Data is fetched once per poll, by the first subscriber");
+        Assert.assertEquals(first.getPublishedData(), Collections.singletonList(1));
+        Assert.assertEquals(second.getPublishedData(), Collections.singletonList(1));
+    }
+
+    @Test
+    public void testLateSubscriberReceivesSnapshot() throws Exception {
+        PolledDataProvider first = new PolledDataProvider("first", 60);
+        pollingEngine.subscribe(first);
+        first.awaitPublish();
+        PolledDataProvider late = new PolledDataProvider("late", 60);
+        pollingEngine.subscribe(late);
+        late.awaitPublish();
+        Assert.assertEquals(late.getPublishedData(), Collections.singletonList(1),
+                "The late subscriber did not receive the data fetched before it subscribed");
+        Assert.assertEquals(first.fetchCount.get(), 1, "Subscribing to a running poll fetched the data again");
+        Assert.assertEquals(late.fetchCount.get(), 0);
+        Assert.assertEquals(first.getPublishedData(), Collections.singletonList(1),
+                "The snapshot is published again to the existing subscriber");
+    }
+
+    @Test
+    public void testPollStopsAfterLastUnsubscribe() throws Exception {
+        PolledDataProvider first = new PolledDataProvider("first", 1);
+        PolledDataProvider second = new PolledDataProvider("second", 1);
+        pollingEngine.subscribe(first);
+        pollingEngine.subscribe(second);
+        first.awaitPublish();
+        second.awaitPublish();
+
+        // the poll keeps fetching through the first subscriber as long as another provider is subscribed
+        pollingEngine.unsubscribe(first);
+        second.awaitPublish();
+        Assert.assertTrue(first.fetchCount.get() >= 2);
+
+        pollingEngine.unsubscribe(second);
+        // allow a poll running at the time of unsubscribing to complete
+        Thread.sleep(200);
+        int fetchCount = first.fetchCount.get();
+        int publishCount = second.getPublishedData().size();
+        Thread.sleep(2500);
+        Assert.assertEquals(first.fetchCount.get(), fetchCount, "The poll is not stopped");
+        Assert.assertEquals(second.getPublishedData().size(), publishCount);
+    }
+
+    /**
+     * Data provider which fetches a row containing the number of times it has fetched data, and records the data
+     * published to it instead of sending it to a session.
+     */
+    private static class PolledDataProvider extends AbstractDataProvider {
+        private final AtomicInteger fetchCount = new AtomicInteger();
+        private final List<Object> publishedData = new ArrayList<>();
+        private final Semaphore publishes = new Semaphore(0);
+
+        PolledDataProvider(String sessionId, long publishingInterval) throws DataProviderException {
+            init("TestTopic", sessionId, new ProviderConfig() {
+                @Override
+                public long getPublishingInterval() {
+                    return publishingInterval;
+                }
+
+                @Override
+                public long getPurgingInterval() {
+                    return 0;
+                }
+
+                @Override
+                public boolean isPurgingEnable() {
+                    return false;
+                }
+
+                @Override
+                public boolean isPaginationEnabled() {
+                    return false;
+                }
+            });
+        }
+
+        void awaitPublish() throws InterruptedException {
+            Assert.assertTrue(publishes.tryAcquire(PUBLISH_TIMEOUT, TimeUnit.SECONDS),
+                    "No data is published to '" + getSessionId() + "'");
+        }
+
+        synchronized List<Object> getPublishedData() {
+            return new ArrayList<>(publishedData);
+        }
+
+        @Override
+        public String getPollingKey() {
+            return POLLING_KEY;
+        }
+
+        @Override
+        public ArrayList<Object[]> fetchData() {
+            ArrayList<Object[]> data = new ArrayList<>();
+            data.add(new Object[]{fetchCount.incrementAndGet()});
+            return data;
+        }
+
+        @Override
+        public void publishToEndPoint(ArrayList<Object[]> data, String sessionId, String topic) {
+            synchronized (this) {
+                for (Object[] row : data) {
+                    publishedData.add(row[0]);
+                }
+            }
+            publishes.release();
+        }
+
+        @Override
+        public boolean configValidator(ProviderConfig providerConfig) {
+            return true;
+        }
+
+        @Override
+        public void publish(String topic, String sessionId) {
+        }
+
+        @Override
+        public void purging() {
+        }
+
+        @Override
+        public void setProviderConfig(ProviderConfig providerConfig) {
+        }
+
+        @Override
+        public DataSetMetadata getMetadata() {
+            return null;
+        }
+
+        @Override
+        public DataProvider init(String topic, String sessionId, JsonElement jsonElement) {
+            return this;
+        }
+
+        @Override
+        public String providerName() {
+            return "TestDataProvider";
+        }
+
+        @Override
+        public DataSetMetadata dataSetMetadata() {
+            return null;
+        }
+
+        @Override
+        public String providerConfig() {
+            return null;
+        }
+    }
+}
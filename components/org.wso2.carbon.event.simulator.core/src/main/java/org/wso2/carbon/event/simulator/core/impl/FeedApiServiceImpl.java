@@ -33,6 +33,7 @@ import org.wso2.carbon.event.simulator.core.service.EventSimulatorDataHolder;
 import org.wso2.carbon.event.simulator.core.service.EventSimulatorMap;
 import org.wso2.carbon.event.simulator.core.service.bean.ActiveSimulatorData;
 import org.wso2.carbon.event.simulator.core.service.bean.ResourceDependencyData;
+import org.wso2.carbon.event.simulator.core.service.bean.SimulationStatusResponseMapper;
 import org.wso2.carbon.streaming.integrator.common.exception.ResourceNotFoundException;
 import org.wso2.carbon.streaming.integrator.common.exception.ResponseMapper;
 import org.wso2.carbon.utils.Utils;
@@ -338,7 +339,8 @@ public class FeedApiServiceImpl extends FeedApiService {
             EventSimulator eventSimulator = activeSimulatorData.getEventSimulator();
             return Response.ok()
                     .header("Access-Control-Allow-Origin", "*")
-                    .entity(new ResponseMapper(Response.Status.OK, eventSimulator.getStatus().name()))
+                    .entity(new SimulationStatusResponseMapper(Response.Status.OK, eventSimulator.getStatus().name(),
+                                                               eventSimulator.getStatistics()))
                     .build();
         } else {
             return Response.status(Response.Status.NOT_FOUND)
@@ -18,6 +18,8 @@
 
 package org.wso2.carbon.event.simulator.core.internal.bean;
 
+import org.wso2.carbon.event.simulator.core.internal.util.EventSimulatorConstants;
+
 import java.util.List;
 
 /**
@@ -31,6 +33,9 @@ public class DBSimulationDTO extends StreamConfigurationDTO {
     private String password;
     private String tableName;
     private List<String> columnNames;
+    private int fetchSize = EventSimulatorConstants.DEFAULT_FETCH_SIZE;
+    private int pageSize = EventSimulatorConstants.DEFAULT_PAGE_SIZE;
+    private int prefetchSize = EventSimulatorConstants.DEFAULT_PREFETCH_SIZE;
 
 
     public DBSimulationDTO() {
@@ -85,6 +90,30 @@ public class DBSimulationDTO extends StreamConfigurationDTO {
         this.columnNames = columns;
     }
 
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    public int getPrefetchSize() {
+        return prefetchSize;
+    }
+
+    public void setPrefetchSize(int prefetchSize) {
+        this.prefetchSize = prefetchSize;
+    }
+
     @Override
     public String toString() {
         return getStreamConfiguration() +
@@ -93,6 +122,9 @@ public class DBSimulationDTO extends StreamConfigurationDTO {
                 "\n username : " + username +
                 "\n password : " + password +
                 "\n tableName : " + tableName +
-                "\n columnNames : " + columnNames + "\n";
+                "\n columnNames : " + columnNames +
+                "\n fetchSize : " + fetchSize +
+                "\n pageSize : " + pageSize +
+                "\n prefetchSize : " + prefetchSize + "\n";
     }
 }
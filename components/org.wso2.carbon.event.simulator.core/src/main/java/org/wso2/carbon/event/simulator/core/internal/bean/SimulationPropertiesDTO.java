@@ -30,6 +30,8 @@ public class SimulationPropertiesDTO {
     private int noOfEventsRequired;
     private long startTimestamp;
     private long endTimestamp;
+    private long eventsPerSecond;
+    private int batchSize = 1;
 
     public String getSimulationName() {
         return simulationName;
@@ -79,4 +81,24 @@ public class SimulationPropertiesDTO {
         this.endTimestamp = endTimestamp;
     }
 
+    /**
+     * @return target number of events to be sent per second, -1 if events are to be sent as fast as possible, or 0
+     * if events are to be sent at the time interval
+     */
+    public long getEventsPerSecond() {
+        return eventsPerSecond;
+    }
+
+    public void setEventsPerSecond(long eventsPerSecond) {
+        this.eventsPerSecond = eventsPerSecond;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
 }
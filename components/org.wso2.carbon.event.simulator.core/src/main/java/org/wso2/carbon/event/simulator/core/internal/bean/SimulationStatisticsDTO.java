@@ -0,0 +1,72 @@
+/*
+ * Copyright (c)  2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.internal.bean;
+
+/**
+ * SimulationStatisticsDTO holds the throughput and the batch latency achieved by a simulation running in throughput
+ * mode.
+ */
+public class SimulationStatisticsDTO {
+
+    private long eventsSent;
+    private long batchesSent;
+    private double throughput;
+    private double averageBatchLatency;
+    private double maxBatchLatency;
+
+    public long getEventsSent() {
+        return eventsSent;
+    }
+
+    public void setEventsSent(long eventsSent) {
+        this.eventsSent = eventsSent;
+    }
+
+    public long getBatchesSent() {
+        return batchesSent;
+    }
+
+    public void setBatchesSent(long batchesSent) {
+        this.batchesSent = batchesSent;
+    }
+
+    public double getThroughput() {
+        return throughput;
+    }
+
+    public void setThroughput(double throughput) {
+        this.throughput = throughput;
+    }
+
+    public double getAverageBatchLatency() {
+        return averageBatchLatency;
+    }
+
+    public void setAverageBatchLatency(double averageBatchLatency) {
+        this.averageBatchLatency = averageBatchLatency;
+    }
+
+    public double getMaxBatchLatency() {
+        return maxBatchLatency;
+    }
+
+    public void setMaxBatchLatency(double maxBatchLatency) {
+        this.maxBatchLatency = maxBatchLatency;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.internal.generator;
+
+import io.siddhi.core.event.Event;
+
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * EventGeneratorMerger merges the events of the event generators of a simulation in the order of their timestamps.
+ * The generators having events left are kept in a priority queue keyed on the timestamp of their next event, hence
+ * finding the next event takes O(log k) time for k generators. Generators with events having the same timestamp are
+ * ordered as they are in the simulation configuration.
+ */
+public class EventGeneratorMerger {
+    private final List<EventGenerator> generators;
+    private final PriorityQueue<GeneratorHead> generatorHeads;
+
+    public EventGeneratorMerger(List<EventGenerator> generators) {
+        this.generators = generators;
+        this.generatorHeads = new PriorityQueue<>(Math.max(1, generators.size()));
+        reset();
+    }
+
+    /**
+     * reset() rebuilds the queue from the next events of the generators, which is required once the timestamps of
+     * those events are changed, as it happens when the generators are resumed
+     */
+    public void reset() {
+        generatorHeads.clear();
+        for (int i = 0; i < generators.size(); i++) {
+            Event nextEvent = generators.get(i).peek();
+            if (nextEvent != null) {
+                generatorHeads.add(new GeneratorHead(generators.get(i), i, nextEvent.getTimestamp()));
+            }
+        }
+    }
+
+    /**
+     * peek() returns the generator having the next event with the least timestamp
+     *
+     * @return generator of the next event, or null if none of the generators has events left
+     */
+    public EventGenerator peek() {
+        GeneratorHead generatorHead = generatorHeads.peek();
+        return generatorHead == null ? null : generatorHead.generator;
+    }
+
+    /**
+     * poll() returns the event with the least timestamp out of the next events of the generators
+     *
+     * @return the next event, or null if none of the generators has events left
+     */
+    public Event poll() {
+        GeneratorHead generatorHead = generatorHeads.poll();
+        if (generatorHead == null) {
+            return null;
+        }
+        Event event = generatorHead.generator.poll();
+        Event nextEvent = generatorHead.generator.peek();
+        if (nextEvent != null) {
+            generatorHead.timestamp = nextEvent.getTimestamp();
+            generatorHeads.add(generatorHead);
+        }
+        return event;
+    }
+
+    private static class GeneratorHead implements Comparable<GeneratorHead> {
+        private final EventGenerator generator;
+        private final int order;
+        private long timestamp;
+
+        GeneratorHead(EventGenerator generator, int order, long timestamp) {
+            this.generator = generator;
+            this.order = order;
+            this.timestamp = timestamp;
+        }
+
+        @Override
+        public int compareTo(GeneratorHead generatorHead) {
+            int comparison = Long.compare(timestamp, generatorHead.timestamp);
+            return comparison != 0 ? comparison : Integer.compare(order, generatorHead.order);
+        }
+    }
+}
@@ -0,0 +1,367 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.internal.generator.csv.util;
+
+import io.siddhi.core.event.Event;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.event.simulator.core.exception.EventGenerationException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * CSVEventSorter sorts the events of a CSV file which is not ordered by timestamp, without holding all of them in
+ * memory. Events are buffered till the run size is reached, and each full buffer is sorted and spilled to a run file
+ * in a temporary directory. Once all the events are added, the runs are merged back in timestamp order as the events
+ * are read. As each run being merged holds an open file, runs beyond the maximum fan-in are first merged into fewer,
+ * longer runs, in as many passes as needed. Events having the same timestamp are read in the order they were added.
+ * If all the events fit in a single run, they are sorted and read in memory without using any files.
+ */
+public class CSVEventSorter implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(CSVEventSorter.class);
+    private static final Comparator<Event> TIMESTAMP_ORDER = Comparator.comparingLong(Event::getTimestamp);
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_INT = 1;
+    private static final byte TYPE_LONG = 2;
+    private static final byte TYPE_FLOAT = 3;
+    private static final byte TYPE_DOUBLE = 4;
+    private static final byte TYPE_STRING = 5;
+    private static final byte TYPE_BOOL = 6;
+    private final String fileName;
+    private final int runSize;
+    private final int maxFanIn;
+    private int runCount = 0;
+    private List<Event> buffer = new ArrayList<>();
+    private boolean sortedInMemory = false;
+    private int bufferPosition = 0;
+    private File runDirectory;
+    private List<File> runFiles = new ArrayList<>();
+    private final PriorityQueue<RunReader> runReaders = new PriorityQueue<>();
+
+    /**
+     * @param fileName name of the CSV file being sorted
+     * @param runSize  maximum number of events sorted in memory at once
+     * @param maxFanIn maximum number of sorted runs merged at once
+     */
+    public CSVEventSorter(String fileName, int runSize, int maxFanIn) {
+        this.fileName = fileName;
+        this.runSize = Math.max(1, runSize);
+        this.maxFanIn = Math.max(2, maxFanIn);
+    }
+
+    /**
+     * add() adds an event read from the CSV file, spilling the buffered events to a run file once the run size is
+     * reached
+     *
+     * @param event event read from the CSV file
+     * @throws IOException if the run file cannot be written
+     */
+    public void add(Event event) throws IOException {
+        buffer.add(event);
+        if (buffer.size() >= runSize) {
+            spill();
+        }
+    }
+
+    /**
+     * sort() is called once all the events are added, to begin reading the events in timestamp order
+     *
+     * @throws IOException if the run files cannot be written or opened
+     */
+    public void sort() throws IOException {
+        if (runFiles.isEmpty()) {
+            buffer.sort(TIMESTAMP_ORDER);
+            sortedInMemory = true;
+        } else {
+            if (!buffer.isEmpty()) {
+                spill();
+            }
+            buffer = null;
+            while (runFiles.size() > maxFanIn) {
+                mergePass();
+            }
+            openRuns(runFiles, runReaders);
+            if (log.isDebugEnabled()) {
+                log.debug("Merge " + runFiles.size() + " sorted runs of CSV file '" + fileName + "'.");
+            }
+        }
+    }
+
+    /**
+     * next() returns the event with the next least timestamp
+     *
+     * @return next event, or null if all the events are read
+     */
+    public Event next() {
+        if (sortedInMemory) {
+            if (buffer != null && bufferPosition < buffer.size()) {
+                // release the events read so far
+                return buffer.set(bufferPosition++, null);
+            }
+            return null;
+        }
+        RunReader runReader = runReaders.poll();
+        if (runReader == null) {
+            return null;
+        }
+        Event event = runReader.head;
+        try {
+            if (runReader.advance()) {
+                runReaders.add(runReader);
+            } else {
+                runReader.close();
+            }
+        } catch (IOException e) {
+            throw new EventGenerationException("Error occurred when reading the sorted events of CSV file '" +
+                    fileName + "'.", e);
+        }
+        return event;
+    }
+
+    /**
+     * close() releases the run files used to sort the events
+     */
+    @Override
+    public void close() {
+        for (RunReader runReader : runReaders) {
+            runReader.close();
+        }
+        runReaders.clear();
+        buffer = null;
+        if (runDirectory != null) {
+            try {
+                FileUtils.deleteDirectory(runDirectory);
+            } catch (IOException e) {
+                log.error("Error occurred when deleting the sorted runs of CSV file '" + fileName + "' in '" +
+                        runDirectory + "'.", e);
+            }
+            runDirectory = null;
+        }
+    }
+
+    /**
+     * mergePass() merges each group of up to the maximum fan-in consecutive runs into a single run. Consecutive runs
+     * are merged so that the merged runs keep the order of the events having the same timestamp.
+     */
+    private void mergePass() throws IOException {
+        List<File> mergedRunFiles = new ArrayList<>((runFiles.size() + maxFanIn - 1) / maxFanIn);
+        for (int i = 0; i < runFiles.size(); i += maxFanIn) {
+            List<File> group = runFiles.subList(i, Math.min(i + maxFanIn, runFiles.size()));
+            mergedRunFiles.add(group.size() == 1 ? group.get(0) : merge(group));
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Merged " + runFiles.size() + " sorted runs of CSV file '" + fileName + "' into " +
+                    mergedRunFiles.size() + " runs.");
+        }
+        runFiles = mergedRunFiles;
+    }
+
+    private File merge(List<File> group) throws IOException {
+        PriorityQueue<RunReader> groupReaders = new PriorityQueue<>(group.size());
+        File mergedRunFile = new File(runDirectory, "run-" + runCount++);
+        try {
+            int noOfEvents = openRuns(group, groupReaders);
+            try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(mergedRunFile)))) {
+                outputStream.writeInt(noOfEvents);
+                RunReader runReader;
+                while ((runReader = groupReaders.poll()) != null) {
+                    writeEvent(outputStream, runReader.head);
+                    if (runReader.advance()) {
+                        groupReaders.add(runReader);
+                    } else {
+                        runReader.close();
+                    }
+                }
+            }
+        } finally {
+            for (RunReader runReader : groupReaders) {
+                runReader.close();
+            }
+        }
+        for (File runFile : group) {
+            if (!runFile.delete()) {
+                log.warn("Could not delete the merged run '" + runFile + "' of CSV file '" + fileName + "'.");
+            }
+        }
+        return mergedRunFile;
+    }
+
+    /**
+     * openRuns() opens the given runs and adds the runs having events to the given queue
+     *
+     * @return number of events in the runs
+     */
+    private int openRuns(List<File> runs, PriorityQueue<RunReader> readers) throws IOException {
+        int noOfEvents = 0;
+        for (int i = 0; i < runs.size(); i++) {
+            RunReader runReader = new RunReader(runs.get(i), i);
+            noOfEvents += runReader.eventsRemaining;
+            if (runReader.advance()) {
+                readers.add(runReader);
+            } else {
+                runReader.close();
+            }
+        }
+        return noOfEvents;
+    }
+
+    private void spill() throws IOException {
+        if (runDirectory == null) {
+            runDirectory = Files.createTempDirectory("csv-simulation-").toFile();
+        }
+        buffer.sort(TIMESTAMP_ORDER);
+        File runFile = new File(runDirectory, "run-" + runCount++);
+        try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(runFile)))) {
+            outputStream.writeInt(buffer.size());
+            for (Event event : buffer) {
+                writeEvent(outputStream, event);
+            }
+        }
+        runFiles.add(runFile);
+        if (log.isDebugEnabled()) {
+            log.debug("Spill a sorted run of " + buffer.size() + " events of CSV file '" + fileName + "' to '" +
+                    runFile + "'.");
+        }
+        buffer.clear();
+    }
+
+    private static void writeEvent(DataOutputStream outputStream, Event event) throws IOException {
+        outputStream.writeLong(event.getTimestamp());
+        Object[] data = event.getData();
+        outputStream.writeInt(data.length);
+        for (Object value : data) {
+            if (value == null) {
+                outputStream.writeByte(TYPE_NULL);
+            } else if (value instanceof Integer) {
+                outputStream.writeByte(TYPE_INT);
+                outputStream.writeInt((Integer) value);
+            } else if (value instanceof Long) {
+                outputStream.writeByte(TYPE_LONG);
+                outputStream.writeLong((Long) value);
+            } else if (value instanceof Float) {
+                outputStream.writeByte(TYPE_FLOAT);
+                outputStream.writeFloat((Float) value);
+            } else if (value instanceof Double) {
+                outputStream.writeByte(TYPE_DOUBLE);
+                outputStream.writeDouble((Double) value);
+            } else if (value instanceof Boolean) {
+                outputStream.writeByte(TYPE_BOOL);
+                outputStream.writeBoolean((Boolean) value);
+            } else {
+                byte[] bytes = String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+                outputStream.writeByte(TYPE_STRING);
+                outputStream.writeInt(bytes.length);
+                outputStream.write(bytes);
+            }
+        }
+    }
+
+    private static Event readEvent(DataInputStream inputStream) throws IOException {
+        long timestamp = inputStream.readLong();
+        Object[] data = new Object[inputStream.readInt()];
+        for (int i = 0; i < data.length; i++) {
+            byte type = inputStream.readByte();
+            switch (type) {
+                case TYPE_NULL:
+                    break;
+                case TYPE_INT:
+                    data[i] = inputStream.readInt();
+                    break;
+                case TYPE_LONG:
+                    data[i] = inputStream.readLong();
+                    break;
+                case TYPE_FLOAT:
+                    data[i] = inputStream.readFloat();
+                    break;
+                case TYPE_DOUBLE:
+                    data[i] = inputStream.readDouble();
+                    break;
+                case TYPE_BOOL:
+                    data[i] = inputStream.readBoolean();
+                    break;
+                case TYPE_STRING:
+                    byte[] bytes = new byte[inputStream.readInt()];
+                    inputStream.readFully(bytes);
+                    data[i] = new String(bytes, StandardCharsets.UTF_8);
+                    break;
+                default:
+                    throw new IOException("Invalid attribute type '" + type + "' in sorted run.");
+            }
+        }
+        return new Event(timestamp, data);
+    }
+
+    /**
+     * RunReader reads the events of a sorted run, and is ordered by the timestamp of its next event. Runs with the
+     * same next timestamp are ordered as they were spilled, keeping the events in the order they were added.
+     */
+    private class RunReader implements Comparable<RunReader> {
+        private final DataInputStream inputStream;
+        private final int run;
+        private int eventsRemaining;
+        private Event head;
+
+        RunReader(File runFile, int run) throws IOException {
+            this.inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(runFile)));
+            this.run = run;
+            this.eventsRemaining = inputStream.readInt();
+        }
+
+        boolean advance() throws IOException {
+            if (eventsRemaining == 0) {
+                head = null;
+                return false;
+            }
+            head = readEvent(inputStream);
+            eventsRemaining--;
+            return true;
+        }
+
+        void close() {
+            try {
+                inputStream.close();
+            } catch (IOException e) {
+                log.error("Error occurred when closing a sorted run of CSV file '" + fileName + "'.", e);
+            }
+        }
+
+        @Override
+        public int compareTo(RunReader runReader) {
+            int comparison = Long.compare(head.getTimestamp(), runReader.head.getTimestamp());
+            return comparison != 0 ? comparison : Integer.compare(run, runReader.run);
+        }
+    }
+}
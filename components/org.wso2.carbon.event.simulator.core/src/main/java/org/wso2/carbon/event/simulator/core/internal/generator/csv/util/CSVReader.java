@@ -27,6 +27,7 @@ import org.wso2.carbon.event.simulator.core.exception.EventGenerationException;
 import org.wso2.carbon.event.simulator.core.exception.SimulatorInitializationException;
 import org.wso2.carbon.event.simulator.core.internal.bean.CSVSimulationDTO;
 import org.wso2.carbon.event.simulator.core.internal.util.EventConverter;
+import org.wso2.carbon.event.simulator.core.internal.util.EventSimulatorConstants;
 import org.wso2.carbon.event.simulator.core.service.EventSimulatorDataHolder;
 import org.wso2.carbon.streaming.integrator.common.exception.ResourceNotFoundException;
 import io.siddhi.core.event.Event;
@@ -42,9 +43,7 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
-import java.util.TreeMap;
 
 
 /**
@@ -191,25 +190,30 @@ public class CSVReader {
 
 
     /**
-     * If the CSV is not ordered by timestamp, getEventsMap() method is used to create a treeMap of events.
+     * If the CSV is not ordered by timestamp, getSortedEvents() method is used to sort the events of the CSV file.
      *
      * @param csvConfig        configuration of csv simulation
      * @param streamAttributes list of attributes of the stream to which events are produced
      * @param startTimestamp   start timestamp of event simulation
      * @param endTimestamp     end timestamp of event simulation
-     * @return treeMap of events
+     * @return events sorted by timestamp
      */
-    public TreeMap<Long, ArrayList<Event>> getEventsMap(CSVSimulationDTO csvConfig, List<Attribute> streamAttributes,
-                                                        long startTimestamp, long endTimestamp) {
+    public CSVEventSorter getSortedEvents(CSVSimulationDTO csvConfig, List<Attribute> streamAttributes,
+                                          long startTimestamp, long endTimestamp) {
+        CSVEventSorter eventSorter = new CSVEventSorter(csvConfig.getFileName(), Integer.getInteger(
+                EventSimulatorConstants.CSV_SORT_RUN_SIZE, EventSimulatorConstants.DEFAULT_CSV_SORT_RUN_SIZE),
+                Integer.getInteger(EventSimulatorConstants.CSV_SORT_MERGE_FAN_IN,
+                        EventSimulatorConstants.DEFAULT_CSV_SORT_MERGE_FAN_IN));
         try {
             csvParser = parseFile(csvConfig.getDelimiter());
-            return createEventsMap(csvConfig, streamAttributes, startTimestamp,
-                    endTimestamp);
+            sortEvents(eventSorter, csvConfig, streamAttributes, startTimestamp, endTimestamp);
+            return eventSorter;
         } catch (IOException e) {
-            log.error("Error occurred when initializing CSVParser for CSV file '" + csvConfig.getFileName() + "' to " +
+            eventSorter.close();
+            log.error("Error occurred when sorting events of CSV file '" + csvConfig.getFileName() + "' to " +
                     "simulate stream '" + csvConfig.getStreamName() + "' using source configuration : " +
                     csvConfig.toString(), e);
-            throw new EventGenerationException("Error occurred when initializing CSVParser for CSV file '" +
+            throw new EventGenerationException("Error occurred when sorting events of CSV file '" +
                     csvConfig.getFileName() + "' to simulate stream '" + csvConfig.getStreamName() + "' using source " +
                     "configuration : " + csvConfig.toString(), e);
         } finally {
@@ -239,20 +243,18 @@ public class CSVReader {
 
 
     /**
-     * createEventsMap() methods creates a treeMap of events using the data in the CSV file.
-     * The key of the treeMap will be the event timestamp and the value will be an array list of events belonging to
-     * the timestamp.
+     * sortEvents() method adds the events created using the data in the CSV file to the event sorter, and sorts them.
      *
+     * @param eventSorter      sorter to which the events are added
      * @param csvConfig        configuration of csv simulation
      * @param streamAttributes list of attributes of the stream to which events are produced
      * @param startTimestamp   start timestamp of event simulation
      * @param endTimestamp     end timestamp of event simulation
-     * @return a treeMap of events
+     * @throws IOException if the events cannot be sorted
      */
-    private TreeMap<Long, ArrayList<Event>> createEventsMap(CSVSimulationDTO csvConfig,
-                                                            List<Attribute> streamAttributes,
-                                                            long startTimestamp, long endTimestamp) {
-        TreeMap<Long, ArrayList<Event>> eventsMap = new TreeMap<>();
+    private void sortEvents(CSVEventSorter eventSorter, CSVSimulationDTO csvConfig,
+                            List<Attribute> streamAttributes, long startTimestamp, long endTimestamp)
+            throws IOException {
         int timestampPosition = Integer.parseInt(csvConfig.getTimestampAttribute());
         long lineNumber;
         long timestamp;
@@ -285,11 +287,7 @@ public class CSVReader {
                                         csvConfig.toString() + "Drop event and create next event.", e);
                                 continue;
                             }
-                            if (!eventsMap.containsKey(timestamp)) {
-                                eventsMap.put(timestamp, new ArrayList<>(Collections.singletonList(event)));
-                            } else {
-                                eventsMap.get(timestamp).add(event);
-                            }
+                            eventSorter.add(event);
                         }
                     }
                 } catch (NumberFormatException e) {
@@ -303,11 +301,11 @@ public class CSVReader {
                 }
             }
         }
+        eventSorter.sort();
         if (log.isDebugEnabled()) {
-            log.debug("Create an ordered events map from CSV file '" + csvConfig.getFileName() + "' to simulate " +
-                    "stream '" + csvConfig.getStreamName() + "'.");
+            log.debug("Sort events of CSV file '" + csvConfig.getFileName() + "' to simulate stream '" +
+                    csvConfig.getStreamName() + "'.");
         }
-        return eventsMap;
     }
 
 
@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.internal.generator.database.core;
+
+import io.siddhi.core.event.Event;
+import io.siddhi.query.api.definition.Attribute;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.event.simulator.core.exception.EventGenerationException;
+import org.wso2.carbon.event.simulator.core.internal.bean.DBSimulationDTO;
+import org.wso2.carbon.event.simulator.core.internal.generator.database.util.DatabaseConnector;
+import org.wso2.carbon.event.simulator.core.internal.generator.database.util.DatabaseConnector.PageBoundary;
+import org.wso2.carbon.event.simulator.core.internal.util.EventConverter;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DatabaseEventPrefetcher reads the events of a database simulation on a background thread into a bounded queue, so
+ * that the simulation does not wait on the database for each event.
+ * If a timestamp attribute is specified, the table is read in pages ordered by timestamp, each page starting from
+ * the last timestamp of the previous page. The events having the last timestamp of a full page are read again with
+ * the next page, hence events having the same timestamp are never split across pages. If all the events of a full
+ * page have the same timestamp, all the events having that timestamp are read at once.
+ * If a timestamp attribute is not specified, the table is read using a single query.
+ */
+public class DatabaseEventPrefetcher implements Runnable {
+    private static final Logger log = LoggerFactory.getLogger(DatabaseEventPrefetcher.class);
+    private static final Event END_OF_EVENTS = new Event();
+    private static final long STOP_TIMEOUT = TimeUnit.SECONDS.toMillis(5);
+    private final DBSimulationDTO dbSimulationConfig;
+    private final DatabaseConnector databaseConnection;
+    private final List<Attribute> streamAttributes;
+    private final long startTimestamp;
+    private final long endTimestamp;
+    private final BlockingQueue<Event> events;
+    private volatile RuntimeException failure;
+    private volatile boolean stopped = false;
+    private boolean finished = false;
+    private Thread prefetchThread;
+
+    /**
+     * @param dbSimulationConfig database simulation configuration
+     * @param databaseConnection connector connected to the database of the simulation
+     * @param streamAttributes   attributes of the stream being simulated
+     * @param startTimestamp     least possible value for timestamp
+     * @param endTimestamp       maximum possible value for timestamp, or -1 if there is no upper bound
+     */
+    public DatabaseEventPrefetcher(DBSimulationDTO dbSimulationConfig, DatabaseConnector databaseConnection,
+                                   List<Attribute> streamAttributes, long startTimestamp, long endTimestamp) {
+        this.dbSimulationConfig = dbSimulationConfig;
+        this.databaseConnection = databaseConnection;
+        this.streamAttributes = streamAttributes;
+        this.startTimestamp = startTimestamp;
+        this.endTimestamp = endTimestamp;
+        this.events = new ArrayBlockingQueue<>(Math.max(1, dbSimulationConfig.getPrefetchSize()));
+    }
+
+    /**
+     * start() starts reading events on the background thread
+     */
+    public void start() {
+        prefetchThread = new Thread(this, "database-simulation-" + dbSimulationConfig.getStreamName());
+        prefetchThread.setDaemon(true);
+        prefetchThread.start();
+    }
+
+    /**
+     * take() returns the next event read from the database, waiting till it is read if required
+     *
+     * @return next event, or null if all the events are read
+     * @throws EventGenerationException if an error occurred when reading the events
+     */
+    public Event take() {
+        if (finished) {
+            return null;
+        }
+        Event event;
+        try {
+            event = events.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EventGenerationException("Interrupted when waiting for events to be read from database '" +
+                    dbSimulationConfig.getDataSourceLocation() + "' to simulate stream '" +
+                    dbSimulationConfig.getStreamName() + "'.", e);
+        }
+        if (event == END_OF_EVENTS) {
+            finished = true;
+            if (failure != null) {
+                throw new EventGenerationException("Error occurred when reading events from database '" +
+                        dbSimulationConfig.getDataSourceLocation() + "' to simulate stream '" +
+                        dbSimulationConfig.getStreamName() + "' using source configuration " +
+                        dbSimulationConfig.toString(), failure);
+            }
+            return null;
+        }
+        return event;
+    }
+
+    /**
+     * stop() stops reading events and waits for the background thread to release the database connection
+     */
+    public void stop() {
+        stopped = true;
+        if (prefetchThread != null) {
+            prefetchThread.interrupt();
+            try {
+                prefetchThread.join(STOP_TIMEOUT);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            prefetchThread = null;
+        }
+        events.clear();
+        finished = true;
+    }
+
+    @Override
+    public void run() {
+        try {
+            databaseConnection.validateTable(dbSimulationConfig.getTableName(), dbSimulationConfig.getColumnNames());
+            if (dbSimulationConfig.getTimestampAttribute() == null) {
+                readEvents();
+            } else {
+                readEventPages();
+            }
+        } catch (SQLException e) {
+            failure = new EventGenerationException("Error occurred when accessing result set to simulate stream '" +
+                    dbSimulationConfig.getStreamName() + "'.", e);
+        } catch (RuntimeException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            return;
+        }
+        if (stopped) {
+            return;
+        }
+        try {
+            events.put(END_OF_EVENTS);
+        } catch (InterruptedException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Stop reading events from database to simulate stream '" +
+                        dbSimulationConfig.getStreamName() + "'.");
+            }
+        }
+    }
+
+    private void readEvents() throws SQLException, InterruptedException {
+        ResultSet resultSet = databaseConnection.getDatabaseEventItems(dbSimulationConfig.getTableName(),
+                dbSimulationConfig.getColumnNames(), dbSimulationConfig.getFetchSize());
+        while (!stopped && resultSet.next()) {
+            Event event = readEvent(resultSet, -1);
+            if (event != null) {
+                events.put(event);
+            }
+        }
+    }
+
+    private void readEventPages() throws SQLException, InterruptedException {
+        String timestampAttribute = dbSimulationConfig.getTimestampAttribute();
+        int pageSize = Math.max(0, dbSimulationConfig.getPageSize());
+        PageBoundary boundary = PageBoundary.FROM;
+        long pageStartTime = startTimestamp;
+        List<Event> lastTimestampEvents = new ArrayList<>();
+        while (!stopped) {
+            ResultSet resultSet = databaseConnection.getDatabaseEventPage(dbSimulationConfig.getTableName(),
+                    dbSimulationConfig.getColumnNames(), timestampAttribute, boundary, pageStartTime, endTimestamp,
+                    pageSize, dbSimulationConfig.getFetchSize());
+            int noOfRows = 0;
+            long lastTimestamp = pageStartTime;
+            boolean hasMultipleTimestamps = false;
+            lastTimestampEvents.clear();
+            while (!stopped && resultSet.next()) {
+                long timestamp = resultSet.getLong(timestampAttribute);
+                if (noOfRows > 0 && timestamp != lastTimestamp) {
+                    for (Event event : lastTimestampEvents) {
+                        events.put(event);
+                    }
+                    lastTimestampEvents.clear();
+                    hasMultipleTimestamps = true;
+                }
+                noOfRows++;
+                lastTimestamp = timestamp;
+                Event event = readEvent(resultSet, timestamp);
+                if (event != null) {
+                    lastTimestampEvents.add(event);
+                }
+            }
+            if (stopped) {
+                return;
+            }
+            if (pageSize == 0 || noOfRows < pageSize) {
+                for (Event event : lastTimestampEvents) {
+                    events.put(event);
+                }
+                return;
+            }
+            if (!hasMultipleTimestamps) {
+                resultSet = databaseConnection.getDatabaseEventPage(dbSimulationConfig.getTableName(),
+                        dbSimulationConfig.getColumnNames(), timestampAttribute, PageBoundary.AT, lastTimestamp,
+                        endTimestamp, 0, dbSimulationConfig.getFetchSize());
+                while (!stopped && resultSet.next()) {
+                    Event event = readEvent(resultSet, lastTimestamp);
+                    if (event != null) {
+                        events.put(event);
+                    }
+                }
+                boundary = PageBoundary.AFTER;
+            } else {
+                boundary = PageBoundary.FROM;
+            }
+            pageStartTime = lastTimestamp;
+            if (log.isDebugEnabled()) {
+                log.debug("Read a page of " + noOfRows + " rows from table '" + dbSimulationConfig.getTableName() +
+                        "' to simulate stream '" + dbSimulationConfig.getStreamName() + "'. Next page starts at " +
+                        "timestamp " + pageStartTime + ".");
+            }
+        }
+    }
+
+    /**
+     * readEvent() creates an event using the current row of the resultset
+     *
+     * @param resultSet resultset positioned at the row to be read
+     * @param timestamp timestamp of the event
+     * @return the event created, or null if the row contains values incompatible with the stream attributes
+     * @throws SQLException if the row cannot be read
+     */
+    private Event readEvent(ResultSet resultSet, long timestamp) throws SQLException {
+        List<String> columnNames = dbSimulationConfig.getColumnNames();
+        Object[] attributeValues = new Object[streamAttributes.size()];
+        /*
+         * For each attribute in streamAttributes, use attribute type to determine the getter method
+         * to be used to access the resultset and use the attribute name to access a particular field
+         * in resultset
+         * */
+        for (int i = 0; i < streamAttributes.size(); i++) {
+            switch (streamAttributes.get(i).getType()) {
+                case STRING:
+                    attributeValues[i] = resultSet.getString(columnNames.get(i));
+                    break;
+                case INT:
+                    attributeValues[i] = resultSet.getInt(columnNames.get(i));
+                    break;
+                case DOUBLE:
+                    attributeValues[i] = resultSet.getDouble(columnNames.get(i));
+                    break;
+                case FLOAT:
+                    attributeValues[i] = resultSet.getFloat(columnNames.get(i));
+                    break;
+                case BOOL:
+                    attributeValues[i] = resultSet.getBoolean(columnNames.get(i));
+                    break;
+                case LONG:
+                    attributeValues[i] = resultSet.getLong(columnNames.get(i));
+                    break;
+                default:
+//                    this statement is never reached since attribute type is an enum
+            }
+        }
+        try {
+            return EventConverter.eventConverter(streamAttributes, attributeValues, timestamp);
+        } catch (EventGenerationException e) {
+            log.error("Error occurred when generating event using database event generator to simulate stream '" +
+                    dbSimulationConfig.getStreamName() + "' using source configuration " +
+                    dbSimulationConfig.toString() + "Drop event and create next event. ", e);
+            return null;
+        }
+    }
+}
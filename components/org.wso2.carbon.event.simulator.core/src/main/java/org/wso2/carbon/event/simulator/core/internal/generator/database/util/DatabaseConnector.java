@@ -52,6 +52,9 @@ public class DatabaseConnector {
     private static final String query_attribute_WithBothLimits = "SELECT %s,%s FROM %s WHERE %s >= %d AND %s <= %d " +
             "ORDER BY ABS(%s);";
     private static final String query_interval = "SELECT %s FROM %s;";
+    private static final String query_page_OnlyStartTime = "SELECT %s,%s FROM %s WHERE %s %s ? ORDER BY %s";
+    private static final String query_page_WithBothLimits = "SELECT %s,%s FROM %s WHERE %s %s ? AND %s <= ? " +
+            "ORDER BY %s";
     private HikariDataSource dataSource;
     private Connection dbConnection;
     private String dataSourceLocation;
@@ -112,6 +115,111 @@ public class DatabaseConnector {
         return resultSet;
     }
 
+    /**
+     * validateTable method checks whether the table and the columns specified exist in the connected database
+     *
+     * @param tableName   table from which data must be retrieved
+     * @param columnNames list of columns to be retrieved
+     */
+    public void validateTable(String tableName, List<String> columnNames) {
+        try {
+            if (dbConnection == null || dbConnection.isClosed()) {
+                throw new EventGenerationException("Unable to connect to source '" + dataSourceLocation + "' to " +
+                        "retrieve data for the configuration, table name : '" + tableName + "' and column names : '" +
+                        columnNames + "'.");
+            }
+        } catch (SQLException e) {
+            closeConnection();
+            throw new EventGenerationException("Error occurred when checking the connection to source '" +
+                    dataSourceLocation + "' to retrieve data for the configuration, table name : '" + tableName +
+                    "' and column names : '" + columnNames + "'.", e);
+        }
+        checkTableExists(tableName);
+        validateColumns(tableName, columnNames);
+    }
+
+    /**
+     * getDatabaseEventPage method is used to obtain a page of data ordered by timestamp. Pages are located by
+     * comparing the timestamp with the last timestamp read rather than by an offset, hence the database reads only
+     * the rows of the page when the timestamp column is indexed.
+     * The resultset of the previous page is closed when the next page is requested. The table and the columns are
+     * expected to be validated beforehand using validateTable().
+     *
+     * @param tableName          table from which data must be retrieved
+     * @param columnNames        list of columns to be retrieved
+     * @param timestampAttribute column containing timestamp
+     * @param boundary           comparison of the timestamps of the page with the page start time
+     * @param pageStartTime      timestamp at which the page starts
+     * @param timestampEndTime   maximum possible timestamp, or -1 if there is no upper bound
+     * @param pageSize           maximum number of rows in the page, or 0 to retrieve all the rows
+     * @param fetchSize          number of rows fetched from the database at a time, or 0 to use the driver default
+     * @return resultset containing the page of data
+     */
+    @SuppressWarnings("SQL_PREPARED_STATEMENT_GENERATED_FROM_NONCONSTANT_STRING")
+    public ResultSet getDatabaseEventPage(String tableName, List<String> columnNames, String timestampAttribute,
+                                          PageBoundary boundary, long pageStartTime, long timestampEndTime,
+                                          int pageSize, int fetchSize) {
+        closeStatement();
+        String columns = String.join(",", columnNames);
+        try {
+            if (timestampEndTime == -1) {
+                this.preparedStatement = dbConnection.prepareStatement(String.format(query_page_OnlyStartTime,
+                        timestampAttribute, columns, tableName, timestampAttribute, boundary.operator,
+                        timestampAttribute));
+                preparedStatement.setLong(1, pageStartTime);
+            } else {
+                this.preparedStatement = dbConnection.prepareStatement(String.format(query_page_WithBothLimits,
+                        timestampAttribute, columns, tableName, timestampAttribute, boundary.operator,
+                        timestampAttribute, timestampAttribute));
+                preparedStatement.setLong(1, pageStartTime);
+                preparedStatement.setLong(2, timestampEndTime);
+            }
+            preparedStatement.setMaxRows(pageSize);
+            preparedStatement.setFetchSize(fetchSize);
+            this.resultSet = preparedStatement.executeQuery();
+        } catch (SQLException e) {
+            log.error("Error occurred when retrieving a page of data from source '" + dataSourceLocation + "' for " +
+                    "the configuration table name : '" + tableName + "', columns : '" + columns + "', timestamp " +
+                    "attribute : '" + timestampAttribute + "', page start time : '" + pageStartTime + "' and " +
+                    "timestamp end time : '" + timestampEndTime + "'. ", e);
+            closeConnection();
+            throw new EventGenerationException("Error occurred when retrieving a page of data from source '" +
+                    dataSourceLocation + "' for the configuration table name : '" + tableName + "', columns : '" +
+                    columns + "', timestamp attribute : '" + timestampAttribute + "', page start time : '" +
+                    pageStartTime + "' and timestamp end time : '" + timestampEndTime + "'. ", e);
+        }
+        return resultSet;
+    }
+
+    /**
+     * getDatabaseEventItems method is used to obtain all the data of the columns specified, without ordering, when
+     * the timestamp is not read from the table
+     *
+     * @param tableName   table from which data must be retrieved
+     * @param columnNames list of columns to be retrieved
+     * @param fetchSize   number of rows fetched from the database at a time, or 0 to use the driver default
+     * @return resultset containing data needed for event simulation
+     */
+    @SuppressWarnings("SQL_PREPARED_STATEMENT_GENERATED_FROM_NONCONSTANT_STRING")
+    public ResultSet getDatabaseEventItems(String tableName, List<String> columnNames, int fetchSize) {
+        closeStatement();
+        String columns = String.join(",", columnNames);
+        try {
+            this.preparedStatement = dbConnection.prepareStatement(String.format(query_interval, columns, tableName));
+            preparedStatement.setFetchSize(fetchSize);
+            this.resultSet = preparedStatement.executeQuery();
+        } catch (SQLException e) {
+            log.error("Error occurred when retrieving resultset from source '" + dataSourceLocation + "' " +
+                    "to retrieve data for the configuration table name : '" + tableName + "' and column names : '" +
+                    columnNames + "'. ", e);
+            closeConnection();
+            throw new EventGenerationException("Error occurred when retrieving resultset from source '" +
+                    dataSourceLocation + "' to retrieve data for the configuration table name : '" + tableName +
+                    "' and column names : '" + columnNames + "'. ", e);
+        }
+        return resultSet;
+    }
+
     /**
      * This method loads the JDBC driver and creates a database connection
      *
@@ -328,13 +436,8 @@ public class DatabaseConnector {
      * 3. Close the database connection established
      */
     public void closeConnection() {
+        closeStatement();
         try {
-            if (resultSet != null) {
-                resultSet.close();
-            }
-            if (preparedStatement != null) {
-                preparedStatement.close();
-            }
             if (dbConnection != null && !dbConnection.isClosed()) {
                 dbConnection.close();
                 dataSource.close();
@@ -350,4 +453,40 @@ public class DatabaseConnector {
         }
     }
 
+    /**
+     * closeStatement method releases the resultset and the prepared statement used to query the database
+     */
+    private void closeStatement() {
+        try {
+            if (resultSet != null) {
+                resultSet.close();
+                resultSet = null;
+            }
+            if (preparedStatement != null) {
+                preparedStatement.close();
+                preparedStatement = null;
+            }
+        } catch (SQLException e) {
+            log.error("Error occurred when closing the resultset retrieved from data source '" +
+                    dataSourceLocation + "'. ", e);
+            throw new EventGenerationException("Error occurred when closing the resultset retrieved from data " +
+                    "source '" + dataSourceLocation + "'. ", e);
+        }
+    }
+
+    /**
+     * PageBoundary denotes how the timestamps of a page of data compare with the timestamp at which the page starts
+     */
+    public enum PageBoundary {
+        FROM(">="),
+        AFTER(">"),
+        AT("=");
+
+        private final String operator;
+
+        PageBoundary(String operator) {
+            this.operator = operator;
+        }
+    }
+
 }
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.internal.util;
+
+import org.wso2.carbon.event.simulator.core.internal.bean.SimulationStatisticsDTO;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * EventPacer paces the batches of events sent by a simulation running in throughput mode, and keeps track of the
+ * achieved throughput and the latency of sending the batches.
+ * The send time of each batch is derived from the number of events sent since the simulation started, rather than
+ * from the time the previous batch was sent, hence the time spent on generating and sending events does not slow
+ * down the simulation below the target rate.
+ * The statistics are updated by the simulation thread, and may be read by other threads while it runs.
+ */
+public class EventPacer {
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private final long eventsPerSecond;
+    private long startTime;
+    private long endTime;
+    private long eventsSent;
+    private long batchesSent;
+    private long totalLatency;
+    private long maxLatency;
+
+    /**
+     * @param eventsPerSecond target number of events to be sent per second, or -1 to send events as fast as possible
+     */
+    public EventPacer(long eventsPerSecond) {
+        this.eventsPerSecond = eventsPerSecond;
+    }
+
+    /**
+     * start() marks the start of the simulation
+     */
+    public synchronized void start() {
+        startTime = System.nanoTime();
+        endTime = startTime;
+    }
+
+    /**
+     * resume() shifts the schedule of the simulation to the current time, so that the events not sent while the
+     * simulation was paused are not sent in a burst on resume
+     */
+    public synchronized void resume() {
+        if (eventsPerSecond > 0) {
+            startTime = System.nanoTime() - getScheduledTime();
+        }
+    }
+
+    /**
+     * awaitNextBatch() waits till the next batch of events is due to be sent, or till the waiting thread is unparked
+     *
+     * @return true if the next batch of events is due to be sent
+     * @throws InterruptedException if the simulation is interrupted while waiting
+     */
+    public boolean awaitNextBatch() throws InterruptedException {
+        if (eventsPerSecond <= 0) {
+            return true;
+        }
+        long sendTime;
+        synchronized (this) {
+            sendTime = startTime + getScheduledTime();
+        }
+        long waitTime = sendTime - System.nanoTime();
+        if (waitTime > 0) {
+            LockSupport.parkNanos(this, waitTime);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            return sendTime - System.nanoTime() <= 0;
+        }
+        return true;
+    }
+
+    /**
+     * @return time from the start of the simulation at which the events sent so far are due, in nanoseconds. The
+     * whole seconds and the remainder are computed apart, as the events sent times the nanoseconds per second
+     * overflows after about 9.2 billion events
+     */
+    private long getScheduledTime() {
+        return (eventsSent / eventsPerSecond) * NANOS_PER_SECOND +
+                (eventsSent % eventsPerSecond) * NANOS_PER_SECOND / eventsPerSecond;
+    }
+
+    /**
+     * record() records a batch of events sent
+     *
+     * @param noOfEvents number of events in the batch
+     * @param latency    time taken to send the batch, in nanoseconds
+     */
+    public synchronized void record(int noOfEvents, long latency) {
+        eventsSent += noOfEvents;
+        batchesSent++;
+        totalLatency += latency;
+        maxLatency = Math.max(maxLatency, latency);
+        endTime = System.nanoTime();
+    }
+
+    public synchronized long getEventsSent() {
+        return eventsSent;
+    }
+
+    public synchronized long getBatchesSent() {
+        return batchesSent;
+    }
+
+    /**
+     * @return the events sent per second since the simulation started
+     */
+    public synchronized double getThroughput() {
+        long elapsedTime = endTime - startTime;
+        return elapsedTime > 0 ? (double) eventsSent * NANOS_PER_SECOND / elapsedTime : 0;
+    }
+
+    /**
+     * @return the average time taken to send a batch of events, in milliseconds
+     */
+    public synchronized double getAverageLatency() {
+        return batchesSent > 0 ? (double) totalLatency / batchesSent / TimeUnit.MILLISECONDS.toNanos(1) : 0;
+    }
+
+    /**
+     * @return the maximum time taken to send a batch of events, in milliseconds
+     */
+    public synchronized double getMaxLatency() {
+        return (double) maxLatency / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * @return the statistics of the events sent so far
+     */
+    public synchronized SimulationStatisticsDTO getStatistics() {
+        SimulationStatisticsDTO statistics = new SimulationStatisticsDTO();
+        statistics.setEventsSent(eventsSent);
+        statistics.setBatchesSent(batchesSent);
+        statistics.setThroughput(getThroughput());
+        statistics.setAverageBatchLatency(getAverageLatency());
+        statistics.setMaxBatchLatency(getMaxLatency());
+        return statistics;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d events in %d batches at %.2f events/sec (average batch latency %.3f ms, " +
+                        "maximum batch latency %.3f ms)", eventsSent, batchesSent, getThroughput(),
+                getAverageLatency(), getMaxLatency());
+    }
+}
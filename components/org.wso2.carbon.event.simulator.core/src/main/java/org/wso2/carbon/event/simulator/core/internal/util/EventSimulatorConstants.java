@@ -38,6 +38,8 @@ public class EventSimulatorConstants {
     public static final String END_TIMESTAMP = "endTimestamp";
     public static final String SIMULATION_TIME_INTERVAL = "timeInterval";
     public static final String NUMBER_OF_EVENTS_REQUIRED = "noOfEvents";
+    public static final String EVENTS_PER_SECOND = "eventsPerSecond";
+    public static final String SIMULATION_BATCH_SIZE = "batchSize";
 
     public static final String JSON_CONFIGURATION_RESOURCE_NAME = "JSON configuration";
     public static final String PROPERTIES_RESOURCE_NAME = "properties";
@@ -61,6 +63,12 @@ public class EventSimulatorConstants {
     public static final String DELIMITER = "delimiter";
     public static final String IS_ORDERED = "isOrdered";
     public static final String INDICES = "indices";
+    // system property limiting the number of events of an unordered CSV file sorted in memory at once
+    public static final String CSV_SORT_RUN_SIZE = "csvSimulationSortRunSize";
+    public static final int DEFAULT_CSV_SORT_RUN_SIZE = 100000;
+    // system property limiting the number of sorted runs of an unordered CSV file merged at once
+    public static final String CSV_SORT_MERGE_FAN_IN = "csvSimulationSortMergeFanIn";
+    public static final int DEFAULT_CSV_SORT_MERGE_FAN_IN = 64;
 
 
     //Random data simulation constants
@@ -81,4 +89,10 @@ public class EventSimulatorConstants {
     public static final String PASSWORD = "password";
     public static final String TABLE_NAME = "tableName";
     public static final String COLUMN_NAMES_LIST = "columnNamesList";
+    public static final String FETCH_SIZE = "fetchSize";
+    public static final String PAGE_SIZE = "pageSize";
+    public static final String PREFETCH_SIZE = "prefetchSize";
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+    public static final int DEFAULT_PAGE_SIZE = 10000;
+    public static final int DEFAULT_PREFETCH_SIZE = 10000;
 }
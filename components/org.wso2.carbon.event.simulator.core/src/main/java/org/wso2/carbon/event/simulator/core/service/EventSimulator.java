@@ -18,6 +18,7 @@
 
 package org.wso2.carbon.event.simulator.core.service;
 
+import io.siddhi.core.event.Event;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -25,8 +26,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.carbon.event.simulator.core.exception.*;
 import org.wso2.carbon.event.simulator.core.internal.bean.SimulationPropertiesDTO;
+import org.wso2.carbon.event.simulator.core.internal.bean.SimulationStatisticsDTO;
 import org.wso2.carbon.event.simulator.core.internal.generator.EventGenerator;
+import org.wso2.carbon.event.simulator.core.internal.generator.EventGeneratorMerger;
 import org.wso2.carbon.event.simulator.core.internal.util.EventGeneratorFactoryImpl;
+import org.wso2.carbon.event.simulator.core.internal.util.EventPacer;
 import org.wso2.carbon.event.simulator.core.internal.util.EventSimulatorConstants;
 import org.wso2.carbon.event.simulator.core.util.LogEncoder;
 import org.wso2.carbon.streaming.integrator.common.exception.ResourceNotFoundException;
@@ -34,12 +38,11 @@ import org.wso2.carbon.streaming.integrator.common.exception.ResourceNotFoundExc
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.Semaphore;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 import javax.annotation.concurrent.NotThreadSafe;
 
-import edu.umd.cs.findbugs.annotations.SuppressWarnings;
-
 import static org.wso2.carbon.event.simulator.core.internal.util.CommonOperations.checkAvailability;
 import static org.wso2.carbon.event.simulator.core.internal.util.CommonOperations.checkAvailabilityOfArray;
 
@@ -53,12 +56,13 @@ public class EventSimulator implements Runnable {
     private List<EventGenerator> generators = new ArrayList<>();
     private SimulationPropertiesDTO simulationProperties;
     private String simulationName;
-    private Status status = Status.STOP;
+    // status is changed by the simulation thread as well as by the threads pausing, resuming and stopping it
+    private final AtomicReference<Status> status = new AtomicReference<>(Status.STOP);
     private String statusMessage = null;
-    // lock is used to pause a simulation
-    private final Semaphore lock = new Semaphore(1, true);
-    // lockStop is used to ensure that stop() will not be called in the middle of an event generation(avoid IOException)
-    private final ReentrantLock lockStop = new ReentrantLock();
+    // simulationThread is unparked to notify it when the simulation is paused, resumed or stopped
+    private volatile Thread simulationThread;
+    // eventPacer of the last run of a simulation in throughput mode, which is read when reporting its statistics
+    private volatile EventPacer eventPacer;
 
 
     /**
@@ -245,6 +249,31 @@ public class EventSimulator implements Runnable {
                     }
                 }
             }
+            if (checkAvailability(simulationPropertiesConfig, EventSimulatorConstants.EVENTS_PER_SECOND)) {
+                long eventsPerSecond = simulationPropertiesConfig.getLong(EventSimulatorConstants.EVENTS_PER_SECOND);
+                if (eventsPerSecond <= 0 && eventsPerSecond != -1) {
+                    throw new InvalidConfigException(
+                                    ResourceNotFoundException.ResourceType.SIMULATION,
+                                    EventSimulatorConstants.EVENTS_PER_SECOND,
+                                    "Number of events to be sent per second for simulation '" +
+                                    simulationPropertiesConfig.getString(
+                                            EventSimulatorConstants.EVENT_SIMULATION_NAME) +
+                                    "' must be a positive value, or -1 to send events as fast as possible. Invalid " +
+                                    "simulation configuration provided: " + simulationPropertiesConfig.toString());
+                }
+            }
+            if (checkAvailability(simulationPropertiesConfig, EventSimulatorConstants.SIMULATION_BATCH_SIZE)) {
+                if (simulationPropertiesConfig.getInt(EventSimulatorConstants.SIMULATION_BATCH_SIZE) <= 0) {
+                    throw new InvalidConfigException(
+                                    ResourceNotFoundException.ResourceType.SIMULATION,
+                                    EventSimulatorConstants.SIMULATION_BATCH_SIZE,
+                                    "Batch size of simulation '" +
+                                    simulationPropertiesConfig.getString(
+                                            EventSimulatorConstants.EVENT_SIMULATION_NAME) +
+                                    "' must be a positive value. Invalid simulation configuration provided: " +
+                                    simulationPropertiesConfig.toString());
+                }
+            }
         } catch (JSONException e) {
             log.error("Error occurred when accessing simulation configuration of simulation '" +
                         simulationPropertiesConfig.getString(EventSimulatorConstants.EVENT_SIMULATION_NAME) +
@@ -264,90 +293,132 @@ public class EventSimulator implements Runnable {
      * eventSimulation() method is responsible for sending events belonging to one simulation configuration in the
      * order of their timestamps
      * Events will be sent at time intervals equal to the delay
+     *
+     * @param eventMerger merges the events of the event generators in the order of their timestamps
+     * @throws InterruptedException if the simulation thread is interrupted
      */
-    @SuppressWarnings("SWL_SLEEP_WITH_LOCK_HELD")
-    private void eventSimulation() {
-        long minTimestamp;
-        EventGenerator generator;
+    private void eventSimulation(EventGeneratorMerger eventMerger) throws InterruptedException {
         int eventsRemaining = simulationProperties.getNoOfEventsRequired();
-        try {
-            while (!status.equals(Status.STOP) && !status.equals(Status.PENDING_STOP)) {
-//                if the simulator is paused, wait till it is resumed
-                if (status.equals(Status.PAUSE)) {
-                    lock.acquire();
-                    lock.release();
-                }
+        long timeInterval = TimeUnit.MILLISECONDS.toNanos(simulationProperties.getTimeInterval());
+        /*
+         * if there is no limit to the number of events to be sent or is the number of event remaining to be
+         * sent is > 0, send an event, else stop event simulation
+         * */
+        while (eventsRemaining != 0) {
+            Status currentStatus = status.get();
+            if (currentStatus == Status.PAUSE) {
+                awaitResume(eventMerger);
+                continue;
+            } else if (currentStatus != Status.RUN) {
+                break;
+            }
+            EventGenerator generator = eventMerger.peek();
+            if (generator == null) {
+                break;
+            }
+            Event event = eventMerger.poll();
+            if (log.isDebugEnabled()) {
+                log.debug("Input Event (Simulation : '" + simulationName + "') : "
+                                  + Arrays.deepToString(event.getData()));
+            }
+            EventSimulatorDataHolder.getInstance().getEventStreamService()
+                    .pushEvent(generator.getSiddhiAppName(), generator.getStreamName(), event);
+            if (eventsRemaining > 0) {
+                eventsRemaining--;
+            }
+            awaitTimeInterval(System.nanoTime() + timeInterval);
+        }
+    }
 
-                /*
-                 * if there is no limit to the number of events to be sent or is the number of event remaining to be
-                 * sent is > 0, send an event, else stop event simulation
-                 * */
-                if (eventsRemaining == -1 || eventsRemaining > 0) {
-                    minTimestamp = -1L;
-                    generator = null;
-                    /*
-                     * 1. for each event generator peek the next event (i.e. the next event with least timestamp)
-                     * 2. take the first event generator will a not null nextEvent as the first refferal value for
-                     * generator with minimum timestamp event, and take the events timestamp as the minimum
-                     * timestamp refferal value
-                     * 3. then compare the timestamp of the remaining not null nextEvents with the minimum timestamp
-                     * and update the minimum timestamp refferal value accordingly.
-                     * 4. once all generators are iterated and the event with minimum timestamp if obtained, send
-                     * event.
-                     * 5. if all generators has nextEvent == null, then stop event simulation
-                     * */
-                    lockStop.lock();
-                    try {
-                        for (EventGenerator eventGenerator : generators) {
-                            if (eventGenerator.peek() != null) {
-                                if (minTimestamp == -1L) {
-                                    minTimestamp = eventGenerator.peek().getTimestamp();
-                                    generator = eventGenerator;
-                                } else if (eventGenerator.peek().getTimestamp() < minTimestamp) {
-                                    minTimestamp = eventGenerator.peek().getTimestamp();
-                                    generator = eventGenerator;
-                                }
-                            } else {
-                                generator = null;
-                            }
-                        }
-                        if (minTimestamp >= 0L && generator != null) {
-                            if (log.isDebugEnabled()) {
-                                log.debug("Input Event (Simulation : '" + simulationName + "') : "
-                                                  + Arrays.deepToString(generator.peek().getData()));
-                            }
-                            EventSimulatorDataHolder.getInstance().getEventStreamService()
-                                    .pushEvent(generator.getSiddhiAppName(), generator.getStreamName(),
-                                               generator.poll());
-                        } else {
-                            break;
-                        }
-                        if (eventsRemaining > 0) {
-                            eventsRemaining--;
-                        }
-                    } finally {
-                        lockStop.unlock();
-                    }
-                    Thread.sleep(simulationProperties.getTimeInterval());
-                } else {
-                    break;
-                }
+    /**
+     * throughputSimulation() method is responsible for sending events belonging to one simulation configuration in
+     * the order of their timestamps, in batches, at the events per second rate of the simulation
+     * Consecutive events of the same stream are sent as one batch of up to the batch size of the simulation
+     *
+     * @param eventMerger merges the events of the event generators in the order of their timestamps
+     * @throws InterruptedException if the simulation thread is interrupted
+     */
+    private void throughputSimulation(EventGeneratorMerger eventMerger) throws InterruptedException {
+        EventPacer eventPacer = new EventPacer(simulationProperties.getEventsPerSecond());
+        this.eventPacer = eventPacer;
+        int batchSize = simulationProperties.getBatchSize();
+        List<Event> batch = new ArrayList<>(batchSize);
+        int eventsRemaining = simulationProperties.getNoOfEventsRequired();
+        eventPacer.start();
+        while (eventsRemaining != 0) {
+            Status currentStatus = status.get();
+            if (currentStatus == Status.PAUSE) {
+                awaitResume(eventMerger);
+                eventPacer.resume();
+                continue;
+            } else if (currentStatus != Status.RUN) {
+                break;
+            } else if (!eventPacer.awaitNextBatch()) {
+//                woken up ahead of the next batch, possibly to pause or stop the simulation
+                continue;
+            }
+            EventGenerator batchGenerator = eventMerger.peek();
+            if (batchGenerator == null) {
+                break;
+            }
+            int batchLimit = eventsRemaining == -1 ? batchSize : Math.min(batchSize, eventsRemaining);
+            EventGenerator generator = batchGenerator;
+            while (batch.size() < batchLimit && generator != null
+                    && generator.getSiddhiAppName().equals(batchGenerator.getSiddhiAppName())
+                    && generator.getStreamName().equals(batchGenerator.getStreamName())) {
+                batch.add(eventMerger.poll());
+                generator = eventMerger.peek();
             }
+            if (log.isDebugEnabled()) {
+                log.debug("Input Events (Simulation : '" + simulationName + "') : " + batch);
+            }
+            long sendTime = System.nanoTime();
+            EventSimulatorDataHolder.getInstance().getEventStreamService()
+                    .pushEvents(batchGenerator.getSiddhiAppName(), batchGenerator.getStreamName(),
+                                batch.toArray(new Event[batch.size()]));
+            eventPacer.record(batch.size(), System.nanoTime() - sendTime);
+            if (eventsRemaining > 0) {
+                eventsRemaining -= batch.size();
+            }
+            batch.clear();
+        }
+        log.info("Simulation '" + simulationName + "' sent " + eventPacer);
+    }
 
-            if(status.equals(Status.PENDING_STOP)){
-                status = Status.STOP;
+    /**
+     * awaitResume() parks the simulation thread while the simulation is paused. Once the simulation is resumed the
+     * event generators are resumed on the simulation thread, which changes the timestamps of their next events,
+     * hence the order of the generators is rebuilt.
+     *
+     * @param eventMerger merges the events of the event generators in the order of their timestamps
+     * @throws InterruptedException if the simulation thread is interrupted while paused
+     */
+    private void awaitResume(EventGeneratorMerger eventMerger) throws InterruptedException {
+        while (status.get() == Status.PAUSE) {
+            LockSupport.park(this);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        if (status.get() == Status.RUN) {
+            generators.forEach(EventGenerator::resume);
+            eventMerger.reset();
+        }
+    }
+
+    /**
+     * awaitTimeInterval() parks the simulation thread till the given time, or till the simulation is paused or stopped
+     *
+     * @param deadline time to wait till, as given by System.nanoTime()
+     * @throws InterruptedException if the simulation thread is interrupted while waiting
+     */
+    private void awaitTimeInterval(long deadline) throws InterruptedException {
+        long waitTime;
+        while ((waitTime = deadline - System.nanoTime()) > 0 && status.get() == Status.RUN) {
+            LockSupport.parkNanos(this, waitTime);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
             }
-            stop();
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        } catch (EventGenerationException e) {
-            /*
-             * catch exception so that any resources opened could be closed and rethrow an exception indicating which
-             * simulation failed
-             * */
-            stop();
-            throw new EventGenerationException("Error occurred when generating an event for simulation '" +
-                                                       simulationProperties.getSimulationName() + "'. ", e);
         }
     }
 
@@ -410,6 +481,18 @@ public class EventSimulator implements Runnable {
                 noOfEventsRequired = simulationPropertiesConfig.getInt(EventSimulatorConstants.
                                                                                NUMBER_OF_EVENTS_REQUIRED);
             }
+            /*
+             * if eventsPerSecond is specified, events are sent in batches at that rate (or as fast as possible if it
+             * is -1) instead of being sent one at a time at the time interval
+             * */
+            long eventsPerSecond = 0;
+            if (checkAvailability(simulationPropertiesConfig, EventSimulatorConstants.EVENTS_PER_SECOND)) {
+                eventsPerSecond = simulationPropertiesConfig.getLong(EventSimulatorConstants.EVENTS_PER_SECOND);
+            }
+            int batchSize = 1;
+            if (checkAvailability(simulationPropertiesConfig, EventSimulatorConstants.SIMULATION_BATCH_SIZE)) {
+                batchSize = simulationPropertiesConfig.getInt(EventSimulatorConstants.SIMULATION_BATCH_SIZE);
+            }
 //            create simulationPropertiesDTO object
             SimulationPropertiesDTO simulationPropertiesDTO = new SimulationPropertiesDTO();
             simulationPropertiesDTO.setSimulationName(simulationPropertiesConfig
@@ -420,6 +503,8 @@ public class EventSimulator implements Runnable {
             simulationPropertiesDTO.setStartTimestamp(startTimestamp);
             simulationPropertiesDTO.setEndTimestamp(endTimestamp);
             simulationPropertiesDTO.setNoOfEventsRequired(noOfEventsRequired);
+            simulationPropertiesDTO.setEventsPerSecond(eventsPerSecond);
+            simulationPropertiesDTO.setBatchSize(batchSize);
             return simulationPropertiesDTO;
 
         } catch (JSONException e) {
@@ -439,46 +524,66 @@ public class EventSimulator implements Runnable {
     /**
      * run() method of runnable associated with the event simulator
      * This method starts all the event generators belonging to the simulations and begins the event simulation
+     * The event generators are stopped by the simulation thread once the simulation ends, hence they are never
+     * stopped in the middle of an event generation
      */
     @Override
     public void run() {
+        simulationThread = Thread.currentThread();
         try {
             generators.forEach(EventGenerator::start);
             if (log.isDebugEnabled()) {
                 log.debug("Event generators started. Begin event simulation of '" + simulationName + "'");
             }
-            status = Status.RUN;
-            eventSimulation();
+            status.set(Status.RUN);
+            EventGeneratorMerger eventMerger = new EventGeneratorMerger(generators);
+            if (simulationProperties.getEventsPerSecond() != 0) {
+                throughputSimulation(eventMerger);
+            } else {
+                eventSimulation(eventMerger);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (SimulatorInitializationException e) {
             /*
              * catch exception so that any resources opened could be closed and rethrow an exception indicating which
              * simulation failed
              * */
-            stop();
             throw new SimulatorInitializationException("Error occurred when initializing event generators for "
                                                                + "simulation '"
                                                                + simulationProperties.getSimulationName() + "'. ", e);
+        } catch (EventGenerationException e) {
+            throw new EventGenerationException("Error occurred when generating an event for simulation '" +
+                                                       simulationProperties.getSimulationName() + "'. ", e);
+        } finally {
+            generators.forEach(EventGenerator::stop);
+            simulationThread = null;
+            status.set(Status.STOP);
+            if (log.isDebugEnabled()) {
+                log.debug("Stopped simulation '" + simulationName + "'");
+            }
         }
     }
 
     /**
      * stop() is used to stop event simulation
+     * The simulation is marked as pending stop until the simulation thread completes the event it is sending and
+     * stops the event generators.
      *
      * @see org.wso2.carbon.event.simulator.core.impl.FeedApiServiceImpl#stop(String)
      * @see EventGenerator#stop()
      */
     public void stop() {
-        if (!status.equals(Status.STOP)) {
-            if(!lockStop.tryLock()){
-                status = Status.PENDING_STOP;
-            } else{
-                status = Status.STOP;
-                lockStop.unlock();
-            }
-            generators.forEach(EventGenerator::stop);
-            if (log.isDebugEnabled()) {
-                log.debug("Stop simulation '" + simulationName + "'");
+        Status currentStatus;
+        do {
+            currentStatus = status.get();
+            if (currentStatus != Status.RUN && currentStatus != Status.PAUSE) {
+                return;
             }
+        } while (!status.compareAndSet(currentStatus, Status.PENDING_STOP));
+        wakeUpSimulationThread();
+        if (log.isDebugEnabled()) {
+            log.debug("Stop simulation '" + simulationName + "'");
         }
     }
 
@@ -489,15 +594,10 @@ public class EventSimulator implements Runnable {
      * @see org.wso2.carbon.event.simulator.core.impl.FeedApiServiceImpl#pause(String)
      */
     public void pause() {
-        if (!status.equals(Status.PAUSE)) {
-            try {
-                lock.acquire();
-                status = Status.PAUSE;
-                if (log.isDebugEnabled()) {
-                    log.debug("Pause event simulation '" + simulationName + "'");
-                }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
+        if (status.compareAndSet(Status.RUN, Status.PAUSE)) {
+            wakeUpSimulationThread();
+            if (log.isDebugEnabled()) {
+                log.debug("Pause event simulation '" + simulationName + "'");
             }
         }
     }
@@ -509,18 +609,33 @@ public class EventSimulator implements Runnable {
      * @see org.wso2.carbon.event.simulator.core.impl.FeedApiServiceImpl#resume(String)
      */
     public void resume() {
-        if (status.equals(Status.PAUSE)) {
-            generators.forEach(EventGenerator::resume);
-            lock.release();
-            status = Status.RUN;
+        if (status.compareAndSet(Status.PAUSE, Status.RUN)) {
+            wakeUpSimulationThread();
             if (log.isDebugEnabled()) {
                 log.debug("Resume event simulation '" + simulationName + "'");
             }
         }
     }
 
+    private void wakeUpSimulationThread() {
+        Thread thread = simulationThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
     public Status getStatus() {
-        return status;
+        return status.get();
+    }
+
+    /**
+     * getStatistics() returns the throughput and the batch latency of the current or the last run of the simulation
+     *
+     * @return statistics of the simulation, or null if the simulation does not run in throughput mode or has not run
+     */
+    public SimulationStatisticsDTO getStatistics() {
+        EventPacer pacer = eventPacer;
+        return pacer == null ? null : pacer.getStatistics();
     }
 
     public String getStatusMessage() {
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c)  2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.service.bean;
+
+import org.wso2.carbon.event.simulator.core.internal.bean.SimulationStatisticsDTO;
+import org.wso2.carbon.streaming.integrator.common.exception.ResponseMapper;
+
+import javax.ws.rs.core.Response;
+
+/**
+ * SimulationStatusResponseMapper wraps the status of a feed simulation, along with the statistics of the simulation
+ * when it runs in throughput mode
+ */
+public class SimulationStatusResponseMapper extends ResponseMapper {
+    private SimulationStatisticsDTO statistics;
+
+    public SimulationStatusResponseMapper(Response.Status status, String message,
+                                          SimulationStatisticsDTO statistics) {
+        super(status, message);
+        this.statistics = statistics;
+    }
+
+    public SimulationStatisticsDTO getStatistics() {
+        return statistics;
+    }
+
+    public void setStatistics(SimulationStatisticsDTO statistics) {
+        this.statistics = statistics;
+    }
+}
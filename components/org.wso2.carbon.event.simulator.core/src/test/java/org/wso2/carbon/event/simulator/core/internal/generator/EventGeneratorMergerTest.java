@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.internal.generator;
+
+import io.siddhi.core.event.Event;
+import org.json.JSONObject;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * EventGeneratorMergerTest tests the merging of the events of several event generators
+ */
+public class EventGeneratorMergerTest {
+
+    @Test
+    public void testEventsAreMergedInTimestampOrder() {
+        List<EventGenerator> generators = Arrays.asList(
+                new TestEventGenerator("stream1", 1, 4, 4, 9),
+                new TestEventGenerator("stream2"),
+                new TestEventGenerator("stream3", 2, 4, 8),
+                new TestEventGenerator("stream4", 3));
+        EventGeneratorMerger eventMerger = new EventGeneratorMerger(generators);
+        List<String> mergedEvents = new ArrayList<>();
+        EventGenerator generator;
+        while ((generator = eventMerger.peek()) != null) {
+            mergedEvents.add(generator.getStreamName() + ":" + eventMerger.poll().getTimestamp());
+        }
+        Assert.assertNull(eventMerger.poll());
+//        events having the same timestamp are sent in the order of their generators
+        Assert.assertEquals(mergedEvents, Arrays.asList("stream1:1", "stream3:2", "stream4:3", "stream1:4",
+                "stream1:4", "stream3:4", "stream3:8", "stream1:9"));
+    }
+
+    @Test
+    public void testResetReordersGenerators() {
+        TestEventGenerator generator1 = new TestEventGenerator("stream1", 1, 5);
+        TestEventGenerator generator2 = new TestEventGenerator("stream2", 2, 3);
+        EventGeneratorMerger eventMerger = new EventGeneratorMerger(Arrays.asList(generator1, generator2));
+        Assert.assertEquals(eventMerger.poll().getTimestamp(), 1);
+//        shift the next event of the first generator behind the events of the second, as resume() does
+        generator1.peek().setTimestamp(10);
+        eventMerger.reset();
+        Assert.assertEquals(eventMerger.poll().getTimestamp(), 2);
+        Assert.assertEquals(eventMerger.poll().getTimestamp(), 3);
+        Assert.assertEquals(eventMerger.poll().getTimestamp(), 10);
+        Assert.assertNull(eventMerger.peek());
+    }
+
+    private static class TestEventGenerator implements EventGenerator {
+        private final String streamName;
+        private final LinkedList<Event> events = new LinkedList<>();
+
+        TestEventGenerator(String streamName, long... timestamps) {
+            this.streamName = streamName;
+            for (long timestamp : timestamps) {
+                events.add(new Event(timestamp, new Object[]{timestamp}));
+            }
+        }
+
+        @Override
+        public void init(JSONObject sourceConfig, long startTimestamp, long endTimestamp, String simulationName) {
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void stop() {
+        }
+
+        @Override
+        public void resume() {
+        }
+
+        @Override
+        public Event poll() {
+            return events.poll();
+        }
+
+        @Override
+        public Event peek() {
+            return events.peek();
+        }
+
+        @Override
+        public void getNextEvent() {
+        }
+
+        @Override
+        public String getStreamName() {
+            return streamName;
+        }
+
+        @Override
+        public String getSiddhiAppName() {
+            return "TestSiddhiApp";
+        }
+
+        @Override
+        public void validateSourceConfiguration(JSONObject sourceConfig, String simulationName) {
+        }
+
+        @Override
+        public void setStartTimestamp(long startTimestamp) {
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.internal.generator.csv.util;
+
+import io.siddhi.core.event.Event;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * CSVEventSorterTest tests sorting the events of unordered CSV files
+ */
+public class CSVEventSorterTest {
+
+    @Test
+    public void testSortInMemory() throws Exception {
+        Assert.assertEquals(sort(100, 2, 5, 3, 5, 1, 4), Arrays.asList("1:3", "3:1", "4:4", "5:0", "5:2"));
+    }
+
+    @Test
+    public void testSortSpilledRuns() throws Exception {
+//        events having the same timestamp keep the order they were added in, across runs
+        Assert.assertEquals(sort(3, 4, 9, 2, 7, 2, 8, 1, 7, 3, 2, 6),
+                Arrays.asList("1:5", "2:1", "2:3", "2:8", "3:7", "6:9", "7:2", "7:6", "8:4", "9:0"));
+    }
+
+    @Test
+    public void testMergeRunsInPasses() throws Exception {
+//        10 runs merged 2 at a time take 3 passes before the final merge, keeping the order of equal timestamps
+        Assert.assertEquals(sort(1, 2, 9, 2, 7, 2, 8, 1, 7, 3, 2, 6),
+                Arrays.asList("1:5", "2:1", "2:3", "2:8", "3:7", "6:9", "7:2", "7:6", "8:4", "9:0"));
+        Assert.assertEquals(sort(2, 3, 9, 2, 7, 2, 8, 1, 7, 3, 2, 6),
+                Arrays.asList("1:5", "2:1", "2:3", "2:8", "3:7", "6:9", "7:2", "7:6", "8:4", "9:0"));
+    }
+
+    @Test
+    public void testSpilledAttributesAreRestored() throws Exception {
+        CSVEventSorter eventSorter = new CSVEventSorter("sample.csv", 1, 2);
+        try {
+            eventSorter.add(new Event(2, new Object[]{"WSO2 \u00e9", 1, 2L, 3.5f, 4.5, true, null}));
+            eventSorter.add(new Event(1, new Object[]{"IBM", -1, -2L, -3.5f, -4.5, false, null}));
+            eventSorter.sort();
+            Assert.assertEquals(eventSorter.next().getData(), new Object[]{"IBM", -1, -2L, -3.5f, -4.5, false, null});
+            Assert.assertEquals(eventSorter.next().getData(),
+                    new Object[]{"WSO2 \u00e9", 1, 2L, 3.5f, 4.5, true, null});
+            Assert.assertNull(eventSorter.next());
+        } finally {
+            eventSorter.close();
+        }
+    }
+
+    /**
+     * Sorts events having the given timestamps, returning 'timestamp:position' of the sorted events
+     */
+    private List<String> sort(int runSize, int maxFanIn, long... timestamps) throws Exception {
+        CSVEventSorter eventSorter = new CSVEventSorter("sample.csv", runSize, maxFanIn);
+        List<String> sortedEvents = new ArrayList<>();
+        try {
+            for (int i = 0; i < timestamps.length; i++) {
+                eventSorter.add(new Event(timestamps[i], new Object[]{i}));
+            }
+            eventSorter.sort();
+            Event event;
+            while ((event = eventSorter.next()) != null) {
+                sortedEvents.add(event.getTimestamp() + ":" + event.getData(0));
+            }
+        } finally {
+            eventSorter.close();
+        }
+        return sortedEvents;
+    }
+}
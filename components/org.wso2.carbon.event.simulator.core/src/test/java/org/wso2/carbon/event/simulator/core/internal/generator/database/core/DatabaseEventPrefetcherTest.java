@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.internal.generator.database.core;
+
+import io.siddhi.core.event.Event;
+import io.siddhi.query.api.definition.Attribute;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.event.simulator.core.internal.bean.DBSimulationDTO;
+import org.wso2.carbon.event.simulator.core.internal.generator.database.util.DatabaseConnector;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * DatabaseEventPrefetcherTest tests reading the events of a database simulation in pages ordered by timestamp, using
+ * an in-memory H2 database
+ */
+public class DatabaseEventPrefetcherTest {
+    private static final String DRIVER = "org.h2.Driver";
+    private static final String DATA_SOURCE_LOCATION = "jdbc:h2:mem:simulation;DB_CLOSE_DELAY=-1";
+    private static final String USERNAME = "sa";
+    private static final String PASSWORD = "";
+    private static final String TABLE_NAME = "EVENTS";
+    private Connection connection;
+
+    @BeforeMethod
+    public void createTable() throws SQLException {
+        connection = DriverManager.getConnection(DATA_SOURCE_LOCATION, USERNAME, PASSWORD);
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE TABLE " + TABLE_NAME + " (ID INT, TS BIGINT)");
+        }
+    }
+
+    @AfterMethod
+    public void dropTable() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("DROP TABLE " + TABLE_NAME);
+        }
+        connection.close();
+    }
+
+    @Test
+    public void testEqualTimestampsAcrossPageBoundary() throws Exception {
+//        the events at timestamp 3 start in the first page and end in the second page
+        insertEvents(1, 2, 3, 3, 3, 4, 5);
+        assertEvents(readEvents(4, 0, -1), 1, 2, 3, 3, 3, 4, 5);
+    }
+
+    @Test
+    public void testPageOfEqualTimestamps() throws Exception {
+//        all the events of the first page are at timestamp 1, hence all the events at timestamp 1 are read at once
+        insertEvents(1, 1, 1, 1, 2);
+        assertEvents(readEvents(2, 0, -1), 1, 1, 1, 1, 2);
+    }
+
+    @Test
+    public void testEmptyLastPage() throws Exception {
+//        the page after the events at timestamp 3 contains no events
+        insertEvents(1, 2, 3, 3);
+        assertEvents(readEvents(2, 0, -1), 1, 2, 3, 3);
+    }
+
+    @Test
+    public void testEmptyTable() throws Exception {
+        assertEvents(readEvents(2, 0, -1));
+    }
+
+    @Test
+    public void testStartAndEndTimeLimits() throws Exception {
+        insertEvents(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+        assertEvents(readEvents(2, 3, 7), 3, 4, 5, 6, 7);
+        assertEvents(readEvents(2, 8, -1), 8, 9, 10);
+        assertEvents(readEvents(2, 11, -1));
+    }
+
+    @Test
+    public void testReadWithoutPaging() throws Exception {
+        insertEvents(1, 2, 2, 3, 4);
+        assertEvents(readEvents(0, 2, 3), 2, 2, 3);
+    }
+
+    private void insertEvents(long... timestamps) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("INSERT INTO " + TABLE_NAME +
+                " (ID, TS) VALUES (?, ?)")) {
+            for (int i = 0; i < timestamps.length; i++) {
+                statement.setInt(1, i);
+                statement.setLong(2, timestamps[i]);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    private List<Event> readEvents(int pageSize, long startTimestamp, long endTimestamp) {
+        DBSimulationDTO dbSimulationConfig = new DBSimulationDTO();
+        dbSimulationConfig.setStreamName("TestStream");
+        dbSimulationConfig.setDriver(DRIVER);
+        dbSimulationConfig.setDataSourceLocation(DATA_SOURCE_LOCATION);
+        dbSimulationConfig.setUsername(USERNAME);
+        dbSimulationConfig.setPassword(PASSWORD);
+        dbSimulationConfig.setTableName(TABLE_NAME);
+        dbSimulationConfig.setColumnNames(Collections.singletonList("ID"));
+        dbSimulationConfig.setTimestampAttribute("TS");
+        dbSimulationConfig.setPageSize(pageSize);
+//        a single event is read ahead, hence reading a page waits for the events of the previous page to be taken
+        dbSimulationConfig.setPrefetchSize(1);
+        DatabaseConnector databaseConnection = new DatabaseConnector();
+        databaseConnection.connectToDatabase(DRIVER, DATA_SOURCE_LOCATION, USERNAME, PASSWORD);
+        DatabaseEventPrefetcher prefetcher = new DatabaseEventPrefetcher(dbSimulationConfig, databaseConnection,
+                Collections.singletonList(new Attribute("id", Attribute.Type.INT)), startTimestamp, endTimestamp);
+        List<Event> events = new ArrayList<>();
+        try {
+            prefetcher.start();
+            Event event;
+            while ((event = prefetcher.take()) != null) {
+                events.add(event);
+            }
+        } finally {
+            prefetcher.stop();
+            databaseConnection.closeConnection();
+        }
+        return events;
+    }
+
+    /**
+     * assertEvents() asserts that the events are read once each, in the order of the timestamps expected
+     */
+    private void assertEvents(List<Event> events, long... timestamps) {
+        Assert.assertEquals(events.size(), timestamps.length, "Events read: " + events);
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < timestamps.length; i++) {
+            Assert.assertEquals(events.get(i).getTimestamp(), timestamps[i]);
+            ids.add((Integer) events.get(i).getData(0));
+        }
+        Assert.assertEquals(ids.size(), ids.stream().distinct().count(), "Events are read more than once");
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.internal.util;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.event.simulator.core.internal.bean.SimulationStatisticsDTO;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EventPacerTest tests the pacing of batches of events sent in throughput mode
+ */
+public class EventPacerTest {
+
+    @Test
+    public void testBatchesArePacedAtTheTargetRate() throws Exception {
+        EventPacer eventPacer = new EventPacer(2000);
+        long startTime = System.nanoTime();
+        eventPacer.start();
+//        10 batches of 100 events at 2000 events/sec are due within 450 ms
+        for (int i = 0; i < 10; i++) {
+            while (!eventPacer.awaitNextBatch()) {
+                Assert.assertEquals(eventPacer.getEventsSent(), i * 100);
+            }
+            eventPacer.record(100, 0);
+        }
+        long elapsedTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        Assert.assertTrue(elapsedTime >= 450, "Batches are sent ahead of the target rate");
+        Assert.assertTrue(elapsedTime < 1000, "Batches are sent behind the target rate");
+        Assert.assertEquals(eventPacer.getEventsSent(), 1000);
+    }
+
+    @Test
+    public void testUnboundedRateDoesNotWait() throws Exception {
+        EventPacer eventPacer = new EventPacer(-1);
+        long startTime = System.nanoTime();
+        eventPacer.start();
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertTrue(eventPacer.awaitNextBatch());
+            eventPacer.record(100, TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) < 200);
+        Assert.assertEquals(eventPacer.getEventsSent(), 100000);
+        Assert.assertEquals(eventPacer.getAverageLatency(), 1.0, 0.001);
+        SimulationStatisticsDTO statistics = eventPacer.getStatistics();
+        Assert.assertEquals(statistics.getEventsSent(), 100000);
+        Assert.assertEquals(statistics.getBatchesSent(), 1000);
+        Assert.assertEquals(statistics.getAverageBatchLatency(), 1.0, 0.001);
+        Assert.assertEquals(statistics.getMaxBatchLatency(), 1.0, 0.001);
+        Assert.assertTrue(statistics.getThroughput() > 0);
+    }
+
+    @Test
+    public void testScheduleOfManyEventsDoesNotOverflow() throws Exception {
+        EventPacer eventPacer = new EventPacer(1000000000L);
+        eventPacer.start();
+//        about 10.7 billion events at a billion events/sec are due 10.7 seconds after the start
+        for (int i = 0; i < 5; i++) {
+            eventPacer.record(Integer.MAX_VALUE, 0);
+        }
+        Thread pacedThread = Thread.currentThread();
+        Thread interrupter = new Thread(() -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                return;
+            }
+            pacedThread.interrupt();
+        });
+        interrupter.start();
+        try {
+            while (!eventPacer.awaitNextBatch()) {
+                Assert.assertEquals(eventPacer.getEventsSent(), 5L * Integer.MAX_VALUE);
+            }
+            Assert.fail("The next batch is sent ahead of the target rate");
+        } catch (InterruptedException e) {
+//            the next batch is still awaited when the simulation is interrupted
+        } finally {
+            interrupter.interrupt();
+            interrupter.join();
+            Thread.interrupted();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.service;
+
+import io.siddhi.core.event.Event;
+import io.siddhi.query.api.definition.Attribute;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import util.EventData;
+import util.StreamProcessorUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EventSimulatorTest tests the simulation of events in throughput mode
+ */
+public class EventSimulatorTest {
+    private static final String THROUGHPUT_SIMULATION_CONFIG = "{\n" +
+            "  \"properties\": {\n" +
+            "    \"simulationName\": \"ThroughputSimulation\",\n" +
+            "    \"timeInterval\": \"1000\",\n" +
+            "    \"noOfEvents\": \"1000\",\n" +
+            "    \"eventsPerSecond\": \"4000\",\n" +
+            "    \"batchSize\": \"100\"\n" +
+            "  },\n" +
+            "  \"sources\": [\n" +
+            "    {\n" +
+            "      \"simulationType\": \"RANDOM_DATA_SIMULATION\",\n" +
+            "      \"streamName\": \"FooStream\",\n" +
+            "      \"siddhiAppName\": \"TestSiddhiApp\",\n" +
+            "      \"timestampInterval\": \"1\",\n" +
+            "      \"attributeConfiguration\": [\n" +
+            "        {\n" +
+            "          \"type\": \"PRIMITIVE_BASED\",\n" +
+            "          \"length\": \"5\"\n" +
+            "        },\n" +
+            "        {\n" +
+            "          \"type\": \"PRIMITIVE_BASED\",\n" +
+            "          \"min\": \"1\",\n" +
+            "          \"max\": \"100\"\n" +
+            "        }\n" +
+            "      ]\n" +
+            "    }\n" +
+            "  ]\n" +
+            "}";
+    private BatchRecordingStreamProcessorUtil eventStreamService;
+
+    @BeforeClass
+    public void setUp() {
+        eventStreamService = new BatchRecordingStreamProcessorUtil();
+        eventStreamService.addStreamAttributes("TestSiddhiApp", "FooStream", Arrays.asList(
+                new Attribute("symbol", Attribute.Type.STRING),
+                new Attribute("volume", Attribute.Type.LONG)));
+        EventSimulatorDataHolder.getInstance().setEventStreamService(eventStreamService);
+    }
+
+    @AfterClass
+    public void tearDown() {
+        EventSimulatorDataHolder.getInstance().setEventStreamService(null);
+    }
+
+    @Test
+    public void testThroughputSimulation() throws Exception {
+        EventSimulator eventSimulator = new EventSimulator("ThroughputSimulation", THROUGHPUT_SIMULATION_CONFIG,
+                false);
+        long startTime = System.nanoTime();
+        Thread simulationThread = new Thread(eventSimulator);
+        simulationThread.start();
+        simulationThread.join(TimeUnit.SECONDS.toMillis(10));
+        long elapsedTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        Assert.assertFalse(simulationThread.isAlive(), "Simulation did not complete");
+
+//        1000 events are sent in 10 batches of 100 events, the last of which is due 225 ms after the start
+        Assert.assertEquals(eventStreamService.getNoOfEvents(), 1000);
+        Assert.assertEquals(eventStreamService.batchSizes.size(), 10);
+        for (int batchSize : eventStreamService.batchSizes) {
+            Assert.assertEquals(batchSize, 100);
+        }
+        Assert.assertTrue(elapsedTime >= 225, "Batches are sent ahead of the target rate");
+        Assert.assertTrue(elapsedTime < 2000, "Batches are sent behind the target rate");
+        long previousTimestamp = Long.MIN_VALUE;
+        for (EventData eventData : eventStreamService.getEventsReceived()) {
+            Assert.assertEquals(eventData.getStreamName(), "FooStream");
+            Assert.assertTrue(eventData.getEvent().getTimestamp() >= previousTimestamp);
+            previousTimestamp = eventData.getEvent().getTimestamp();
+        }
+    }
+
+    /**
+     * Records the size of each batch of events pushed by the simulation
+     */
+    private static class BatchRecordingStreamProcessorUtil extends StreamProcessorUtil {
+        private final List<Integer> batchSizes = new ArrayList<>();
+
+        @Override
+        public void pushEvents(String siddhiAppName, String streamName, Event[] events) {
+            batchSizes.add(events.length);
+            super.pushEvents(siddhiAppName, streamName, events);
+        }
+    }
+}
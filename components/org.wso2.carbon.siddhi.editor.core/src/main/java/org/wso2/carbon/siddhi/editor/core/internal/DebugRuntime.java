@@ -37,6 +37,8 @@ import java.util.concurrent.LinkedBlockingQueue;
 
 /**
  * Class for debugger runtime implementation.
+ * Once stopped, or reloaded with changed content, the Siddhi app runtime is shut down, and is created again from the
+ * latest content of the Siddhi app when it is used next.
  */
 public class DebugRuntime {
 
@@ -44,6 +46,8 @@ public class DebugRuntime {
     private Mode mode = Mode.STOP;
     private transient String siddhiApp;
     private transient SiddhiAppRuntime siddhiAppRuntime;
+    private transient String runtimeSiddhiApp;
+    private transient boolean runtimeStale = false;
     private transient SiddhiDebugger debugger;
     private transient LinkedBlockingQueue<DebugCallbackEvent> callbackEventsQueue;
     private Throwable caughtException;
@@ -87,7 +91,8 @@ public class DebugRuntime {
         return siddhiApp;
     }
 
-    public void start() {
+    public synchronized void start() {
+        recreateRuntimeIfStale();
         if (Mode.STOP.equals(mode)) {
             try {
                 siddhiAppRuntime.start();
@@ -105,8 +110,8 @@ public class DebugRuntime {
         }
     }
 
-    public void debug() {
-
+    public synchronized void debug() {
+        recreateRuntimeIfStale();
         if (Mode.STOP.equals(mode)) {
             try {
                 debugger = siddhiAppRuntime.debug();
@@ -129,27 +134,33 @@ public class DebugRuntime {
         }
     }
 
-    public void stop() {
+    public synchronized void stop() {
 
         if (debugger != null) {
             debugger.releaseAllBreakPoints();
             debugger.play();
             debugger = null;
         }
-        if (siddhiAppRuntime != null) {
+        if (siddhiAppRuntime != null && !runtimeStale) {
             siddhiAppRuntime.shutdown();
             mode = Mode.STOP;
+            runtimeStale = true;
         }
         callbackEventsQueue.clear();
     }
 
-    public void reload(String siddhiApp) {
+    public synchronized void reload(String siddhiApp) {
 
         this.siddhiApp = siddhiApp;
-        stop();
+        if (!siddhiApp.equals(runtimeSiddhiApp)) {
+            stop();
+            runtimeSiddhiApp = siddhiApp;
+            runtimeStale = true;
+        }
     }
 
-    public List<String> getStreams() {
+    public synchronized List<String> getStreams() {
+        recreateRuntimeIfStale();
         if (!Mode.FAULTY.equals(mode)) {
             return new ArrayList<>(siddhiAppRuntime.getStreamDefinitionMap().keySet());
         } else {
@@ -157,8 +168,8 @@ public class DebugRuntime {
         }
     }
 
-    public List<String> getQueries() {
-
+    public synchronized List<String> getQueries() {
+        recreateRuntimeIfStale();
         if (!Mode.FAULTY.equals(mode)) {
             return new ArrayList<>(siddhiAppRuntime.getQueryNames());
         } else {
@@ -166,8 +177,8 @@ public class DebugRuntime {
         }
     }
 
-    public InputHandler getInputHandler(String streamName) {
-
+    public synchronized InputHandler getInputHandler(String streamName) {
+        recreateRuntimeIfStale();
         if (!Mode.FAULTY.equals(mode)) {
             return siddhiAppRuntime.getInputHandler(streamName);
         } else {
@@ -175,8 +186,8 @@ public class DebugRuntime {
         }
     }
 
-    public List<Attribute> getStreamAttributes(String streamName) {
-
+    public synchronized List<Attribute> getStreamAttributes(String streamName) {
+        recreateRuntimeIfStale();
         if (!Mode.FAULTY.equals(mode)) {
             if (siddhiAppRuntime.getStreamDefinitionMap().containsKey(streamName)) {
                 return siddhiAppRuntime.getStreamDefinitionMap().get(streamName).getAttributeList();
@@ -194,7 +205,15 @@ public class DebugRuntime {
         return callbackEventsQueue;
     }
 
+    private void recreateRuntimeIfStale() {
+        if (runtimeStale) {
+            runtimeStale = false;
+            createRuntime(runtimeSiddhiApp);
+        }
+    }
+
     private void createRuntime(String siddhiApp) {
+        runtimeSiddhiApp = siddhiApp;
         try {
             if (siddhiApp != null && !siddhiApp.isEmpty()) {
                 siddhiAppRuntime = EditorDataHolder.getSiddhiManager()
@@ -209,11 +228,13 @@ public class DebugRuntime {
         }
     }
 
-    public void setSiddhiAppRuntime(SiddhiAppRuntime siddhiAppRuntime) {
+    public synchronized void setSiddhiAppRuntime(SiddhiAppRuntime siddhiAppRuntime) {
         this.siddhiAppRuntime = siddhiAppRuntime;
+        runtimeStale = false;
     }
 
-    public SiddhiAppRuntime getSiddhiAppRuntime() {
+    public synchronized SiddhiAppRuntime getSiddhiAppRuntime() {
+        recreateRuntimeIfStale();
         return siddhiAppRuntime;
     }
 
@@ -38,7 +38,6 @@ import io.siddhi.core.stream.input.source.Source;
 import io.siddhi.core.stream.output.sink.Sink;
 import io.siddhi.core.util.SiddhiComponentActivator;
 import io.siddhi.query.api.definition.StreamDefinition;
-import io.siddhi.query.api.exception.SiddhiAppContextException;
 import net.minidev.json.JSONArray;
 import org.apache.axiom.om.DeferredParsingException;
 import org.apache.axiom.om.OMElement;
@@ -47,7 +46,6 @@ import org.apache.axiom.om.xpath.AXIOMXPath;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.jaxen.JaxenException;
 import org.json.JSONObject;
 import org.osgi.framework.BundleContext;
@@ -73,7 +71,6 @@ import org.wso2.carbon.siddhi.editor.core.commons.response.DebugRuntimeResponse;
 import org.wso2.carbon.siddhi.editor.core.commons.response.GeneralResponse;
 import org.wso2.carbon.siddhi.editor.core.commons.response.MetaDataResponse;
 import org.wso2.carbon.siddhi.editor.core.commons.response.Status;
-import org.wso2.carbon.siddhi.editor.core.commons.response.ValidationSuccessResponse;
 import org.wso2.carbon.siddhi.editor.core.exception.DockerGenerationException;
 import org.wso2.carbon.siddhi.editor.core.exception.ErrorHandlerServiceStubException;
 import org.wso2.carbon.siddhi.editor.core.exception.InvalidExecutionStateException;
@@ -183,6 +180,8 @@ public class EditorMicroservice implements Microservice {
     private static final String EXPORT_REQUEST_TYPE_DOWNLOAD_ONLY = "downloadOnly";
     private static final String EXPORT_REQUEST_TYPE_BUILD_ONLY = "buildOnly";
     private static final String EXPORT_REQUEST_GET_STATUS_HEADER = "Siddhi-Docker-Key";
+    // system property configuring the number of Siddhi app validation results cached
+    private static final String VALIDATION_CACHE_SIZE = "siddhiAppValidationCacheSize";
     private ServiceRegistration serviceRegistration;
     private Workspace workspace;
     private ExecutorService executorService = Executors
@@ -193,6 +192,7 @@ public class EditorMicroservice implements Microservice {
     private ConfigProvider configProvider;
     private ServiceRegistration siddhiAppRuntimeServiceRegistration;
     private StoreQueryAPIHelper storeQueryAPIHelper;
+    private SiddhiAppValidator siddhiAppValidator;
     private Map<String, DockerBuilderStatus> dockerBuilderStatusMap = new HashMap<>();
     private Map<String, String> dataStoreMap = new HashMap<>();
 
@@ -260,55 +260,7 @@ public class EditorMicroservice implements Microservice {
     public Response validateSiddhiApp(String validationRequestString) {
 
         ValidationRequest validationRequest = new Gson().fromJson(validationRequestString, ValidationRequest.class);
-        String jsonString = "";
-        try {
-            String siddhiApp = validationRequest.getSiddhiApp();
-            if (validationRequest.getVariables().size() != 0) {
-                siddhiApp = SourceEditorUtils.populateSiddhiAppWithVars(validationRequest.getVariables(), siddhiApp);
-            }
-            if (EditorDataHolder.getSiddhiManager() != null) {
-                SiddhiAppRuntime siddhiAppRuntime =
-                        EditorDataHolder.getSiddhiManager().createSiddhiAppRuntime(siddhiApp);
-                String siddhiAppName = siddhiAppRuntime.getName();
-                DebugRuntime debugRuntime = EditorDataHolder.getSiddhiAppMap().get(siddhiAppName);
-                if (debugRuntime != null && debugRuntime.getMode() != DebugRuntime.Mode.RUN) {
-                    debugRuntime.setSiddhiAppRuntime(siddhiAppRuntime);
-                    debugRuntime.setMode(DebugRuntime.Mode.STOP);
-                    EditorDataHolder.getSiddhiAppMap().put(siddhiAppName, debugRuntime);
-                }
-
-                // Status SUCCESS to indicate that the siddhi app is valid
-                ValidationSuccessResponse response = new ValidationSuccessResponse(Status.SUCCESS);
-
-                // Getting requested stream definitions
-                if (validationRequest.getMissingStreams() != null) {
-                    response.setStreams(SourceEditorUtils.getStreamDefinitions(
-                            siddhiAppRuntime, validationRequest.getMissingStreams()
-                    ));
-                }
-
-                // Getting requested aggregation definitions
-                if (validationRequest.getMissingAggregationDefinitions() != null) {
-                    response.setAggregationDefinitions(SourceEditorUtils.getAggregationDefinitions(
-                            siddhiAppRuntime, validationRequest.getMissingAggregationDefinitions()
-                    ));
-                }
-                jsonString = new Gson().toJson(response);
-            }
-        } catch (Throwable t) {
-            // If the exception is a SiddhiAppCreationException and its message is null, append the stacktrace as the
-            // message.
-            if (t instanceof SiddhiAppContextException &&
-                    ((SiddhiAppContextException) t).getMessageWithOutContext() == null) {
-                SiddhiAppContextException e = (SiddhiAppContextException) t;
-                SiddhiAppCreationException appCreationException = new SiddhiAppCreationException(
-                        ExceptionUtils.getStackTrace(t), t, e.getQueryContextStartIndex(), e.getQueryContextEndIndex());
-                jsonString = new Gson().toJson(appCreationException);
-            } else {
-                jsonString = new Gson().toJson(t);
-            }
-        }
-        return Response.ok(jsonString, MediaType.APPLICATION_JSON)
+        return Response.ok(siddhiAppValidator.validate(validationRequest), MediaType.APPLICATION_JSON)
                 .build();
     }
 
@@ -2154,6 +2106,10 @@ public class EditorMicroservice implements Microservice {
         FileConfigManager fileConfigManager = new FileConfigManager(configProvider);
         siddhiManager.setConfigManager(fileConfigManager);
         EditorDataHolder.setSiddhiManager(siddhiManager);
+        SiddhiManager validationSiddhiManager = new SiddhiManager();
+        validationSiddhiManager.setConfigManager(fileConfigManager);
+        siddhiAppValidator = new SiddhiAppValidator(validationSiddhiManager,
+                Integer.getInteger(VALIDATION_CACHE_SIZE, 100));
         EditorDataHolder.setBundleContext(bundleContext);
         siddhiAppRuntimeServiceRegistration = bundleContext.registerService(SiddhiAppRuntimeService.class.getName(),
                 new EditorSiddhiAppRuntimeService(), null);
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.siddhi.editor.core.internal;
+
+import com.google.gson.Gson;
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.SiddhiManager;
+import io.siddhi.core.exception.SiddhiAppCreationException;
+import io.siddhi.query.api.definition.AggregationDefinition;
+import io.siddhi.query.api.definition.StreamDefinition;
+import io.siddhi.query.api.exception.SiddhiAppContextException;
+import io.siddhi.query.compiler.SiddhiCompiler;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.siddhi.editor.core.commons.request.ValidationRequest;
+import org.wso2.carbon.siddhi.editor.core.commons.response.Status;
+import org.wso2.carbon.siddhi.editor.core.commons.response.ValidationSuccessResponse;
+import org.wso2.carbon.siddhi.editor.core.util.SourceEditorUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Validates the Siddhi apps being edited.
+ * A Siddhi app is parsed first, hence syntax errors are reported without creating a Siddhi app runtime. Otherwise a
+ * runtime is created to validate the app, and is shut down once its stream and aggregation definitions are taken.
+ * These runtimes are created by a separate Siddhi manager, as shutting down a runtime removes the runtime registered
+ * under its app name, which may be the runtime of a running app. Debug runtimes are not touched, as they run the
+ * saved content of the apps, which they reload when saved. Validation results are cached by the hash of the app
+ * content, hence an unchanged app is not validated again. Errors in creating runtimes are not cached, as they may
+ * depend on the environment, such as the extensions installed.
+ */
+public class SiddhiAppValidator {
+    private static final Logger log = LoggerFactory.getLogger(SiddhiAppValidator.class);
+    private final SiddhiManager validationSiddhiManager;
+    private final Map<String, ValidationResult> validationResults;
+
+    /**
+     * @param validationSiddhiManager Siddhi manager creating the runtimes which are shut down after validation
+     * @param maxResults              maximum number of validation results cached, beyond which the least recently
+     *                                used are evicted
+     */
+    public SiddhiAppValidator(SiddhiManager validationSiddhiManager, int maxResults) {
+        this.validationSiddhiManager = validationSiddhiManager;
+        this.validationResults = new LinkedHashMap<String, ValidationResult>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ValidationResult> eldest) {
+                return size() > maxResults;
+            }
+        };
+    }
+
+    /**
+     * Validate the Siddhi app of the request.
+     *
+     * @param validationRequest validation request
+     * @return JSON string of the validation response, or of the error if the Siddhi app is invalid
+     */
+    public String validate(ValidationRequest validationRequest) {
+        try {
+            String siddhiApp = validationRequest.getSiddhiApp();
+            if (validationRequest.getVariables().size() != 0) {
+                siddhiApp = SourceEditorUtils.populateSiddhiAppWithVars(validationRequest.getVariables(), siddhiApp);
+            }
+            if (EditorDataHolder.getSiddhiManager() == null) {
+                return "";
+            }
+            ValidationResult validationResult = validate(siddhiApp);
+            if (validationResult.error != null) {
+                return validationResult.error;
+            }
+
+            // Status SUCCESS to indicate that the siddhi app is valid
+            ValidationSuccessResponse response = new ValidationSuccessResponse(Status.SUCCESS);
+
+            // Getting requested stream definitions
+            if (validationRequest.getMissingStreams() != null) {
+                response.setStreams(SourceEditorUtils.getStreamDefinitions(
+                        validationResult.streamDefinitionMap, validationRequest.getMissingStreams()
+                ));
+            }
+
+            // Getting requested aggregation definitions
+            if (validationRequest.getMissingAggregationDefinitions() != null) {
+                response.setAggregationDefinitions(SourceEditorUtils.getAggregationDefinitions(
+                        validationResult.aggregationDefinitionMap,
+                        validationRequest.getMissingAggregationDefinitions()
+                ));
+            }
+            return new Gson().toJson(response);
+        } catch (Throwable t) {
+            return toJson(t);
+        }
+    }
+
+    private ValidationResult validate(String siddhiApp) {
+        String key = hash(siddhiApp);
+        ValidationResult validationResult;
+        synchronized (validationResults) {
+            validationResult = validationResults.get(key);
+        }
+        if (validationResult != null) {
+            return validationResult;
+        }
+        try {
+            SiddhiCompiler.parse(SiddhiCompiler.updateVariables(siddhiApp));
+        } catch (Throwable t) {
+            validationResult = new ValidationResult(toJson(t));
+            synchronized (validationResults) {
+                validationResults.put(key, validationResult);
+            }
+            return validationResult;
+        }
+        SiddhiAppRuntime siddhiAppRuntime = validationSiddhiManager.createSiddhiAppRuntime(siddhiApp);
+        validationResult = new ValidationResult(new HashMap<>(siddhiAppRuntime.getStreamDefinitionMap()),
+                new HashMap<>(siddhiAppRuntime.getAggregationDefinitionMap()));
+        try {
+            siddhiAppRuntime.shutdown();
+        } catch (RuntimeException e) {
+            log.debug("Error in shutting down the Siddhi app runtime created to validate Siddhi app '{}'.",
+                    siddhiAppRuntime.getName(), e);
+        }
+        synchronized (validationResults) {
+            validationResults.put(key, validationResult);
+        }
+        return validationResult;
+    }
+
+    private static String toJson(Throwable t) {
+        // If the exception is a SiddhiAppCreationException and its message is null, append the stacktrace as the
+        // message.
+        if (t instanceof SiddhiAppContextException &&
+                ((SiddhiAppContextException) t).getMessageWithOutContext() == null) {
+            SiddhiAppContextException e = (SiddhiAppContextException) t;
+            SiddhiAppCreationException appCreationException = new SiddhiAppCreationException(
+                    ExceptionUtils.getStackTrace(t), t, e.getQueryContextStartIndex(), e.getQueryContextEndIndex());
+            return new Gson().toJson(appCreationException);
+        }
+        return new Gson().toJson(t);
+    }
+
+    private static String hash(String siddhiApp) {
+        try {
+            return Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256")
+                    .digest(siddhiApp.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    private static class ValidationResult {
+        private final Map<String, StreamDefinition> streamDefinitionMap;
+        private final Map<String, AggregationDefinition> aggregationDefinitionMap;
+        private final String error;
+
+        ValidationResult(Map<String, StreamDefinition> streamDefinitionMap,
+                         Map<String, AggregationDefinition> aggregationDefinitionMap) {
+            this.streamDefinitionMap = streamDefinitionMap;
+            this.aggregationDefinitionMap = aggregationDefinitionMap;
+            this.error = null;
+        }
+
+        ValidationResult(String error) {
+            this.streamDefinitionMap = null;
+            this.aggregationDefinitionMap = null;
+            this.error = error;
+        }
+    }
+}
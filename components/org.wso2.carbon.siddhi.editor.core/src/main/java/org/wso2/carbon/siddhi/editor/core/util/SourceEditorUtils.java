@@ -154,15 +154,14 @@ public class SourceEditorUtils {
      * Get the definitions of the streams that are requested.
      * used for fetching the definitions of streams that queries output into without defining them first
      *
-     * @param siddhiAppRuntime Siddhi app runtime created after validating
-     * @param missingStreams   Required stream names
+     * @param streamDefinitionMap Stream definitions of the Siddhi app runtime created after validating
+     * @param missingStreams      Required stream names
      * @return The stream definitions
      */
-    public static List<AbstractDefinition> getStreamDefinitions(SiddhiAppRuntime siddhiAppRuntime,
+    public static List<AbstractDefinition> getStreamDefinitions(Map<String, StreamDefinition> streamDefinitionMap,
                                                                 List<String> missingStreams) {
 
         List<AbstractDefinition> streamDefinitions = new ArrayList<>();
-        Map<String, StreamDefinition> streamDefinitionMap = siddhiAppRuntime.getStreamDefinitionMap();
         for (String stream : missingStreams) {
             AbstractDefinition streamDefinition = streamDefinitionMap.get(stream);
             if (streamDefinition != null) {
@@ -176,15 +175,15 @@ public class SourceEditorUtils {
      * Get the definitions of the aggregations that are requested.
      * used for fetching the definitions of aggregations
      *
-     * @param siddhiAppRuntime              Siddhi app runtime created after validating
+     * @param aggregationDefinitionMap      Aggregation definitions of the Siddhi app runtime created after
+     *                                      validating
      * @param missingAggregationDefinitions Required stream names
      * @return The stream definitions
      */
-    public static List<AbstractDefinition> getAggregationDefinitions(SiddhiAppRuntime siddhiAppRuntime,
-                                                                     List<String> missingAggregationDefinitions) {
+    public static List<AbstractDefinition> getAggregationDefinitions(
+            Map<String, AggregationDefinition> aggregationDefinitionMap, List<String> missingAggregationDefinitions) {
 
         List<AbstractDefinition> aggregationDefinitions = new ArrayList<>();
-        Map<String, AggregationDefinition> aggregationDefinitionMap = siddhiAppRuntime.getAggregationDefinitionMap();
         for (String aggregation : missingAggregationDefinitions) {
             AbstractDefinition aggregationDefinition = aggregationDefinitionMap.get(aggregation);
             if (aggregationDefinition != null) {
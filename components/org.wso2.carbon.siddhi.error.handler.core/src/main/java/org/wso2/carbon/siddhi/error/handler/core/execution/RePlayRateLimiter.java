@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.siddhi.error.handler.core.execution;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the rate at which erroneous events are re-played, across the threads re-playing them.
+ * Each acquisition reserves the time needed to re-play its events at the permitted rate, and waits until the time
+ * reserved by the earlier acquisitions has elapsed.
+ */
+class RePlayRateLimiter {
+    private final long nanosPerEvent;
+    private long nextFreeNanos = System.nanoTime();
+
+    /**
+     * @param maxEventsPerSecond maximum number of events re-played per second, or 0 to not limit the rate
+     */
+    RePlayRateLimiter(int maxEventsPerSecond) {
+        this.nanosPerEvent = maxEventsPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / maxEventsPerSecond : 0;
+    }
+
+    /**
+     * Waits until the given number of events can be re-played.
+     *
+     * @param eventCount number of events to be re-played
+     * @throws InterruptedException if interrupted while waiting
+     */
+    void acquire(int eventCount) throws InterruptedException {
+        if (nanosPerEvent == 0) {
+            return;
+        }
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long startNanos = Math.max(now, nextFreeNanos);
+            nextFreeNanos = startNanos + eventCount * nanosPerEvent;
+            waitNanos = startNanos - now;
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+}
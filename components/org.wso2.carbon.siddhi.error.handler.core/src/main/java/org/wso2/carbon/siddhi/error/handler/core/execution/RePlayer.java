@@ -28,62 +28,315 @@ import io.siddhi.core.util.error.handler.model.ReplayableTableRecord;
 import io.siddhi.core.util.error.handler.store.ErrorStore;
 import io.siddhi.core.util.error.handler.util.ErrorHandlerUtils;
 import io.siddhi.core.util.error.handler.util.ErrorOccurrence;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.wso2.carbon.siddhi.error.handler.core.exception.SiddhiErrorHandlerException;
 import org.wso2.carbon.siddhi.error.handler.core.internal.SiddhiErrorHandlerDataHolder;
+import org.wso2.carbon.streaming.integrator.common.BatchReplayableErrorStore;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Contains methods to re-play collected erroneous events.
+ * Error entries are grouped by the stream they belong to, and the groups are re-played in parallel, while the entries
+ * of a group are re-played in order. Consecutive events of a group are sent to the stream as a single batch. Re-played
+ * entries are discarded from the error store in batches, and re-playing stops if they could not be discarded.
  */
 public class RePlayer {
+    private static final Logger logger = LoggerFactory.getLogger(RePlayer.class);
+    private static final AtomicInteger threadCount = new AtomicInteger();
+
     private RePlayer() {
     }
 
     public static void rePlay(List<ErrorEntry> errorEntries) throws SiddhiErrorHandlerException {
-        ErrorStore errorStore = SiddhiErrorHandlerDataHolder.getInstance().getErrorStore();
+        rePlay(errorEntries, 1, 0);
+    }
+
+    /**
+     * Re-plays the given error entries, and discards the entries which were re-played.
+     *
+     * @param errorEntries       error entries to be re-played
+     * @param parallelism        number of streams re-played in parallel
+     * @param maxEventsPerSecond maximum number of events re-played per second, or 0 to not limit the rate
+     * @throws SiddhiErrorHandlerException if any of the entries could not be re-played
+     */
+    public static void rePlay(List<ErrorEntry> errorEntries, int parallelism, int maxEventsPerSecond)
+        throws SiddhiErrorHandlerException {
+        ErrorStore errorStore = getErrorStore();
+        ExecutorService executorService = createExecutorService(parallelism);
+        try {
+            List<Integer> rePlayedIds =
+                rePlay(errorEntries, executorService, new RePlayRateLimiter(maxEventsPerSecond));
+            discardErrorEntries(errorStore, rePlayedIds);
+            if (rePlayedIds.size() < errorEntries.size()) {
+                throw new SiddhiErrorHandlerException("There were some failures when trying to re-play.");
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Re-plays all the error entries of the Siddhi app, loading them from the error store page by page in the order of
+     * their ids, and discards the entries which were re-played. Only the entries which were in the error store when
+     * re-playing started are loaded, hence the entries of the events failing again while being re-played are not.
+     *
+     * @param siddhiAppName      name of the Siddhi app
+     * @param pageSize           number of error entries loaded from the error store at once
+     * @param parallelism        number of streams re-played in parallel
+     * @param maxEventsPerSecond maximum number of events re-played per second, or 0 to not limit the rate
+     * @return number of error entries re-played
+     * @throws SiddhiErrorHandlerException if any of the entries could not be re-played
+     */
+    public static int rePlayAll(String siddhiAppName, int pageSize, int parallelism, int maxEventsPerSecond)
+        throws SiddhiErrorHandlerException {
+        if (pageSize < 1) {
+            throw new SiddhiErrorHandlerException("Page size must be a positive integer.");
+        }
+        ErrorStore errorStore = getErrorStore();
+        ExecutorService executorService = createExecutorService(parallelism);
+        RePlayRateLimiter rateLimiter = new RePlayRateLimiter(maxEventsPerSecond);
+        int rePlayedCount = 0;
         int failureCount = 0;
-        for (ErrorEntry errorEntry : errorEntries) {
-            try {
-                rePlay(errorEntry);
-                errorStore.discardErrorEntry(errorEntry.getId());
-            } catch (SiddhiErrorHandlerException | InterruptedException e) {
-                failureCount++;
+        try {
+            if (errorStore instanceof BatchReplayableErrorStore) {
+                BatchReplayableErrorStore batchReplayableErrorStore = (BatchReplayableErrorStore) errorStore;
+                int maxId = batchReplayableErrorStore.getMaxErrorEntryId(siddhiAppName);
+                if (maxId < 0) {
+                    throw new SiddhiErrorHandlerException(
+                        String.format("Failed to get the error entries of Siddhi app: %s.", siddhiAppName));
+                }
+                int lastId = 0;
+                while (lastId < maxId && !Thread.currentThread().isInterrupted()) {
+                    List<ErrorEntry> errorEntries =
+                        batchReplayableErrorStore.loadErrorEntries(siddhiAppName, lastId, maxId, pageSize);
+                    if (errorEntries == null) {
+                        throw new SiddhiErrorHandlerException(String.format("Failed to get the error entries of " +
+                            "Siddhi app: %s after id: %s.", siddhiAppName, lastId));
+                    }
+                    if (errorEntries.isEmpty()) {
+                        break;
+                    }
+                    lastId = errorEntries.get(errorEntries.size() - 1).getId();
+                    List<Integer> rePlayedIds = rePlay(errorEntries, executorService, rateLimiter);
+                    discardErrorEntries(errorStore, rePlayedIds);
+                    rePlayedCount += rePlayedIds.size();
+                    failureCount += errorEntries.size() - rePlayedIds.size();
+                }
+            } else {
+                // The error store can not load the entries in the order of their ids, hence they are loaded at once.
+                Map<String, String> queryParams = new HashMap<>();
+                queryParams.put("descriptive", "true");
+                List<ErrorEntry> errorEntries = errorStore.loadErrorEntries(siddhiAppName, queryParams);
+                List<Integer> rePlayedIds = rePlay(errorEntries, executorService, rateLimiter);
+                discardErrorEntries(errorStore, rePlayedIds);
+                rePlayedCount += rePlayedIds.size();
+                failureCount += errorEntries.size() - rePlayedIds.size();
             }
+        } finally {
+            executorService.shutdownNow();
         }
         if (failureCount > 0) {
-            throw new SiddhiErrorHandlerException("There were some failures when trying to re-play.");
+            throw new SiddhiErrorHandlerException(String.format("Failed to re-play %s out of %s error entries of " +
+                "Siddhi app: %s.", failureCount, rePlayedCount + failureCount, siddhiAppName));
+        }
+        return rePlayedCount;
+    }
+
+    private static ErrorStore getErrorStore() throws SiddhiErrorHandlerException {
+        ErrorStore errorStore = SiddhiErrorHandlerDataHolder.getInstance().getErrorStore();
+        if (errorStore == null) {
+            throw new SiddhiErrorHandlerException("Error store is unavailable.");
+        }
+        return errorStore;
+    }
+
+    private static ExecutorService createExecutorService(int parallelism) {
+        return Executors.newFixedThreadPool(Math.max(parallelism, 1), runnable -> {
+            Thread thread = new Thread(runnable, "ErrorEntryRePlayer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Discards the re-played error entries, failing if they could not be discarded, to not re-play them again.
+     */
+    private static void discardErrorEntries(ErrorStore errorStore, List<Integer> ids)
+        throws SiddhiErrorHandlerException {
+        if (errorStore instanceof BatchReplayableErrorStore) {
+            if (!((BatchReplayableErrorStore) errorStore).discardErrorEntries(ids)) {
+                throw new SiddhiErrorHandlerException(String.format("Failed to discard %s re-played error entries, " +
+                    "hence re-playing was stopped.", ids.size()));
+            }
+        } else {
+            for (int id : ids) {
+                errorStore.discardErrorEntry(id);
+            }
         }
     }
 
-    private static void rePlay(ErrorEntry errorEntry) throws SiddhiErrorHandlerException, InterruptedException {
+    /**
+     * Re-plays the error entries of each stream in parallel.
+     *
+     * @return ids of the error entries which were re-played
+     */
+    private static List<Integer> rePlay(List<ErrorEntry> errorEntries, ExecutorService executorService,
+                                        RePlayRateLimiter rateLimiter) {
+        Map<String, List<ErrorEntry>> streamErrorEntries = new LinkedHashMap<>();
+        for (ErrorEntry errorEntry : errorEntries) {
+            streamErrorEntries.computeIfAbsent(errorEntry.getSiddhiAppName() + ":" + errorEntry.getStreamName(),
+                key -> new ArrayList<>()).add(errorEntry);
+        }
+        List<Future<List<Integer>>> futures = new ArrayList<>(streamErrorEntries.size());
+        for (List<ErrorEntry> entries : streamErrorEntries.values()) {
+            futures.add(executorService.submit(() -> rePlayStream(entries, rateLimiter)));
+        }
+        List<Integer> rePlayedIds = new ArrayList<>(errorEntries.size());
+        for (Future<List<Integer>> future : futures) {
+            try {
+                rePlayedIds.addAll(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(remainingFuture -> remainingFuture.cancel(true));
+                break;
+            } catch (ExecutionException e) {
+                logger.error("Failed to re-play error entries.", e.getCause());
+            }
+        }
+        return rePlayedIds;
+    }
+
+    /**
+     * Re-plays the error entries of a stream in order, sending consecutive events as a single batch.
+     *
+     * @return ids of the error entries which were re-played
+     */
+    private static List<Integer> rePlayStream(List<ErrorEntry> errorEntries, RePlayRateLimiter rateLimiter) {
+        List<Integer> rePlayedIds = new ArrayList<>(errorEntries.size());
+        String siddhiAppName = errorEntries.get(0).getSiddhiAppName();
+        String streamName = errorEntries.get(0).getStreamName();
         SiddhiAppRuntime siddhiAppRuntime = SiddhiErrorHandlerDataHolder.getInstance()
-            .getSiddhiAppRuntimeService().getActiveSiddhiAppRuntimes().get(errorEntry.getSiddhiAppName());
-        if (siddhiAppRuntime != null) {
-            switch (errorEntry.getEventType()) {
-                case COMPLEX_EVENT:
-                    rePlayComplexEvent(errorEntry, siddhiAppRuntime);
-                    break;
-                case EVENT:
-                    rePlayEvent(errorEntry, siddhiAppRuntime);
-                    break;
-                case EVENT_ARRAY:
-                    rePlayEventArray(errorEntry, siddhiAppRuntime);
-                    break;
-                case EVENT_LIST:
-                    rePlayEventList(errorEntry, siddhiAppRuntime);
-                    break;
-                case PAYLOAD_STRING:
-                    rePlayPayloadString(errorEntry, siddhiAppRuntime);
-                    break;
-                case REPLAYABLE_TABLE_RECORD:
-                    rePlayTableRecord(errorEntry, siddhiAppRuntime);
-                default:
-                    // Ideally we won't reach here
+            .getSiddhiAppRuntimeService().getActiveSiddhiAppRuntimes().get(siddhiAppName);
+        if (siddhiAppRuntime == null) {
+            logger.error(String.format("Siddhi app: %s is not active, hence its error entries were not re-played.",
+                siddhiAppName));
+            return rePlayedIds;
+        }
+        List<Event> events = new ArrayList<>();
+        List<Integer> eventEntryIds = new ArrayList<>();
+        try {
+            for (ErrorEntry errorEntry : errorEntries) {
+                try {
+                    switch (errorEntry.getEventType()) {
+                        case EVENT:
+                        case EVENT_ARRAY:
+                        case EVENT_LIST:
+                            events.addAll(getEvents(errorEntry));
+                            eventEntryIds.add(errorEntry.getId());
+                            break;
+                        default:
+                            rePlayEvents(events, eventEntryIds, siddhiAppRuntime, streamName, rateLimiter,
+                                rePlayedIds);
+                            rateLimiter.acquire(1);
+                            rePlay(errorEntry, siddhiAppRuntime);
+                            rePlayedIds.add(errorEntry.getId());
+                    }
+                } catch (SiddhiErrorHandlerException | RuntimeException e) {
+                    logger.error(String.format("Failed to re-play error entry with id: %s.", errorEntry.getId()), e);
+                }
+            }
+            rePlayEvents(events, eventEntryIds, siddhiAppRuntime, streamName, rateLimiter, rePlayedIds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return rePlayedIds;
+    }
+
+    private static void rePlayEvents(List<Event> events, List<Integer> eventEntryIds,
+                                     SiddhiAppRuntime siddhiAppRuntime, String streamName,
+                                     RePlayRateLimiter rateLimiter, List<Integer> rePlayedIds)
+        throws InterruptedException {
+        if (eventEntryIds.isEmpty()) {
+            return;
+        }
+        try {
+            InputHandler inputHandler = siddhiAppRuntime.getInputHandler(streamName);
+            if (inputHandler != null) {
+                rateLimiter.acquire(events.size());
+                inputHandler.send(events.toArray(new Event[0]));
+                rePlayedIds.addAll(eventEntryIds);
+            } else {
+                logger.error(String.format("Input handler was not found for stream: %s, hence %s error entries were " +
+                    "not re-played.", streamName, eventEntryIds.size()));
             }
+        } catch (RuntimeException e) {
+            logger.error(String.format("Failed to re-play %s error entries of stream: %s.", eventEntryIds.size(),
+                streamName), e);
+        } finally {
+            events.clear();
+            eventEntryIds.clear();
+        }
+    }
+
+    private static List<Event> getEvents(ErrorEntry errorEntry) throws SiddhiErrorHandlerException {
+        Object events;
+        try {
+            events = ErrorHandlerUtils.getAsObject(errorEntry.getEventAsBytes());
+        } catch (IOException | ClassNotFoundException e) {
+            throw new SiddhiErrorHandlerException("Failed to get bytes as events.", e);
+        }
+        switch (errorEntry.getEventType()) {
+            case EVENT:
+                if (events instanceof Event) {
+                    return Collections.singletonList((Event) events);
+                }
+                throw new SiddhiErrorHandlerException(
+                    "eventAsBytes present in the entry is invalid. It is expected to represent an Event.");
+            case EVENT_ARRAY:
+                if (events instanceof Event[]) {
+                    return Arrays.asList((Event[]) events);
+                }
+                throw new SiddhiErrorHandlerException(
+                    "eventAsBytes present in the entry is invalid. It is expected to represent an Event[].");
+            default:
+                if (events instanceof List) {
+                    return (List<Event>) events;
+                }
+                throw new SiddhiErrorHandlerException(
+                    "eventAsBytes present in the entry is invalid. It is expected to represent an Event List.");
+        }
+    }
+
+    private static void rePlay(ErrorEntry errorEntry, SiddhiAppRuntime siddhiAppRuntime)
+        throws SiddhiErrorHandlerException, InterruptedException {
+        switch (errorEntry.getEventType()) {
+            case COMPLEX_EVENT:
+                rePlayComplexEvent(errorEntry, siddhiAppRuntime);
+                break;
+            case PAYLOAD_STRING:
+                rePlayPayloadString(errorEntry, siddhiAppRuntime);
+                break;
+            case REPLAYABLE_TABLE_RECORD:
+                rePlayTableRecord(errorEntry, siddhiAppRuntime);
+                break;
+            default:
+                // Ideally we won't reach here
         }
     }
 
@@ -156,71 +409,6 @@ public class RePlayer {
         }
     }
 
-    private static void rePlayEvent(ErrorEntry eventErrorEntry, SiddhiAppRuntime siddhiAppRuntime)
-        throws SiddhiErrorHandlerException, InterruptedException {
-        try {
-            Object event = ErrorHandlerUtils.getAsObject(eventErrorEntry.getEventAsBytes());
-            if (event instanceof Event) {
-                InputHandler inputHandler = siddhiAppRuntime.getInputHandler(eventErrorEntry.getStreamName());
-                if (inputHandler != null) {
-                    inputHandler.send((Event) event);
-                } else {
-                    throw new SiddhiErrorHandlerException(
-                        String.format("Input handler was not found for stream: %s.", eventErrorEntry.getStreamName()));
-                }
-            } else {
-                throw new SiddhiErrorHandlerException(
-                    "eventAsBytes present in the entry is invalid. It is expected to represent an Event.");
-            }
-        } catch (IOException | ClassNotFoundException e) {
-            throw new SiddhiErrorHandlerException("Failed to get bytes as an Event object.", e);
-        }
-    }
-
-    private static void rePlayEventArray(ErrorEntry eventArrayErrorEntry, SiddhiAppRuntime siddhiAppRuntime)
-        throws SiddhiErrorHandlerException, InterruptedException {
-        try {
-            Object eventArray = ErrorHandlerUtils.getAsObject(eventArrayErrorEntry.getEventAsBytes());
-            if (eventArray instanceof Event[]) {
-                InputHandler inputHandler = siddhiAppRuntime.getInputHandler(eventArrayErrorEntry.getStreamName());
-                if (inputHandler != null) {
-                    inputHandler.send((Event[]) eventArray);
-                } else {
-                    throw new SiddhiErrorHandlerException(String.format("Input handler was not found for stream: %s.",
-                        eventArrayErrorEntry.getStreamName()));
-                }
-            } else {
-                throw new SiddhiErrorHandlerException(
-                    "eventAsBytes present in the entry is invalid. It is expected to represent an Event[].");
-            }
-        } catch (IOException | ClassNotFoundException e) {
-            throw new SiddhiErrorHandlerException("Failed to get bytes as an Event[].", e);
-        }
-    }
-
-    private static void rePlayEventList(ErrorEntry eventListErrorEntry, SiddhiAppRuntime siddhiAppRuntime)
-        throws SiddhiErrorHandlerException, InterruptedException {
-        try {
-            Object eventList = ErrorHandlerUtils.getAsObject(eventListErrorEntry.getEventAsBytes());
-            if (eventList instanceof List) {
-                InputHandler inputHandler = siddhiAppRuntime.getInputHandler(eventListErrorEntry.getStreamName());
-                if (inputHandler != null) {
-                    for (Event event : (List<Event>) eventList) {
-                        inputHandler.send(event);
-                    }
-                } else {
-                    throw new SiddhiErrorHandlerException(String.format("Input handler was not found for stream: %s.",
-                        eventListErrorEntry.getStreamName()));
-                }
-            } else {
-                throw new SiddhiErrorHandlerException(
-                    "eventAsBytes present in the entry is invalid. It is expected to represent an Event List.");
-            }
-        } catch (IOException | ClassNotFoundException e) {
-            throw new SiddhiErrorHandlerException("Failed to get bytes as an Event List.", e);
-        }
-    }
-
     private static void rePlayPayloadString(ErrorEntry payloadStringErrorEntry, SiddhiAppRuntime siddhiAppRuntime)
         throws SiddhiErrorHandlerException {
         try {
@@ -61,6 +61,9 @@ public class SiddhiErrorHandlerMicroservice implements ErrorStoreListener, Micro
     private static final Logger logger = LoggerFactory.getLogger(SiddhiErrorHandlerMicroservice.class);
 
     private static final String ENTRIES_COUNT_KEY = "entriesCount";
+    private static final String RE_PLAYED_ENTRIES_COUNT_KEY = "rePlayedEntriesCount";
+    private static final int DEFAULT_RE_PLAY_PAGE_SIZE = 1000;
+    private static final int DEFAULT_RE_PLAY_PARALLELISM = 4;
 
     @GET
     @Path("/error-entries/count")
@@ -127,6 +130,35 @@ public class SiddhiErrorHandlerMicroservice implements ErrorStoreListener, Micro
         }
     }
 
+    @POST
+    @Path("/error-entries/re-play")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response rePlayAllErrorEntries(@QueryParam("siddhiApp") String siddhiAppName,
+                                          @QueryParam("pageSize") String pageSize,
+                                          @QueryParam("parallelism") String parallelism,
+                                          @QueryParam("maxEventsPerSecond") String maxEventsPerSecond) {
+        if (siddhiAppName == null) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                .entity("Mandatory query parameter 'siddhiApp' is not found.").build();
+        }
+        try {
+            Map<String, Integer> response = new HashMap<>();
+            response.put(RE_PLAYED_ENTRIES_COUNT_KEY, RePlayer.rePlayAll(siddhiAppName,
+                (pageSize != null) ? Integer.parseInt(pageSize) : DEFAULT_RE_PLAY_PAGE_SIZE,
+                (parallelism != null) ? Integer.parseInt(parallelism) : DEFAULT_RE_PLAY_PARALLELISM,
+                (maxEventsPerSecond != null) ? Integer.parseInt(maxEventsPerSecond) : 0));
+            return Response.ok().entity(response).type(MediaType.APPLICATION_JSON).build();
+        } catch (NumberFormatException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                .entity("Query parameters 'pageSize', 'parallelism' and 'maxEventsPerSecond' must be integers.")
+                .build();
+        } catch (SiddhiErrorHandlerException e) {
+            String message = String.format("Failed to re-stream errors of Siddhi app: %s.", siddhiAppName);
+            logger.error(message, e);
+            return Response.serverError().entity(message).build();
+        }
+    }
+
     @DELETE
     @Path("/error-entries/{id}")
     @Produces(MediaType.APPLICATION_JSON)
@@ -30,6 +30,7 @@ import org.wso2.carbon.siddhi.store.api.rest.model.Query;
 import org.wso2.carbon.siddhi.store.api.rest.model.Record;
 import org.wso2.carbon.siddhi.store.api.rest.model.RecordDetail;
 import org.wso2.carbon.streaming.integrator.common.SiddhiAppRuntimeService;
+import org.wso2.carbon.streaming.integrator.common.utils.StoreQueryCache;
 import io.siddhi.core.SiddhiAppRuntime;
 import io.siddhi.core.event.Event;
 import io.siddhi.query.api.definition.Attribute;
@@ -45,6 +46,13 @@ import java.util.Map;
 public class StoresApiServiceImpl extends StoresApiService {
 
     private static final Logger log = LoggerFactory.getLogger(StoresApiServiceImpl.class);
+    // system properties configuring the number of store queries cached and the time in milliseconds for which
+    // their results are cached, where results are not cached by default
+    private static final String STORE_QUERY_CACHE_SIZE = "storeQueryCacheSize";
+    private static final String STORE_QUERY_RESULT_CACHE_TTL = "storeQueryResultCacheTTL";
+    private static final StoreQueryCache storeQueryCache = new StoreQueryCache(
+            Integer.getInteger(STORE_QUERY_CACHE_SIZE, 1000), Long.getLong(STORE_QUERY_RESULT_CACHE_TTL, 0L));
+
     @Override
     public Response query(Query body) throws NotFoundException {
         if (body.getQuery() == null || body.getQuery().isEmpty()) {
@@ -65,12 +73,12 @@ public class StoresApiServiceImpl extends StoresApiService {
                     .ERROR, "Cannot find an active SiddhiApp with name: " + body.getAppName())).build();
         } else {
             try {
-                Event[] events = siddhiAppRuntime.query(body.getQuery());
+                Event[] events = storeQueryCache.query(siddhiAppRuntime, body.getQuery());
                 List<Record> records = getRecords(events);
                 ModelApiResponse response = new ModelApiResponse();
                 response.setRecords(records);
                 if (body.isDetails()) {
-                    Attribute[] attributes = siddhiAppRuntime.getStoreQueryOutputAttributes(body.getQuery());
+                    Attribute[] attributes = storeQueryCache.getOutputAttributes(siddhiAppRuntime, body.getQuery());
                     response.setDetails(getRecordDetails(attributes));
                 }
                 return Response.ok().entity(response).build();
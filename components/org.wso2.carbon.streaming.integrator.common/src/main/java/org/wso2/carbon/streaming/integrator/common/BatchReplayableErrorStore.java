@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.common;
+
+import io.siddhi.core.util.error.handler.model.ErrorEntry;
+
+import java.util.List;
+
+/**
+ * Describes an Error Store whose error entries can be re-played in batches, which are loaded in the order of their
+ * ids, and discarded at once.
+ */
+public interface BatchReplayableErrorStore {
+
+    /**
+     * Gives the largest id of the error entries of the Siddhi app.
+     *
+     * @param siddhiAppName Name of the Siddhi app.
+     * @return Largest id, 0 if there are no error entries, or -1 if the id could not be retrieved.
+     */
+    int getMaxErrorEntryId(String siddhiAppName);
+
+    /**
+     * Loads the error entries of the Siddhi app with ids greater than the given id, and not greater than the given
+     * maximum id, in the order of their ids.
+     *
+     * @param siddhiAppName Name of the Siddhi app.
+     * @param afterId       Id after which the error entries are loaded.
+     * @param maxId         Largest id of the error entries loaded.
+     * @param limit         Maximum number of error entries loaded.
+     * @return Error entries, or null if the error entries could not be loaded.
+     */
+    List<ErrorEntry> loadErrorEntries(String siddhiAppName, int afterId, int maxId, int limit);
+
+    /**
+     * Discards the error entries with the given ids.
+     *
+     * @param ids Ids of the error entries to be discarded.
+     * @return Whether the error entries were discarded.
+     */
+    boolean discardErrorEntries(List<Integer> ids);
+
+}
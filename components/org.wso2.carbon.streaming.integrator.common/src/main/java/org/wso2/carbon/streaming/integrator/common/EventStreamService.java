@@ -35,4 +35,14 @@ public interface EventStreamService {
             ResourceNotFoundException;
 
     public void pushEvent(String siddhiAppName, String streamName, Event event);
+
+    /**
+     * Pushes a batch of events to the stream. Implementations able to hand the whole batch over to the stream at
+     * once are expected to override this, which by default pushes the events one at a time.
+     */
+    public default void pushEvents(String siddhiAppName, String streamName, Event[] events) {
+        for (Event event : events) {
+            pushEvent(siddhiAppName, streamName, event);
+        }
+    }
 }
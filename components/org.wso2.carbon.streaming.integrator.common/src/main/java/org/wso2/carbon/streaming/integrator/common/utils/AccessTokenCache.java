@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.common.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of the access tokens validated by the identity provider, to the usernames they belong to.
+ * Tokens are cached for a given time to live, beyond which they are validated again, and are keyed by their SHA-256
+ * hashes, hence the tokens themselves are not retained. Tokens must be invalidated when the users log out.
+ * The cache of the server is registered over JMX by the authentication interceptor, with the name
+ * {@link #OBJECT_NAME}.
+ */
+public class AccessTokenCache implements AccessTokenCacheMXBean {
+    public static final String OBJECT_NAME = "org.wso2.carbon.streaming.integrator:type=AccessTokenCache";
+    // system properties configuring the number of tokens cached and the time in milliseconds for which they are
+    // cached, where 0 disables the cache
+    private static final String ACCESS_TOKEN_CACHE_SIZE = "accessTokenCacheSize";
+    private static final String ACCESS_TOKEN_CACHE_TTL = "accessTokenCacheTTL";
+    private static final AccessTokenCache instance = new AccessTokenCache(
+            Integer.getInteger(ACCESS_TOKEN_CACHE_SIZE, 10000), Long.getLong(ACCESS_TOKEN_CACHE_TTL, 30000L));
+    private final long timeToLive;
+    private final Map<String, CachedUsername> usernames;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * @param maxTokens  maximum number of tokens cached, beyond which the least recently used are evicted
+     * @param timeToLive time in milliseconds for which a token is cached, or 0 to not cache tokens
+     */
+    public AccessTokenCache(int maxTokens, long timeToLive) {
+        this.timeToLive = timeToLive;
+        this.usernames = new LinkedHashMap<String, CachedUsername>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedUsername> eldest) {
+                return size() > maxTokens;
+            }
+        };
+    }
+
+    public static AccessTokenCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Get the username the access token belongs to, if it has been validated within the time to live.
+     *
+     * @param accessToken access token
+     * @return username, or null if the token is not cached
+     */
+    public String getUsername(String accessToken) {
+        if (timeToLive <= 0) {
+            return null;
+        }
+        String key = hash(accessToken);
+        synchronized (usernames) {
+            CachedUsername cachedUsername = usernames.get(key);
+            if (cachedUsername != null) {
+                if (cachedUsername.expiryTime > System.currentTimeMillis()) {
+                    hitCount.incrementAndGet();
+                    return cachedUsername.username;
+                }
+                usernames.remove(key);
+            }
+        }
+        missCount.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Cache the username of an access token validated by the identity provider.
+     *
+     * @param accessToken access token
+     * @param username    username the token belongs to
+     */
+    public void put(String accessToken, String username) {
+        if (timeToLive <= 0) {
+            return;
+        }
+        String key = hash(accessToken);
+        synchronized (usernames) {
+            usernames.put(key, new CachedUsername(username, System.currentTimeMillis() + timeToLive));
+        }
+    }
+
+    /**
+     * Discard the access token, so that it is validated by the identity provider when it is used again.
+     *
+     * @param accessToken access token
+     */
+    public void invalidate(String accessToken) {
+        if (timeToLive <= 0) {
+            return;
+        }
+        String key = hash(accessToken);
+        synchronized (usernames) {
+            usernames.remove(key);
+        }
+    }
+
+    @Override
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    @Override
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    @Override
+    public int getSize() {
+        synchronized (usernames) {
+            return usernames.size();
+        }
+    }
+
+    private static String hash(String accessToken) {
+        try {
+            return Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256")
+                    .digest(accessToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    private static class CachedUsername {
+        private final String username;
+        private final long expiryTime;
+
+        CachedUsername(String username, long expiryTime) {
+            this.username = username;
+            this.expiryTime = expiryTime;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.streaming.integrator.common.utils;
+
+/**
+ * Management interface of the access token cache, exposing its hit and miss counts over JMX.
+ */
+public interface AccessTokenCacheMXBean {
+
+    /**
+     * @return number of lookups answered by the cache
+     */
+    long getHitCount();
+
+    /**
+     * @return number of lookups not answered by the cache, which are validated by the identity provider
+     */
+    long getMissCount();
+
+    /**
+     * @return number of access tokens cached
+     */
+    int getSize();
+}
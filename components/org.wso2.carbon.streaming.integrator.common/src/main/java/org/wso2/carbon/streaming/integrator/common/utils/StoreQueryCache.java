@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.common.utils;
+
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.event.Event;
+import io.siddhi.query.api.definition.Attribute;
+import io.siddhi.query.api.execution.query.OnDemandQuery;
+import io.siddhi.query.compiler.SiddhiCompiler;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Cache of the store queries executed against Siddhi apps.
+ * Queries are parsed once per query string, and the parsed queries are reused to execute them against any app, hence
+ * Siddhi app runtimes find the compiled query runtimes using the same query objects.
+ * Optionally, the results of the find queries are cached per Siddhi app runtime for a given time to live. Queries
+ * modifying the stores of an app are always executed, and discard the results cached for the app. Since a Siddhi app
+ * runtime is replaced when the app is redeployed, the results of an app are not served after it is redeployed, and
+ * are released along with the replaced runtime.
+ */
+public class StoreQueryCache {
+    private final int maxQueries;
+    private final long resultTimeToLive;
+    private final Map<String, OnDemandQuery> parsedQueries;
+    private final Map<SiddhiAppRuntime, Map<String, CachedResult>> cachedResults = new WeakHashMap<>();
+
+    /**
+     * @param maxQueries       maximum number of queries cached, beyond which the least recently used are evicted
+     * @param resultTimeToLive time in milliseconds for which the results of a query are cached, or 0 to not cache
+     *                         the results
+     */
+    public StoreQueryCache(int maxQueries, long resultTimeToLive) {
+        this.maxQueries = maxQueries;
+        this.resultTimeToLive = resultTimeToLive;
+        this.parsedQueries = createLRUMap(maxQueries);
+    }
+
+    /**
+     * Get the parsed store query.
+     *
+     * @param query store query string
+     * @return parsed store query
+     */
+    public OnDemandQuery getQuery(String query) {
+        synchronized (parsedQueries) {
+            OnDemandQuery onDemandQuery = parsedQueries.get(query);
+            if (onDemandQuery != null) {
+                return onDemandQuery;
+            }
+        }
+        // parse outside the lock, parsing the same query twice is harmless
+        OnDemandQuery onDemandQuery = SiddhiCompiler.parseOnDemandQuery(query);
+        synchronized (parsedQueries) {
+            parsedQueries.put(query, onDemandQuery);
+        }
+        return onDemandQuery;
+    }
+
+    /**
+     * Execute the store query against the Siddhi app, or return the cached results of the query if it is a find query
+     * and the results have not expired. The events returned must not be modified, as they may be returned to other
+     * callers.
+     *
+     * @param siddhiAppRuntime runtime of the Siddhi app to be queried
+     * @param query            store query string
+     * @return events resulting from the query
+     */
+    public Event[] query(SiddhiAppRuntime siddhiAppRuntime, String query) {
+        OnDemandQuery onDemandQuery = getQuery(query);
+        if (resultTimeToLive <= 0) {
+            return siddhiAppRuntime.query(onDemandQuery);
+        }
+        if (onDemandQuery.getType() != OnDemandQuery.OnDemandQueryType.FIND) {
+            Event[] events = siddhiAppRuntime.query(onDemandQuery);
+            synchronized (cachedResults) {
+                cachedResults.remove(siddhiAppRuntime);
+            }
+            return events;
+        }
+        long currentTime = System.currentTimeMillis();
+        synchronized (cachedResults) {
+            Map<String, CachedResult> appResults = cachedResults.get(siddhiAppRuntime);
+            CachedResult cachedResult = appResults == null ? null : appResults.get(query);
+            if (cachedResult != null && cachedResult.expiryTime > currentTime) {
+                return cachedResult.events;
+            }
+        }
+        Event[] events = siddhiAppRuntime.query(onDemandQuery);
+        synchronized (cachedResults) {
+            cachedResults.computeIfAbsent(siddhiAppRuntime, runtime -> createLRUMap(maxQueries))
+                    .put(query, new CachedResult(events, currentTime + resultTimeToLive));
+        }
+        return events;
+    }
+
+    /**
+     * Get the attributes of the events resulting from the store query.
+     *
+     * @param siddhiAppRuntime runtime of the Siddhi app to be queried
+     * @param query            store query string
+     * @return output attributes of the query
+     */
+    public Attribute[] getOutputAttributes(SiddhiAppRuntime siddhiAppRuntime, String query) {
+        return siddhiAppRuntime.getOnDemandQueryOutputAttributes(getQuery(query));
+    }
+
+    private static <V> Map<String, V> createLRUMap(int maxEntries) {
+        return new LinkedHashMap<String, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    private static class CachedResult {
+        private final Event[] events;
+        private final long expiryTime;
+
+        CachedResult(Event[] events, long expiryTime) {
+            this.events = events;
+            this.expiryTime = expiryTime;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.common.utils;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the expiry, eviction and invalidation of the access tokens cached.
+ */
+public class AccessTokenCacheTest {
+
+    @Test
+    public void testTokenExpiresAfterTimeToLive() throws InterruptedException {
+        AccessTokenCache accessTokenCache = new AccessTokenCache(10, 200);
+        accessTokenCache.put("token", "admin");
+        Assert.assertEquals(accessTokenCache.getUsername("token"), "admin");
+        Thread.sleep(400);
+        Assert.assertNull(accessTokenCache.getUsername("token"), "The token is cached beyond the time to live");
+        Assert.assertEquals(accessTokenCache.getHitCount(), 1);
+        Assert.assertEquals(accessTokenCache.getMissCount(), 1);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedTokenIsEvicted() {
+        AccessTokenCache accessTokenCache = new AccessTokenCache(2, 60000);
+        accessTokenCache.put("first", "admin");
+        accessTokenCache.put("second", "user");
+        Assert.assertEquals(accessTokenCache.getUsername("first"), "admin");
+        accessTokenCache.put("third", "guest");
+        Assert.assertEquals(accessTokenCache.getUsername("first"), "admin");
+        Assert.assertNull(accessTokenCache.getUsername("second"), "The least recently used token is not evicted");
+        Assert.assertEquals(accessTokenCache.getUsername("third"), "guest");
+    }
+
+    @Test
+    public void testInvalidatedTokenIsNotCached() {
+        AccessTokenCache accessTokenCache = new AccessTokenCache(10, 60000);
+        accessTokenCache.put("token", "admin");
+        accessTokenCache.put("other", "user");
+        accessTokenCache.invalidate("token");
+        Assert.assertEquals(accessTokenCache.getSize(), 1);
+        Assert.assertNull(accessTokenCache.getUsername("token"), "The token is cached after being invalidated");
+        Assert.assertEquals(accessTokenCache.getUsername("other"), "user");
+    }
+
+    @Test
+    public void testZeroTimeToLiveDisablesCache() {
+        AccessTokenCache accessTokenCache = new AccessTokenCache(10, 0);
+        accessTokenCache.put("token", "admin");
+        Assert.assertNull(accessTokenCache.getUsername("token"));
+    }
+}
@@ -18,39 +18,62 @@
 
 package org.wso2.carbon.streaming.integrator.core.event.queue;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.netty.buffer.ByteBuf;
 import org.apache.log4j.Logger;
 import org.wso2.carbon.si.metrics.core.ThroughputMetric;
 import org.wso2.carbon.streaming.integrator.core.ha.HACoordinationSourceHandler;
-import org.wso2.carbon.streaming.integrator.core.ha.exception.InvalidByteMessageException;
+import org.wso2.carbon.streaming.integrator.core.ha.StandbyCheckpointApplier;
 import org.wso2.carbon.streaming.integrator.core.ha.tcp.SiddhiEventConverter;
 import org.wso2.carbon.streaming.integrator.core.ha.util.HAConstants;
 import org.wso2.carbon.streaming.integrator.core.internal.SiddhiAppData;
 import org.wso2.carbon.streaming.integrator.core.internal.StreamProcessorDataHolder;
+import org.wso2.carbon.streaming.integrator.core.internal.beans.DeploymentConfig;
 import org.wso2.carbon.streaming.integrator.core.internal.util.SiddhiAppProcessorConstants;
-import org.wso2.carbon.streaming.integrator.core.util.BinaryMessageConverterUtil;
-import io.siddhi.core.event.Event;
+import io.siddhi.core.SiddhiAppRuntime;
 import io.siddhi.core.stream.input.source.Source;
+import io.siddhi.core.stream.input.source.SourceHandler;
 import io.siddhi.core.util.SiddhiConstants;
+import io.siddhi.core.util.statistics.BufferedEventsTracker;
+import io.siddhi.core.util.statistics.EventBufferHolder;
+import io.siddhi.core.util.statistics.LatencyTracker;
+import io.siddhi.core.util.statistics.ThroughputTracker;
 
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
-import java.nio.ByteBuffer;
-import java.util.Collection;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
 
 public class EventListMapManager {
-    private static ConcurrentSkipListMap<Long,QueuedEvent> eventListMap;
-    private static Map<String,Long> perAppLastControlMessageSequenceNumberList = new HashMap<>();
+    private static ConcurrentMap<String, EventQueueShard> eventQueueShards = new ConcurrentHashMap<>();
+    private static EventSpillStore eventSpillStore;
+    private static int replayThreadPoolSize = 1;
+    private static volatile StandbyCheckpointApplier standbyCheckpointApplier;
+    private static boolean standbyLagMetricsRegistered = false;
+    private static Map<Integer, EventSchema> eventSchemaMap = new ConcurrentHashMap<>();
+    private static final Map<Integer, List<ByteBuf>> pendingEventMessages = new LinkedHashMap<>();
+    private static int pendingEventMessageCount = 0;
     private static final Logger log = Logger.getLogger(EventListMapManager.class);
     private static long startTime = new Date().getTime();;
     private static long endTime;
     private static int count = 0;
     private static final int TPS_EVENT_THRESHOLD = 100000;
     private ThroughputMetric throughputTracker = null;
+    private ThroughputTracker replayThroughputTracker;
+    private LatencyTracker replayLatencyTracker;
 
     public EventListMapManager() {
         if (throughputTracker == null) {
@@ -61,10 +84,119 @@ public class EventListMapManager {
                                             SiddhiAppProcessorConstants.HA_METRICS_RECEIVING_THROUGHPUT,
                                     StreamProcessorDataHolder.getStatisticsManager());
         }
+        replayThroughputTracker = StreamProcessorDataHolder.getStatisticsConfiguration().getFactory().
+                createThroughputTracker(SiddhiAppProcessorConstants.HA_METRICS_PREFIX +
+                                SiddhiConstants.METRIC_DELIMITER +
+                                SiddhiAppProcessorConstants.HA_METRICS_REPLAY_THROUGHPUT,
+                        StreamProcessorDataHolder.getStatisticsManager());
+        replayLatencyTracker = StreamProcessorDataHolder.getStatisticsConfiguration().getFactory().
+                createLatencyTracker(SiddhiAppProcessorConstants.HA_METRICS_PREFIX +
+                                SiddhiConstants.METRIC_DELIMITER +
+                                SiddhiAppProcessorConstants.HA_METRICS_REPLAY_LATENCY,
+                        StreamProcessorDataHolder.getStatisticsManager());
     }
 
-    public static void initializeEventListMap() {
-        eventListMap = new ConcurrentSkipListMap<Long, QueuedEvent>();
+    public static void initializeEventListMap(DeploymentConfig deploymentConfig) {
+        replayThreadPoolSize = Math.max(1, deploymentConfig.getFailoverReplayThreadPoolSize());
+        eventSpillStore = null;
+        if (deploymentConfig.getPassiveEventBufferMaxBytes() > 0) {
+            try {
+                eventSpillStore = new EventSpillStore(deploymentConfig.getPassiveEventBufferSpillDirectory(),
+                        deploymentConfig.getPassiveEventBufferMaxBytes());
+            } catch (IOException e) {
+                log.error("Error in initializing the spill directory '" +
+                        deploymentConfig.getPassiveEventBufferSpillDirectory() + "' of the passive node event " +
+                        "buffer, hence all the buffered events will be kept in heap. " + e.getMessage(), e);
+            }
+        }
+        eventQueueShards = new ConcurrentHashMap<>();
+        if (standbyCheckpointApplier != null) {
+            standbyCheckpointApplier.discard();
+            standbyCheckpointApplier = null;
+        }
+        if (deploymentConfig.isWarmStandbyEnabled()) {
+            if (StreamProcessorDataHolder.isPersistenceEnabled()) {
+                standbyCheckpointApplier = new StandbyCheckpointApplier();
+                registerStandbyLagMetrics();
+            } else {
+                log.warn("Warm standby requires periodic persistence to be enabled, hence the state of the Siddhi " +
+                        "apps will be restored when the passive node becomes active");
+            }
+        }
+    }
+
+    /**
+     * Registers the standby lag of the passive node, which is the number of events to be replayed on top of the
+     * applied checkpoints and the time since the oldest applied checkpoint was announced, as metrics.
+     */
+    private static synchronized void registerStandbyLagMetrics() {
+        if (standbyLagMetricsRegistered || !StreamProcessorDataHolder.isStatisticsEnabled() ||
+                StreamProcessorDataHolder.getStatisticsConfiguration() == null) {
+            return;
+        }
+        BufferedEventsTracker standbyLagTracker = StreamProcessorDataHolder.getStatisticsConfiguration().getFactory().
+                createBufferSizeTracker(StreamProcessorDataHolder.getStatisticsManager());
+        standbyLagTracker.registerEventBufferHolder(new StandbyLagGauge(() -> standbyCheckpointApplier != null ?
+                        countBufferedEvents() : 0),
+                SiddhiAppProcessorConstants.HA_METRICS_PREFIX + SiddhiConstants.METRIC_DELIMITER +
+                        SiddhiAppProcessorConstants.HA_METRICS_STANDBY_LAG_EVENTS);
+        standbyLagTracker.registerEventBufferHolder(new StandbyLagGauge(() -> {
+                    StandbyCheckpointApplier applier = standbyCheckpointApplier;
+                    return applier != null ? applier.getStandbyLagMillis() : 0;
+                }),
+                SiddhiAppProcessorConstants.HA_METRICS_PREFIX + SiddhiConstants.METRIC_DELIMITER +
+                        SiddhiAppProcessorConstants.HA_METRICS_STANDBY_LAG_MILLIS);
+        standbyLagMetricsRegistered = true;
+    }
+
+    /**
+     * Waits for the messages received from the active node to be processed, and hands over the standby runtimes of
+     * the Siddhi apps, in the state of the latest checkpoints announced by the active node, when the passive node
+     * becomes active. A control message processed after promoting would truncate the event queue of a Siddhi app
+     * beyond the checkpoint its standby runtime is in, hence the events in between would not be replayed.
+     *
+     * The messages still pending once the timeout elapses or the waiting thread is interrupted are left behind.
+     *
+     * @param pendingMessageCount number of messages received from the active node which are not processed yet
+     * @param timeoutMillis       maximum time to wait for the received messages to be processed
+     * @return standby runtimes by Siddhi app name, which is empty if warm standby is disabled
+     */
+    public static Map<String, SiddhiAppRuntime> promoteStandbyRuntimes(IntSupplier pendingMessageCount,
+                                                                      long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        int pendingMessages;
+        while ((pendingMessages = pendingMessageCount.getAsInt()) > 0) {
+            if (System.currentTimeMillis() >= deadline) {
+                log.warn(pendingMessages + " messages received from the active node were not processed within " +
+                        timeoutMillis + " ms, hence becoming active without them");
+                break;
+            }
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Interrupted while waiting for " + pendingMessages + " messages received from the active " +
+                        "node to be processed, hence becoming active without them");
+                break;
+            }
+        }
+        if (standbyCheckpointApplier == null) {
+            return new HashMap<>();
+        }
+        Map<String, SiddhiAppRuntime> standbyRuntimes = standbyCheckpointApplier.promote();
+        standbyCheckpointApplier = null;
+        return standbyRuntimes;
+    }
+
+    /**
+     * Shuts down the standby runtime of the Siddhi app, if any, when the app is undeployed from the passive node.
+     *
+     * @param siddhiAppName name of the Siddhi app
+     */
+    public static void discardStandbyRuntime(String siddhiAppName) {
+        if (standbyCheckpointApplier != null) {
+            standbyCheckpointApplier.discard(siddhiAppName);
+        }
     }
 
     public void parseControlMessage(byte[] controlMessageContentByteArray) throws UnsupportedEncodingException {
@@ -81,74 +213,55 @@ public class EventListMapManager {
         }
     }
 
-    public void parseMessage(byte[] eventContentByteArray) {
-        try {
-            ByteBuffer eventContent = ByteBuffer.wrap(eventContentByteArray);
-            int noOfEvents = eventContent.getInt();
-            if (throughputTracker != null && StreamProcessorDataHolder.isStatisticsEnabled()) {
-                throughputTracker.eventsIn(noOfEvents);
-            }
-            QueuedEvent queuedEvent;
-            Event[] events = new Event[noOfEvents];
-            for (int i = 0; i < noOfEvents; i++) {
-                String sourceHandlerElementId;
-                String siddhiAppName;
-                String[] transportSyncProperties = null;
-                long sequenceID = eventContent.getLong();
-                int sourceHandlerLength = eventContent.getInt();
-                if (sourceHandlerLength == 0) {
-                    throw new InvalidByteMessageException("Invalid sourceHandlerLength size = 0");
-                } else {
-                    sourceHandlerElementId = BinaryMessageConverterUtil.getString(eventContent, sourceHandlerLength);
-                }
-
-                int appNameLength = eventContent.getInt();
-                if (appNameLength == 0) {
-                    throw new InvalidByteMessageException("Invalid appNameLength size = 0");
-                } else {
-                    siddhiAppName = BinaryMessageConverterUtil.getString(eventContent, appNameLength);
-                }
-                int transportSyncPropertiesBytes = eventContent.getInt();
-                if (transportSyncPropertiesBytes != 0) {
-                    int transportSyncPropertiesSize = eventContent.getInt();
-                    if (transportSyncPropertiesSize != 0) {
-                        transportSyncProperties = new String[transportSyncPropertiesSize];
-                        int byteReadLength = 0;
-                        int propertiesLength = 0;
-                        while (transportSyncPropertiesBytes != byteReadLength) {
-                            int readLength = eventContent.getInt();
-                            byteReadLength += readLength;
-                            transportSyncProperties[propertiesLength] = BinaryMessageConverterUtil.
-                                    getString(eventContent, readLength);
-                            propertiesLength ++;
-                        }
-                    }
+    public void parseSchemaMessage(ByteBuf schemaContent) {
+        EventSchema eventSchema = SiddhiEventConverter.getEventSchema(schemaContent);
+        List<ByteBuf> parkedMessages;
+        synchronized (pendingEventMessages) {
+            eventSchemaMap.put(eventSchema.getSchemaId(), eventSchema);
+            parkedMessages = pendingEventMessages.remove(eventSchema.getSchemaId());
+            if (parkedMessages != null) {
+                pendingEventMessageCount -= parkedMessages.size();
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Received event schema " + eventSchema.getSchemaId() + " of source handler " +
+                    eventSchema.getSourceHandlerElementId() + " in Siddhi app " + eventSchema.getSiddhiAppName());
+        }
+        if (parkedMessages != null) {
+            for (ByteBuf parkedMessage : parkedMessages) {
+                try {
+                    parseMessage(parkedMessage);
+                } finally {
+                    parkedMessage.release();
                 }
-                long lastSequenceIdForApp = -1;
+            }
+        }
+    }
 
-                if (perAppLastControlMessageSequenceNumberList.size() != 0) {
-                    if (perAppLastControlMessageSequenceNumberList.get(siddhiAppName) != null) {
-                        lastSequenceIdForApp = perAppLastControlMessageSequenceNumberList.get(siddhiAppName);
+    public void parseMessage(ByteBuf eventContent) {
+        try {
+            QueuedEvent[] queuedEvents;
+            int readerIndex = eventContent.readerIndex();
+            while (true) {
+                try {
+                    queuedEvents = SiddhiEventConverter.getQueuedEvents(eventContent, this::getEventSchema);
+                    break;
+                } catch (PendingEventSchemaException e) {
+                    eventContent.readerIndex(readerIndex);
+                    if (parkMessage(e.schemaId, eventContent)) {
+                        return;
                     }
                 }
+            }
+            if (throughputTracker != null && StreamProcessorDataHolder.isStatisticsEnabled()) {
+                throughputTracker.eventsIn(queuedEvents.length);
+            }
+            for (QueuedEvent queuedEvent : queuedEvents) {
+                this.addToEventQueue(queuedEvent);
+            }
+            if (log.isDebugEnabled()) {
                 synchronized (this) {
-                    //we need this block synchronized to ensure if last remembered siddhi app id is smaller than the
-                    // event id then add it to the tree map synchronously, else older event may add to the tree map
-                    if (sequenceID > lastSequenceIdForApp) {
-                        String attributes;
-                        int attributeLength = eventContent.getInt();
-                        if (attributeLength == 0) {
-                            throw new InvalidByteMessageException("Invalid attributeLength size = 0");
-                        } else {
-                            attributes = BinaryMessageConverterUtil.getString(eventContent, attributeLength);
-                        }
-                        String[] attributeTypes = attributes.substring(1, attributes.length() - 1).split(", ");
-                        events[i] = SiddhiEventConverter.getEvent(eventContent, attributeTypes);
-                        queuedEvent = new QueuedEvent(siddhiAppName, sourceHandlerElementId, sequenceID, events[i],
-                                transportSyncProperties);
-                        this.addToEventListMap(sequenceID, queuedEvent);
-                    }
-                    if (log.isDebugEnabled()) {
+                    for (int i = 0; i < queuedEvents.length; i++) {
                         count++;
                         if (count % TPS_EVENT_THRESHOLD == 0) {
                             endTime = new Date().getTime();
@@ -156,97 +269,227 @@ public class EventListMapManager {
                                     " end time stamp : " + endTime + " Throughput is (events / sec) : " +
                                     (((TPS_EVENT_THRESHOLD * 1000) / (endTime - startTime))) +
                                     " Total Event Count : " + count +
-                                    ". current eventListMap size: " + eventListMap.size());
+                                    ". current event queue size: " + getEventQueueSize());
                             startTime = new Date().getTime();
                         }
                     }
                 }
-
-
             }
         } catch (UnsupportedEncodingException e) {
             log.error("Error when converting bytes " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Returns the schema with the given id. Schema and event messages can be received through different
+     * connections, hence an event message referring to a schema which is not announced yet is parked by
+     * {@link #parseMessage(ByteBuf)} till the schema arrives.
+     */
+    private EventSchema getEventSchema(int schemaId) {
+        EventSchema eventSchema = eventSchemaMap.get(schemaId);
+        if (eventSchema == null) {
+            throw new PendingEventSchemaException(schemaId);
+        }
+        return eventSchema;
+    }
+
+    /**
+     * Keeps a copy of the event message till its schema is announced, dropping the oldest parked message if too
+     * many messages are parked.
+     *
+     * @return false if the schema is announced meanwhile, hence the message should be parsed right away
+     */
+    private boolean parkMessage(int schemaId, ByteBuf eventContent) {
+        synchronized (pendingEventMessages) {
+            if (eventSchemaMap.containsKey(schemaId)) {
+                return false;
+            }
+            if (pendingEventMessageCount >= HAConstants.MAX_PENDING_EVENT_MESSAGES) {
+                dropOldestPendingMessage();
+            }
+            pendingEventMessages.computeIfAbsent(schemaId, key -> new ArrayList<>()).add(eventContent.copy());
+            pendingEventMessageCount++;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Parked an event message till event schema " + schemaId + " is announced by the active node");
+        }
+        return true;
+    }
+
+    private void dropOldestPendingMessage() {
+        Map.Entry<Integer, List<ByteBuf>> pending = pendingEventMessages.entrySet().iterator().next();
+        ByteBuf dropped = pending.getValue().remove(0);
+        dropped.release();
+        if (pending.getValue().isEmpty()) {
+            pendingEventMessages.remove(pending.getKey());
+        }
+        pendingEventMessageCount--;
+        log.warn("Dropped an event message since event schema " + pending.getKey() + " has not been announced " +
+                "by the active node while " + HAConstants.MAX_PENDING_EVENT_MESSAGES + " event messages are " +
+                "waiting for their schemas");
+    }
+
+    /**
+     * Replays the buffered events to the source handlers when the passive node becomes active. The events of each
+     * Siddhi app are replayed in sequence order, and different Siddhi apps are replayed concurrently.
+     */
     public void trimAndSendToInputHandler() throws InterruptedException {
         Map<String, SiddhiAppData> siddhiAppMap = StreamProcessorDataHolder.getStreamProcessorService().
                 getSiddhiAppMap();
+        boolean isStatisticsEnabled = StreamProcessorDataHolder.isStatisticsEnabled();
+        if (isStatisticsEnabled && replayLatencyTracker != null) {
+            replayLatencyTracker.markIn();
+        }
+        long startTime = System.currentTimeMillis();
+        List<Callable<Integer>> replayTasks = new ArrayList<>();
+        for (Map.Entry<String, EventQueueShard> shardEntry : eventQueueShards.entrySet()) {
+            SiddhiAppData siddhiAppData = siddhiAppMap.get(shardEntry.getKey());
+            if (siddhiAppData == null) {
+                log.warn("Dropping " + shardEntry.getValue().size() + " buffered events of Siddhi app " +
+                        shardEntry.getKey() + " since it is not deployed.");
+                continue;
+            }
+            replayTasks.add(() -> replayEvents(shardEntry.getKey(), shardEntry.getValue(), siddhiAppData));
+        }
 
-        for(Map.Entry<Long,QueuedEvent> listMapValue : eventListMap.entrySet()) {
-            long key = listMapValue.getKey();
-            QueuedEvent queuedEvent = listMapValue.getValue();
-            SiddhiAppData siddhiAppData = siddhiAppMap.get(queuedEvent.getSiddhiAppName());
-            if (siddhiAppData != null) {
-                Collection<List<Source>> sourceCollection = siddhiAppData.getSiddhiAppRuntime().getSources();
-                for (List<Source> sources : sourceCollection) {
-                    boolean isFound = false;
-                    for (Source source : sources) {
-                        if(queuedEvent.getSourceHandlerElementId().equals(source.getMapper().
-                                getHandler().getId())){
-                            source.getMapper().getHandler().sendEvent(queuedEvent.getEvent(),
-                                    queuedEvent.getTransportSyncProperties());
-                            if (null != queuedEvent.getTransportSyncProperties() &&
-                                    queuedEvent.getTransportSyncProperties().length != 0) {
-                                if (source.getMapper().getHandler() instanceof HACoordinationSourceHandler) {
-                                    ((HACoordinationSourceHandler)source.getMapper().getHandler()).
-                                            updateTransportSyncProperties(queuedEvent.getTransportSyncProperties());
-                                }
-                            }
-                            eventListMap.remove(key);
-                            isFound = true;
-                            break;
-                        }
-                    }
-                    if (isFound) {
-                        break;
+        int replayedEventCount = 0;
+        if (!replayTasks.isEmpty()) {
+            ExecutorService replayExecutorService = Executors.newFixedThreadPool(
+                    Math.min(replayThreadPoolSize, replayTasks.size()),
+                    new ThreadFactoryBuilder().setNameFormat("FailoverReplay-%d").build());
+            try {
+                for (Future<Integer> future : replayExecutorService.invokeAll(replayTasks)) {
+                    try {
+                        replayedEventCount += future.get();
+                    } catch (ExecutionException e) {
+                        log.error("Error in replaying the buffered events. " + e.getCause().getMessage(),
+                                e.getCause());
                     }
                 }
+            } finally {
+                replayExecutorService.shutdownNow();
             }
         }
-        eventListMap.clear();
-        perAppLastControlMessageSequenceNumberList.clear();
+        eventQueueShards.clear();
+        if (isStatisticsEnabled && replayLatencyTracker != null) {
+            replayLatencyTracker.markOut();
+        }
+        log.info("Replayed " + replayedEventCount + " buffered events of " + replayTasks.size() +
+                " Siddhi apps in " + (System.currentTimeMillis() - startTime) + " ms");
     }
 
-    public void trimQueue(String[] persistedAppDetails){
-        synchronized (this) {
-            //need to synchronize to make sure to finish remembering last control message seq id for siddhi app and
-            // trim accordingly
-            if (eventListMap.size() != 0 && persistedAppDetails.length != 0){
-                long eventListMapSize = eventListMap.size();
-                if (log.isDebugEnabled()) {
-                    log.debug("eventListMapSize before trimming:  " + eventListMapSize);
+    private int replayEvents(String siddhiAppName, EventQueueShard eventQueueShard, SiddhiAppData siddhiAppData)
+            throws InterruptedException {
+        Map<String, SourceHandler> sourceHandlers = new HashMap<>();
+        for (List<Source> sources : siddhiAppData.getSiddhiAppRuntime().getSources()) {
+            for (Source source : sources) {
+                SourceHandler sourceHandler = source.getMapper().getHandler();
+                sourceHandlers.put(sourceHandler.getId(), sourceHandler);
+            }
+        }
+        int replayedEventCount = 0;
+        List<QueuedEvent> queuedEvents;
+        while (!(queuedEvents = eventQueueShard.drainNext()).isEmpty()) {
+            for (QueuedEvent queuedEvent : queuedEvents) {
+                SourceHandler sourceHandler = sourceHandlers.get(queuedEvent.getSourceHandlerElementId());
+                if (sourceHandler == null) {
+                    continue;
                 }
-                for(String appDetail : persistedAppDetails) {
-                    String[] details = appDetail.split(HAConstants.PERSISTED_APP_SPLIT_DELIMITER);
-                    long seqId = Long.parseLong(details[0].trim());
-                    String appName = details[2].trim();
-                    if (perAppLastControlMessageSequenceNumberList.get(appName) != null) {
-                        long existingId = perAppLastControlMessageSequenceNumberList.get(appName);
-                        if (existingId < seqId) {
-                            perAppLastControlMessageSequenceNumberList.put(appName, seqId);
-                        }
-                    } else {
-                        perAppLastControlMessageSequenceNumberList.put(appName, seqId);
+                sourceHandler.sendEvent(queuedEvent.getEvent(), queuedEvent.getTransportSyncProperties());
+                if (null != queuedEvent.getTransportSyncProperties() &&
+                        queuedEvent.getTransportSyncProperties().length != 0) {
+                    if (sourceHandler instanceof HACoordinationSourceHandler) {
+                        ((HACoordinationSourceHandler) sourceHandler).
+                                updateTransportSyncProperties(queuedEvent.getTransportSyncProperties());
                     }
-                    Iterator<Map.Entry<Long, QueuedEvent>> iterator = eventListMap.entrySet().iterator();
-                    while (iterator.hasNext()) {
-                        Map.Entry<Long, QueuedEvent> listMapValue = iterator.next();
-                        long key = listMapValue.getKey();
-                        if (appName.equals(listMapValue.getValue().getSiddhiAppName()) && seqId > key) {
-                            iterator.remove();
-                        }
-                    }
-                }
-                if (log.isDebugEnabled()) {
-                    log.debug("Trimmed " + (eventListMapSize - eventListMap.size()) +
-                            " messages from eventListMap. Current eventListMap:" + eventListMap.size());
                 }
+                replayedEventCount++;
+            }
+        }
+        if (replayThroughputTracker != null && StreamProcessorDataHolder.isStatisticsEnabled()) {
+            replayThroughputTracker.eventsIn(replayedEventCount);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Replayed " + replayedEventCount + " buffered events of Siddhi app " + siddhiAppName);
+        }
+        return replayedEventCount;
+    }
+
+    /**
+     * Truncates the event queue of each persisted Siddhi app up to the sequence id of its control message.
+     *
+     * @param persistedAppDetails details of the persisted Siddhi apps in the control message
+     */
+    public void trimQueue(String[] persistedAppDetails) {
+        int trimmedEventCount = 0;
+        for (String appDetail : persistedAppDetails) {
+            String[] details = appDetail.split(HAConstants.PERSISTED_APP_SPLIT_DELIMITER);
+            long seqId = Long.parseLong(details[0].trim());
+            String appName = details[2].trim();
+            trimmedEventCount += getEventQueueShard(appName).truncate(seqId);
+            if (standbyCheckpointApplier != null) {
+                String revision = appDetail.trim();
+                revision = revision.substring(revision.indexOf(HAConstants.PERSISTED_APP_SPLIT_DELIMITER) +
+                        HAConstants.PERSISTED_APP_SPLIT_DELIMITER.length());
+                standbyCheckpointApplier.checkpointAnnounced(appName, revision);
             }
         }
+        if (log.isDebugEnabled()) {
+            log.debug("Trimmed " + trimmedEventCount + " messages from the event queue. Current event queue size: " +
+                    getEventQueueSize());
+        }
+    }
+
+    public void addToEventQueue(QueuedEvent queuedEvent) {
+        getEventQueueShard(queuedEvent.getSiddhiAppName()).add(queuedEvent);
+    }
+
+    public int getEventQueueSize() {
+        return (int) countBufferedEvents();
+    }
+
+    private static long countBufferedEvents() {
+        long size = 0;
+        for (EventQueueShard eventQueueShard : eventQueueShards.values()) {
+            size += eventQueueShard.size();
+        }
+        return size;
     }
 
-    public void addToEventListMap(long sequenceNum, QueuedEvent queuedEvent){
-        eventListMap.put(sequenceNum, queuedEvent);
+    private EventQueueShard getEventQueueShard(String siddhiAppName) {
+        return eventQueueShards.computeIfAbsent(siddhiAppName, key -> new EventQueueShard(eventSpillStore));
+    }
+
+    /**
+     * Signals that an event message refers to an event schema which is not announced yet.
+     */
+    private static class PendingEventSchemaException extends RuntimeException {
+        private final int schemaId;
+
+        PendingEventSchemaException(int schemaId) {
+            super(null, null, false, false);
+            this.schemaId = schemaId;
+        }
+    }
+
+    /**
+     * Reports a standby lag value of the passive node through a buffered events gauge.
+     */
+    private static class StandbyLagGauge implements EventBufferHolder {
+        private final LongSupplier value;
+
+        StandbyLagGauge(LongSupplier value) {
+            this.value = value;
+        }
+
+        @Override
+        public long getBufferedEvents() {
+            return value.getAsLong();
+        }
+
+        @Override
+        public boolean containsBufferedEvents() {
+            return value.getAsLong() > 0;
+        }
     }
 }
@@ -0,0 +1,284 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.event.queue;
+
+import org.apache.log4j.Logger;
+import org.wso2.carbon.streaming.integrator.core.util.BinaryEventConverter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Passive node buffer of the events synced for one Siddhi app. Events are appended to fixed size segments in the
+ * order they are received, and each segment remembers the lowest sequence id in it and the segments after it. Hence
+ * truncating to a checkpoint only visits the segments holding events older than the checkpoint, dropping fully
+ * persisted segments as a whole.
+ * <p>
+ * When an {@link EventSpillStore} is given and the buffered events exceed its heap budget, the oldest sealed
+ * segments are spilled to disk, and read back one at a time when they are replayed or partially truncated.
+ */
+public class EventQueueShard {
+    private static final Logger log = Logger.getLogger(EventQueueShard.class);
+    static final int SEGMENT_CAPACITY = 1024;
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    private final PriorityQueue<QueuedEvent> replayQueue =
+            new PriorityQueue<>(Comparator.comparingLong(QueuedEvent::getSequenceID));
+    private final EventSpillStore spillStore;
+    private long checkpointSequenceId = -1;
+    private int size = 0;
+
+    public EventQueueShard() {
+        this(null);
+    }
+
+    public EventQueueShard(EventSpillStore spillStore) {
+        this.spillStore = spillStore;
+    }
+
+    /**
+     * Adds the event unless it is already covered by the last checkpoint.
+     *
+     * @param queuedEvent event synced from the active node
+     * @return true if the event is added
+     */
+    public synchronized boolean add(QueuedEvent queuedEvent) {
+        long sequenceId = queuedEvent.getSequenceID();
+        if (sequenceId <= checkpointSequenceId) {
+            return false;
+        }
+        Segment tail = segments.peekLast();
+        if (tail == null || tail.isFull()) {
+            tail = new Segment();
+            segments.addLast(tail);
+        }
+        if (spillStore != null) {
+            int estimatedSize = BinaryEventConverter.getEstimatedSize(queuedEvent);
+            tail.estimatedBytes += estimatedSize;
+            spillStore.addHeapBytes(estimatedSize);
+        }
+        tail.add(queuedEvent);
+        // events of concurrent source handlers can arrive slightly out of order, lower the bound of the segments
+        // before as well
+        Iterator<Segment> iterator = segments.descendingIterator();
+        iterator.next();
+        while (iterator.hasNext()) {
+            Segment segment = iterator.next();
+            if (segment.suffixMinSequenceId <= sequenceId) {
+                break;
+            }
+            segment.suffixMinSequenceId = sequenceId;
+        }
+        size++;
+        if (spillStore != null && tail.isFull() && spillStore.isOverBudget()) {
+            spillSealedSegments();
+        }
+        return true;
+    }
+
+    /**
+     * Removes the events with a sequence id lower than the checkpoint, and the events received afterwards with such
+     * sequence ids are ignored.
+     *
+     * @param sequenceId sequence id of the control message of the persisted state
+     * @return number of removed events
+     */
+    public synchronized int truncate(long sequenceId) {
+        if (sequenceId <= checkpointSequenceId) {
+            return 0;
+        }
+        checkpointSequenceId = sequenceId;
+        int removed = 0;
+        Iterator<Segment> iterator = segments.iterator();
+        while (iterator.hasNext()) {
+            Segment segment = iterator.next();
+            if (segment.suffixMinSequenceId >= sequenceId) {
+                break;
+            }
+            if (segment.maxSequenceId < sequenceId) {
+                removed += segment.size();
+                release(segment);
+                iterator.remove();
+            } else {
+                load(segment);
+                removed += segment.removeBefore(sequenceId, spillStore);
+                segment.suffixMinSequenceId = sequenceId;
+                if (segment.size() == 0) {
+                    iterator.remove();
+                }
+            }
+        }
+        size -= removed;
+        return removed;
+    }
+
+    /**
+     * Removes the next events to be replayed, returning them in sequence order. The segments are read back one at a
+     * time, and only the events which can still be out of order with the segments after them are held back for the
+     * next call, hence replaying a spilled shard does not load all its events to heap.
+     *
+     * @return next events in sequence order, or an empty list once all the events are removed
+     */
+    public synchronized List<QueuedEvent> drainNext() {
+        List<QueuedEvent> queuedEvents = new ArrayList<>();
+        while (queuedEvents.isEmpty() && !(segments.isEmpty() && replayQueue.isEmpty())) {
+            Segment segment = segments.pollFirst();
+            if (segment != null) {
+                load(segment);
+                segment.copyTo(replayQueue);
+                release(segment);
+            }
+            // no event of the remaining segments is older than their lowest sequence id
+            Segment nextSegment = segments.peekFirst();
+            long replayBound = nextSegment == null ? Long.MAX_VALUE : nextSegment.suffixMinSequenceId;
+            while (!replayQueue.isEmpty() && replayQueue.peek().getSequenceID() < replayBound) {
+                queuedEvents.add(replayQueue.poll());
+            }
+        }
+        size -= queuedEvents.size();
+        return queuedEvents;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized long getCheckpointSequenceId() {
+        return checkpointSequenceId;
+    }
+
+    /**
+     * Spills the oldest sealed segments kept in heap till the buffered events are within the heap budget.
+     */
+    private void spillSealedSegments() {
+        Segment tail = segments.peekLast();
+        for (Segment segment : segments) {
+            if (segment == tail || !spillStore.isOverBudget()) {
+                return;
+            }
+            if (segment.spillFile == null) {
+                Path spillFile = spillStore.write(segment.getEvents());
+                if (spillFile == null) {
+                    return;
+                }
+                segment.spillFile = spillFile;
+                segment.queuedEvents = null;
+                spillStore.addHeapBytes(-segment.estimatedBytes);
+            }
+        }
+    }
+
+    /**
+     * Reads the events of a spilled segment back to heap.
+     */
+    private void load(Segment segment) {
+        if (segment.spillFile == null) {
+            return;
+        }
+        QueuedEvent[] queuedEvents = new QueuedEvent[SEGMENT_CAPACITY];
+        try {
+            QueuedEvent[] spilledEvents = spillStore.read(segment.spillFile);
+            System.arraycopy(spilledEvents, 0, queuedEvents, 0, spilledEvents.length);
+        } catch (IOException | RuntimeException e) {
+            log.error("Error in reading the spilled events '" + segment.spillFile + "', hence dropping " +
+                    segment.count + " buffered events. " + e.getMessage(), e);
+            size -= segment.count;
+            segment.count = 0;
+            segment.estimatedBytes = 0;
+        }
+        spillStore.delete(segment.spillFile);
+        segment.spillFile = null;
+        segment.queuedEvents = queuedEvents;
+        spillStore.addHeapBytes(segment.estimatedBytes);
+    }
+
+    /**
+     * Frees the heap or the spill file held by a removed segment.
+     */
+    private void release(Segment segment) {
+        if (spillStore == null) {
+            return;
+        }
+        if (segment.spillFile != null) {
+            spillStore.delete(segment.spillFile);
+            segment.spillFile = null;
+        } else {
+            spillStore.addHeapBytes(-segment.estimatedBytes);
+        }
+    }
+
+    private static class Segment {
+        private QueuedEvent[] queuedEvents = new QueuedEvent[SEGMENT_CAPACITY];
+        private Path spillFile;
+        private long estimatedBytes = 0;
+        private int count = 0;
+        private long maxSequenceId = Long.MIN_VALUE;
+        private long suffixMinSequenceId = Long.MAX_VALUE;
+
+        boolean isFull() {
+            return count == queuedEvents.length;
+        }
+
+        int size() {
+            return count;
+        }
+
+        void add(QueuedEvent queuedEvent) {
+            queuedEvents[count++] = queuedEvent;
+            maxSequenceId = Math.max(maxSequenceId, queuedEvent.getSequenceID());
+            suffixMinSequenceId = Math.min(suffixMinSequenceId, queuedEvent.getSequenceID());
+        }
+
+        QueuedEvent[] getEvents() {
+            return Arrays.copyOf(queuedEvents, count);
+        }
+
+        int removeBefore(long sequenceId, EventSpillStore spillStore) {
+            int retained = 0;
+            for (int i = 0; i < count; i++) {
+                if (queuedEvents[i].getSequenceID() >= sequenceId) {
+                    queuedEvents[retained++] = queuedEvents[i];
+                } else if (spillStore != null) {
+                    int estimatedSize = BinaryEventConverter.getEstimatedSize(queuedEvents[i]);
+                    estimatedBytes -= estimatedSize;
+                    spillStore.addHeapBytes(-estimatedSize);
+                }
+            }
+            for (int i = retained; i < count; i++) {
+                queuedEvents[i] = null;
+            }
+            int removed = count - retained;
+            count = retained;
+            return removed;
+        }
+
+        void copyTo(Collection<QueuedEvent> target) {
+            for (int i = 0; i < count; i++) {
+                target.add(queuedEvents[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.event.queue;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.apache.log4j.Logger;
+import org.wso2.carbon.streaming.integrator.core.ha.tcp.SiddhiEventConverter;
+import org.wso2.carbon.streaming.integrator.core.util.BinaryEventConverter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local disk store of the sealed segments of the {@link EventQueueShard}s, used when the events buffered by the
+ * passive node exceed the configured heap budget. Each spilled segment is written once to its own file, read back
+ * through a memory mapping, and deleted once the segment is truncated or replayed. The decoded events do not refer
+ * to the mapping, which is released once it is garbage collected.
+ */
+public class EventSpillStore {
+    private static final Logger log = Logger.getLogger(EventSpillStore.class);
+    private static final String SPILL_FILE_SUFFIX = ".events";
+    private final Path directory;
+    private final long maxHeapBytes;
+    private final AtomicLong heapBytes = new AtomicLong();
+    private final AtomicLong segmentIdGenerator = new AtomicLong();
+    private volatile boolean enabled = true;
+
+    public EventSpillStore(String directory, long maxHeapBytes) throws IOException {
+        this.directory = Paths.get(directory);
+        this.maxHeapBytes = maxHeapBytes;
+        Files.createDirectories(this.directory);
+        // segments spilled before a restart or an earlier passive period are not valid anymore
+        try (DirectoryStream<Path> spillFiles = Files.newDirectoryStream(this.directory, "*" + SPILL_FILE_SUFFIX)) {
+            for (Path spillFile : spillFiles) {
+                Files.deleteIfExists(spillFile);
+            }
+        }
+    }
+
+    public boolean isOverBudget() {
+        return enabled && heapBytes.get() > maxHeapBytes;
+    }
+
+    public long getHeapBytes() {
+        return heapBytes.get();
+    }
+
+    void addHeapBytes(long bytes) {
+        heapBytes.addAndGet(bytes);
+    }
+
+    /**
+     * Writes the events of a segment to a new spill file.
+     *
+     * @param queuedEvents events of the segment
+     * @return spill file, or null if the events could not be written and hence need to be kept in heap
+     */
+    Path write(QueuedEvent[] queuedEvents) {
+        Path spillFile = directory.resolve(segmentIdGenerator.incrementAndGet() + SPILL_FILE_SUFFIX);
+        Map<String, EventSchema> schemas = new LinkedHashMap<>();
+        try {
+            ByteBuffer eventMessage = BinaryEventConverter.convertToBinaryMessage(queuedEvents,
+                    (siddhiAppName, sourceHandlerElementId, attributeTypes) -> schemas.computeIfAbsent(
+                            siddhiAppName + '/' + sourceHandlerElementId + Arrays.toString(attributeTypes),
+                            key -> new EventSchema(schemas.size(), siddhiAppName, sourceHandlerElementId,
+                                    attributeTypes)));
+            List<byte[]> schemaMessages = new ArrayList<>(schemas.size());
+            int size = 4 + 4 + eventMessage.capacity();
+            for (EventSchema eventSchema : schemas.values()) {
+                byte[] schemaMessage = BinaryEventConverter.convertToBinaryMessage(eventSchema).array();
+                schemaMessages.add(schemaMessage);
+                size += 4 + schemaMessage.length;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(size);
+            buffer.putInt(schemaMessages.size());
+            for (byte[] schemaMessage : schemaMessages) {
+                buffer.putInt(schemaMessage.length).put(schemaMessage);
+            }
+            buffer.putInt(eventMessage.capacity()).put(eventMessage.array());
+            buffer.flip();
+            try (FileChannel fileChannel = FileChannel.open(spillFile, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    fileChannel.write(buffer);
+                }
+            }
+            return spillFile;
+        } catch (IOException e) {
+            enabled = false;
+            log.error("Error in spilling the events buffered by the passive node to '" + spillFile + "', the " +
+                    "events will be kept in heap from now on. " + e.getMessage(), e);
+            delete(spillFile);
+            return null;
+        }
+    }
+
+    /**
+     * Reads the events of a spilled segment.
+     *
+     * @param spillFile spill file of the segment
+     * @return events of the segment in the order they were written
+     * @throws IOException if the spill file cannot be read
+     */
+    QueuedEvent[] read(Path spillFile) throws IOException {
+        MappedByteBuffer mappedBuffer;
+        try (FileChannel fileChannel = FileChannel.open(spillFile, StandardOpenOption.READ)) {
+            mappedBuffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size());
+        }
+        ByteBuf spilledSegment = Unpooled.wrappedBuffer(mappedBuffer);
+        int schemaCount = spilledSegment.readInt();
+        Map<Integer, EventSchema> schemas = new HashMap<>();
+        for (int i = 0; i < schemaCount; i++) {
+            EventSchema eventSchema = SiddhiEventConverter.getEventSchema(
+                    spilledSegment.readSlice(spilledSegment.readInt()));
+            schemas.put(eventSchema.getSchemaId(), eventSchema);
+        }
+        return SiddhiEventConverter.getQueuedEvents(spilledSegment.readSlice(spilledSegment.readInt()),
+                schemas::get);
+    }
+
+    void delete(Path spillFile) {
+        try {
+            Files.deleteIfExists(spillFile);
+        } catch (IOException e) {
+            log.warn("Error in deleting the spilled events '" + spillFile + "'. " + e.getMessage(), e);
+        }
+    }
+}
@@ -20,7 +20,6 @@ package org.wso2.carbon.streaming.integrator.core.ha;
 
 import io.siddhi.core.config.SiddhiAppContext;
 import io.siddhi.core.event.Event;
-import io.siddhi.core.exception.ConnectionUnavailableException;
 import io.siddhi.core.stream.input.InputHandler;
 import io.siddhi.core.stream.input.source.SourceHandler;
 import io.siddhi.core.stream.input.source.SourceSyncCallback;
@@ -28,21 +27,15 @@ import io.siddhi.core.util.snapshot.state.State;
 import io.siddhi.core.util.snapshot.state.StateFactory;
 import io.siddhi.core.util.statistics.ThroughputTracker;
 import io.siddhi.query.api.definition.StreamDefinition;
-import org.apache.commons.pool.impl.GenericKeyedObjectPool;
 import org.apache.log4j.Logger;
 import org.wso2.carbon.streaming.integrator.core.event.queue.QueuedEvent;
-import org.wso2.carbon.streaming.integrator.core.ha.transport.EventSyncConnection;
+import org.wso2.carbon.streaming.integrator.core.ha.transport.EventSyncBatcher;
 import org.wso2.carbon.streaming.integrator.core.ha.transport.EventSyncConnectionPoolManager;
 import org.wso2.carbon.streaming.integrator.core.ha.util.CoordinationConstants;
-import org.wso2.carbon.streaming.integrator.core.ha.util.HAConstants;
 import org.wso2.carbon.streaming.integrator.core.internal.StreamProcessorDataHolder;
-import org.wso2.carbon.streaming.integrator.core.util.BinaryEventConverter;
 
-import java.io.IOException;
-import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -59,8 +52,6 @@ public class HACoordinationSourceHandler extends SourceHandler<HACoordinationSou
     private ThroughputTracker throughputTracker;
     private static final String IGNORING_SOURCE_TYPE = "inMemory";
     private String sourceType;
-    private AtomicBoolean isWaitingForPassiveNode = new AtomicBoolean(false);
-    private AtomicLong lastConnRefusedTimestamp = new AtomicLong(-1);
 
     private static final Logger log = Logger.getLogger(HACoordinationSourceHandler.class);
 
@@ -121,7 +112,6 @@ public class HACoordinationSourceHandler extends SourceHandler<HACoordinationSou
 
     public void setPassiveNodeAdded(boolean passiveNodeAdded) {
         this.passiveNodeAdded = passiveNodeAdded;
-        setIsWaitingForPassiveNode(passiveNodeAdded);
     }
 
     public void setPlayBack(boolean playBack) {
@@ -143,138 +133,34 @@ public class HACoordinationSourceHandler extends SourceHandler<HACoordinationSou
     }
 
     private void sendEventsToPassiveNode(Event event, String[] transportSyncProperties) {
-        if (!isWaitingForPassiveNode.get() || lastConnRefusedTimestamp.get() + 5000 < System.currentTimeMillis()) {
-            isWaitingForPassiveNode.set(false);
-            GenericKeyedObjectPool objectPool = EventSyncConnectionPoolManager.getConnectionPool();
-            if (objectPool != null) {
-                EventSyncConnection.Connection connection = null;
-                try {
-                    connection = (EventSyncConnection.Connection)
-                            objectPool.borrowObject(HAConstants.ACTIVE_NODE_CONNECTION_POOL_ID);
-                    if (connection != null) {
-                        QueuedEvent queuedEvent = new QueuedEvent(siddhiAppName, getId(),
-                                sequenceIDGenerator.incrementAndGet(), event, transportSyncProperties);
-                        ByteBuffer messageBuffer = null;
-                        try {
-                            messageBuffer = BinaryEventConverter.convertToBinaryMessage(new QueuedEvent[]{queuedEvent});
-                        } catch (IOException e) {
-                            log.error("Error in converting events to binary message. " +
-                                    "Hence not sending message to the passive node", e);
-                            return;
-                        }
-                        if (messageBuffer != null) {
-                            try {
-                                connection.send(HAConstants.CHANNEL_ID_MESSAGE, messageBuffer.array());
-                                if (throughputTracker != null && StreamProcessorDataHolder.isStatisticsEnabled()) {
-                                    throughputTracker.eventIn();
-                                }
-                            } catch (ConnectionUnavailableException e) {
-                                log.error("Connection unavailable to sending events to the passive node. " +
-                                        e.getMessage(), e);
-                            }
-                        }
-                    }
-                } catch (Exception e) {
-                    synchronized (this) {
-                        if (e.getMessage().contains("Connection refused")) {
-                            if (!isWaitingForPassiveNode.get()) {
-                                log.warn("Error in sending event to the passive node." +
-                                        " Event syncing will start to retry again in 5 seconds. " + e.getMessage(), e);
-                                lastConnRefusedTimestamp.set(System.currentTimeMillis());
-                                isWaitingForPassiveNode.set(true);
-                            }
-                        } else {
-                            log.error("Error in sending event to the passive node." + e.getMessage(), e);
-                        }
-                    }
-                } finally {
-                    if (connection != null) {
-                        try {
-                            objectPool.returnObject(HAConstants.ACTIVE_NODE_CONNECTION_POOL_ID, connection);
-                        } catch (Exception e) {
-                            log.error("Error in returning the tcpClient connection object to the pool. " +
-                                    e.getMessage(), e);
-                        }
-                    }
-                }
-            } else {
-                log.error("Error in obtaining connection pool to send events to passive node, " +
-                        "hence dropping the events.");
+        EventSyncBatcher eventSyncBatcher = EventSyncConnectionPoolManager.getEventSyncBatcher();
+        if (eventSyncBatcher != null) {
+            eventSyncBatcher.add(new QueuedEvent[]{new QueuedEvent(siddhiAppName, getId(),
+                    sequenceIDGenerator.incrementAndGet(), event, transportSyncProperties)});
+            if (throughputTracker != null && StreamProcessorDataHolder.isStatisticsEnabled()) {
+                throughputTracker.eventIn();
             }
+        } else {
+            log.error("Error in obtaining event sync batcher to send events to passive node, " +
+                    "hence dropping the events.");
         }
     }
 
     private void sendEventsToPassiveNode(Event[] events, String[] transportSyncProperties) {
-        if (!isWaitingForPassiveNode.get() || lastConnRefusedTimestamp.get() + 5000 < System.currentTimeMillis()) {
-            isWaitingForPassiveNode.set(false);
-            GenericKeyedObjectPool objectPool = EventSyncConnectionPoolManager.getConnectionPool();
-            if (objectPool != null) {
-                EventSyncConnection.Connection connection = null;
-                try {
-                    connection = (EventSyncConnection.Connection)
-                            objectPool.borrowObject(HAConstants.ACTIVE_NODE_CONNECTION_POOL_ID);
-                    if (connection != null) {
-                        QueuedEvent[] queuedEvents = new QueuedEvent[events.length];
-                        int i = 0;
-                        for (Event event : events) {
-                            QueuedEvent queuedEvent;
-                            if (i == 0) {
-                                queuedEvent = new QueuedEvent(siddhiAppName, getId(), sequenceIDGenerator
-                                        .incrementAndGet(), event, transportSyncProperties);
-                            } else {
-                                queuedEvent = new QueuedEvent(siddhiAppName, getId(), sequenceIDGenerator
-                                        .incrementAndGet(), event, null);
-                            }
-                            queuedEvents[i] = queuedEvent;
-                            i++;
-                        }
-                        ByteBuffer messageBuffer = null;
-                        try {
-                            messageBuffer = BinaryEventConverter.convertToBinaryMessage(queuedEvents);
-                        } catch (IOException e) {
-                            log.error("Error in converting events to binary message. " +
-                                    "Hence not sending message to the passive node", e);
-                            return;
-                        }
-                        if (messageBuffer != null) {
-                            try {
-                                connection.send(HAConstants.CHANNEL_ID_MESSAGE, messageBuffer.array());
-                                if (throughputTracker != null && StreamProcessorDataHolder.isStatisticsEnabled()) {
-                                    throughputTracker.eventsIn(events.length);
-                                }
-                            } catch (ConnectionUnavailableException e) {
-                                log.error("Connection unavailable to sending events to the passive node. " +
-                                        e.getMessage(), e);
-                            }
-                        }
-                    }
-                } catch (Exception e) {
-                    synchronized (this) {
-                        if (e.getMessage().contains("Connection refused")) {
-                            if (!isWaitingForPassiveNode.get()) {
-                                log.warn("Error in sending events to the passive node." +
-                                        " Event syncing will start to retry again in 5 seconds. " + e.getMessage(), e);
-                                lastConnRefusedTimestamp.set(System.currentTimeMillis());
-                                isWaitingForPassiveNode.set(true);
-                            }
-                        } else {
-                            log.error("Error in sending events to the passive node." + e.getMessage(), e);
-                        }
-                    }
-                } finally {
-                    if (connection != null) {
-                        try {
-                            objectPool.returnObject(HAConstants.ACTIVE_NODE_CONNECTION_POOL_ID, connection);
-                        } catch (Exception e) {
-                            log.error("Error in returning the tcpClient connection object to the pool. " +
-                                    e.getMessage(), e);
-                        }
-                    }
-                }
-            } else {
-                log.error("Error in obtaining connection pool to send events to passive node, " +
-                        "hence dropping the events.");
+        EventSyncBatcher eventSyncBatcher = EventSyncConnectionPoolManager.getEventSyncBatcher();
+        if (eventSyncBatcher != null) {
+            QueuedEvent[] queuedEvents = new QueuedEvent[events.length];
+            for (int i = 0; i < events.length; i++) {
+                queuedEvents[i] = new QueuedEvent(siddhiAppName, getId(), sequenceIDGenerator.incrementAndGet(),
+                        events[i], i == 0 ? transportSyncProperties : null);
             }
+            eventSyncBatcher.add(queuedEvents);
+            if (throughputTracker != null && StreamProcessorDataHolder.isStatisticsEnabled()) {
+                throughputTracker.eventsIn(events.length);
+            }
+        } else {
+            log.error("Error in obtaining event sync batcher to send events to passive node, " +
+                    "hence dropping the events.");
         }
     }
 
@@ -284,10 +170,6 @@ public class HACoordinationSourceHandler extends SourceHandler<HACoordinationSou
         }
     }
 
-    public void setIsWaitingForPassiveNode(boolean passiveNodeAdded) {
-        this.isWaitingForPassiveNode.set(!passiveNodeAdded);
-    }
-
     class SourceState extends State {
         private long lastProcessedEventTimestamp = 0L;
 
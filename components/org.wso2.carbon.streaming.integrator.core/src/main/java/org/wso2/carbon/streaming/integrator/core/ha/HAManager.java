@@ -102,6 +102,10 @@ public class HAManager {
         siddhiManager.setSourceHandlerManager(StreamProcessorDataHolder.getSourceHandlerManager());
         siddhiManager.setSinkHandlerManager(StreamProcessorDataHolder.getSinkHandlerManager());
         siddhiManager.setRecordTableHandlerManager(StreamProcessorDataHolder.getRecordTableHandlerManager());
+        SiddhiManager standbySiddhiManager = StreamProcessorDataHolder.getStandbySiddhiManager();
+        standbySiddhiManager.setSourceHandlerManager(StreamProcessorDataHolder.getSourceHandlerManager());
+        standbySiddhiManager.setSinkHandlerManager(StreamProcessorDataHolder.getSinkHandlerManager());
+        standbySiddhiManager.setRecordTableHandlerManager(StreamProcessorDataHolder.getRecordTableHandlerManager());
 
         clusterCoordinator.registerEventListener(new HAEventListener());
 
@@ -154,7 +158,7 @@ public class HAManager {
             passiveNodeDetailsPropertiesMap.put(HAConstants.ADVERTISED_PORT, deploymentConfig.eventSyncServerConfigs()
                     .getAdvertisedPort());
             clusterCoordinator.setPropertiesMap(passiveNodeDetailsPropertiesMap);
-            EventListMapManager.initializeEventListMap();
+            EventListMapManager.initializeEventListMap(deploymentConfig);
 
             //notify the HAStateChangeListener as becamePassive
             List<HAStateChangeListener> listeners = StreamProcessorDataHolder.getHaStateChangeListenerList();
@@ -186,7 +190,12 @@ public class HAManager {
         if (!isActiveNode) {
             log.info("HA Deployment: This Node is now becoming the Active Node");
             isActiveNode = true;
-            createSiddhiAppRuntimes();
+            //process the received messages before taking over the state of the Siddhi apps
+            Map<String, SiddhiAppRuntime> standbyRuntimes = EventListMapManager.promoteStandbyRuntimes(
+                    tcpServerInstance.getEventSyncServer()::getPendingMessageCount,
+                    deploymentConfig.getPendingMessageProcessingTimeoutMillis());
+            log.info("Successfully retrieved all the events from event sync server");
+            createSiddhiAppRuntimes(standbyRuntimes);
             for (SourceHandler sourceHandler : sourceHandlerManager.getRegsiteredSourceHandlers().values()) {
                 try {
                     ((HACoordinationSourceHandler) sourceHandler).setPlayBack(true);
@@ -201,19 +210,7 @@ public class HAManager {
             changeSiddhiAppState(true);
             NodeInfo nodeInfo = StreamProcessorDataHolder.getNodeInfo();
             nodeInfo.setActiveNode(isActiveNode);
-            syncState();
-
-            //Give time for byte buffer queue to be empty
-            if (null != tcpServerInstance.getEventSyncServer().getEventByteBufferQueue()) {
-                while (tcpServerInstance.getEventSyncServer().getEventByteBufferQueue().peek() != null) {
-                    try {
-                        Thread.sleep(100);
-                    } catch (InterruptedException e) {
-                        log.warn("Error in checking byte buffer queue empty");
-                    }
-                }
-            }
-            log.info("Successfully retrieved all the events from event sync server");
+            syncState(standbyRuntimes.keySet());
 
             //change the system clock to work with event time
             enableEventTimeClock(true);
@@ -334,7 +331,7 @@ public class HAManager {
         setPassiveNodeAdded(false);
 
         //initialize event list map
-        EventListMapManager.initializeEventListMap();
+        EventListMapManager.initializeEventListMap(deploymentConfig);
 
         NodeInfo nodeInfo = StreamProcessorDataHolder.getNodeInfo();
         nodeInfo.setActiveNode(isActiveNode);
@@ -364,13 +361,25 @@ public class HAManager {
     }
 
     public void createSiddhiAppRuntimes() {
+        createSiddhiAppRuntimes(new HashMap<>());
+    }
+
+    /**
+     * Creates the runtimes of the Siddhi apps, reusing the standby runtimes prepared by the passive node.
+     *
+     * @param standbyRuntimes standby runtimes by Siddhi app name
+     */
+    private void createSiddhiAppRuntimes(Map<String, SiddhiAppRuntime> standbyRuntimes) {
         Map<String, SiddhiAppData> siddhiAppDataMap
                 = StreamProcessorDataHolder.getStreamProcessorService().getSiddhiAppMap();
         SiddhiManager siddhiManager = StreamProcessorDataHolder.getSiddhiManager();
 
         siddhiAppDataMap.forEach((siddhiAppName, siddhiAppData) -> {
 
-            SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiAppData.getSiddhiApp());
+            SiddhiAppRuntime siddhiAppRuntime = standbyRuntimes.get(siddhiAppName);
+            if (siddhiAppRuntime == null) {
+                siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiAppData.getSiddhiApp());
+            }
             Set<String> streamNames = siddhiAppRuntime.getStreamDefinitionMap().keySet();
             Map<String, InputHandler> inputHandlerMap =
                     new ConcurrentHashMap<String, InputHandler>(streamNames.size());
@@ -383,17 +392,29 @@ public class HAManager {
         });
     }
 
-    private void syncState() {
+    /**
+     * Restores the state of the Siddhi apps from their last persisted revisions, except for the standby runtimes
+     * which are already in the state of the latest checkpoints of the active node.
+     *
+     * @param standbyAppNames names of the Siddhi apps whose standby runtimes were promoted
+     */
+    private void syncState(Set<String> standbyAppNames) {
         ConcurrentMap<String, SiddhiAppRuntime> siddhiAppRuntimeMap
                 = StreamProcessorDataHolder.getSiddhiManager().getSiddhiAppRuntimeMap();
 
         siddhiAppRuntimeMap.forEach((siddhiAppName, siddhiAppRuntime) -> {
+            if (standbyAppNames.contains(siddhiAppName)) {
+                if (log.isDebugEnabled()) {
+                    log.debug("State of Siddhi Application " + siddhiAppName + " is already synced by warm standby");
+                }
+                return;
+            }
             if (log.isDebugEnabled()) {
                 log.debug("Restoring state of Siddhi Application " +
                         siddhiAppRuntime.getName());
             }
             try {
-                siddhiAppRuntime.restoreLastRevision();
+                PersistenceManager.restoreLastRevision(siddhiAppRuntime);
                 StreamProcessorDataHolder.getNodeInfo().setLastSyncedTimestamp(System.currentTimeMillis());
                 StreamProcessorDataHolder.getNodeInfo().setInSync(true);
             } catch (CannotRestoreSiddhiAppStateException e) {
@@ -450,6 +471,8 @@ public class HAManager {
                         siddhiAppRuntime.getName());
             }
             siddhiAppRuntime.shutdown();
+            // promoted standby runtimes only remove themselves from the map of the standby Siddhi manager
+            siddhiAppRuntimeMap.remove(siddhiAppName, siddhiAppRuntime);
         });
     }
 
@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.ha;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.exception.CannotRestoreSiddhiAppStateException;
+import org.apache.log4j.Logger;
+import org.wso2.carbon.streaming.integrator.core.internal.SiddhiAppData;
+import org.wso2.carbon.streaming.integrator.core.internal.StreamProcessorDataHolder;
+import org.wso2.carbon.streaming.integrator.core.persistence.PersistenceManager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies the checkpoints announced by the control messages of the active node to standby Siddhi app runtimes of the
+ * passive node in the background, so that the passive node only has to replay the events received after the latest
+ * applied checkpoint when it becomes active. Checkpoints of a Siddhi app announced while an earlier one is waiting to
+ * be applied replace it, hence only the latest checkpoint is applied.
+ * The standby lag is the number of events buffered since the applied checkpoints, along with the time since the oldest
+ * applied checkpoint was announced.
+ * The standby runtimes are created by the standby Siddhi manager, so that they neither replace nor are mistaken for
+ * the runtimes of the node, and are not started, hence their sources and sinks stay disconnected till they are
+ * promoted and started as the runtimes of the node.
+ */
+public class StandbyCheckpointApplier {
+    private static final Logger log = Logger.getLogger(StandbyCheckpointApplier.class);
+    private static final long PROMOTION_WAIT_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private final ExecutorService applierExecutorService = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat("WarmStandby-%d").setDaemon(true).build());
+    private final Map<String, Checkpoint> pendingCheckpoints = new ConcurrentHashMap<>();
+    private final Map<String, StandbyRuntime> standbyRuntimes = new ConcurrentHashMap<>();
+
+    /**
+     * Schedules the announced checkpoint of the Siddhi app to be applied to its standby runtime.
+     *
+     * @param siddhiAppName name of the Siddhi app
+     * @param revision      revision persisted by the active node
+     */
+    public void checkpointAnnounced(String siddhiAppName, String revision) {
+        if (applierExecutorService.isShutdown()) {
+            return;
+        }
+        pendingCheckpoints.put(siddhiAppName, new Checkpoint(revision, System.currentTimeMillis()));
+        applierExecutorService.execute(() -> applyPendingCheckpoint(siddhiAppName));
+    }
+
+    /**
+     * Stops applying checkpoints in the background, applies the checkpoints still pending and hands over the standby
+     * runtimes, which are in the state of the latest announced checkpoints, to be activated.
+     *
+     * @return standby runtimes of the Siddhi apps by Siddhi app name
+     */
+    public Map<String, SiddhiAppRuntime> promote() {
+        applierExecutorService.shutdown();
+        try {
+            if (!applierExecutorService.awaitTermination(PROMOTION_WAIT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                log.warn("Checkpoint being applied to the standby runtimes did not complete within " +
+                        PROMOTION_WAIT_TIMEOUT_MILLIS + " ms, hence restoring the state of the Siddhi apps anew");
+                discard();
+                return new HashMap<>();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            discard();
+            return new HashMap<>();
+        }
+        for (String siddhiAppName : pendingCheckpoints.keySet()) {
+            applyPendingCheckpoint(siddhiAppName);
+        }
+        Map<String, SiddhiAppData> siddhiAppMap = StreamProcessorDataHolder.getStreamProcessorService().
+                getSiddhiAppMap();
+        Map<String, SiddhiAppRuntime> siddhiAppRuntimeMap = StreamProcessorDataHolder.getSiddhiManager().
+                getSiddhiAppRuntimeMap();
+        Map<String, SiddhiAppRuntime> promotedRuntimes = new HashMap<>();
+        for (Map.Entry<String, StandbyRuntime> entry : standbyRuntimes.entrySet()) {
+            if (siddhiAppMap.get(entry.getKey()) == entry.getValue().siddhiAppData) {
+                StreamProcessorDataHolder.getStandbySiddhiManager().getSiddhiAppRuntimeMap().remove(entry.getKey());
+                siddhiAppRuntimeMap.put(entry.getKey(), entry.getValue().siddhiAppRuntime);
+                promotedRuntimes.put(entry.getKey(), entry.getValue().siddhiAppRuntime);
+            } else {
+                entry.getValue().siddhiAppRuntime.shutdown();
+            }
+        }
+        standbyRuntimes.clear();
+        log.info("Promoting the standby runtimes of " + promotedRuntimes.size() + " Siddhi apps");
+        return promotedRuntimes;
+    }
+
+    /**
+     * Stops applying checkpoints and shuts down the standby runtimes.
+     */
+    public void discard() {
+        applierExecutorService.shutdownNow();
+        synchronized (this) {
+            pendingCheckpoints.clear();
+            for (StandbyRuntime standbyRuntime : standbyRuntimes.values()) {
+                standbyRuntime.siddhiAppRuntime.shutdown();
+            }
+            standbyRuntimes.clear();
+        }
+    }
+
+    /**
+     * Shuts down the standby runtime of the Siddhi app, when it is undeployed.
+     *
+     * @param siddhiAppName name of the Siddhi app
+     */
+    public synchronized void discard(String siddhiAppName) {
+        pendingCheckpoints.remove(siddhiAppName);
+        StandbyRuntime standbyRuntime = standbyRuntimes.remove(siddhiAppName);
+        if (standbyRuntime != null) {
+            standbyRuntime.siddhiAppRuntime.shutdown();
+        }
+    }
+
+    /**
+     * @return time in milliseconds since the oldest of the checkpoints applied to the standby runtimes was announced
+     */
+    public long getStandbyLagMillis() {
+        long oldestCheckpointTime = Long.MAX_VALUE;
+        for (StandbyRuntime standbyRuntime : standbyRuntimes.values()) {
+            oldestCheckpointTime = Math.min(oldestCheckpointTime, standbyRuntime.appliedCheckpoint.announcedTime);
+        }
+        return oldestCheckpointTime == Long.MAX_VALUE ? 0 : System.currentTimeMillis() - oldestCheckpointTime;
+    }
+
+    private synchronized void applyPendingCheckpoint(String siddhiAppName) {
+        Checkpoint checkpoint = pendingCheckpoints.remove(siddhiAppName);
+        if (checkpoint == null) {
+            return;
+        }
+        SiddhiAppData siddhiAppData = StreamProcessorDataHolder.getStreamProcessorService().getSiddhiAppMap().
+                get(siddhiAppName);
+        StandbyRuntime standbyRuntime = standbyRuntimes.get(siddhiAppName);
+        if (standbyRuntime != null && standbyRuntime.siddhiAppData != siddhiAppData) {
+            // the Siddhi app has been redeployed since the standby runtime was created
+            standbyRuntimes.remove(siddhiAppName);
+            standbyRuntime.siddhiAppRuntime.shutdown();
+            standbyRuntime = null;
+        }
+        if (siddhiAppData == null) {
+            return;
+        }
+        if (standbyRuntime == null) {
+            standbyRuntime = new StandbyRuntime(siddhiAppData, StreamProcessorDataHolder.getStandbySiddhiManager().
+                    createSiddhiAppRuntime(siddhiAppData.getSiddhiApp()));
+        }
+        try {
+            PersistenceManager.restoreRevision(standbyRuntime.siddhiAppRuntime, checkpoint.revision);
+        } catch (CannotRestoreSiddhiAppStateException | RuntimeException e) {
+            log.error("Error in applying revision " + checkpoint.revision + " to the standby runtime of Siddhi app " +
+                    siddhiAppName + ", hence its state will be restored when the node becomes active", e);
+            standbyRuntimes.remove(siddhiAppName);
+            standbyRuntime.siddhiAppRuntime.shutdown();
+            return;
+        }
+        standbyRuntime.appliedCheckpoint = checkpoint;
+        standbyRuntimes.put(siddhiAppName, standbyRuntime);
+        if (StreamProcessorDataHolder.getNodeInfo() != null) {
+            StreamProcessorDataHolder.getNodeInfo().setLastSyncedTimestamp(System.currentTimeMillis());
+            StreamProcessorDataHolder.getNodeInfo().setInSync(true);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Applied revision " + checkpoint.revision + " to the standby runtime of Siddhi app " +
+                    siddhiAppName + " in " + (System.currentTimeMillis() - checkpoint.announcedTime) + " ms since " +
+                    "it was announced");
+        }
+    }
+
+    private static class Checkpoint {
+        private final String revision;
+        private final long announcedTime;
+
+        Checkpoint(String revision, long announcedTime) {
+            this.revision = revision;
+            this.announcedTime = announcedTime;
+        }
+    }
+
+    private static class StandbyRuntime {
+        private final SiddhiAppData siddhiAppData;
+        private final SiddhiAppRuntime siddhiAppRuntime;
+        private volatile Checkpoint appliedCheckpoint;
+
+        StandbyRuntime(SiddhiAppData siddhiAppData, SiddhiAppRuntime siddhiAppRuntime) {
+            this.siddhiAppData = siddhiAppData;
+            this.siddhiAppRuntime = siddhiAppRuntime;
+        }
+    }
+}
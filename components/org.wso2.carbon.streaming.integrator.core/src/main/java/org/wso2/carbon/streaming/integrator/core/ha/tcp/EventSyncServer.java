@@ -28,25 +28,17 @@ import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import io.netty.util.concurrent.EventExecutorGroup;
 import org.apache.log4j.Logger;
 import org.wso2.carbon.streaming.integrator.core.event.queue.EventListMapManager;
+import org.wso2.carbon.streaming.integrator.core.ha.transport.handlers.EventMessageHandler;
 import org.wso2.carbon.streaming.integrator.core.ha.transport.handlers.MessageDecoder;
 import org.wso2.carbon.streaming.integrator.core.ha.util.HAConstants;
 import org.wso2.carbon.streaming.integrator.core.internal.beans.DeploymentConfig;
 import org.wso2.carbon.streaming.integrator.core.internal.beans.EventSyncServerConfig;
-import org.wso2.carbon.streaming.integrator.core.util.BinaryMessageConverterUtil;
 
-import java.io.UnsupportedEncodingException;
-import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Event Sync Server.
@@ -61,17 +53,14 @@ public class EventSyncServer {
     private EventSyncServerConfig serverConfig;
     private static final Logger log = Logger.getLogger(EventSyncServer.class);
     private EventListMapManager eventListMapManager = new EventListMapManager();
-    private BlockingQueue<ByteBuffer> eventByteBufferQueue;
-    private ExecutorService eventBufferExtractorExecutorService;
-    private EventBufferExtractor eventBufferExtractor = new EventBufferExtractor();
+    private AtomicInteger pendingMessageCount = new AtomicInteger();
+    private EventExecutorGroup eventMessageExecutorGroup;
 
     public void start(DeploymentConfig deploymentConfig) {
-        ThreadFactory namedThreadFactory = new ThreadFactoryBuilder()
-                .setNameFormat("EventSyncServer-%d").build();
-        eventBufferExtractorExecutorService = Executors.newFixedThreadPool(
-                HAConstants.EVENT_BUFFER_EXTRACTOR_THREAD_POOL_SIZE, namedThreadFactory);
-        eventByteBufferQueue = new LinkedBlockingQueue<>(deploymentConfig.
-                getEventByteBufferQueueCapacity());
+        eventMessageExecutorGroup = new DefaultEventExecutorGroup(
+                HAConstants.EVENT_BUFFER_EXTRACTOR_THREAD_POOL_SIZE, new ThreadFactoryBuilder()
+                .setNameFormat("EventSyncServer-%d").build());
+        int maxPendingMessages = deploymentConfig.getEventByteBufferQueueCapacity();
         serverConfig = deploymentConfig.eventSyncServerConfigs();
         bossGroup = new NioEventLoopGroup(serverConfig.getBossThreads());
         workerGroup = new NioEventLoopGroup(serverConfig.getWorkerThreads());
@@ -85,7 +74,11 @@ public class EventSyncServer {
                     @Override
                     protected void initChannel(Channel channel) throws Exception {
                         ChannelPipeline p = channel.pipeline();
-                        p.addLast(new MessageDecoder(eventByteBufferQueue));
+                        MessageDecoder messageDecoder = new MessageDecoder(pendingMessageCount, maxPendingMessages);
+                        p.addLast(messageDecoder);
+                        // messages of a channel are processed in order, off the I/O threads
+                        p.addLast(eventMessageExecutorGroup, new EventMessageHandler(eventListMapManager,
+                                messageDecoder));
                     }
                 })
                 .option(ChannelOption.TCP_NODELAY, true)
@@ -94,9 +87,6 @@ public class EventSyncServer {
         try {
             // Bind and start to accept incoming connections.
             channelFuture = bootstrap.bind(serverConfig.getHost(), serverConfig.getPort()).sync();
-            for (int i = 0; i < HAConstants.EVENT_BUFFER_EXTRACTOR_THREAD_POOL_SIZE; i++) {
-                eventBufferExtractorExecutorService.submit(eventBufferExtractor);
-            }
             log.info("EventSyncServer started in " + hostAndPort + "");
         } catch (InterruptedException e) {
             log.error("Error when booting up EventSyncServer on '" + hostAndPort + "' " + e.getMessage(), e);
@@ -119,52 +109,13 @@ public class EventSyncServer {
     }
 
     public void clearResources() {
-        eventBufferExtractor.run = false;
-        eventBufferExtractorExecutorService.shutdownNow();
-        eventByteBufferQueue.clear();
+        eventMessageExecutorGroup.shutdownGracefully();
     }
 
     /**
-     * This {@link Runnable} class is executed by the {@link ScheduledExecutorService}
+     * Returns the number of messages received from the active node which are not processed yet.
      */
-    private class EventBufferExtractor implements Runnable {
-        volatile boolean run = true;
-        @Override
-        public void run() {
-            try {
-                while (run) {
-                    ByteBuffer in = eventByteBufferQueue.take();
-                    try {
-                        int channelIdSize = in.getInt();
-                        String channelId = BinaryMessageConverterUtil.getString(in, channelIdSize);
-                        int dataLength = in.getInt();
-                        byte[] bytes = new byte[dataLength];
-                        in.get(bytes);
-                        if (channelId.equals(HAConstants.CHANNEL_ID_CONTROL_MESSAGE)) {
-                            eventListMapManager.parseControlMessage(bytes);
-                        } else if (channelId.equals(HAConstants.CHANNEL_ID_MESSAGE)) {
-                            if (log.isDebugEnabled()) {
-                                log.debug("Received a event message");
-                            }
-                            eventListMapManager.parseMessage(bytes);
-                        }
-                    } catch (UnsupportedEncodingException e) {
-                        log.warn("Error when converting bytes " + e.getMessage(), e);
-                    } catch (Throwable t) {
-                        log.error("Error occurred while processing eventByteBufferQueue " + t.getMessage(), t);
-                    }
-                }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                if (!run) {
-                    log.error("EventSyncServer EventBufferExtractor Job is interrupted");
-                }
-
-            }
-        }
-    }
-
-    public BlockingQueue<ByteBuffer> getEventByteBufferQueue() {
-        return eventByteBufferQueue;
+    public int getPendingMessageCount() {
+        return pendingMessageCount.get();
     }
 }
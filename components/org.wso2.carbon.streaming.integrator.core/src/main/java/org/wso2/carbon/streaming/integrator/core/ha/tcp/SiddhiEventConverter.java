@@ -18,18 +18,19 @@
 package org.wso2.carbon.streaming.integrator.core.ha.tcp;
 
 
+import io.netty.buffer.ByteBuf;
 import org.apache.log4j.Logger;
+import org.wso2.carbon.streaming.integrator.core.event.queue.EventSchema;
+import org.wso2.carbon.streaming.integrator.core.event.queue.QueuedEvent;
+import org.wso2.carbon.streaming.integrator.core.ha.exception.InvalidByteMessageException;
 import org.wso2.carbon.streaming.integrator.core.ha.util.HAConstants;
-import org.wso2.carbon.streaming.integrator.core.util.BinaryMessageConverterUtil;
 import io.siddhi.core.event.Event;
+import io.siddhi.query.api.definition.Attribute;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
-import java.nio.ByteBuffer;
-import java.util.zip.DataFormatException;
-import java.util.zip.Inflater;
+import java.nio.charset.StandardCharsets;
+import java.util.function.IntFunction;
 
 /**
  * This class is a implementation EventConverter to create the event from the Binary message.
@@ -39,73 +40,115 @@ public class SiddhiEventConverter {
     static final Logger LOG = Logger.getLogger(SiddhiEventConverter.class);
     private static int count = 0;
 
-
-    public static ByteBuffer decompress(ByteBuffer byteBuffer) throws IOException, DataFormatException {
-        //byte[] dataBytes = Base64.decode(data);
-        Inflater inflater = new Inflater();
-        inflater.setInput(byteBuffer.array());
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(byteBuffer.array().length);
-        byte[] buffer = new byte[byteBuffer.array().length];
-        //System.out.printf("REEEE            "+byteBuffer.array().length);
-        while (!inflater.finished()) {
-            int count = inflater.inflate(buffer);
-            outputStream.write(buffer, 0, count);
+    /**
+     * Creates the queued events from an event message of the active node. The events are read directly from the
+     * given buffer, which is not released by this method.
+     *
+     * @param eventMessage   event message
+     * @param schemaResolver resolves the {@link EventSchema} announced for a schema id
+     * @return events of the message in the order they were sent
+     * @throws UnsupportedEncodingException if a string attribute cannot be decoded
+     */
+    public static QueuedEvent[] getQueuedEvents(ByteBuf eventMessage, IntFunction<EventSchema> schemaResolver)
+            throws UnsupportedEncodingException {
+        byte version = eventMessage.readByte();
+        if (version != HAConstants.EVENT_SYNC_PROTOCOL_VERSION) {
+            throw new InvalidByteMessageException("Unsupported event sync protocol version " + version +
+                    " in event message");
         }
+        QueuedEvent[] queuedEvents = new QueuedEvent[eventMessage.readInt()];
+        for (int i = 0; i < queuedEvents.length; i++) {
+            String[] transportSyncProperties = null;
+            long sequenceID = eventMessage.readLong();
+            EventSchema eventSchema = schemaResolver.apply(eventMessage.readInt());
+            int transportSyncPropertiesSize = eventMessage.readInt();
+            if (transportSyncPropertiesSize != 0) {
+                transportSyncProperties = new String[transportSyncPropertiesSize];
+                for (int j = 0; j < transportSyncPropertiesSize; j++) {
+                    transportSyncProperties[j] = getUTF8String(eventMessage, eventMessage.readInt());
+                }
+            }
+            Event event = getEvent(eventMessage, eventSchema.getAttributeTypes());
+            queuedEvents[i] = new QueuedEvent(eventSchema.getSiddhiAppName(),
+                    eventSchema.getSourceHandlerElementId(), sequenceID, event, transportSyncProperties);
+        }
+        return queuedEvents;
+    }
 
-        outputStream.close();
-        byte[] output = outputStream.toByteArray();
-        return ByteBuffer.wrap(output);
+    /**
+     * Creates the event schema from a schema message of the active node.
+     *
+     * @param schemaMessage schema message
+     * @return announced event schema
+     */
+    public static EventSchema getEventSchema(ByteBuf schemaMessage) {
+        byte version = schemaMessage.readByte();
+        if (version != HAConstants.EVENT_SYNC_PROTOCOL_VERSION) {
+            throw new InvalidByteMessageException("Unsupported event sync protocol version " + version +
+                    " in schema message");
+        }
+        int schemaId = schemaMessage.readInt();
+        String siddhiAppName = getUTF8String(schemaMessage, schemaMessage.readInt());
+        String sourceHandlerElementId = getUTF8String(schemaMessage, schemaMessage.readInt());
+        Attribute.Type[] attributeTypes = new Attribute.Type[schemaMessage.readInt()];
+        Attribute.Type[] allAttributeTypes = Attribute.Type.values();
+        for (int i = 0; i < attributeTypes.length; i++) {
+            attributeTypes[i] = allAttributeTypes[schemaMessage.readByte()];
+        }
+        return new EventSchema(schemaId, siddhiAppName, sourceHandlerElementId, attributeTypes);
     }
 
-    public static Event getEvent(ByteBuffer byteBuffer, String[] attributeTypes) throws UnsupportedEncodingException {
+    public static Event getEvent(ByteBuf byteBuf, Attribute.Type[] attributeTypes)
+            throws UnsupportedEncodingException {
         Event event = new Event();
-        long timeStamp = byteBuffer.getLong();
+        long timeStamp = byteBuf.readLong();
         event.setTimestamp(timeStamp);
-        event.setData(toObjectArray(byteBuffer, attributeTypes));
+        event.setData(toObjectArray(byteBuf, attributeTypes));
         return event;
     }
 
-    static Object[] toObjectArray(ByteBuffer byteBuffer,
-                                  String[] attributeTypeOrder) throws UnsupportedEncodingException {
-        if (attributeTypeOrder != null) {
-            Object[] objects = new Object[attributeTypeOrder.length];
-            for (int i = 0; i < attributeTypeOrder.length; i++) {
-                switch (attributeTypeOrder[i]) {
-                    case "INT":
-                        objects[i] = byteBuffer.getInt();
-                        break;
-                    case "LONG":
-                        objects[i] = byteBuffer.getLong();
-                        break;
-                    case "STRING":
-                        int stringSize = byteBuffer.getInt();
-                        if (stringSize == 0) {
-                            objects[i] = null;
-                        } else {
-                            objects[i] = URLDecoder.decode(BinaryMessageConverterUtil.getString(byteBuffer, stringSize),
-                                    HAConstants.DEFAULT_CHARSET);
-                        }
-                        break;
-                    case "DOUBLE":
-                        objects[i] = byteBuffer.getDouble();
-                        break;
-                    case "FLOAT":
-                        objects[i] = byteBuffer.getFloat();
-                        break;
-                    case "BOOL":
-                        objects[i] = byteBuffer.get() == 1;
-                        break;
-                    case "OBJECT":
-                        byteBuffer.getInt();
-                        break;
-                    default:
-                        // will not occur
-                }
+    static Object[] toObjectArray(ByteBuf byteBuf,
+                                  Attribute.Type[] attributeTypeOrder) throws UnsupportedEncodingException {
+        Object[] objects = new Object[attributeTypeOrder.length];
+        for (int i = 0; i < attributeTypeOrder.length; i++) {
+            switch (attributeTypeOrder[i]) {
+                case INT:
+                    objects[i] = byteBuf.readInt();
+                    break;
+                case LONG:
+                    objects[i] = byteBuf.readLong();
+                    break;
+                case STRING:
+                    int stringSize = byteBuf.readInt();
+                    if (stringSize == 0) {
+                        objects[i] = null;
+                    } else {
+                        objects[i] = URLDecoder.decode(getUTF8String(byteBuf, stringSize),
+                                HAConstants.DEFAULT_CHARSET);
+                    }
+                    break;
+                case DOUBLE:
+                    objects[i] = byteBuf.readDouble();
+                    break;
+                case FLOAT:
+                    objects[i] = byteBuf.readFloat();
+                    break;
+                case BOOL:
+                    objects[i] = byteBuf.readByte() == 1;
+                    break;
+                case OBJECT:
+                    byteBuf.readInt();
+                    break;
+                default:
+                    // will not occur
             }
-            return objects;
-        } else {
-            return null;
         }
+        return objects;
     }
 
+    private static String getUTF8String(ByteBuf byteBuf, int size) {
+        String value = byteBuf.toString(byteBuf.readerIndex(), size, StandardCharsets.UTF_8);
+        byteBuf.skipBytes(size);
+        return value;
+    }
 }
@@ -18,6 +18,8 @@
 
 package org.wso2.carbon.streaming.integrator.core.ha.transport;
 
+import edu.umd.cs.findbugs.annotations.SuppressWarnings;
+
 import java.io.Serializable;
 
 /**
@@ -28,10 +30,11 @@ public class EventComposite implements Serializable {
     private String sessionId;
     private byte[] message;
 
+    @SuppressWarnings("EI_EXPOSE_REP2")
     public EventComposite(String sessionId, String channelId, byte[] message) {
         this.sessionId = sessionId;
         this.channelId = channelId;
-        this.message = message.clone();
+        this.message = message;
     }
 
     public String getChannelId() {
@@ -42,7 +45,8 @@ public class EventComposite implements Serializable {
         return sessionId;
     }
 
+    @SuppressWarnings("EI_EXPOSE_REP")
     public byte[] getMessage() {
-        return message.clone();
+        return message;
     }
 }
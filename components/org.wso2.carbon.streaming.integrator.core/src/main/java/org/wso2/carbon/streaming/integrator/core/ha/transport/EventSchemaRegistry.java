@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.ha.transport;
+
+import io.netty.channel.ChannelFuture;
+import io.siddhi.core.exception.ConnectionUnavailableException;
+import io.siddhi.query.api.definition.Attribute;
+import org.apache.log4j.Logger;
+import org.wso2.carbon.streaming.integrator.core.event.queue.EventSchema;
+import org.wso2.carbon.streaming.integrator.core.ha.util.HAConstants;
+import org.wso2.carbon.streaming.integrator.core.util.BinaryEventConverter;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Active node side dictionary of the event schemas synced to the passive node. Each distinct
+ * (Siddhi app, source handler, attribute types) combination gets a schema id which is announced to the passive node
+ * once, before the first event message referring to it.
+ */
+public class EventSchemaRegistry {
+    private static final Logger log = Logger.getLogger(EventSchemaRegistry.class);
+    private static final ConcurrentMap<SchemaKey, EventSchema> schemaMap = new ConcurrentHashMap<>();
+    private static final Queue<EventSchema> pendingSchemas = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger schemaIdGenerator = new AtomicInteger();
+
+    private EventSchemaRegistry() {
+    }
+
+    public static EventSchema getSchema(String siddhiAppName, String sourceHandlerElementId,
+                                        Attribute.Type[] attributeTypes) {
+        return schemaMap.computeIfAbsent(new SchemaKey(siddhiAppName, sourceHandlerElementId, attributeTypes),
+                key -> {
+                    EventSchema eventSchema = new EventSchema(schemaIdGenerator.incrementAndGet(), siddhiAppName,
+                            sourceHandlerElementId, attributeTypes);
+                    pendingSchemas.add(eventSchema);
+                    return eventSchema;
+                });
+    }
+
+    /**
+     * Sends the schemas which are not yet known to the passive node and waits till they are written, so that any
+     * event message sent afterwards can refer to them.
+     *
+     * @param connection connection to the passive node
+     * @throws ConnectionUnavailableException if a schema could not be sent, the schema will be retried with the next
+     *                                        event message
+     */
+    public static void announcePendingSchemas(EventSyncConnection.Connection connection)
+            throws ConnectionUnavailableException {
+        if (pendingSchemas.isEmpty()) {
+            return;
+        }
+        synchronized (EventSchemaRegistry.class) {
+            EventSchema eventSchema;
+            while ((eventSchema = pendingSchemas.peek()) != null) {
+                ChannelFuture future = connection.send(HAConstants.CHANNEL_ID_SCHEMA_MESSAGE,
+                        BinaryEventConverter.convertToBinaryMessage(eventSchema).array());
+                future.awaitUninterruptibly();
+                if (!future.isSuccess()) {
+                    throw new ConnectionUnavailableException("Error in announcing event schema " +
+                            eventSchema.getSchemaId() + " of Siddhi app " + eventSchema.getSiddhiAppName() +
+                            " to the passive node", future.cause());
+                }
+                pendingSchemas.poll();
+                if (log.isDebugEnabled()) {
+                    log.debug("Announced event schema " + eventSchema.getSchemaId() + " of source handler " +
+                            eventSchema.getSourceHandlerElementId() + " in Siddhi app " +
+                            eventSchema.getSiddhiAppName() + " to the passive node");
+                }
+            }
+        }
+    }
+
+    /**
+     * Marks all known schemas to be announced again, used when connecting to a (new) passive node.
+     */
+    public static void resetAnnouncements() {
+        synchronized (EventSchemaRegistry.class) {
+            pendingSchemas.clear();
+            pendingSchemas.addAll(schemaMap.values());
+        }
+    }
+
+    private static class SchemaKey {
+        private final String siddhiAppName;
+        private final String sourceHandlerElementId;
+        private final Attribute.Type[] attributeTypes;
+        private final int hashCode;
+
+        SchemaKey(String siddhiAppName, String sourceHandlerElementId, Attribute.Type[] attributeTypes) {
+            this.siddhiAppName = siddhiAppName;
+            this.sourceHandlerElementId = sourceHandlerElementId;
+            this.attributeTypes = attributeTypes;
+            this.hashCode = 31 * (31 * siddhiAppName.hashCode() + sourceHandlerElementId.hashCode()) +
+                    Arrays.hashCode(attributeTypes);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SchemaKey)) {
+                return false;
+            }
+            SchemaKey schemaKey = (SchemaKey) o;
+            return siddhiAppName.equals(schemaKey.siddhiAppName) &&
+                    sourceHandlerElementId.equals(schemaKey.sourceHandlerElementId) &&
+                    Arrays.equals(attributeTypes, schemaKey.attributeTypes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
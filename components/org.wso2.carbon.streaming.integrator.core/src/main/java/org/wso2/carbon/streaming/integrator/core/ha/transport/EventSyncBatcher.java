@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.ha.transport;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.pool.impl.GenericKeyedObjectPool;
+import org.apache.log4j.Logger;
+import org.wso2.carbon.streaming.integrator.core.event.queue.QueuedEvent;
+import org.wso2.carbon.streaming.integrator.core.ha.util.HAConstants;
+import org.wso2.carbon.streaming.integrator.core.util.BinaryEventConverter;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replication pipeline to the passive node. Source handler threads only put the events synced by them to a bounded
+ * {@link EventRingBuffer}, and a dedicated writer thread drains it in batches onto a long-lived connection. A batch
+ * is written when it reaches the configured size or when its first event has waited for the configured linger time.
+ * When the ring buffer is full the source handler threads either wait for space or drop the events, based on the
+ * configured policy.
+ */
+public class EventSyncBatcher implements Runnable {
+    private static final Logger log = Logger.getLogger(EventSyncBatcher.class);
+    private static final long CONNECTION_RETRY_INTERVAL_MILLIS = 5000;
+    private static final long IDLE_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long BACK_PRESSURE_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final long DROPPED_EVENTS_LOG_INTERVAL_MILLIS = 10000;
+    private final int maxBatchBytes;
+    private final long maxLingerNanos;
+    private final boolean blockWhenFull;
+    private final EventRingBuffer<QueuedEvent> ringBuffer;
+    private final ExecutorService writerExecutorService;
+    private final AtomicLong droppedEventCount = new AtomicLong();
+    private volatile boolean running = true;
+    private volatile Thread writerThread;
+    private volatile boolean writerIdle = false;
+    private long lastConnRefusedTimestamp = -1;
+    private long lastDroppedEventsLogTimestamp = 0;
+    private EventSyncConnection.Connection connection;
+
+    public EventSyncBatcher(int queueCapacity, String queueFullPolicy, int maxBatchBytes, long maxLingerMillis) {
+        this.maxBatchBytes = maxBatchBytes;
+        this.maxLingerNanos = TimeUnit.MILLISECONDS.toNanos(maxLingerMillis);
+        this.blockWhenFull = !HAConstants.EVENT_SYNC_QUEUE_FULL_POLICY_DROP.equalsIgnoreCase(queueFullPolicy);
+        this.ringBuffer = new EventRingBuffer<>(queueCapacity);
+        writerExecutorService = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("EventSyncBatcher-%d").build());
+        writerExecutorService.submit(this);
+    }
+
+    /**
+     * Puts the events to the ring buffer to be written by the writer thread.
+     *
+     * @param queuedEvents events to be synced to the passive node
+     */
+    public void add(QueuedEvent[] queuedEvents) {
+        for (QueuedEvent queuedEvent : queuedEvents) {
+            while (!ringBuffer.offer(queuedEvent)) {
+                if (!blockWhenFull || !running) {
+                    onEventDropped();
+                    break;
+                }
+                wakeUpWriter();
+                LockSupport.parkNanos(BACK_PRESSURE_WAIT_NANOS);
+            }
+        }
+        wakeUpWriter();
+    }
+
+    public int getQueueSize() {
+        return ringBuffer.size();
+    }
+
+    /**
+     * Returns the number of events dropped either because the ring buffer was full or because they could not be
+     * sent to the passive node.
+     */
+    public long getDroppedEventCount() {
+        return droppedEventCount.get();
+    }
+
+    public void shutdown() {
+        running = false;
+        wakeUpWriter();
+        writerExecutorService.shutdownNow();
+    }
+
+    @Override
+    public void run() {
+        writerThread = Thread.currentThread();
+        List<QueuedEvent> batch = new ArrayList<>();
+        try {
+            while (running) {
+                QueuedEvent queuedEvent = ringBuffer.poll();
+                if (queuedEvent == null) {
+                    writerIdle = true;
+                    if (ringBuffer.size() == 0) {
+                        LockSupport.parkNanos(IDLE_WAIT_NANOS);
+                    }
+                    writerIdle = false;
+                    continue;
+                }
+                int batchBytes = 0;
+                long lingerDeadline = System.nanoTime() + maxLingerNanos;
+                while (queuedEvent != null || System.nanoTime() < lingerDeadline) {
+                    if (queuedEvent != null) {
+                        batch.add(queuedEvent);
+                        batchBytes += BinaryEventConverter.getEstimatedSize(queuedEvent);
+                        if (batchBytes >= maxBatchBytes) {
+                            break;
+                        }
+                    } else {
+                        LockSupport.parkNanos(BACK_PRESSURE_WAIT_NANOS);
+                    }
+                    queuedEvent = ringBuffer.poll();
+                }
+                send(batch.toArray(new QueuedEvent[0]));
+                batch.clear();
+            }
+        } catch (Throwable t) {
+            log.error("Event sync writer to the passive node stopped unexpectedly. " + t.getMessage(), t);
+        } finally {
+            if (connection != null) {
+                connection.shutdown();
+                connection = null;
+            }
+        }
+    }
+
+    private void wakeUpWriter() {
+        Thread thread = writerThread;
+        if (writerIdle && thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void onEventDropped() {
+        long droppedEvents = droppedEventCount.incrementAndGet();
+        long currentTime = System.currentTimeMillis();
+        if (currentTime - lastDroppedEventsLogTimestamp > DROPPED_EVENTS_LOG_INTERVAL_MILLIS) {
+            lastDroppedEventsLogTimestamp = currentTime;
+            log.warn("Event sync queue to the passive node is full, dropped " + droppedEvents +
+                    " events so far. Consider increasing eventSyncQueueCapacity.");
+        }
+    }
+
+    private void send(QueuedEvent[] queuedEvents) {
+        if (lastConnRefusedTimestamp + CONNECTION_RETRY_INTERVAL_MILLIS > System.currentTimeMillis()) {
+            // the passive node refused the last connection attempt, the batch is dropped till it is retried
+            droppedEventCount.addAndGet(queuedEvents.length);
+            return;
+        }
+        try {
+            ByteBuffer messageBuffer = BinaryEventConverter.convertToBinaryMessage(queuedEvents);
+            EventSyncConnection.Connection activeConnection = getConnection();
+            if (activeConnection == null) {
+                log.error("Error in obtaining connection pool to send events to passive node, " +
+                        "hence dropping the events.");
+                droppedEventCount.addAndGet(queuedEvents.length);
+                return;
+            }
+            // write buffer of the channel is full, hold the writer and in turn the ring buffer
+            while (running && activeConnection.isActive() && !activeConnection.isWritable()) {
+                LockSupport.parkNanos(BACK_PRESSURE_WAIT_NANOS);
+            }
+            EventSchemaRegistry.announcePendingSchemas(activeConnection);
+            activeConnection.send(HAConstants.CHANNEL_ID_MESSAGE, messageBuffer.array());
+        } catch (Exception e) {
+            invalidateConnection();
+            droppedEventCount.addAndGet(queuedEvents.length);
+            if (e.getMessage() != null && e.getMessage().contains("Connection refused")) {
+                log.warn("Error in sending events to the passive node." +
+                        " Event syncing will start to retry again in 5 seconds. " + e.getMessage(), e);
+                lastConnRefusedTimestamp = System.currentTimeMillis();
+            } else {
+                log.error("Error in sending events to the passive node." + e.getMessage(), e);
+            }
+        }
+    }
+
+    private EventSyncConnection.Connection getConnection() throws Exception {
+        if (connection != null && !connection.isActive()) {
+            invalidateConnection();
+        }
+        if (connection == null) {
+            GenericKeyedObjectPool objectPool = EventSyncConnectionPoolManager.getConnectionPool();
+            if (objectPool != null) {
+                connection = (EventSyncConnection.Connection)
+                        objectPool.borrowObject(HAConstants.ACTIVE_NODE_CONNECTION_POOL_ID);
+            }
+        }
+        return connection;
+    }
+
+    private void invalidateConnection() {
+        if (connection != null) {
+            GenericKeyedObjectPool objectPool = EventSyncConnectionPoolManager.getConnectionPool();
+            try {
+                if (objectPool != null) {
+                    objectPool.invalidateObject(HAConstants.ACTIVE_NODE_CONNECTION_POOL_ID, connection);
+                } else {
+                    connection.shutdown();
+                }
+            } catch (Exception e) {
+                log.error("Error in invalidating the tcpClient connection object of the pool. " +
+                        e.getMessage(), e);
+            }
+            connection = null;
+        }
+    }
+}
@@ -109,6 +109,10 @@ public class EventSyncConnection {
             return channel != null && channel.isActive();
         }
 
+        public boolean isWritable() {
+            return channel != null && channel.isWritable();
+        }
+
         public void shutdown() {
             if (channel != null && channel.isOpen()) {
                 try {
@@ -31,6 +31,7 @@ import java.util.concurrent.atomic.AtomicLong;
 public class EventSyncConnectionPoolManager {
     private static GenericKeyedObjectPool connectionPool;
     private static AtomicLong sequenceID = new AtomicLong();
+    private static EventSyncBatcher eventSyncBatcher;
 
 
     public static void initializeConnectionPool(String host, int port, DeploymentConfig deploymentConfig) {
@@ -39,6 +40,16 @@ public class EventSyncConnectionPoolManager {
         initializeConnectionPool(eventSyncConnectionPoolFactory, eventSyncClientPoolConfig.getMaxActive(), eventSyncClientPoolConfig.getMaxTotal(),
                 eventSyncClientPoolConfig.getMaxIdle(), eventSyncClientPoolConfig.getMaxWait(),
                 eventSyncClientPoolConfig.getMinEvictableIdleTimeMillis());
+        initializeEventSyncBatcher(deploymentConfig.getEventSyncQueueCapacity(),
+                deploymentConfig.getEventSyncQueueFullPolicy(), deploymentConfig.getEventSyncBatchMaxBytes(),
+                deploymentConfig.getEventSyncBatchMaxLingerMillis());
+    }
+
+    public synchronized static void initializeEventSyncBatcher(int queueCapacity, String queueFullPolicy,
+                                                               int maxBatchBytes, long maxLingerMillis) {
+        if (eventSyncBatcher == null) {
+            eventSyncBatcher = new EventSyncBatcher(queueCapacity, queueFullPolicy, maxBatchBytes, maxLingerMillis);
+        }
     }
 
     public synchronized static void initializeConnectionPool(EventSyncConnectionPoolFactory factory,
@@ -58,6 +69,8 @@ public class EventSyncConnectionPoolManager {
             connectionPool.setMaxIdle(maxIdle);
             connectionPool.setMaxWait(maxWait);
             connectionPool.setWhenExhaustedAction(GenericKeyedObjectPool.WHEN_EXHAUSTED_BLOCK);
+            // a newly connected passive node does not know any of the event schemas
+            EventSchemaRegistry.resetAnnouncements();
         }
     }
 
@@ -65,8 +78,16 @@ public class EventSyncConnectionPoolManager {
         return connectionPool;
     }
 
-    public static void uninitializeConnectionPool() {
+    public static EventSyncBatcher getEventSyncBatcher() {
+        return eventSyncBatcher;
+    }
+
+    public synchronized static void uninitializeConnectionPool() {
         connectionPool = null;
+        if (eventSyncBatcher != null) {
+            eventSyncBatcher.shutdown();
+            eventSyncBatcher = null;
+        }
     }
 
     public static AtomicLong getSequenceID() {
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.ha.transport.handlers;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import org.apache.log4j.Logger;
+import org.wso2.carbon.streaming.integrator.core.event.queue.EventListMapManager;
+import org.wso2.carbon.streaming.integrator.core.ha.util.HAConstants;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Passive node handler of the messages decoded by the {@link MessageDecoder} of the same channel. The messages are
+ * read directly from the pooled buffers, which are released once the message is processed.
+ */
+public class EventMessageHandler extends SimpleChannelInboundHandler<ByteBuf> {
+    private static final Logger log = Logger.getLogger(EventMessageHandler.class);
+    private EventListMapManager eventListMapManager;
+    private MessageDecoder messageDecoder;
+
+    public EventMessageHandler(EventListMapManager eventListMapManager, MessageDecoder messageDecoder) {
+        this.eventListMapManager = eventListMapManager;
+        this.messageDecoder = messageDecoder;
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, ByteBuf in) {
+        try {
+            int channelIdSize = in.readInt();
+            String channelId = in.toString(in.readerIndex(), channelIdSize, StandardCharsets.UTF_8);
+            in.skipBytes(channelIdSize);
+            ByteBuf data = in.readSlice(in.readInt());
+            if (channelId.equals(HAConstants.CHANNEL_ID_CONTROL_MESSAGE)) {
+                byte[] bytes = new byte[data.readableBytes()];
+                data.readBytes(bytes);
+                eventListMapManager.parseControlMessage(bytes);
+            } else if (channelId.equals(HAConstants.CHANNEL_ID_MESSAGE)) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Received a event message");
+                }
+                eventListMapManager.parseMessage(data);
+            } else if (channelId.equals(HAConstants.CHANNEL_ID_SCHEMA_MESSAGE)) {
+                eventListMapManager.parseSchemaMessage(data);
+            }
+        } catch (UnsupportedEncodingException e) {
+            log.warn("Error when converting bytes " + e.getMessage(), e);
+        } catch (Throwable t) {
+            log.error("Error occurred while processing the message from the active node " + t.getMessage(), t);
+        } finally {
+            messageDecoder.onMessageProcessed(ctx);
+        }
+    }
+}
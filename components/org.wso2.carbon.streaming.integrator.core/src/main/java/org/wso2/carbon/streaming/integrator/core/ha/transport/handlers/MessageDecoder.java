@@ -25,24 +25,42 @@ import org.apache.log4j.Logger;
 import org.wso2.carbon.streaming.integrator.core.ha.util.HAConstants;
 import org.wso2.carbon.streaming.integrator.core.util.BinaryMessageConverterUtil;
 
-import java.nio.ByteBuffer;
 import java.util.Date;
 import java.util.List;
-import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Byte to message decoder.
+ * Byte to message decoder. Each complete message is passed on as a retained slice of the cumulated buffer, so the
+ * message bytes are not copied out of the pooled buffer of the channel. Reading from the channel is paused while the
+ * messages of the channel waiting to be processed exceed the configured limit.
  */
 public class MessageDecoder extends ByteToMessageDecoder {
-    private BlockingQueue<ByteBuffer> byteBufferQueue;
+    private AtomicInteger pendingMessageCount;
+    private AtomicInteger channelPendingMessageCount = new AtomicInteger();
+    private int maxPendingMessages;
     private static long startTime;
     private static long endTime;
     private static int count = 0;
     private static final int TPS_EVENT_BATCH_THRESHOLD = 10000;
     private static final Logger log = Logger.getLogger(MessageDecoder.class);
 
-    public MessageDecoder(BlockingQueue<ByteBuffer> byteBufferQueue) {
-        this.byteBufferQueue = byteBufferQueue;
+    public MessageDecoder(AtomicInteger pendingMessageCount, int maxPendingMessages) {
+        this.pendingMessageCount = pendingMessageCount;
+        this.maxPendingMessages = maxPendingMessages;
+    }
+
+    /**
+     * Called once a message passed on by this decoder is processed, resumes reading from the channel if it was
+     * paused.
+     *
+     * @param ctx channel handler context of the processed message
+     */
+    public void onMessageProcessed(ChannelHandlerContext ctx) {
+        pendingMessageCount.decrementAndGet();
+        if (channelPendingMessageCount.decrementAndGet() <= maxPendingMessages / 2 &&
+                !ctx.channel().config().isAutoRead()) {
+            ctx.channel().config().setAutoRead(true);
+        }
     }
 
     @Override
@@ -50,21 +68,18 @@ public class MessageDecoder extends ByteToMessageDecoder {
         if (in.readableBytes() < 5) {
             return;
         }
+        in.markReaderIndex();
         int protocol = in.readByte();
         int messageSize = in.readInt();
         if (protocol != 2 || messageSize > in.readableBytes()) {
             in.resetReaderIndex();
             return;
         }
-        byte[] bytes = new byte[messageSize];
-        in.readBytes(bytes);
-        in.markReaderIndex();
-        in.resetReaderIndex();
-        try {
-            byteBufferQueue.put(ByteBuffer.wrap(bytes));
-        } catch (InterruptedException e) {
-            log.error("Error while waiting for the insertion of ByteBufferQueue " + e.getMessage(), e);
+        pendingMessageCount.incrementAndGet();
+        if (channelPendingMessageCount.incrementAndGet() >= maxPendingMessages) {
+            ctx.channel().config().setAutoRead(false);
         }
+        out.add(in.readRetainedSlice(messageSize));
         if (log.isDebugEnabled()) {
             synchronized (this) {
                 if (startTime == 0L) {
@@ -79,6 +94,5 @@ public class MessageDecoder extends ByteToMessageDecoder {
                 }
             }
         }
-        in.markReaderIndex();
     }
 }
@@ -32,16 +32,18 @@ public class MessageEncoder extends MessageToByteEncoder<EventComposite> {
     protected void encode(ChannelHandlerContext channelHandlerContext, EventComposite eventComposite,
                           ByteBuf byteBuf) throws Exception {
         String streamId = eventComposite.getChannelId();
-        int dataLength = eventComposite.getMessage().length;
+        byte[] message = eventComposite.getMessage();
+        int dataLength = message.length;
 
         int messageSize = 4 + streamId.length() + 4 + dataLength;
 
+        byteBuf.ensureWritable(1 + 4 + messageSize);
         byteBuf.writeByte((byte) 2);  //1
         byteBuf.writeInt(messageSize); //4
         byteBuf.writeInt(streamId.length()); //4
         byteBuf.writeBytes(streamId.getBytes("UTF-8"));
         byteBuf.writeInt(dataLength); //4
-        byteBuf.writeBytes(eventComposite.getMessage());
+        byteBuf.writeBytes(message);
     }
 
 }
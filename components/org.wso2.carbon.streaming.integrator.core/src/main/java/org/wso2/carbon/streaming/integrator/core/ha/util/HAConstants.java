@@ -22,6 +22,11 @@ public class HAConstants {
     public static final int EVENT_BUFFER_EXTRACTOR_THREAD_POOL_SIZE = 5;
     public static final String CHANNEL_ID_MESSAGE = "eventMessage";
     public static final String CHANNEL_ID_CONTROL_MESSAGE = "controlMessage";
+    public static final String CHANNEL_ID_SCHEMA_MESSAGE = "schemaMessage";
+    public static final byte EVENT_SYNC_PROTOCOL_VERSION = 1;
+    public static final int MAX_PENDING_EVENT_MESSAGES = 1024;
+    public static final String EVENT_SYNC_QUEUE_FULL_POLICY_BLOCK = "block";
+    public static final String EVENT_SYNC_QUEUE_FULL_POLICY_DROP = "drop";
     public static final String PERSISTED_APP_SPLIT_DELIMITER = "__";
     public static final int PROTOCOL_AND_MESSAGE_BYTE_LENGTH = 5;
     public static final String DEFAULT_CHARSET = "UTF-8";
@@ -79,20 +79,32 @@ public class CarbonEventStreamService implements EventStreamService {
 
     @Override
     public void pushEvent(String siddhiAppName, String streamName, Event event) {
-
-        Map<String, SiddhiAppData> siddhiAppMap = StreamProcessorDataHolder.getStreamProcessorService().
-                getSiddhiAppMap();
-        Map<String, InputHandler> inputHandlerMap = siddhiAppMap.get(siddhiAppName).getInputHandlerMap();
-        if (inputHandlerMap != null) {
-            InputHandler inputHandler = inputHandlerMap.get(streamName);
+        InputHandler inputHandler = getInputHandler(siddhiAppName, streamName);
+        if (inputHandler != null) {
             try {
                 inputHandler.send(event);
             } catch (InterruptedException e) {
                 log.error("Error when pushing events to Siddhi engine ", e);
             }
         }
-
     }
 
+    @Override
+    public void pushEvents(String siddhiAppName, String streamName, Event[] events) {
+        InputHandler inputHandler = getInputHandler(siddhiAppName, streamName);
+        if (inputHandler != null) {
+            try {
+                inputHandler.send(events);
+            } catch (InterruptedException e) {
+                log.error("Error when pushing events to Siddhi engine ", e);
+            }
+        }
+    }
 
+    private InputHandler getInputHandler(String siddhiAppName, String streamName) {
+        Map<String, SiddhiAppData> siddhiAppMap = StreamProcessorDataHolder.getStreamProcessorService().
+                getSiddhiAppMap();
+        Map<String, InputHandler> inputHandlerMap = siddhiAppMap.get(siddhiAppName).getInputHandlerMap();
+        return inputHandlerMap == null ? null : inputHandlerMap.get(streamName);
+    }
 }
@@ -69,6 +69,7 @@ import org.wso2.carbon.streaming.integrator.core.siddhi.error.handler.exception.
 import org.wso2.carbon.streaming.integrator.core.siddhi.error.handler.util.SiddhiErrorHandlerConstants;
 
 import java.io.File;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -114,6 +115,8 @@ public class ServiceComponent {
         SiddhiManager siddhiManager = new SiddhiManager();
         FileConfigManager fileConfigManager = new FileConfigManager(configProvider);
         siddhiManager.setConfigManager(fileConfigManager);
+        SiddhiManager standbySiddhiManager = new SiddhiManager();
+        standbySiddhiManager.setConfigManager(fileConfigManager);
         PersistenceConfigurations persistenceConfigurations = configProvider.getConfigurationObject
                 (PersistenceConfigurations.class);
 
@@ -126,6 +129,7 @@ public class ServiceComponent {
                     persistenceStore.setProperties((Map) configProvider.getConfigurationObject(PersistenceConstants.
                             STATE_PERSISTENCE_NS));
                     siddhiManager.setPersistenceStore(persistenceStore);
+                    standbySiddhiManager.setPersistenceStore(persistenceStore);
                 } else if (Class.forName(persistenceStoreClassName).newInstance()
                         instanceof IncrementalPersistenceStore) {
                     IncrementalPersistenceStore incrementalPersistenceStore =
@@ -133,6 +137,7 @@ public class ServiceComponent {
                     incrementalPersistenceStore.setProperties(
                             (Map) configProvider.getConfigurationObject(PersistenceConstants.STATE_PERSISTENCE_NS));
                     siddhiManager.setIncrementalPersistenceStore(incrementalPersistenceStore);
+                    standbySiddhiManager.setIncrementalPersistenceStore(incrementalPersistenceStore);
                 } else {
                     throw new PersistenceStoreConfigurationException("Persistence Store class with name "
                             + persistenceStoreClassName + " is invalid. The given class has to implement either " +
@@ -155,6 +160,7 @@ public class ServiceComponent {
                         persistenceInterval, persistenceInterval, TimeUnit.MINUTES);
             }
             StreamProcessorDataHolder.setIsPersistenceEnabled(true);
+            StreamProcessorDataHolder.setPersistenceConfigurations(persistenceConfigurations);
             log.info("Periodic state persistence started with an interval of " + String.valueOf(persistenceInterval) +
                     " using " + persistenceStoreClassName);
         } else {
@@ -173,6 +179,7 @@ public class ServiceComponent {
                 errorStore.setProperties((Map) configProvider.getConfigurationObject(
                     SiddhiErrorHandlerConstants.ERROR_STORE_NS));
                 siddhiManager.setErrorStore(errorStore);
+                standbySiddhiManager.setErrorStore(errorStore);
                 notifyErrorStoreInitialization(errorStore);
             } else {
                 throw new ErrorStoreConfigurationException("Error Store with name " + errorStoreClassName +
@@ -182,7 +189,9 @@ public class ServiceComponent {
 
         StatisticsConfiguration statisticsConfiguration = new StatisticsConfiguration(new MetricsFactory());
         siddhiManager.setStatisticsConfiguration(statisticsConfiguration);
+        standbySiddhiManager.setStatisticsConfiguration(statisticsConfiguration);
         StreamProcessorDataHolder.setSiddhiManager(siddhiManager);
+        StreamProcessorDataHolder.setStandbySiddhiManager(standbySiddhiManager);
         StreamProcessorDataHolder.setStatisticsConfiguration(statisticsConfiguration);
 
         File siddhiAppFileReference;
@@ -203,13 +212,11 @@ public class ServiceComponent {
                 if (siddhiAppFileReference.isDirectory()) {
                     File[] siddhiAppFileArray = siddhiAppFileReference.listFiles();
                     if (siddhiAppFileArray != null) {
-                        for (File siddhiApp : siddhiAppFileArray) {
-                            try {
-                                StreamProcessorDeployer.deploySiddhiQLFile(siddhiApp);
-                            } catch (Exception e) {
-                                log.error("Exception occurred when deploying the Siddhi App: " + siddhiApp.getName(), e);
-                            }
-                        }
+                        int deploymentThreadPoolSize = Integer.getInteger(
+                                SiddhiAppProcessorConstants.SYSTEM_PROP_DEPLOYMENT_THREAD_POOL_SIZE,
+                                Runtime.getRuntime().availableProcessors());
+                        new SiddhiAppDeploymentPlanner(deploymentThreadPoolSize)
+                                .deploy(Arrays.asList(siddhiAppFileArray));
                     }
                 } else {
                     try {
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.internal;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.siddhi.core.util.SiddhiConstants;
+import io.siddhi.query.api.SiddhiApp;
+import io.siddhi.query.api.annotation.Annotation;
+import io.siddhi.query.api.definition.AbstractDefinition;
+import io.siddhi.query.api.util.AnnotationHelper;
+import io.siddhi.query.compiler.SiddhiCompiler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.streaming.integrator.core.internal.util.SiddhiAppProcessorConstants;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Deploys the Siddhi apps found at server startup concurrently. All the apps are parsed up front, and the apps
+ * defining tables or aggregations on the same store are grouped to be deployed one after the other in the given
+ * order, while the groups are deployed concurrently on a bounded pool. The sources of the apps are started only once
+ * all the apps are deployed, hence no app receives events before the apps it exchanges events with are ready.
+ */
+public class SiddhiAppDeploymentPlanner {
+    private static final Logger log = LoggerFactory.getLogger(SiddhiAppDeploymentPlanner.class);
+    private static final String[] STORE_TABLE_NAME_ELEMENTS = {"table.name", "collection.name"};
+    private final int threadPoolSize;
+
+    public SiddhiAppDeploymentPlanner(int threadPoolSize) {
+        this.threadPoolSize = Math.max(1, threadPoolSize);
+    }
+
+    /**
+     * Deploys the Siddhi apps in the given files and then starts their sources.
+     *
+     * @param siddhiAppFiles Siddhi app files in the order to be deployed
+     */
+    public void deploy(List<File> siddhiAppFiles) {
+        long startTime = System.currentTimeMillis();
+        List<List<File>> deploymentGroups = plan(siddhiAppFiles);
+        List<String> deployedSiddhiAppNames = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService deploymentExecutorService = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(threadPoolSize, deploymentGroups.size())),
+                new ThreadFactoryBuilder().setNameFormat("SiddhiAppDeployment-%d").build());
+        try {
+            List<Future<?>> deploymentFutures = new ArrayList<>(deploymentGroups.size());
+            for (List<File> deploymentGroup : deploymentGroups) {
+                deploymentFutures.add(deploymentExecutorService.submit(() -> {
+                    for (File siddhiAppFile : deploymentGroup) {
+                        deploy(siddhiAppFile, deployedSiddhiAppNames);
+                    }
+                }));
+            }
+            for (Future<?> deploymentFuture : deploymentFutures) {
+                deploymentFuture.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted while deploying the Siddhi apps, hence starting the sources of the Siddhi apps " +
+                    "deployed so far.", e);
+        } catch (ExecutionException e) {
+            log.error("Error in deploying the Siddhi apps.", e.getCause());
+        } finally {
+            deploymentExecutorService.shutdown();
+        }
+        StreamProcessorDataHolder.getStreamProcessorService().startSources(new ArrayList<>(deployedSiddhiAppNames));
+        log.info("Deployed " + deployedSiddhiAppNames.size() + " of " + siddhiAppFiles.size() + " Siddhi apps in " +
+                (System.currentTimeMillis() - startTime) + " ms");
+    }
+
+    private void deploy(File siddhiAppFile, List<String> deployedSiddhiAppNames) {
+        try {
+            String siddhiAppName = StreamProcessorDeployer.deploySiddhiQLFile(siddhiAppFile, false);
+            if (siddhiAppName != null) {
+                deployedSiddhiAppNames.add(siddhiAppName);
+            }
+        } catch (Exception e) {
+            log.error("Exception occurred when deploying the Siddhi App: " + siddhiAppFile.getName(), e);
+        }
+    }
+
+    /**
+     * Groups the Siddhi app files, such that the apps sharing a store are in the same group. Each group keeps the
+     * given order of its apps, and the groups are ordered largest first so that the longest ones start early.
+     *
+     * @param siddhiAppFiles Siddhi app files in the order to be deployed
+     * @return groups of Siddhi app files which can be deployed concurrently
+     */
+    public static List<List<File>> plan(List<File> siddhiAppFiles) {
+        int[] groupIds = new int[siddhiAppFiles.size()];
+        Map<String, Integer> storeOwners = new HashMap<>();
+        for (int i = 0; i < siddhiAppFiles.size(); i++) {
+            groupIds[i] = i;
+            for (String storeKey : getStoreKeys(siddhiAppFiles.get(i))) {
+                Integer owner = storeOwners.putIfAbsent(storeKey, i);
+                if (owner != null) {
+                    union(groupIds, owner, i);
+                }
+            }
+        }
+        Map<Integer, List<File>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < siddhiAppFiles.size(); i++) {
+            groups.computeIfAbsent(find(groupIds, i), key -> new ArrayList<>()).add(siddhiAppFiles.get(i));
+        }
+        List<List<File>> deploymentGroups = new ArrayList<>(groups.values());
+        deploymentGroups.sort((group1, group2) -> Integer.compare(group2.size(), group1.size()));
+        return deploymentGroups;
+    }
+
+    /**
+     * Identifies the stores backing the tables and aggregations of the Siddhi app, by the store type, or the
+     * referred store configuration, and the table name. The apps which cannot be read or parsed share no stores,
+     * their errors are reported when they are deployed.
+     */
+    private static Set<String> getStoreKeys(File siddhiAppFile) {
+        Set<String> storeKeys = new LinkedHashSet<>();
+        if (!siddhiAppFile.isFile() ||
+                !siddhiAppFile.getName().endsWith(SiddhiAppProcessorConstants.SIDDHI_APP_FILE_EXTENSION)) {
+            return storeKeys;
+        }
+        SiddhiApp siddhiApp;
+        try {
+            siddhiApp = SiddhiCompiler.parse(new String(Files.readAllBytes(siddhiAppFile.toPath()),
+                    StandardCharsets.UTF_8));
+        } catch (IOException | RuntimeException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Siddhi App file " + siddhiAppFile.getName() + " cannot be parsed to find its stores. " +
+                        e.getMessage());
+            }
+            return storeKeys;
+        }
+        List<AbstractDefinition> definitions = new ArrayList<>(siddhiApp.getTableDefinitionMap().values());
+        definitions.addAll(siddhiApp.getAggregationDefinitionMap().values());
+        for (AbstractDefinition definition : definitions) {
+            Annotation storeAnnotation = AnnotationHelper.getAnnotation(SiddhiConstants.ANNOTATION_STORE,
+                    definition.getAnnotations());
+            if (storeAnnotation == null) {
+                // in-memory tables are private to the app
+                continue;
+            }
+            String store = storeAnnotation.getElement(SiddhiConstants.ANNOTATION_ELEMENT_TYPE);
+            if (store == null) {
+                store = SiddhiConstants.ANNOTATION_ELEMENT_REF + ":" +
+                        storeAnnotation.getElement(SiddhiConstants.ANNOTATION_ELEMENT_REF);
+            }
+            String tableName = definition.getId();
+            for (String tableNameElement : STORE_TABLE_NAME_ELEMENTS) {
+                if (storeAnnotation.getElement(tableNameElement) != null) {
+                    tableName = storeAnnotation.getElement(tableNameElement);
+                    break;
+                }
+            }
+            storeKeys.add((store + "/" + tableName).toLowerCase(Locale.ENGLISH));
+        }
+        return storeKeys;
+    }
+
+    private static int find(int[] groupIds, int i) {
+        while (groupIds[i] != i) {
+            groupIds[i] = groupIds[groupIds[i]];
+            i = groupIds[i];
+        }
+        return i;
+    }
+
+    private static void union(int[] groupIds, int i, int j) {
+        int groupI = find(groupIds, i);
+        int groupJ = find(groupIds, j);
+        // the earliest app identifies the group, keeping the groups in the given order
+        if (groupI < groupJ) {
+            groupIds[groupJ] = groupI;
+        } else if (groupJ < groupI) {
+            groupIds[groupI] = groupJ;
+        }
+    }
+}
@@ -38,6 +38,7 @@ import org.wso2.carbon.streaming.integrator.common.SiddhiAppDeploymentListener;
 import org.wso2.carbon.streaming.integrator.core.NodeInfo;
 import org.wso2.carbon.streaming.integrator.core.ha.HAManager;
 import org.wso2.carbon.streaming.integrator.core.internal.beans.DeploymentConfig;
+import org.wso2.carbon.streaming.integrator.core.persistence.beans.PersistenceConfigurations;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -49,6 +50,7 @@ public class StreamProcessorDataHolder {
 
     private static StreamProcessorDataHolder instance = new StreamProcessorDataHolder();
     private static SiddhiManager siddhiManager;
+    private static SiddhiManager standbySiddhiManager;
     private static StreamProcessorService streamProcessorService;
     private static DataSourceService dataSourceService;
     private static boolean isPersistenceEnabled;
@@ -57,6 +59,7 @@ public class StreamProcessorDataHolder {
     private static SourceHandlerManager sourceHandlerManager;
     private static HAManager haManager;
     private static DeploymentConfig deploymentConfig;
+    private static PersistenceConfigurations persistenceConfigurations;
     private static NodeInfo nodeInfo;
     private static RecordTableHandlerManager recordTableHandlerManager;
     private static PermissionProvider permissionProvider;
@@ -106,6 +109,18 @@ public class StreamProcessorDataHolder {
         StreamProcessorDataHolder.siddhiManager = siddhiManager;
     }
 
+    /**
+     * @return Siddhi manager creating the standby runtimes of the passive node, which are kept apart from the
+     * runtimes of the Siddhi manager till they are promoted
+     */
+    public static SiddhiManager getStandbySiddhiManager() {
+        return standbySiddhiManager;
+    }
+
+    public static void setStandbySiddhiManager(SiddhiManager standbySiddhiManager) {
+        StreamProcessorDataHolder.standbySiddhiManager = standbySiddhiManager;
+    }
+
     public static StreamProcessorService getStreamProcessorService() {
         return streamProcessorService;
     }
@@ -170,6 +185,14 @@ public class StreamProcessorDataHolder {
         StreamProcessorDataHolder.deploymentConfig = deploymentConfig;
     }
 
+    public static PersistenceConfigurations getPersistenceConfigurations() {
+        return StreamProcessorDataHolder.persistenceConfigurations;
+    }
+
+    public static void setPersistenceConfigurations(PersistenceConfigurations persistenceConfigurations) {
+        StreamProcessorDataHolder.persistenceConfigurations = persistenceConfigurations;
+    }
+
     public static NodeInfo getNodeInfo() {
         return StreamProcessorDataHolder.nodeInfo;
     }
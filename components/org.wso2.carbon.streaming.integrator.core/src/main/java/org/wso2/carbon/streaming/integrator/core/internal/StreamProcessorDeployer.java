@@ -80,8 +80,20 @@ public class StreamProcessorDeployer implements Deployer {
 
 
     public static void deploySiddhiQLFile(File file) throws Exception {
+        deploySiddhiQLFile(file, true);
+    }
+
+    /**
+     * Deploys the Siddhi app in the given file.
+     *
+     * @param file         Siddhi app file
+     * @param startSources whether to start the sources of the app once it is deployed
+     * @return name of the deployed Siddhi app, or null if the file is not deployed
+     * @throws Exception if the Siddhi app cannot be deployed
+     */
+    public static String deploySiddhiQLFile(File file, boolean startSources) throws Exception {
         InputStream inputStream = null;
-        String siddhiAppName;
+        String siddhiAppName = null;
 
         try {
             if (file.isFile()) {
@@ -91,7 +103,7 @@ public class StreamProcessorDeployer implements Deployer {
                     String siddhiAppFileNameWithoutExtension = getFileNameWithoutExtenson(siddhiAppFileName);
                     SiddhiAppType siddhiAppType = getArtifactType(siddhiAppFileNameWithoutExtension);
                     if (!isDeploymentAllowed(siddhiAppType)) {
-                        return;
+                        return null;
                     }
                     String siddhiApp = getStringFromInputStream(inputStream);
                     try {
@@ -100,7 +112,7 @@ public class StreamProcessorDeployer implements Deployer {
                         if (siddhiAppFileNameWithoutExtension.equals(siddhiAppName)) {
                             broadcastBeforeSiddhiAppDeployment(siddhiAppName, siddhiApp);
                             StreamProcessorDataHolder.getStreamProcessorService().deploySiddhiApp(siddhiApp,
-                                    siddhiAppName);
+                                    siddhiAppName, startSources);
                             try {
                                 ConfigProvider configProvider = StreamProcessorDataHolder.getInstance().getConfigProvider();
                                 AsyncAPIServiceCatalogueConfigs asyncAPIServiceCatalogueConfigs =
@@ -148,6 +160,7 @@ public class StreamProcessorDeployer implements Deployer {
                 }
             }
         }
+        return siddhiAppName;
     }
 
     private static String getStringFromInputStream(InputStream is) throws SiddhiAppDeploymentException {
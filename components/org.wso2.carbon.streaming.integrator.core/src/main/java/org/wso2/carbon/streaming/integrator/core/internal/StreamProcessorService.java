@@ -36,6 +36,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.carbon.config.ConfigurationException;
 import org.wso2.carbon.config.provider.ConfigProvider;
+import org.wso2.carbon.streaming.integrator.core.event.queue.EventListMapManager;
 import org.wso2.carbon.streaming.integrator.core.ha.HACoordinationRecordTableHandler;
 import org.wso2.carbon.streaming.integrator.core.ha.HACoordinationSinkHandler;
 import org.wso2.carbon.streaming.integrator.core.ha.HACoordinationSourceHandler;
@@ -47,6 +48,7 @@ import org.wso2.carbon.streaming.integrator.core.internal.exception.SiddhiAppCon
 import org.wso2.carbon.streaming.integrator.core.internal.exception.SiddhiAppDeploymentException;
 import org.wso2.carbon.streaming.integrator.core.internal.util.SiddhiAppFilesystemInvoker;
 import org.wso2.carbon.streaming.integrator.core.internal.util.SiddhiAppProcessorConstants;
+import org.wso2.carbon.streaming.integrator.core.persistence.PersistenceManager;
 import org.wso2.carbon.streaming.integrator.core.persistence.beans.AsyncAPIServiceCatalogueConfigs;
 
 import java.util.Collection;
@@ -72,6 +74,19 @@ public class StreamProcessorService {
 
     public void deploySiddhiApp(String siddhiAppContent, String siddhiAppName) throws SiddhiAppConfigurationException,
             SiddhiAppAlreadyExistException, ConnectionUnavailableException {
+        deploySiddhiApp(siddhiAppContent, siddhiAppName, true);
+    }
+
+    /**
+     * Deploys the Siddhi app, restoring its last persisted state.
+     *
+     * @param siddhiAppContent content of the Siddhi app
+     * @param siddhiAppName    name of the Siddhi app
+     * @param startSources     whether to start the sources of the app, else they need to be started later through
+     *                         {@link #startSources(Collection)}
+     */
+    public void deploySiddhiApp(String siddhiAppContent, String siddhiAppName, boolean startSources)
+            throws SiddhiAppConfigurationException, SiddhiAppAlreadyExistException, ConnectionUnavailableException {
 
         SiddhiAppData siddhiAppData = new SiddhiAppData(siddhiAppContent);
         boolean persistenceStoreClearEnabled = Boolean.valueOf
@@ -120,7 +135,7 @@ public class StreamProcessorService {
                                         "for " + siddhiAppName);
                         String revision = null;
                         try {
-                            revision = siddhiAppRuntime.restoreLastRevision();
+                            revision = PersistenceManager.restoreLastRevision(siddhiAppRuntime);
                         } catch (CannotRestoreSiddhiAppStateException e) {
                             log.error("Error in restoring Siddhi app " + siddhiAppRuntime.getName(), e);
                         }
@@ -177,7 +192,7 @@ public class StreamProcessorService {
                 siddhiAppData.setInputHandlerMap(inputHandlerMap);
                 siddhiAppData.setDeploymentTime(System.currentTimeMillis());
                 siddhiAppMap.put(siddhiAppName, siddhiAppData);
-                siddhiAppRuntime.start();
+                startSiddhiAppRuntime(siddhiAppRuntime, startSources);
                 log.info("Siddhi App " + siddhiAppName + " deployed successfully");
 
             } else {
@@ -209,7 +224,7 @@ public class StreamProcessorService {
 
                 } else {
                     try {
-                        revision = siddhiAppRuntime.restoreLastRevision();
+                        revision = PersistenceManager.restoreLastRevision(siddhiAppRuntime);
                     } catch (CannotRestoreSiddhiAppStateException e) {
                         log.error("Error in restoring Siddhi app " + siddhiAppRuntime.getName(), e);
                     }
@@ -218,7 +233,7 @@ public class StreamProcessorService {
                     }
                 }
             }
-            siddhiAppRuntime.start();
+            startSiddhiAppRuntime(siddhiAppRuntime, startSources);
             log.info("Siddhi App " + siddhiAppName + " deployed successfully");
             siddhiAppData.setActive(true);
             siddhiAppData.setSiddhiAppRuntime(siddhiAppRuntime);
@@ -229,12 +244,44 @@ public class StreamProcessorService {
 
     }
 
+    /**
+     * Starts the sources of the Siddhi apps deployed without starting their sources.
+     *
+     * @param siddhiAppNames names of the Siddhi apps
+     */
+    public void startSources(Collection<String> siddhiAppNames) {
+        for (String siddhiAppName : siddhiAppNames) {
+            SiddhiAppData siddhiAppData = siddhiAppMap.get(siddhiAppName);
+            if (siddhiAppData == null || !siddhiAppData.isActive() || siddhiAppData.getSiddhiAppRuntime() == null) {
+                continue;
+            }
+            try {
+                siddhiAppData.getSiddhiAppRuntime().startSources();
+            } catch (Throwable e) {
+                log.error("Error in starting the sources of Siddhi App " + siddhiAppName, e);
+            }
+        }
+    }
+
+    private void startSiddhiAppRuntime(SiddhiAppRuntime siddhiAppRuntime, boolean startSources) {
+        if (startSources) {
+            siddhiAppRuntime.start();
+        } else {
+            siddhiAppRuntime.startWithoutSources();
+        }
+    }
+
     public void undeploySiddhiApp(String siddhiAppName) {
         if (siddhiAppMap.containsKey(siddhiAppName)) {
             SiddhiAppData siddhiAppData = siddhiAppMap.get(siddhiAppName);
             if (siddhiAppData != null) {
                 if (siddhiAppData.isActive()) {
                     siddhiAppData.getSiddhiAppRuntime().shutdown();
+                    // promoted standby runtimes only remove themselves from the map of the standby Siddhi manager
+                    StreamProcessorDataHolder.getSiddhiManager().getSiddhiAppRuntimeMap().remove(siddhiAppName,
+                            siddhiAppData.getSiddhiAppRuntime());
+                } else {
+                    EventListMapManager.discardStandbyRuntime(siddhiAppName);
                 }
             }
             try {
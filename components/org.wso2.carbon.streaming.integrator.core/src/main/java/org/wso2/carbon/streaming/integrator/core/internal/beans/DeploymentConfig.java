@@ -37,6 +37,33 @@ public class DeploymentConfig {
     private EventSyncClientPoolConfig eventSyncClientPool = new EventSyncClientPoolConfig();
     @Element(description = "Pool of threads to retrieve bytes from byte buffer queue", required = false)
     private int byteBufferExtractorThreadPoolSize = 5;
+    @Element(description = "Capacity of the queue holding the events to be synced to the passive node",
+            required = false)
+    private int eventSyncQueueCapacity = 65536;
+    @Element(description = "Action when the event sync queue is full, 'block' waits for space and 'drop' drops " +
+            "the event", required = false)
+    private String eventSyncQueueFullPolicy = "block";
+    @Element(description = "Maximum size in bytes of an event batch synced to the passive node", required = false)
+    private int eventSyncBatchMaxBytes = 65536;
+    @Element(description = "Maximum time in milliseconds an event waits for its batch to be synced to the passive " +
+            "node, 0 sends each event without waiting", required = false)
+    private long eventSyncBatchMaxLingerMillis = 5;
+    @Element(description = "Maximum heap in bytes used by the passive node to buffer the synced events, older " +
+            "events are spilled to disk beyond it, 0 keeps all the events in heap", required = false)
+    private long passiveEventBufferMaxBytes = 0;
+    @Element(description = "Directory to spill the buffered events of the passive node", required = false)
+    private String passiveEventBufferSpillDirectory = "ha-event-buffer";
+    @Element(description = "Pool of threads replaying the buffered events of the Siddhi apps concurrently when the " +
+            "passive node becomes active", required = false)
+    private int failoverReplayThreadPoolSize = 4;
+    @Element(description = "Enables the passive node to apply the checkpoints of the active node to standby Siddhi " +
+            "app runtimes as they are announced, so that only the events since the latest checkpoint are replayed " +
+            "when it becomes active", required = false)
+    private boolean warmStandbyEnabled = false;
+    @Element(description = "Maximum time in milliseconds the passive node waits for the messages received from the " +
+            "active node to be processed when it becomes active, after which it becomes active without them",
+            required = false)
+    private long pendingMessageProcessingTimeoutMillis = 60000;
 
     public String getType() {
         return type;
@@ -78,6 +105,78 @@ public class DeploymentConfig {
         this.byteBufferExtractorThreadPoolSize = byteBufferExtractorThreadPoolSize;
     }
 
+    public int getEventSyncQueueCapacity() {
+        return eventSyncQueueCapacity;
+    }
+
+    public void setEventSyncQueueCapacity(int eventSyncQueueCapacity) {
+        this.eventSyncQueueCapacity = eventSyncQueueCapacity;
+    }
+
+    public String getEventSyncQueueFullPolicy() {
+        return eventSyncQueueFullPolicy;
+    }
+
+    public void setEventSyncQueueFullPolicy(String eventSyncQueueFullPolicy) {
+        this.eventSyncQueueFullPolicy = eventSyncQueueFullPolicy;
+    }
+
+    public int getEventSyncBatchMaxBytes() {
+        return eventSyncBatchMaxBytes;
+    }
+
+    public void setEventSyncBatchMaxBytes(int eventSyncBatchMaxBytes) {
+        this.eventSyncBatchMaxBytes = eventSyncBatchMaxBytes;
+    }
+
+    public long getEventSyncBatchMaxLingerMillis() {
+        return eventSyncBatchMaxLingerMillis;
+    }
+
+    public void setEventSyncBatchMaxLingerMillis(long eventSyncBatchMaxLingerMillis) {
+        this.eventSyncBatchMaxLingerMillis = eventSyncBatchMaxLingerMillis;
+    }
+
+    public long getPassiveEventBufferMaxBytes() {
+        return passiveEventBufferMaxBytes;
+    }
+
+    public void setPassiveEventBufferMaxBytes(long passiveEventBufferMaxBytes) {
+        this.passiveEventBufferMaxBytes = passiveEventBufferMaxBytes;
+    }
+
+    public String getPassiveEventBufferSpillDirectory() {
+        return passiveEventBufferSpillDirectory;
+    }
+
+    public void setPassiveEventBufferSpillDirectory(String passiveEventBufferSpillDirectory) {
+        this.passiveEventBufferSpillDirectory = passiveEventBufferSpillDirectory;
+    }
+
+    public int getFailoverReplayThreadPoolSize() {
+        return failoverReplayThreadPoolSize;
+    }
+
+    public void setFailoverReplayThreadPoolSize(int failoverReplayThreadPoolSize) {
+        this.failoverReplayThreadPoolSize = failoverReplayThreadPoolSize;
+    }
+
+    public boolean isWarmStandbyEnabled() {
+        return warmStandbyEnabled;
+    }
+
+    public void setWarmStandbyEnabled(boolean warmStandbyEnabled) {
+        this.warmStandbyEnabled = warmStandbyEnabled;
+    }
+
+    public long getPendingMessageProcessingTimeoutMillis() {
+        return pendingMessageProcessingTimeoutMillis;
+    }
+
+    public void setPendingMessageProcessingTimeoutMillis(long pendingMessageProcessingTimeoutMillis) {
+        this.pendingMessageProcessingTimeoutMillis = pendingMessageProcessingTimeoutMillis;
+    }
+
     public long getPassiveNodeDetailsWaitTimeOutMillis() {
 
         return passiveNodeDetailsWaitTimeOutMillis;
@@ -54,10 +54,18 @@ public class SiddhiAppProcessorConstants {
     public static final String PERSISTENCE_STORE_CLEAR_ENABLED = "persistenceStoreClearEnabled";
     public static final String SIDDHI_APP = "siddhiApp";
     public static final String SYSTEM_PROP_RUN_SIDDHI_APPS = "apps";
+    public static final String SYSTEM_PROP_DEPLOYMENT_THREAD_POOL_SIZE = "deploymentThreadPoolSize";
 
     public static final String HA_METRICS_PREFIX = "org.wso2.ha";
     public static final String HA_METRICS_SENDING_THROUGHPUT = "sending.throughput";
     public static final String HA_METRICS_RECEIVING_THROUGHPUT = "receiving.throughput";
+    public static final String HA_METRICS_REPLAY_THROUGHPUT = "replay.throughput";
+    public static final String HA_METRICS_REPLAY_LATENCY = "replay.latency";
+    public static final String HA_METRICS_STANDBY_LAG_EVENTS = "standby.lag.events";
+    public static final String HA_METRICS_STANDBY_LAG_MILLIS = "standby.lag.ms";
+    public static final String PERSISTENCE_METRICS_PREFIX = "org.wso2.persistence";
+    public static final String PERSISTENCE_METRICS_LATENCY = "latency";
+    public static final String PERSISTENCE_METRICS_RESTORE_LATENCY = "restore.latency";
     public static final int SIDDHI_APP_REDEPLOY_RETRY_COUNT = 5;
     public static final long SIDDHI_APP_REDEPLOY_SLEEP_TIMEOUT = 3000;
 
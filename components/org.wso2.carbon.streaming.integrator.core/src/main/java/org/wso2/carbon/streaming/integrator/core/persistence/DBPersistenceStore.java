@@ -21,8 +21,9 @@ package org.wso2.carbon.streaming.integrator.core.persistence;
 import com.zaxxer.hikari.HikariDataSource;
 import org.apache.log4j.Logger;
 import org.wso2.carbon.datasource.core.exception.DataSourceException;
-import org.wso2.carbon.streaming.integrator.core.ha.util.CompressionUtil;
 import org.wso2.carbon.streaming.integrator.core.internal.StreamProcessorDataHolder;
+import org.wso2.carbon.streaming.integrator.core.persistence.compression.SnapshotCodec;
+import org.wso2.carbon.streaming.integrator.core.persistence.compression.SnapshotCompression;
 import org.wso2.carbon.streaming.integrator.core.persistence.dto.RDBMSQueryConfigurationEntry;
 import org.wso2.carbon.streaming.integrator.core.persistence.exception.DatabaseUnsupportedException;
 import org.wso2.carbon.streaming.integrator.core.persistence.exception.DatasourceConfigurationException;
@@ -30,6 +31,7 @@ import org.wso2.carbon.streaming.integrator.core.persistence.util.DBPersistenceS
 import org.wso2.carbon.streaming.integrator.core.persistence.util.ExecutionInfo;
 import org.wso2.carbon.streaming.integrator.core.persistence.util.PersistenceConstants;
 import org.wso2.carbon.streaming.integrator.core.persistence.util.RDBMSConfiguration;
+import org.wso2.carbon.streaming.integrator.core.persistence.util.SnapshotBatchWriter;
 import io.siddhi.core.exception.CannotClearSiddhiAppStateException;
 import io.siddhi.core.util.persistence.PersistenceStore;
 
@@ -41,7 +43,10 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import javax.sql.DataSource;
 import javax.sql.rowset.serial.SerialBlob;
 
@@ -51,8 +56,8 @@ import javax.sql.rowset.serial.SerialBlob;
 public class DBPersistenceStore implements PersistenceStore {
 
     private static final Logger log = Logger.getLogger(DBPersistenceStore.class);
+    private SnapshotCodec snapshotCodec = SnapshotCompression.getCodec(null);
     private static final String MSSQL_DATABASE_TYPE = "microsoft sql server";
-    private static final String POSTGRES_DATABASE_TYPE = "postgresql";
 
     private ExecutionInfo executionInfo;
     private String datasourceName;
@@ -61,6 +66,8 @@ public class DBPersistenceStore implements PersistenceStore {
     private int numberOfRevisionsToKeep;
     private String databaseType;
     private String databaseVersion;
+    private int batchSize = PersistenceConstants.DEFAULT_DB_PERSISTENCE_BATCH_SIZE;
+    private SnapshotBatchWriter<PendingSnapshot> snapshotBatchWriter;
 
     @Override
     public void save(String siddhiAppName, String revision, byte[] snapshot) {
@@ -68,49 +75,57 @@ public class DBPersistenceStore implements PersistenceStore {
 
         byte[] compressedSnapshot;
         try {
-            compressedSnapshot = CompressionUtil.compressGZIP(snapshot);
+            compressedSnapshot = SnapshotCompression.compress(snapshotCodec, snapshot);
         } catch (IOException e) {
             log.error("Error occurred while trying to compress the snapshot. Failed to " +
                     "persist revision: " + revision + " of Siddhi app: " + siddhiAppName);
             return;
         }
-        Connection con = null;
-        PreparedStatement stmt = null;
         try {
-            try {
-                con = datasource.getConnection();
-            } catch (SQLException e) {
-                log.error("Cannot establish connection to datasource " + datasourceName +
-                        " while saving revision " + revision, e);
-                return;
-            }
-            con.setAutoCommit(false);
-            stmt = con.prepareStatement(executionInfo.getPreparedInsertStatement());
-            stmt.setString(1, siddhiAppName);
-            stmt.setString(2, revision);
-            if (databaseType.equals(POSTGRES_DATABASE_TYPE)) {
-                stmt.setBlob(3, new SerialBlob(compressedSnapshot));
-            } else {
-                Blob blob = con.createBlob();
-                blob.setBytes(1, compressedSnapshot);
-                stmt.setBlob(3, blob);
-            }
-            stmt.executeUpdate();
-            con.commit();
+            snapshotBatchWriter.write(new PendingSnapshot(siddhiAppName, revision, compressedSnapshot));
             if (log.isDebugEnabled()) {
                 log.debug("Periodic persistence of " + siddhiAppName + " persisted successfully.");
             }
         } catch (SQLException e) {
             log.error("Error while saving revision" + revision + " of the siddhiApp " +
                     siddhiAppName + " to the database with datasource name " + datasourceName, e);
+        }
+    }
+
+    /**
+     * Inserts the snapshots of the Siddhi apps persisted concurrently, and removes the revisions of those apps
+     * beyond the ones to keep, in a single transaction.
+     */
+    private void writeSnapshots(List<PendingSnapshot> pendingSnapshots) throws SQLException {
+        Connection con = datasource.getConnection();
+        try {
+            con.setAutoCommit(false);
+            Set<String> siddhiAppNames = new LinkedHashSet<>();
+            try (PreparedStatement stmt = con.prepareStatement(executionInfo.getPreparedInsertStatement())) {
+                for (PendingSnapshot pendingSnapshot : pendingSnapshots) {
+                    stmt.setString(1, pendingSnapshot.siddhiAppName);
+                    stmt.setString(2, pendingSnapshot.revision);
+                    DBPersistenceStoreUtils.setSnapshot(stmt, 3, pendingSnapshot.snapshot, databaseType);
+                    stmt.addBatch();
+                    siddhiAppNames.add(pendingSnapshot.siddhiAppName);
+                }
+                stmt.executeBatch();
+            }
+            for (String siddhiAppName : siddhiAppNames) {
+                cleanOldRevisions(con, siddhiAppName);
+            }
+            con.commit();
+        } catch (SQLException e) {
+            DBPersistenceStoreUtils.rollback(con);
+            throw e;
         } finally {
-            DBPersistenceStoreUtils.cleanupConnections(stmt, con);
+            cleanupConnections(null, con);
         }
-        cleanOldRevisions(siddhiAppName);
     }
 
     @Override
     public void setProperties(Map properties) {
+        snapshotCodec = SnapshotCompression.getCodec(properties);
         Map configurationMap = (Map) properties.get(PersistenceConstants.STATE_PERSISTENCE_CONFIGS);
         Object numberOfRevisionsObject = properties.get(PersistenceConstants.STATE_PERSISTENCE_REVISIONS_TO_KEEP);
         if (numberOfRevisionsObject == null || !(numberOfRevisionsObject instanceof Integer)) {
@@ -141,6 +156,7 @@ public class DBPersistenceStore implements PersistenceStore {
             } else {
                 tableName = String.valueOf(tableObject);
             }
+            batchSize = DBPersistenceStoreUtils.getBatchSize(configurationMap);
 
         } else {
             datasourceName = PersistenceConstants.DEFAULT_DB_PERSISTENCE_DATASOURCE;
@@ -170,6 +186,7 @@ public class DBPersistenceStore implements PersistenceStore {
         }
 
         initializeDatabaseExecutionInfo();
+        snapshotBatchWriter = new SnapshotBatchWriter<>(this::writeSnapshots, batchSize);
     }
 
     @Override
@@ -202,7 +219,7 @@ public class DBPersistenceStore implements PersistenceStore {
                     int blobLength = (int) blobSnapshot.length();
                     blobAsBytes = blobSnapshot.getBytes(1, blobLength);
                     try {
-                        decompressedSnapshot = CompressionUtil.decompressGZIP(blobAsBytes);
+                        decompressedSnapshot = SnapshotCompression.decompress(blobAsBytes);
                     } catch (IOException e) {
                         throw new RuntimeException("Error occurred while trying to decompress the snapshot. " +
                                 "Failed to load revision: " + revision + " of Siddhi app: " + siddhiAppName, e);
@@ -317,54 +334,31 @@ public class DBPersistenceStore implements PersistenceStore {
     /**
      * Method to remove revisions that are older than the user specified amount
      *
+     * @param con           connection of the transaction inserting the new revisions
      * @param siddhiAppName is the name of the Siddhi Application whose old revisions to remove
      */
-    private void cleanOldRevisions(String siddhiAppName) {
-        PreparedStatement stmt = null;
-        Connection con = null;
+    private void cleanOldRevisions(Connection con, String siddhiAppName) throws SQLException {
         int count = 0;
-
-        try {
-            con = datasource.getConnection();
-            con.setAutoCommit(false);
-        } catch (SQLException e) {
-            log.error("Cannot establish connection to data source " + datasourceName +
-                    " to clean old revisions", e);
-            return;
-        }
-        try {
-            stmt = con.prepareStatement(executionInfo.getPreparedCountStatement());
+        try (PreparedStatement stmt = con.prepareStatement(executionInfo.getPreparedCountStatement())) {
             stmt.setString(1, siddhiAppName);
             try (ResultSet resultSet = stmt.executeQuery()) {
                 if (resultSet.next()) {
                     count = resultSet.getInt(1);
                 }
-                int numberOfRevisionsToClean = count - numberOfRevisionsToKeep;
-                if (numberOfRevisionsToClean > 0) {
-                    stmt = con.prepareStatement(executionInfo.getPreparedDeleteStatement());
-                    if (databaseType.equals(MSSQL_DATABASE_TYPE)) {
-                        stmt.setInt(1, numberOfRevisionsToClean);
-                        stmt.setString(2, siddhiAppName);
-                    } else {
-                        stmt.setString(1, siddhiAppName);
-                        stmt.setInt(2, numberOfRevisionsToClean);
-                    }
-                    stmt.executeUpdate();
-                    con.commit();
-                }
             }
-        } catch (SQLException e) {
-            log.error("Error in cleaning old revisions of siddhiApp: " +
-                    siddhiAppName + "from the database with datasource " + datasourceName, e);
-        } finally {
-            if (stmt != null) {
-                try {
-                    stmt.close();
-                } catch (SQLException e) {
-                    log.error("Unable to close statement." + e.getMessage(), e);
+        }
+        int numberOfRevisionsToClean = count - numberOfRevisionsToKeep;
+        if (numberOfRevisionsToClean > 0) {
+            try (PreparedStatement stmt = con.prepareStatement(executionInfo.getPreparedDeleteStatement())) {
+                if (databaseType.equals(MSSQL_DATABASE_TYPE)) {
+                    stmt.setInt(1, numberOfRevisionsToClean);
+                    stmt.setString(2, siddhiAppName);
+                } else {
+                    stmt.setString(1, siddhiAppName);
+                    stmt.setInt(2, numberOfRevisionsToClean);
                 }
+                stmt.executeUpdate();
             }
-            cleanupConnections(stmt, con);
         }
     }
 
@@ -425,4 +419,16 @@ public class DBPersistenceStore implements PersistenceStore {
             }
         }
     }
+
+    private static class PendingSnapshot {
+        private final String siddhiAppName;
+        private final String revision;
+        private final byte[] snapshot;
+
+        PendingSnapshot(String siddhiAppName, String revision, byte[] snapshot) {
+            this.siddhiAppName = siddhiAppName;
+            this.revision = revision;
+            this.snapshot = snapshot;
+        }
+    }
 }
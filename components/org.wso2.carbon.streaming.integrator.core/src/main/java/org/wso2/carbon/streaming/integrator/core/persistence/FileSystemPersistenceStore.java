@@ -18,16 +18,23 @@
 
 package org.wso2.carbon.streaming.integrator.core.persistence;
 
-import com.google.common.io.Files;
 import org.apache.log4j.Logger;
-import org.wso2.carbon.streaming.integrator.core.ha.util.CompressionUtil;
+import org.wso2.carbon.streaming.integrator.core.persistence.compression.SnapshotCodec;
+import org.wso2.carbon.streaming.integrator.core.persistence.compression.SnapshotCompression;
+import org.wso2.carbon.streaming.integrator.core.persistence.util.FileSystemPersistenceStoreUtils;
+import org.wso2.carbon.streaming.integrator.core.persistence.util.FileSystemRevisionManifest;
 import org.wso2.carbon.streaming.integrator.core.persistence.util.PersistenceConstants;
 import io.siddhi.core.exception.CannotClearSiddhiAppStateException;
 import io.siddhi.core.util.persistence.PersistenceStore;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Implementation of Persistence Store that would persist snapshots to the file system
@@ -35,24 +42,22 @@ import java.util.Map;
 public class FileSystemPersistenceStore implements PersistenceStore {
 
     private static final Logger log = Logger.getLogger(FileSystemPersistenceStore.class);
+    private SnapshotCodec snapshotCodec = SnapshotCompression.getCodec(null);
     private int numberOfRevisionsToSave;
     private String folder;
+    private boolean fsync = true;
+    private final ConcurrentMap<String, FileSystemRevisionManifest> revisionManifests = new ConcurrentHashMap<>();
 
     @Override
     public void save(String siddhiAppName, String revision, byte[] snapshot) {
         File file = new File(folder + File.separator + siddhiAppName + File.separator + revision);
-        byte[] compressedSnapshot;
         try {
-            compressedSnapshot = CompressionUtil.compressGZIP(snapshot);
-        } catch (IOException e) {
-            log.error("Error occurred while trying to compress the snapshot. Failed to " +
-                    "persist revision: " + revision + " of Siddhi app: " + siddhiAppName);
-            return;
-        }
-        try {
-            Files.createParentDirs(file);
-            Files.write(compressedSnapshot, file);
-            cleanOldRevisions(siddhiAppName);
+            FileSystemPersistenceStoreUtils.writeSnapshot(folder, file, snapshot, snapshotCodec, fsync);
+            FileSystemRevisionManifest revisionManifest = getRevisionManifest(siddhiAppName);
+            synchronized (revisionManifest) {
+                revisionManifest.add(revision);
+                cleanOldRevisions(siddhiAppName, revisionManifest);
+            }
             if (log.isDebugEnabled()) {
                 log.debug("Periodic persistence of " + siddhiAppName + " persisted successfully.");
             }
@@ -64,6 +69,7 @@ public class FileSystemPersistenceStore implements PersistenceStore {
 
     @Override
     public void setProperties(Map properties) {
+        snapshotCodec = SnapshotCompression.getCodec(properties);
         Map configurationMap = (Map) properties.get(PersistenceConstants.STATE_PERSISTENCE_CONFIGS);
         Object numberOfRevisionsObject = properties.get(PersistenceConstants.STATE_PERSISTENCE_REVISIONS_TO_KEEP);
 
@@ -86,6 +92,10 @@ public class FileSystemPersistenceStore implements PersistenceStore {
             } else {
                 folder = String.valueOf(folderObject);
             }
+            Object fsyncObject = configurationMap.get(PersistenceConstants.FILE_PERSISTENCE_FSYNC);
+            if (fsyncObject instanceof Boolean) {
+                fsync = (Boolean) fsyncObject;
+            }
 
         } else {
             folder = PersistenceConstants.DEFAULT_FILE_PERSISTENCE_FOLDER;
@@ -93,22 +103,16 @@ public class FileSystemPersistenceStore implements PersistenceStore {
                 log.debug("File system persistence config not set. Default persistence location will be used.");
             }
         }
+        FileSystemPersistenceStoreUtils.cleanTempFiles(folder);
     }
 
     @Override
     public byte[] load(String siddhiAppName, String revision) {
         File file = new File(folder + File.separator + siddhiAppName + File.separator + revision);
         try {
-            byte[] bytes = Files.toByteArray(file);
+            byte[] snapshot = FileSystemPersistenceStoreUtils.readSnapshot(file);
             log.info("State loaded for " + siddhiAppName + " revision " + revision + " from the file system.");
-            byte[] decompressedSnapshot;
-            try {
-                decompressedSnapshot = CompressionUtil.decompressGZIP(bytes);
-            } catch (IOException e) {
-                throw new RuntimeException("Error occurred while trying to decompress the snapshot. Failed to " +
-                        "load revision: " + revision + " of Siddhi app: " + siddhiAppName, e);
-            }
-            return decompressedSnapshot;
+            return snapshot;
         } catch (IOException e) {
             log.error("Cannot load the revision " + revision + " of SiddhiApp: " + siddhiAppName +
                     " from file system.", e);
@@ -118,75 +122,68 @@ public class FileSystemPersistenceStore implements PersistenceStore {
 
     @Override
     public String getLastRevision(String siddhiAppName) {
-        File dir = new File(folder + File.separator + siddhiAppName);
-        File[] files = dir.listFiles();
-
-        if (files == null || files.length == 0) {
-            return null;
-        }
-
-        String lastRevision = null;
-        for (File file : files) {
-            String fileName = file.getName();
-            if (lastRevision == null || fileName.compareTo(lastRevision) > 0) {
-                lastRevision = fileName;
+        FileSystemRevisionManifest revisionManifest = getRevisionManifest(siddhiAppName);
+        synchronized (revisionManifest) {
+            if (revisionManifest.isStale()) {
+                // revisions persisted by another node sharing the file system
+                revisionManifest.reload();
             }
+            NavigableSet<String> revisions = revisionManifest.getRevisions();
+            return revisions.isEmpty() ? null : revisions.last();
         }
-        return lastRevision;
     }
 
     @Override
     public void clearAllRevisions(String siddhiAppName) {
-        File targetDirectory = new File(folder + File.separator + siddhiAppName);
-        File[] files = targetDirectory.listFiles();
-
-        if (files == null || files.length == 0) {
-            log.info("No revisions were found to delete for the Siddhi App " + siddhiAppName);
-            return;
-        }
+        FileSystemRevisionManifest revisionManifest = getRevisionManifest(siddhiAppName);
+        synchronized (revisionManifest) {
+            File targetDirectory = new File(folder + File.separator + siddhiAppName);
+            File[] files = targetDirectory.listFiles();
+            revisionManifest.clear();
+
+            if (files == null || files.length == 0) {
+                log.info("No revisions were found to delete for the Siddhi App " + siddhiAppName);
+                return;
+            }
 
-        for (File file : files) {
-            if (file.exists()) {
-                if (!file.delete()) {
-                    log.error("file is not deleted successfully : " + file.getName());
-                    throw new CannotClearSiddhiAppStateException("Persistence state " +
-                            "file is not deleted : " + file.getPath() + file.getName());
+            for (File file : files) {
+                if (file.exists()) {
+                    if (!file.delete()) {
+                        log.error("file is not deleted successfully : " + file.getName());
+                        throw new CannotClearSiddhiAppStateException("Persistence state " +
+                                "file is not deleted : " + file.getPath() + file.getName());
+                    }
                 }
-            }
 
+            }
         }
     }
 
     /**
      * Method to remove revisions that are older than the user specified amount
      *
-     * @param siddhiAppName is the name of the Siddhi Application whose old revisions to remove
+     * @param siddhiAppName    is the name of the Siddhi Application whose old revisions to remove
+     * @param revisionManifest revisions of the Siddhi Application
      */
-
-    private void cleanOldRevisions(String siddhiAppName) {
-        File targetDirectory = new File(folder + File.separator + siddhiAppName);
-        File[] files = targetDirectory.listFiles();
-        if (files != null) {
-            while (files.length > numberOfRevisionsToSave) {
-                String firstRevision = null;
-                for (File file : files) {
-                    String fileName = file.getName();
-                    if (firstRevision == null || fileName.compareTo(firstRevision) < 0) {
-                        firstRevision = fileName;
-                    }
-                }
-                File fileToDelete = new File(targetDirectory + File.separator + firstRevision);
-                if (fileToDelete.exists()) {
-                    Boolean isDeleted = fileToDelete.delete();
-                    if (!isDeleted) {
-                        log.error("Error deleting old revision " + firstRevision);
-                    }
-                }
-                files = targetDirectory.listFiles();
-                if (files == null || files.length < 1) {
-                    break;
-                }
+    private void cleanOldRevisions(String siddhiAppName, FileSystemRevisionManifest revisionManifest) {
+        NavigableSet<String> revisions = revisionManifest.getRevisions();
+        List<String> removedRevisions = new ArrayList<>();
+        for (String revision : revisions) {
+            if (revisions.size() - removedRevisions.size() <= numberOfRevisionsToSave) {
+                break;
             }
+            File fileToDelete = new File(folder + File.separator + siddhiAppName + File.separator + revision);
+            if (fileToDelete.exists() && !fileToDelete.delete()) {
+                log.error("Error deleting old revision " + revision);
+                break;
+            }
+            removedRevisions.add(revision);
         }
+        revisionManifest.remove(removedRevisions);
+    }
+
+    private FileSystemRevisionManifest getRevisionManifest(String siddhiAppName) {
+        return revisionManifests.computeIfAbsent(siddhiAppName, key ->
+                new FileSystemRevisionManifest(new File(folder + File.separator + siddhiAppName)));
     }
 }
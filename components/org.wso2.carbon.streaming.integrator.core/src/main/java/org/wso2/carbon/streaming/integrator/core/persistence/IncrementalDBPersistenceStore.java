@@ -21,8 +21,9 @@ package org.wso2.carbon.streaming.integrator.core.persistence;
 import com.zaxxer.hikari.HikariDataSource;
 import org.apache.log4j.Logger;
 import org.wso2.carbon.datasource.core.exception.DataSourceException;
-import org.wso2.carbon.streaming.integrator.core.ha.util.CompressionUtil;
 import org.wso2.carbon.streaming.integrator.core.internal.StreamProcessorDataHolder;
+import org.wso2.carbon.streaming.integrator.core.persistence.compression.SnapshotCodec;
+import org.wso2.carbon.streaming.integrator.core.persistence.compression.SnapshotCompression;
 import org.wso2.carbon.streaming.integrator.core.persistence.dto.RDBMSQueryConfigurationEntry;
 import org.wso2.carbon.streaming.integrator.core.persistence.exception.DatabaseUnsupportedException;
 import org.wso2.carbon.streaming.integrator.core.persistence.exception.DatasourceConfigurationException;
@@ -30,6 +31,7 @@ import org.wso2.carbon.streaming.integrator.core.persistence.util.DBPersistenceS
 import org.wso2.carbon.streaming.integrator.core.persistence.util.ExecutionInfo;
 import org.wso2.carbon.streaming.integrator.core.persistence.util.PersistenceConstants;
 import org.wso2.carbon.streaming.integrator.core.persistence.util.RDBMSConfiguration;
+import org.wso2.carbon.streaming.integrator.core.persistence.util.SnapshotBatchWriter;
 import io.siddhi.core.exception.CannotClearSiddhiAppStateException;
 import io.siddhi.core.util.persistence.IncrementalPersistenceStore;
 import io.siddhi.core.util.persistence.util.IncrementalSnapshotInfo;
@@ -46,14 +48,18 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 public class IncrementalDBPersistenceStore implements IncrementalPersistenceStore {
     private static final Logger log = Logger.getLogger(IncrementalDBPersistenceStore.class);
+    private SnapshotCodec snapshotCodec = SnapshotCompression.getCodec(null);
+    private final IncrementalSnapshotPrefetcher restorePrefetcher =
+            new IncrementalSnapshotPrefetcher(this::loadSnapshot);
 
     private static final String MSSQL_DATABASE_TYPE = "microsoft sql server";
-    private static final String POSTGRES_DATABASE_TYPE = "postgresql";
 
     private ExecutionInfo executionInfo;
     private String datasourceName;
@@ -61,12 +67,14 @@ public class IncrementalDBPersistenceStore implements IncrementalPersistenceStor
     private String databaseType;
     private String databaseVersion;
     private String tableName;
+    private int batchSize = PersistenceConstants.DEFAULT_DB_PERSISTENCE_BATCH_SIZE;
+    private SnapshotBatchWriter<PendingSnapshot> snapshotBatchWriter;
 
     @Override
     public void save(IncrementalSnapshotInfo incrementalSnapshotInfo, byte[] bytes) {
         byte[] compressedSnapshot;
         try {
-            compressedSnapshot = CompressionUtil.compressGZIP(bytes);
+            compressedSnapshot = SnapshotCompression.compress(snapshotCodec, bytes);
         } catch (IOException e) {
             log.error("Error occurred while trying to compress the snapshot. Failed to " +
                     "persist revision: " + incrementalSnapshotInfo.getRevision() +
@@ -74,44 +82,73 @@ public class IncrementalDBPersistenceStore implements IncrementalPersistenceStor
             return;
         }
         DBPersistenceStoreUtils.createTableIfNotExist(executionInfo, datasource, datasourceName, tableName);
-
-        Connection con = null;
-        PreparedStatement stmt = null;
         try {
-            try {
-                con = datasource.getConnection();
-            } catch (SQLException e) {
-                log.error("Cannot establish connection to datasource " + datasourceName +
-                        " while saving revision " + incrementalSnapshotInfo.getRevision(), e);
-                return;
-            }
-            con.setAutoCommit(false);
-            stmt = con.prepareStatement(executionInfo.getPreparedInsertStatement());
-            stmt.setString(1, incrementalSnapshotInfo.getSiddhiAppId());
-            stmt.setString(2, incrementalSnapshotInfo.getRevision());
-            if (databaseType.equals(POSTGRES_DATABASE_TYPE)) {
-                stmt.setBlob(3, new SerialBlob(compressedSnapshot));
-            } else {
-                Blob blob = con.createBlob();
-                blob.setBytes(1, compressedSnapshot);
-                stmt.setBlob(3, blob);
-            }
-            stmt.executeUpdate();
-            con.commit();
+            snapshotBatchWriter.write(new PendingSnapshot(incrementalSnapshotInfo, compressedSnapshot));
             if (log.isDebugEnabled()) {
                 log.debug("Periodic persistence of " + incrementalSnapshotInfo.getSiddhiAppId() + " persisted successfully.");
             }
         } catch (SQLException e) {
             log.error("Error while saving revision" + incrementalSnapshotInfo.getRevision() + " of the siddhiApp " +
                     incrementalSnapshotInfo.getSiddhiAppId() + " to the database with datasource name " + datasourceName, e);
+        }
+    }
+
+    /**
+     * Inserts the snapshots saved concurrently by the elements of the Siddhi apps, and deletes the revisions replaced
+     * by them, in a single transaction.
+     */
+    private void writeSnapshots(List<PendingSnapshot> pendingSnapshots) throws SQLException {
+        Connection con = datasource.getConnection();
+        try {
+            con.setAutoCommit(false);
+            try (PreparedStatement stmt = con.prepareStatement(executionInfo.getPreparedInsertStatement())) {
+                for (PendingSnapshot pendingSnapshot : pendingSnapshots) {
+                    stmt.setString(1, pendingSnapshot.snapshotInfo.getSiddhiAppId());
+                    stmt.setString(2, pendingSnapshot.snapshotInfo.getRevision());
+                    DBPersistenceStoreUtils.setSnapshot(stmt, 3, pendingSnapshot.snapshot, databaseType);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+            Map<String, List<String>> revisionsOfSiddhiApps = new HashMap<>();
+            Map<String, String> revisionsToClean = new LinkedHashMap<>();
+            for (PendingSnapshot pendingSnapshot : pendingSnapshots) {
+                IncrementalSnapshotInfo snapshotInfo = pendingSnapshot.snapshotInfo;
+                if (snapshotInfo.getType() != IncrementalSnapshotInfo.SnapshotType.INCREMENT) {
+                    List<String> revisions = revisionsOfSiddhiApps.get(snapshotInfo.getSiddhiAppId());
+                    if (revisions == null) {
+                        revisions = getListOfRevisions(con, snapshotInfo.getSiddhiAppId());
+                        revisionsOfSiddhiApps.put(snapshotInfo.getSiddhiAppId(), revisions);
+                    }
+                    for (String revision : getRevisionsToClean(snapshotInfo, revisions)) {
+                        revisionsToClean.put(revision, snapshotInfo.getSiddhiAppId());
+                    }
+                }
+            }
+            if (!revisionsToClean.isEmpty()) {
+                try (PreparedStatement stmt = con.prepareStatement(
+                        executionInfo.getPreparedDeleteOldRevisionsStatement())) {
+                    for (Map.Entry<String, String> revisionToClean : revisionsToClean.entrySet()) {
+                        stmt.setString(1, revisionToClean.getKey());
+                        stmt.setString(2, revisionToClean.getValue());
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                }
+            }
+            con.commit();
+        } catch (SQLException e) {
+            DBPersistenceStoreUtils.rollback(con);
+            throw e;
         } finally {
-            DBPersistenceStoreUtils.cleanupConnections(stmt, con);
+            DBPersistenceStoreUtils.cleanupConnections(null, con);
         }
-        cleanOldRevisions(incrementalSnapshotInfo);
     }
 
     @Override
     public void setProperties(Map map) {
+        restorePrefetcher.setProperties(map);
+        snapshotCodec = SnapshotCompression.getCodec(map);
         Map configurationMap = (Map) map.get(PersistenceConstants.STATE_PERSISTENCE_CONFIGS);
 
         if (configurationMap != null) {
@@ -133,6 +170,7 @@ public class IncrementalDBPersistenceStore implements IncrementalPersistenceStor
             } else {
                 tableName = String.valueOf(tableObject);
             }
+            batchSize = DBPersistenceStoreUtils.getBatchSize(configurationMap);
 
         } else {
             datasourceName = PersistenceConstants.DEFAULT_DB_PERSISTENCE_DATASOURCE;
@@ -161,10 +199,15 @@ public class IncrementalDBPersistenceStore implements IncrementalPersistenceStor
                     datasourceName, e);
         }
         initializeDatabaseExecutionInfo();
+        snapshotBatchWriter = new SnapshotBatchWriter<>(this::writeSnapshots, batchSize);
     }
 
     @Override
     public byte[] load(IncrementalSnapshotInfo incrementalSnapshotInfo) {
+        return restorePrefetcher.load(incrementalSnapshotInfo);
+    }
+
+    private byte[] loadSnapshot(IncrementalSnapshotInfo incrementalSnapshotInfo) {
         PreparedStatement stmt = null;
         Connection con = null;
         byte[] blobAsBytes = null;
@@ -193,7 +236,7 @@ public class IncrementalDBPersistenceStore implements IncrementalPersistenceStor
                     int blobLength = (int) blobSnapshot.length();
                     blobAsBytes = blobSnapshot.getBytes(1, blobLength);
                     try {
-                        decompressedSnapshot = CompressionUtil.decompressGZIP(blobAsBytes);
+                        decompressedSnapshot = SnapshotCompression.decompress(blobAsBytes);
                     } catch (IOException e) {
                         throw new RuntimeException("Error occurred while trying to decompress the snapshot. Failed to " +
                                 "load revision: " + incrementalSnapshotInfo.getRevision() + " of Siddhi app: " +
@@ -228,6 +271,7 @@ public class IncrementalDBPersistenceStore implements IncrementalPersistenceStor
                 results.add(snapshotInfo);
             }
         }
+        restorePrefetcher.prefetch(siddhiAppName, results);
         return results;
     }
 
@@ -264,6 +308,7 @@ public class IncrementalDBPersistenceStore implements IncrementalPersistenceStor
 
     @Override
     public void clearAllRevisions(String siddhiAppName) {
+        restorePrefetcher.clear(siddhiAppName);
         PreparedStatement stmt = null;
         Connection con;
         try {
@@ -300,7 +345,6 @@ public class IncrementalDBPersistenceStore implements IncrementalPersistenceStor
 
     private List<String> getListOfRevisionsFromDB(String siddhiAppName) {
         List<String> revisions = new ArrayList<>();
-        PreparedStatement stmt = null;
         Connection con = null;
         try {
             try {
@@ -311,19 +355,26 @@ public class IncrementalDBPersistenceStore implements IncrementalPersistenceStor
                 return null;
             }
             con.setAutoCommit(false);
-            stmt = con.prepareStatement(executionInfo.getPreparedSelectRevisionsStatement());
+            revisions = getListOfRevisions(con, siddhiAppName);
+            con.commit();
+        } catch (SQLException e) {
+            log.error("Could not load the list of revisions, for Siddhi app: " + siddhiAppName +
+                    ", from the database with datasource " + datasourceName, e);
+        } finally {
+            DBPersistenceStoreUtils.cleanupConnections(null, con);
+        }
+        return revisions;
+    }
+
+    private List<String> getListOfRevisions(Connection con, String siddhiAppName) throws SQLException {
+        List<String> revisions = new ArrayList<>();
+        try (PreparedStatement stmt = con.prepareStatement(executionInfo.getPreparedSelectRevisionsStatement())) {
             stmt.setString(1, siddhiAppName);
             try (ResultSet resultSet = stmt.executeQuery()) {
-                con.commit();
                 while (resultSet.next()) {
                     revisions.add(String.valueOf(resultSet.getString("revision")));
                 }
             }
-        } catch (SQLException e) {
-            log.error("Could not load the list of revisions, for Siddhi app: " + siddhiAppName +
-                    ", from the database with datasource " + datasourceName, e);
-        } finally {
-            DBPersistenceStoreUtils.cleanupConnections(stmt, con);
         }
         return revisions;
     }
@@ -350,53 +401,9 @@ public class IncrementalDBPersistenceStore implements IncrementalPersistenceStor
         executionInfo.setPreparedDeleteAllRevisionsStatement(databaseQueryEntries.getDeleteAllRevisionsQuery());
     }
 
-    private void cleanOldRevisions(IncrementalSnapshotInfo incrementalSnapshotInfo) {
-        if (incrementalSnapshotInfo.getType() != IncrementalSnapshotInfo.SnapshotType.INCREMENT) {
-            List<String> allRevisions = getListOfRevisionsFromDB(incrementalSnapshotInfo.getSiddhiAppId());
-            if (allRevisions != null) {
-                String revisionsToClean = getRevisionsToClean(incrementalSnapshotInfo, allRevisions);
-                if (revisionsToClean != null) {
-                    cleanOldRevisionsFromDB(revisionsToClean, incrementalSnapshotInfo.getSiddhiAppId());
-                }
-            }
-        }
-    }
-
-    private void cleanOldRevisionsFromDB(String revisionsToClean, String siddhiAppId) {
-        PreparedStatement stmt = null;
-        Connection con = null;
-        try {
-            con = datasource.getConnection();
-            con.setAutoCommit(false);
-        } catch (SQLException e) {
-            log.error("Cannot establish connection to data source " + datasourceName +
-                    " to clean old revisions", e);
-            return;
-        }
-        try {
-            stmt = con.prepareStatement(executionInfo.getPreparedDeleteOldRevisionsStatement());
-            stmt.setString(1, revisionsToClean);
-            stmt.setString(2, siddhiAppId);
-            stmt.executeUpdate();
-            con.commit();
-        } catch (SQLException e) {
-            log.error("Error in cleaning old revisions of siddhiApp: " +
-                    siddhiAppId + "from the database with datasource " + datasourceName, e);
-        } finally {
-            if (stmt != null) {
-                try {
-                    stmt.close();
-                } catch (SQLException e) {
-                    log.error("Unable to close statement." + e.getMessage(), e);
-                }
-            }
-            DBPersistenceStoreUtils.cleanupConnections(stmt, con);
-        }
-    }
-
-    private String getRevisionsToClean(IncrementalSnapshotInfo incrementalSnapshotInfo,
-                                       List<String> allRevisions) {
-        StringBuilder revisionsToClean = new StringBuilder();
+    private List<String> getRevisionsToClean(IncrementalSnapshotInfo incrementalSnapshotInfo,
+                                             List<String> allRevisions) {
+        List<String> revisionsToClean = new ArrayList<>();
         long baseTimeStamp = (incrementalSnapshotInfo.getTime());
         for (String revision : allRevisions) {
             IncrementalSnapshotInfo snapshotInfo = PersistenceHelper.convertRevision(revision);
@@ -406,17 +413,14 @@ public class IncrementalDBPersistenceStore implements IncrementalPersistenceStor
                     incrementalSnapshotInfo.getElementId().equals(snapshotInfo.getElementId())) {
                 if (incrementalSnapshotInfo.getType() == IncrementalSnapshotInfo.SnapshotType.BASE &&
                         snapshotInfo.getType() != IncrementalSnapshotInfo.SnapshotType.PERIODIC) {
-                    revisionsToClean.append(",").append(revision);
+                    revisionsToClean.add(revision);
                 } else if (incrementalSnapshotInfo.getType() == IncrementalSnapshotInfo.SnapshotType.PERIODIC &&
                         snapshotInfo.getType() == IncrementalSnapshotInfo.SnapshotType.PERIODIC) {
-                    revisionsToClean.append(",").append(revision);
+                    revisionsToClean.add(revision);
                 }
             }
         }
-        if (revisionsToClean.length() != 0) {
-            return revisionsToClean.substring(1); //removing leading comma
-        }
-        return null;
+        return revisionsToClean;
     }
 
     /**
@@ -460,4 +464,14 @@ public class IncrementalDBPersistenceStore implements IncrementalPersistenceStor
             }
         }
     }
+
+    private static class PendingSnapshot {
+        private final IncrementalSnapshotInfo snapshotInfo;
+        private final byte[] snapshot;
+
+        PendingSnapshot(IncrementalSnapshotInfo snapshotInfo, byte[] snapshot) {
+            this.snapshotInfo = snapshotInfo;
+            this.snapshot = snapshot;
+        }
+    }
 }
@@ -18,20 +18,30 @@
 
 package org.wso2.carbon.streaming.integrator.core.persistence;
 
-import com.google.common.io.Files;
 import io.siddhi.core.exception.CannotClearSiddhiAppStateException;
+import io.siddhi.core.exception.PersistenceStoreException;
 import io.siddhi.core.util.persistence.IncrementalPersistenceStore;
 import io.siddhi.core.util.persistence.util.IncrementalSnapshotInfo;
 import io.siddhi.core.util.persistence.util.PersistenceHelper;
 import org.apache.log4j.Logger;
-import org.wso2.carbon.streaming.integrator.core.ha.util.CompressionUtil;
+import org.wso2.carbon.streaming.integrator.core.persistence.compression.SnapshotCodec;
+import org.wso2.carbon.streaming.integrator.core.persistence.compression.SnapshotCompression;
+import org.wso2.carbon.streaming.integrator.core.persistence.util.FileSystemPersistenceStoreUtils;
+import org.wso2.carbon.streaming.integrator.core.persistence.util.FileSystemRevisionManifest;
 import org.wso2.carbon.streaming.integrator.core.persistence.util.PersistenceConstants;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Implementation of Persistence Store that would persist snapshots to the file system
@@ -39,7 +49,12 @@ import java.util.Map;
 public class IncrementalFileSystemPersistenceStore implements IncrementalPersistenceStore {
 
     private static final Logger log = Logger.getLogger(IncrementalFileSystemPersistenceStore.class);
+    private SnapshotCodec snapshotCodec = SnapshotCompression.getCodec(null);
+    private final IncrementalSnapshotPrefetcher restorePrefetcher =
+            new IncrementalSnapshotPrefetcher(this::loadSnapshot);
     private String folder;
+    private boolean fsync = true;
+    private final ConcurrentMap<String, AppRevisions> appRevisionsMap = new ConcurrentHashMap<>();
 
     public IncrementalFileSystemPersistenceStore() {
     }
@@ -52,19 +67,13 @@ public class IncrementalFileSystemPersistenceStore implements IncrementalPersist
     public void save(IncrementalSnapshotInfo snapshotInfo, byte[] snapshot) {
         File file = new File(folder + File.separator + snapshotInfo.getSiddhiAppId() + File.separator +
                 snapshotInfo.getRevision());
-        byte[] compressedSnapshot;
         try {
-            compressedSnapshot = CompressionUtil.compressGZIP(snapshot);
-        } catch (IOException e) {
-            log.error("Error occurred while trying to compress the snapshot. Failed to " +
-                    "persist revision: " + snapshotInfo.getRevision() + " of Siddhi app: " +
-                    snapshotInfo.getSiddhiAppId());
-            return;
-        }
-        try {
-            Files.createParentDirs(file);
-            Files.write(compressedSnapshot, file);
-            cleanOldRevisions(snapshotInfo);
+            FileSystemPersistenceStoreUtils.writeSnapshot(folder, file, snapshot, snapshotCodec, fsync);
+            AppRevisions appRevisions = getAppRevisions(snapshotInfo.getSiddhiAppId());
+            synchronized (appRevisions) {
+                appRevisions.add(snapshotInfo.getRevision(), snapshotInfo);
+                cleanOldRevisions(snapshotInfo, appRevisions);
+            }
             if (log.isDebugEnabled()) {
                 log.debug("Incremental persistence of '" + snapshotInfo.getSiddhiAppId() +
                         "' with revision '" + snapshotInfo.getRevision() + "' persisted successfully.");
@@ -77,6 +86,8 @@ public class IncrementalFileSystemPersistenceStore implements IncrementalPersist
 
     @Override
     public void setProperties(Map properties) {
+        restorePrefetcher.setProperties(properties);
+        snapshotCodec = SnapshotCompression.getCodec(properties);
         Map configurationMap = (Map) properties.get(PersistenceConstants.STATE_PERSISTENCE_CONFIGS);
 
         if (configurationMap != null) {
@@ -89,6 +100,10 @@ public class IncrementalFileSystemPersistenceStore implements IncrementalPersist
             } else {
                 folder = String.valueOf(folderObject);
             }
+            Object fsyncObject = configurationMap.get(PersistenceConstants.FILE_PERSISTENCE_FSYNC);
+            if (fsyncObject instanceof Boolean) {
+                fsync = (Boolean) fsyncObject;
+            }
 
         } else {
             folder = PersistenceConstants.DEFAULT_FILE_PERSISTENCE_FOLDER;
@@ -96,80 +111,64 @@ public class IncrementalFileSystemPersistenceStore implements IncrementalPersist
                 log.debug("File system persistence config not set. Default persistence location will be used.");
             }
         }
+        FileSystemPersistenceStoreUtils.cleanTempFiles(folder);
     }
 
     @Override
     public byte[] load(IncrementalSnapshotInfo snapshotInfo) {
+        return restorePrefetcher.load(snapshotInfo);
+    }
+
+    private byte[] loadSnapshot(IncrementalSnapshotInfo snapshotInfo) {
         File file = new File(folder + File.separator + snapshotInfo.getSiddhiAppId() + File.separator +
                 snapshotInfo.getRevision());
-        byte[] bytes = null;
+        byte[] snapshot;
         try {
-            bytes = Files.toByteArray(file);
-            if (log.isDebugEnabled()) {
-                log.debug("State loaded for SiddhiApp '" + snapshotInfo.getSiddhiAppId() + "' revision '" +
-                        snapshotInfo.getRevision() + "' from file system.");
-            }
+            snapshot = FileSystemPersistenceStoreUtils.readSnapshot(file);
         } catch (IOException e) {
-            log.error("Cannot load the revision '" + snapshotInfo.getRevision() + "' of SiddhiApp '" +
+            throw new RuntimeException("Cannot load the revision '" + snapshotInfo.getRevision() + "' of SiddhiApp '" +
                     snapshotInfo.getSiddhiAppId() + "' from file system.", e);
         }
-        byte[] decompressedSnapshot;
-        try {
-            decompressedSnapshot = CompressionUtil.decompressGZIP(bytes);
-        } catch (IOException e) {
-            throw new RuntimeException("Error occurred while trying to decompress the snapshot. Failed to " +
-                    "load revision: " + snapshotInfo.getRevision() + " of Siddhi app: " +
-                    snapshotInfo.getSiddhiAppId(), e);
+        if (log.isDebugEnabled()) {
+            log.debug("State loaded for SiddhiApp '" + snapshotInfo.getSiddhiAppId() + "' revision '" +
+                    snapshotInfo.getRevision() + "' from file system.");
         }
-        return decompressedSnapshot;
+        return snapshot;
     }
 
     @Override
     public List<IncrementalSnapshotInfo> getListOfRevisionsToLoad(long restoreTime, String siddhiAppName) {
-
-        File dir = new File(folder + File.separator + siddhiAppName);
-        File[] files = dir.listFiles();
-        if (files == null || files.length == 0) {
-            return null;
-        }
-        List<IncrementalSnapshotInfo> results = new ArrayList<>();
-        for (File file : files) {
-            String fileName = file.getName();
-            IncrementalSnapshotInfo snapshotInfo = PersistenceHelper.convertRevision(fileName);
-            if (snapshotInfo.getTime() <= restoreTime &&
-                    siddhiAppName.equals(snapshotInfo.getSiddhiAppId()) &&
-                    snapshotInfo.getElementId() != null &&
-                    snapshotInfo.getQueryName() != null) {
-                //Note: Here we discard the (items.length == 2) scenario which is handled
-                // by the full snapshot handling
-                if (log.isDebugEnabled()) {
-                    log.debug("List of revisions to load : " + fileName);
+        AppRevisions appRevisions = getAppRevisions(siddhiAppName);
+        synchronized (appRevisions) {
+            appRevisions.reloadIfStale();
+            if (appRevisions.revisionManifest.getRevisions().isEmpty()) {
+                return null;
+            }
+            List<IncrementalSnapshotInfo> results = new ArrayList<>();
+            for (NavigableMap<Long, List<IncrementalSnapshotInfo>> elementRevisions :
+                    appRevisions.elementRevisionsMap.values()) {
+                for (List<IncrementalSnapshotInfo> snapshotInfos :
+                        elementRevisions.headMap(restoreTime, true).values()) {
+                    results.addAll(snapshotInfos);
                 }
-                results.add(snapshotInfo);
             }
+            if (log.isDebugEnabled()) {
+                for (IncrementalSnapshotInfo snapshotInfo : results) {
+                    log.debug("List of revisions to load : " + appRevisions.revisionFileNames.get(snapshotInfo));
+                }
+            }
+            restorePrefetcher.prefetch(siddhiAppName, results);
+            return results;
         }
-        return results;
     }
 
     @Override
     public String getLastRevision(String siddhiAppName) {
-        long restoreTime = -1;
-        File dir = new File(folder + File.separator + siddhiAppName);
-        File[] files = dir.listFiles();
-        if (files == null || files.length == 0) {
-            return null;
-        }
-        for (File file : files) {
-            String fileName = file.getName();
-            IncrementalSnapshotInfo snapshotInfo = PersistenceHelper.convertRevision(fileName);
-            if (snapshotInfo.getTime() > restoreTime &&
-                    siddhiAppName.equals(snapshotInfo.getSiddhiAppId()) &&
-                    snapshotInfo.getElementId() != null &&
-                    snapshotInfo.getQueryName() != null) {
-                //Note: Here we discard the (items.length == 2) scenario which is handled
-                // by the full snapshot handling
-                restoreTime = snapshotInfo.getTime();
-            }
+        long restoreTime;
+        AppRevisions appRevisions = getAppRevisions(siddhiAppName);
+        synchronized (appRevisions) {
+            appRevisions.reloadIfStale();
+            restoreTime = appRevisions.lastRevisionTime;
         }
         if (restoreTime != -1) {
             if (log.isDebugEnabled()) {
@@ -183,57 +182,147 @@ public class IncrementalFileSystemPersistenceStore implements IncrementalPersist
 
     @Override
     public void clearAllRevisions(String siddhiAppName) {
-        File dir = new File(folder + File.separator + siddhiAppName);
-        File[] files = dir.listFiles();
-        if (files == null || files.length == 0) {
-            log.info("No revisions were found to delete for the Siddhi App " + siddhiAppName);
-            return;
-        }
-        for (File file : files) {
-            if (file.exists()) {
-                if (!file.delete()) {
-                    log.error("file is not deleted successfully : " + file.getName());
-                    throw new CannotClearSiddhiAppStateException("Persistence state " +
-                            "file is not deleted : " + file.getName());
-                }
+        restorePrefetcher.clear(siddhiAppName);
+        AppRevisions appRevisions = getAppRevisions(siddhiAppName);
+        synchronized (appRevisions) {
+            File dir = new File(folder + File.separator + siddhiAppName);
+            File[] files = dir.listFiles();
+            appRevisions.clear();
+            if (files == null || files.length == 0) {
+                log.info("No revisions were found to delete for the Siddhi App " + siddhiAppName);
+                return;
             }
+            for (File file : files) {
+                if (file.exists()) {
+                    if (!file.delete()) {
+                        log.error("file is not deleted successfully : " + file.getName());
+                        throw new CannotClearSiddhiAppStateException("Persistence state " +
+                                "file is not deleted : " + file.getName());
+                    }
+                }
 
+            }
         }
     }
 
-    private void cleanOldRevisions(IncrementalSnapshotInfo incrementalSnapshotInfo) {
+    private void cleanOldRevisions(IncrementalSnapshotInfo incrementalSnapshotInfo, AppRevisions appRevisions) {
         if (incrementalSnapshotInfo.getType() != IncrementalSnapshotInfo.SnapshotType.INCREMENT) {
-            File dir = new File(folder + File.separator + incrementalSnapshotInfo.getSiddhiAppId());
-            File[] files = dir.listFiles();
-            if (files != null) {
-                long baseTimeStamp = (incrementalSnapshotInfo.getTime());
-                for (File file : files) {
-                    String fileName = file.getName();
-                    IncrementalSnapshotInfo snapshotInfo = PersistenceHelper.convertRevision(fileName);
-                    if (snapshotInfo.getTime() < baseTimeStamp &&
-                            incrementalSnapshotInfo.getSiddhiAppId().equals(snapshotInfo.getSiddhiAppId()) &&
-                            incrementalSnapshotInfo.getQueryName().equals(snapshotInfo.getQueryName()) &&
-                            incrementalSnapshotInfo.getElementId().equals(snapshotInfo.getElementId())) {
-                        if (incrementalSnapshotInfo.getType() == IncrementalSnapshotInfo.SnapshotType.BASE &&
-                                snapshotInfo.getType() != IncrementalSnapshotInfo.SnapshotType.PERIODIC) {
-                            if (file.exists()) {
-                                Boolean isDeleted = file.delete();
-                                if (!isDeleted) {
-                                    log.error("Error deleting old revision " + fileName);
-                                }
-                            }
-                        } else if (incrementalSnapshotInfo.getType() == IncrementalSnapshotInfo.SnapshotType.PERIODIC &&
-                                snapshotInfo.getType() == IncrementalSnapshotInfo.SnapshotType.PERIODIC) {
-                            if (file.exists()) {
-                                Boolean isDeleted = file.delete();
-                                if (!isDeleted) {
-                                    log.error("Error deleting old revision " + fileName);
-                                }
-                            }
-                        }
+            // a base snapshot replaces the older base and incremental snapshots of the element, and a periodic
+            // snapshot replaces the older periodic snapshots
+            NavigableMap<Long, List<IncrementalSnapshotInfo>> elementRevisions =
+                    appRevisions.elementRevisionsMap.get(AppRevisions.getElementKey(incrementalSnapshotInfo));
+            if (elementRevisions == null) {
+                return;
+            }
+            List<String> removedRevisions = new ArrayList<>();
+            Iterator<List<IncrementalSnapshotInfo>> iterator =
+                    elementRevisions.headMap(incrementalSnapshotInfo.getTime(), false).values().iterator();
+            while (iterator.hasNext()) {
+                Iterator<IncrementalSnapshotInfo> snapshotInfoIterator = iterator.next().iterator();
+                while (snapshotInfoIterator.hasNext()) {
+                    IncrementalSnapshotInfo snapshotInfo = snapshotInfoIterator.next();
+                    if ((incrementalSnapshotInfo.getType() == IncrementalSnapshotInfo.SnapshotType.PERIODIC) !=
+                            (snapshotInfo.getType() == IncrementalSnapshotInfo.SnapshotType.PERIODIC)) {
+                        continue;
+                    }
+                    String fileName = appRevisions.revisionFileNames.get(snapshotInfo);
+                    File file = new File(folder + File.separator + incrementalSnapshotInfo.getSiddhiAppId() +
+                            File.separator + fileName);
+                    if (file.exists() && !file.delete()) {
+                        log.error("Error deleting old revision " + fileName);
+                        continue;
                     }
+                    snapshotInfoIterator.remove();
+                    appRevisions.revisionFileNames.remove(snapshotInfo);
+                    removedRevisions.add(fileName);
+                }
+            }
+            elementRevisions.values().removeIf(List::isEmpty);
+            appRevisions.revisionManifest.remove(removedRevisions);
+        }
+    }
+
+    private AppRevisions getAppRevisions(String siddhiAppName) {
+        return appRevisionsMap.computeIfAbsent(siddhiAppName, key -> new AppRevisions(siddhiAppName,
+                new FileSystemRevisionManifest(new File(folder + File.separator + siddhiAppName))));
+    }
+
+    /**
+     * Revisions of a Siddhi app, grouped by the query and element they belong to and ordered by their time.
+     */
+    private static class AppRevisions {
+        private final String siddhiAppName;
+        private final FileSystemRevisionManifest revisionManifest;
+        private final Map<String, NavigableMap<Long, List<IncrementalSnapshotInfo>>> elementRevisionsMap =
+                new HashMap<>();
+        private final Map<IncrementalSnapshotInfo, String> revisionFileNames = new IdentityHashMap<>();
+        private long lastRevisionTime = -1;
+
+        AppRevisions(String siddhiAppName, FileSystemRevisionManifest revisionManifest) {
+            this.siddhiAppName = siddhiAppName;
+            this.revisionManifest = revisionManifest;
+            indexRevisions();
+        }
+
+        /**
+         * Rebuilds the index when the revisions were modified by another node sharing the file system, e.g. before
+         * a warm standby node restores them.
+         */
+        void reloadIfStale() {
+            if (revisionManifest.isStale()) {
+                revisionManifest.reload();
+                elementRevisionsMap.clear();
+                revisionFileNames.clear();
+                lastRevisionTime = -1;
+                indexRevisions();
+            }
+        }
+
+        private void indexRevisions() {
+            for (String fileName : revisionManifest.getRevisions()) {
+                IncrementalSnapshotInfo snapshotInfo;
+                try {
+                    snapshotInfo = PersistenceHelper.convertRevision(fileName);
+                } catch (PersistenceStoreException e) {
+                    log.warn("Ignoring the invalid revision '" + fileName + "' of SiddhiApp '" + siddhiAppName +
+                            "'. " + e.getMessage());
+                    continue;
+                }
+                //Note: Here we discard the (items.length == 2) scenario which is handled
+                // by the full snapshot handling
+                if (siddhiAppName.equals(snapshotInfo.getSiddhiAppId())) {
+                    index(fileName, snapshotInfo);
                 }
             }
         }
+
+        void add(String fileName, IncrementalSnapshotInfo snapshotInfo) {
+            // the revision is already listed when the app directory is first read after writing it
+            if (revisionManifest.add(fileName)) {
+                index(fileName, snapshotInfo);
+            }
+        }
+
+        void clear() {
+            revisionManifest.clear();
+            elementRevisionsMap.clear();
+            revisionFileNames.clear();
+            lastRevisionTime = -1;
+        }
+
+        private void index(String fileName, IncrementalSnapshotInfo snapshotInfo) {
+            if (snapshotInfo.getElementId() == null || snapshotInfo.getQueryName() == null) {
+                return;
+            }
+            elementRevisionsMap.computeIfAbsent(getElementKey(snapshotInfo), key -> new TreeMap<>())
+                    .computeIfAbsent(snapshotInfo.getTime(), key -> new ArrayList<>(1)).add(snapshotInfo);
+            revisionFileNames.put(snapshotInfo, fileName);
+            lastRevisionTime = Math.max(lastRevisionTime, snapshotInfo.getTime());
+        }
+
+        static String getElementKey(IncrementalSnapshotInfo snapshotInfo) {
+            return snapshotInfo.getQueryName() + PersistenceConstants.REVISION_SEPARATOR +
+                    snapshotInfo.getElementId();
+        }
     }
 }
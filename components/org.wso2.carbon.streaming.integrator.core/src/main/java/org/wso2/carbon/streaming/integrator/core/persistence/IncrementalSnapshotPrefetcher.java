@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.persistence;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.siddhi.core.util.persistence.util.IncrementalSnapshotInfo;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Loads the revisions of a Siddhi app being restored ahead of Siddhi. On restore, Siddhi lists the revisions to load
+ * from the incremental persistence store and then loads them one at a time, each being a separate read followed by
+ * decompression. Once the revisions are listed, the prefetcher loads the ones Siddhi is going to restore in parallel,
+ * in the order Siddhi asks for them, keeping at most the configured number of revisions loaded ahead of the restore.
+ */
+public class IncrementalSnapshotPrefetcher {
+    private static final Logger log = Logger.getLogger(IncrementalSnapshotPrefetcher.class);
+    public static final String RESTORE_THREAD_POOL_SIZE = "restoreThreadPoolSize";
+    public static final String RESTORE_PREFETCH_SIZE = "restorePrefetchSize";
+    /**
+     * Order in which Siddhi restores the listed revisions, newest revision of each element first.
+     */
+    private static final Comparator<IncrementalSnapshotInfo> RESTORE_ORDER =
+            Comparator.comparing(IncrementalSnapshotInfo::getId)
+                    .thenComparing(IncrementalSnapshotInfo::getTime, Comparator.reverseOrder())
+                    .thenComparing(IncrementalSnapshotInfo::getType, Comparator.reverseOrder());
+    private static ExecutorService prefetchExecutorService;
+    private final Function<IncrementalSnapshotInfo, byte[]> loader;
+    private final ConcurrentMap<String, AppPrefetch> appPrefetches = new ConcurrentHashMap<>();
+    private int threadPoolSize = 4;
+    private int prefetchSize = 16;
+
+    /**
+     * @param loader reads and decompresses a revision from the persistence store
+     */
+    public IncrementalSnapshotPrefetcher(Function<IncrementalSnapshotInfo, byte[]> loader) {
+        this.loader = loader;
+    }
+
+    public void setProperties(Map properties) {
+        if (properties == null) {
+            return;
+        }
+        Object threadPoolSizeObject = properties.get(RESTORE_THREAD_POOL_SIZE);
+        if (threadPoolSizeObject instanceof Integer && (int) threadPoolSizeObject > 0) {
+            threadPoolSize = (int) threadPoolSizeObject;
+        }
+        Object prefetchSizeObject = properties.get(RESTORE_PREFETCH_SIZE);
+        if (prefetchSizeObject instanceof Integer) {
+            prefetchSize = (int) prefetchSizeObject;
+        }
+    }
+
+    /**
+     * Starts loading the revisions Siddhi restores out of the listed ones. Revisions older than the base revision of
+     * their element are skipped by Siddhi, hence they are not loaded.
+     *
+     * @param siddhiAppName  name of the Siddhi app being restored
+     * @param snapshotInfos revisions listed to be loaded
+     */
+    public void prefetch(String siddhiAppName, List<IncrementalSnapshotInfo> snapshotInfos) {
+        if (prefetchSize < 1 || snapshotInfos == null || snapshotInfos.size() < 2) {
+            appPrefetches.remove(siddhiAppName);
+            return;
+        }
+        List<IncrementalSnapshotInfo> restoreOrder = new ArrayList<>(snapshotInfos);
+        restoreOrder.sort(RESTORE_ORDER);
+        String elementId = null;
+        boolean baseFound = false;
+        boolean periodicFound = false;
+        for (Iterator<IncrementalSnapshotInfo> iterator = restoreOrder.iterator(); iterator.hasNext(); ) {
+            IncrementalSnapshotInfo snapshotInfo = iterator.next();
+            if (!snapshotInfo.getId().equals(elementId)) {
+                elementId = snapshotInfo.getId();
+                baseFound = false;
+                periodicFound = false;
+            }
+            if (snapshotInfo.getType() == IncrementalSnapshotInfo.SnapshotType.PERIODIC) {
+                if (periodicFound) {
+                    iterator.remove();
+                }
+                periodicFound = true;
+            } else if (baseFound) {
+                iterator.remove();
+            } else if (snapshotInfo.getType() == IncrementalSnapshotInfo.SnapshotType.BASE) {
+                baseFound = true;
+            }
+        }
+        AppPrefetch appPrefetch = new AppPrefetch(restoreOrder);
+        appPrefetches.put(siddhiAppName, appPrefetch);
+        appPrefetch.fill();
+    }
+
+    /**
+     * Returns the revision, waiting for it if it is being prefetched, or else loading it directly.
+     */
+    public byte[] load(IncrementalSnapshotInfo snapshotInfo) {
+        AppPrefetch appPrefetch = appPrefetches.get(snapshotInfo.getSiddhiAppId());
+        Future<byte[]> future = null;
+        if (appPrefetch != null) {
+            future = appPrefetch.take(snapshotInfo.getRevision());
+            if (appPrefetch.isCompleted()) {
+                appPrefetches.remove(snapshotInfo.getSiddhiAppId(), appPrefetch);
+            }
+        }
+        if (future == null) {
+            return loader.apply(snapshotInfo);
+        }
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return future.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException("Cannot load the revision '" + snapshotInfo.getRevision() +
+                    "' of SiddhiApp '" + snapshotInfo.getSiddhiAppId() + "'.", e.getCause());
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Discards the revisions prefetched for the Siddhi app.
+     */
+    public void clear(String siddhiAppName) {
+        AppPrefetch appPrefetch = appPrefetches.remove(siddhiAppName);
+        if (appPrefetch != null) {
+            appPrefetch.cancel();
+        }
+    }
+
+    private static synchronized ExecutorService getPrefetchExecutorService(int threadPoolSize) {
+        if (prefetchExecutorService == null) {
+            prefetchExecutorService = Executors.newFixedThreadPool(threadPoolSize,
+                    new ThreadFactoryBuilder().setNameFormat("IncrementalSnapshotPrefetch-%d").setDaemon(true)
+                            .build());
+        }
+        return prefetchExecutorService;
+    }
+
+    private class AppPrefetch {
+        private final List<IncrementalSnapshotInfo> restoreOrder;
+        private final Map<String, Integer> positions = new HashMap<>();
+        private final Map<Integer, Future<byte[]>> futures = new HashMap<>();
+        private int nextToLoad = 0;
+        private int nextToTake = 0;
+
+        AppPrefetch(List<IncrementalSnapshotInfo> restoreOrder) {
+            this.restoreOrder = restoreOrder;
+            for (int i = 0; i < restoreOrder.size(); i++) {
+                positions.put(restoreOrder.get(i).getRevision(), i);
+            }
+        }
+
+        synchronized Future<byte[]> take(String revision) {
+            Integer position = positions.get(revision);
+            if (position == null || position < nextToTake) {
+                return null;
+            }
+            // revisions passed over were not needed by the restore after all
+            for (int i = nextToTake; i < position; i++) {
+                Future<byte[]> skipped = futures.remove(i);
+                if (skipped != null) {
+                    skipped.cancel(false);
+                }
+            }
+            nextToTake = position + 1;
+            nextToLoad = Math.max(nextToLoad, nextToTake);
+            Future<byte[]> future = futures.remove(position);
+            fill();
+            if (future == null && log.isDebugEnabled()) {
+                log.debug("Revision " + revision + " was not prefetched, hence loading it directly.");
+            }
+            return future;
+        }
+
+        synchronized void fill() {
+            ExecutorService executorService = getPrefetchExecutorService(threadPoolSize);
+            while (nextToLoad < restoreOrder.size() && nextToLoad < nextToTake + prefetchSize) {
+                IncrementalSnapshotInfo snapshotInfo = restoreOrder.get(nextToLoad);
+                futures.put(nextToLoad, executorService.submit(() -> loader.apply(snapshotInfo)));
+                nextToLoad++;
+            }
+        }
+
+        synchronized boolean isCompleted() {
+            return nextToTake >= restoreOrder.size();
+        }
+
+        synchronized void cancel() {
+            for (Future<byte[]> future : futures.values()) {
+                future.cancel(false);
+            }
+            futures.clear();
+            nextToTake = restoreOrder.size();
+        }
+    }
+}
@@ -18,6 +18,7 @@
 
 package org.wso2.carbon.streaming.integrator.core.persistence;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.commons.pool.impl.GenericKeyedObjectPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,13 +27,25 @@ import org.wso2.carbon.streaming.integrator.core.ha.transport.EventSyncConnectio
 import org.wso2.carbon.streaming.integrator.core.ha.transport.EventSyncConnection;
 import org.wso2.carbon.streaming.integrator.core.ha.util.HAConstants;
 import org.wso2.carbon.streaming.integrator.core.internal.StreamProcessorDataHolder;
+import org.wso2.carbon.streaming.integrator.core.internal.util.SiddhiAppProcessorConstants;
+import org.wso2.carbon.streaming.integrator.core.persistence.beans.PersistenceConfigurations;
 import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.exception.CannotRestoreSiddhiAppStateException;
 import io.siddhi.core.exception.ConnectionUnavailableException;
+import io.siddhi.core.util.SiddhiConstants;
 import io.siddhi.core.util.snapshot.PersistenceReference;
+import io.siddhi.core.util.statistics.LatencyTracker;
 
 import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
@@ -43,6 +56,9 @@ import java.util.concurrent.atomic.AtomicLong;
 public class PersistenceManager implements Runnable {
 
     private static final Logger log = LoggerFactory.getLogger(PersistenceManager.class);
+    private static final Map<String, LatencyTracker> latencyTrackers = new ConcurrentHashMap<>();
+    private static final Map<String, LatencyTracker> restoreLatencyTrackers = new ConcurrentHashMap<>();
+    private static ExecutorService persistenceExecutorService;
     private HAManager haManager;
     private AtomicLong sequenceIDGenerator;
     private GenericKeyedObjectPool tcpConnectionPool;
@@ -75,60 +91,202 @@ public class PersistenceManager implements Runnable {
     }
 
     private void persist() {
+        persistSiddhiApps(false);
+    }
+
+    private void persistAndSendControlMessage() {
+        List<String> siddhiRevisions = persistSiddhiApps(true);
+        if (!siddhiRevisions.isEmpty() && haManager != null && haManager.isActiveNode() &&
+                haManager.isPassiveNodeAdded()) {
+            String[] siddhiRevisionArray = siddhiRevisions.toArray(new String[0]);
+            sendControlMessageToPassiveNode(siddhiRevisionArray);
+            if (log.isDebugEnabled()) {
+                log.debug("Control Message is sent to the passive node - " + Arrays.toString(siddhiRevisionArray));
+            }
+        }
+    }
+
+    /**
+     * Persists the Siddhi apps which changed since their last persistence, in parallel.
+     *
+     * @param isActiveNode whether the revisions need to be tagged with a control message sequence id
+     * @return control message entries of the persisted Siddhi apps
+     */
+    private List<String> persistSiddhiApps(boolean isActiveNode) {
         ConcurrentMap<String, SiddhiAppRuntime> siddhiAppRuntimeMap = StreamProcessorDataHolder.
                 getSiddhiManager().getSiddhiAppRuntimeMap();
+        List<String> siddhiRevisions = new ArrayList<>();
+        if (null == siddhiAppRuntimeMap || siddhiAppRuntimeMap.size() == 0) {
+            return siddhiRevisions;
+        }
+        PersistenceConfigurations persistenceConfigurations = getPersistenceConfigurations();
+        SiddhiAppStateTracker.retainAll(siddhiAppRuntimeMap.keySet());
+        latencyTrackers.keySet().retainAll(siddhiAppRuntimeMap.keySet());
+        restoreLatencyTrackers.keySet().retainAll(siddhiAppRuntimeMap.keySet());
+        List<Future<String>> persistFutures = new ArrayList<>();
+        int skippedAppCount = 0;
         for (SiddhiAppRuntime siddhiAppRuntime : siddhiAppRuntimeMap.values()) {
-            PersistenceReference persistenceReference = siddhiAppRuntime.persist();
-            if (log.isDebugEnabled()) {
-                log.debug("Revision " + persistenceReference.getRevision() +
-                        " of siddhi App " + siddhiAppRuntime.getName() + " persisted successfully");
+            if (persistenceConfigurations.isSkipIdleApps() && !SiddhiAppStateTracker.isPersistenceRequired(
+                    siddhiAppRuntime, persistenceConfigurations.getMaxSkippedIntervals())) {
+                skippedAppCount++;
+                continue;
+            }
+            persistFutures.add(getPersistenceExecutorService(persistenceConfigurations).submit(() ->
+                    persistSiddhiApp(siddhiAppRuntime, persistenceConfigurations.getPersistenceTimeoutMillis(),
+                            isActiveNode)));
+        }
+        for (Future<String> persistFuture : persistFutures) {
+            try {
+                String siddhiRevision = persistFuture.get();
+                if (siddhiRevision != null) {
+                    siddhiRevisions.add(siddhiRevision);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.error("Interrupted while persisting Siddhi apps", e);
+                break;
+            } catch (ExecutionException e) {
+                log.error("Error in persisting Siddhi app. " + e.getCause().getMessage(), e.getCause());
             }
         }
         if (StreamProcessorDataHolder.getNodeInfo() != null) {
             StreamProcessorDataHolder.getNodeInfo().setLastPersistedTimestamp(System.currentTimeMillis());
         }
+        log.info("Siddhi apps persisted successfully. Persisted " + persistFutures.size() + " and skipped " +
+                skippedAppCount + " idle Siddhi apps");
+        return siddhiRevisions;
     }
 
-    private void persistAndSendControlMessage() {
-        ConcurrentMap<String, SiddhiAppRuntime> siddhiAppRuntimeMap = StreamProcessorDataHolder.
-                getSiddhiManager().getSiddhiAppRuntimeMap();
-        if (null != siddhiAppRuntimeMap && siddhiAppRuntimeMap.size() != 0) {
-            String[] siddhiRevisionArray = new String[siddhiAppRuntimeMap.size()];
-            int siddhiAppCount = 0;
-            for (SiddhiAppRuntime siddhiAppRuntime : siddhiAppRuntimeMap.values()) {
-                PersistenceReference persistenceReference = siddhiAppRuntime.persist();
-                Future fullStateFuture = persistenceReference.getFullStateFuture();
-                try {
-                    if (fullStateFuture != null) {
-                        fullStateFuture.get(60000, TimeUnit.MILLISECONDS);
-                    } else {
-                        for (Future future : persistenceReference.getIncrementalStateFuture()) {
-                            future.get(60000, TimeUnit.MILLISECONDS);
-                        }
-                    }
-                } catch (Throwable e) {
-                    log.error("Active Node: Persisting of Siddhi app is not successful. " +
-                            "Check if app deployed properly." + e.getMessage(), e);
-                }
-                siddhiRevisionArray[siddhiAppCount] = sequenceIDGenerator.incrementAndGet() + HAConstants
-                        .PERSISTED_APP_SPLIT_DELIMITER + persistenceReference.getRevision();
-                siddhiAppCount++;
-                if (log.isDebugEnabled()) {
-                    log.debug("Revision " + persistenceReference.getRevision() +
-                            " of siddhi App " + siddhiAppRuntime.getName() + " persisted successfully");
+    private String persistSiddhiApp(SiddhiAppRuntime siddhiAppRuntime, long persistenceTimeoutMillis,
+                                    boolean isActiveNode) {
+        String siddhiAppName = siddhiAppRuntime.getName();
+        LatencyTracker latencyTracker = getLatencyTracker(siddhiAppName);
+        if (latencyTracker != null) {
+            latencyTracker.markIn();
+        }
+        long startTime = System.currentTimeMillis();
+        long deadline = startTime + persistenceTimeoutMillis;
+        SiddhiAppStateTracker.onPersistenceStarted(siddhiAppName);
+        PersistenceReference persistenceReference;
+        try {
+            persistenceReference = siddhiAppRuntime.persist();
+            Future fullStateFuture = persistenceReference.getFullStateFuture();
+            if (fullStateFuture != null) {
+                fullStateFuture.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            } else {
+                for (Future future : persistenceReference.getIncrementalStateFuture()) {
+                    future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
                 }
             }
-            if (StreamProcessorDataHolder.getNodeInfo() != null) {
-                StreamProcessorDataHolder.getNodeInfo().setLastPersistedTimestamp(System.currentTimeMillis());
+        } catch (Throwable e) {
+            SiddhiAppStateTracker.onPersistenceFailed(siddhiAppName);
+            log.error("Persisting of Siddhi app " + siddhiAppName + " is not successful within " +
+                    persistenceTimeoutMillis + " ms. Check if app deployed properly." + e.getMessage(), e);
+            return null;
+        } finally {
+            if (latencyTracker != null) {
+                latencyTracker.markOut();
             }
-            log.info("Siddhi apps persisted successfully");
-            if (haManager != null && haManager.isActiveNode() && haManager.isPassiveNodeAdded()) {
-                sendControlMessageToPassiveNode(siddhiRevisionArray);
-                if (log.isDebugEnabled()) {
-                    log.debug("Control Message is sent to the passive node - " + Arrays.toString(siddhiRevisionArray));
-                }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Revision " + persistenceReference.getRevision() + " of siddhi App " + siddhiAppName +
+                    " persisted successfully in " + (System.currentTimeMillis() - startTime) + " ms");
+        }
+        if (!isActiveNode) {
+            return persistenceReference.getRevision();
+        }
+        return sequenceIDGenerator.incrementAndGet() + HAConstants.PERSISTED_APP_SPLIT_DELIMITER +
+                persistenceReference.getRevision();
+    }
+
+    private static PersistenceConfigurations getPersistenceConfigurations() {
+        PersistenceConfigurations persistenceConfigurations = StreamProcessorDataHolder.getPersistenceConfigurations();
+        return persistenceConfigurations != null ? persistenceConfigurations : new PersistenceConfigurations();
+    }
+
+    private static synchronized ExecutorService getPersistenceExecutorService(
+            PersistenceConfigurations persistenceConfigurations) {
+        if (persistenceExecutorService == null) {
+            persistenceExecutorService = Executors.newFixedThreadPool(
+                    Math.max(1, persistenceConfigurations.getPersistenceThreadPoolSize()),
+                    new ThreadFactoryBuilder().setNameFormat("SiddhiAppPersistence-%d").setDaemon(true).build());
+        }
+        return persistenceExecutorService;
+    }
+
+    /**
+     * Restores the Siddhi app to its last persisted revision, reporting the time taken to the restore latency metric
+     * of the app.
+     *
+     * @param siddhiAppRuntime Siddhi app runtime to be restored
+     * @return the restored revision, or null if the app has no persisted revision
+     * @throws CannotRestoreSiddhiAppStateException if the state of the app cannot be restored
+     */
+    public static String restoreLastRevision(SiddhiAppRuntime siddhiAppRuntime)
+            throws CannotRestoreSiddhiAppStateException {
+        LatencyTracker latencyTracker = getLatencyTracker(restoreLatencyTrackers, siddhiAppRuntime.getName(),
+                SiddhiAppProcessorConstants.PERSISTENCE_METRICS_RESTORE_LATENCY);
+        if (latencyTracker != null) {
+            latencyTracker.markIn();
+        }
+        long startTime = System.currentTimeMillis();
+        try {
+            return siddhiAppRuntime.restoreLastRevision();
+        } finally {
+            if (latencyTracker != null) {
+                latencyTracker.markOut();
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Restoring Siddhi app " + siddhiAppRuntime.getName() + " took " +
+                        (System.currentTimeMillis() - startTime) + " ms");
+            }
+        }
+    }
+
+    /**
+     * Restores the Siddhi app to the given revision, reporting the time taken to the restore latency metric of the app.
+     *
+     * @param siddhiAppRuntime Siddhi app runtime to be restored
+     * @param revision         revision to be restored
+     * @throws CannotRestoreSiddhiAppStateException if the state of the app cannot be restored
+     */
+    public static void restoreRevision(SiddhiAppRuntime siddhiAppRuntime, String revision)
+            throws CannotRestoreSiddhiAppStateException {
+        LatencyTracker latencyTracker = getLatencyTracker(restoreLatencyTrackers, siddhiAppRuntime.getName(),
+                SiddhiAppProcessorConstants.PERSISTENCE_METRICS_RESTORE_LATENCY);
+        if (latencyTracker != null) {
+            latencyTracker.markIn();
+        }
+        long startTime = System.currentTimeMillis();
+        try {
+            siddhiAppRuntime.restoreRevision(revision);
+        } finally {
+            if (latencyTracker != null) {
+                latencyTracker.markOut();
             }
+            if (log.isDebugEnabled()) {
+                log.debug("Restoring revision " + revision + " of Siddhi app " + siddhiAppRuntime.getName() +
+                        " took " + (System.currentTimeMillis() - startTime) + " ms");
+            }
+        }
+    }
+
+    private static LatencyTracker getLatencyTracker(String siddhiAppName) {
+        return getLatencyTracker(latencyTrackers, siddhiAppName,
+                SiddhiAppProcessorConstants.PERSISTENCE_METRICS_LATENCY);
+    }
+
+    private static LatencyTracker getLatencyTracker(Map<String, LatencyTracker> latencyTrackers,
+                                                    String siddhiAppName, String metricName) {
+        if (!StreamProcessorDataHolder.isStatisticsEnabled() ||
+                StreamProcessorDataHolder.getStatisticsConfiguration() == null) {
+            return null;
         }
+        return latencyTrackers.computeIfAbsent(siddhiAppName, key ->
+                StreamProcessorDataHolder.getStatisticsConfiguration().getFactory().createLatencyTracker(
+                        SiddhiAppProcessorConstants.PERSISTENCE_METRICS_PREFIX + SiddhiConstants.METRIC_DELIMITER +
+                                siddhiAppName + SiddhiConstants.METRIC_DELIMITER + metricName,
+                        StreamProcessorDataHolder.getStatisticsManager()));
     }
 
     private void sendControlMessageToPassiveNode(String[] siddhiRevisionArray) {
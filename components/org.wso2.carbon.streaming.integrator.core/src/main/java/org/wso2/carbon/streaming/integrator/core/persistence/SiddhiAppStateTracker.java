@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.persistence;
+
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.event.Event;
+import io.siddhi.core.stream.output.StreamCallback;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Tracks the Siddhi apps which had events flowing through any of their streams since their last persistence, so
+ * that the periodic persistence can skip the idle ones. State can also change without stream events (e.g. on-demand
+ * queries on tables), hence an idle app is still persisted once it has been skipped for the given number of
+ * intervals.
+ * <p>
+ * Tracking adds a callback to every stream of the app, hence it is only used when skipping idle apps is enabled
+ * through the skipIdleApps persistence configuration, which is disabled by default.
+ */
+public class SiddhiAppStateTracker {
+    private static final ConcurrentMap<String, TrackedApp> trackedApps = new ConcurrentHashMap<>();
+
+    private SiddhiAppStateTracker() {
+    }
+
+    /**
+     * Checks whether the Siddhi app needs to be persisted in this interval. An app seen for the first time is
+     * always persisted.
+     *
+     * @param siddhiAppRuntime    Siddhi app runtime
+     * @param maxSkippedIntervals number of consecutive intervals an idle app can be skipped
+     * @return true if the app needs to be persisted
+     */
+    public static boolean isPersistenceRequired(SiddhiAppRuntime siddhiAppRuntime, int maxSkippedIntervals) {
+        TrackedApp trackedApp = trackedApps.get(siddhiAppRuntime.getName());
+        if (trackedApp == null || trackedApp.siddhiAppRuntime != siddhiAppRuntime) {
+            trackedApps.put(siddhiAppRuntime.getName(), new TrackedApp(siddhiAppRuntime));
+            return true;
+        }
+        if (trackedApp.changed) {
+            return true;
+        }
+        return ++trackedApp.skippedIntervals > maxSkippedIntervals;
+    }
+
+    /**
+     * Marks the Siddhi app as unchanged, to be called right before taking its snapshot so that the events arriving
+     * meanwhile mark it as changed again.
+     */
+    public static void onPersistenceStarted(String siddhiAppName) {
+        TrackedApp trackedApp = trackedApps.get(siddhiAppName);
+        if (trackedApp != null) {
+            trackedApp.changed = false;
+            trackedApp.skippedIntervals = 0;
+        }
+    }
+
+    /**
+     * Marks the Siddhi app as changed so that it is persisted again in the next interval.
+     */
+    public static void onPersistenceFailed(String siddhiAppName) {
+        TrackedApp trackedApp = trackedApps.get(siddhiAppName);
+        if (trackedApp != null) {
+            trackedApp.changed = true;
+        }
+    }
+
+    /**
+     * Stops tracking the Siddhi apps which are not deployed anymore.
+     */
+    public static void retainAll(Collection<String> siddhiAppNames) {
+        trackedApps.keySet().retainAll(siddhiAppNames);
+    }
+
+    private static class TrackedApp {
+        private final SiddhiAppRuntime siddhiAppRuntime;
+        private volatile boolean changed = true;
+        private int skippedIntervals = 0;
+
+        TrackedApp(SiddhiAppRuntime siddhiAppRuntime) {
+            this.siddhiAppRuntime = siddhiAppRuntime;
+            for (String streamId : siddhiAppRuntime.getStreamDefinitionMap().keySet()) {
+                siddhiAppRuntime.addCallback(streamId, new StreamCallback() {
+                    @Override
+                    public void receive(Event[] events) {
+                        if (!changed) {
+                            changed = true;
+                        }
+                    }
+                });
+            }
+        }
+    }
+}
@@ -20,6 +20,7 @@ package org.wso2.carbon.streaming.integrator.core.persistence.beans;
 
 import org.wso2.carbon.config.annotation.Configuration;
 import org.wso2.carbon.streaming.integrator.core.persistence.FileSystemPersistenceStore;
+import org.wso2.carbon.streaming.integrator.core.persistence.compression.GzipSnapshotCodec;
 
 @Configuration(namespace = "state.persistence", description = "Query configurations for state persistence")
 public class PersistenceConfigurations {
@@ -27,6 +28,13 @@ public class PersistenceConfigurations {
     private int intervalInMin = 1;
     private int revisionsToKeep = 3;
     private String persistenceStore = FileSystemPersistenceStore.class.getName();
+    private int persistenceThreadPoolSize = 4;
+    private long persistenceTimeoutMillis = 60000;
+    private boolean skipIdleApps = false;
+    private int maxSkippedIntervals = 10;
+    private String compression = GzipSnapshotCodec.NAME;
+    private int restoreThreadPoolSize = 4;
+    private int restorePrefetchSize = 16;
     private PersistenceStoreConfigs config;
 
     public boolean isEnabled() {
@@ -61,6 +69,62 @@ public class PersistenceConfigurations {
         this.persistenceStore = persistenceStore;
     }
 
+    public int getPersistenceThreadPoolSize() {
+        return persistenceThreadPoolSize;
+    }
+
+    public void setPersistenceThreadPoolSize(int persistenceThreadPoolSize) {
+        this.persistenceThreadPoolSize = persistenceThreadPoolSize;
+    }
+
+    public long getPersistenceTimeoutMillis() {
+        return persistenceTimeoutMillis;
+    }
+
+    public void setPersistenceTimeoutMillis(long persistenceTimeoutMillis) {
+        this.persistenceTimeoutMillis = persistenceTimeoutMillis;
+    }
+
+    public boolean isSkipIdleApps() {
+        return skipIdleApps;
+    }
+
+    public void setSkipIdleApps(boolean skipIdleApps) {
+        this.skipIdleApps = skipIdleApps;
+    }
+
+    public int getMaxSkippedIntervals() {
+        return maxSkippedIntervals;
+    }
+
+    public void setMaxSkippedIntervals(int maxSkippedIntervals) {
+        this.maxSkippedIntervals = maxSkippedIntervals;
+    }
+
+    public String getCompression() {
+        return compression;
+    }
+
+    public void setCompression(String compression) {
+        this.compression = compression;
+    }
+
+    public int getRestoreThreadPoolSize() {
+        return restoreThreadPoolSize;
+    }
+
+    public void setRestoreThreadPoolSize(int restoreThreadPoolSize) {
+        this.restoreThreadPoolSize = restoreThreadPoolSize;
+    }
+
+    public int getRestorePrefetchSize() {
+        return restorePrefetchSize;
+    }
+
+    public void setRestorePrefetchSize(int restorePrefetchSize) {
+        this.restorePrefetchSize = restorePrefetchSize;
+    }
+
     public PersistenceStoreConfigs getConfig() {
         return config;
     }
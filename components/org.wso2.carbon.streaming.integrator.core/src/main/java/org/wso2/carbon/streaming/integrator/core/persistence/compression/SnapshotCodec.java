@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.persistence.compression;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Compression codec of the snapshots written by the persistence stores. The codec is chosen by the 'compression'
+ * property of the state persistence configuration, either by the name of a built-in codec or by the class name of
+ * an implementation with a default constructor.
+ */
+public interface SnapshotCodec {
+
+    /**
+     * @return id of the codec, written to the header of each compressed snapshot. Built-in codecs use the ids below
+     * 16, hence custom codecs should use higher ids
+     */
+    byte getId();
+
+    String getName();
+
+    /**
+     * @param out stream to write the compressed snapshot to, which is closed when the returned stream is closed
+     * @return stream compressing the snapshot written to it
+     * @throws IOException if the compressed stream cannot be started
+     */
+    OutputStream compress(OutputStream out) throws IOException;
+
+    /**
+     * @param in stream of the compressed snapshot, which is closed when the returned stream is closed
+     * @return stream of the decompressed snapshot
+     * @throws IOException if the compressed stream is malformed
+     */
+    InputStream decompress(InputStream in) throws IOException;
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.persistence.compression;
+
+import org.apache.log4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Compresses the snapshots with the configured {@link SnapshotCodec}, and decompresses them with the codec they
+ * were written with.
+ * <p>
+ * Snapshots compressed with GZIP are written as the plain GZIP stream, as before the codecs became configurable, so
+ * that they can also be read by older nodes. Snapshots of the other codecs are prefixed with a header of a magic
+ * number, the codec id and the size of the snapshot. As the GZIP stream starts with its own magic number, which
+ * differs from the header, both formats are told apart when loading.
+ */
+public final class SnapshotCompression {
+    private static final Logger log = Logger.getLogger(SnapshotCompression.class);
+    public static final String COMPRESSION_PROPERTY = "compression";
+    private static final int HEADER_MAGIC = 0x53494E50;
+    private static final int HEADER_SIZE = 4 + 1 + 4;
+    private static final int BUFFER_SIZE = 65536;
+    private static final byte GZIP_MAGIC_FIRST_BYTE = (byte) 0x1f;
+    private static final byte GZIP_MAGIC_SECOND_BYTE = (byte) 0x8b;
+    private static final SnapshotCodec GZIP_CODEC = new GzipSnapshotCodec();
+    private static final Map<Byte, SnapshotCodec> codecs = new ConcurrentHashMap<>();
+    private static final Map<Byte, Boolean> availableCodecs = new ConcurrentHashMap<>();
+    private static final Map<String, String> unavailableBuiltInCodecs = new ConcurrentHashMap<>();
+
+    static {
+        register(GZIP_CODEC);
+        // lambdas rather than constructor references, so that a missing library fails within registerBuiltIn
+        registerBuiltIn(Lz4SnapshotCodec.NAME, () -> new Lz4SnapshotCodec());
+    }
+
+    private SnapshotCompression() {
+    }
+
+    /**
+     * Resolves the codec configured in the state persistence configuration, defaulting to GZIP.
+     *
+     * @param properties state persistence configuration
+     * @return the configured codec
+     */
+    public static SnapshotCodec getCodec(Map properties) {
+        Object codecObject = properties == null ? null : properties.get(COMPRESSION_PROPERTY);
+        if (!(codecObject instanceof String)) {
+            if (log.isDebugEnabled()) {
+                log.debug("Snapshot compression is not set or invalid. GZIP compression will be used.");
+            }
+            return GZIP_CODEC;
+        }
+        String codecName = ((String) codecObject).trim();
+        for (SnapshotCodec codec : codecs.values()) {
+            if (codec.getName().equalsIgnoreCase(codecName)) {
+                return isAvailable(codec) ? codec : GZIP_CODEC;
+            }
+        }
+        String unavailableReason = unavailableBuiltInCodecs.get(codecName.toLowerCase(Locale.ENGLISH));
+        if (unavailableReason != null) {
+            log.error("Snapshot compression " + codecName + " is not available, " + unavailableReason +
+                    ". GZIP compression will be used.");
+            return GZIP_CODEC;
+        }
+        try {
+            Object codec = Class.forName(codecName).newInstance();
+            if (codec instanceof SnapshotCodec) {
+                if (register((SnapshotCodec) codec) && isAvailable((SnapshotCodec) codec)) {
+                    return (SnapshotCodec) codec;
+                }
+                return GZIP_CODEC;
+            }
+            log.error("Snapshot compression class " + codecName + " does not implement " +
+                    SnapshotCodec.class.getName() + ". GZIP compression will be used.");
+        } catch (ClassNotFoundException | InstantiationException | IllegalAccessException e) {
+            log.error("Snapshot compression " + codecName + " is invalid. GZIP compression will be used.", e);
+        }
+        return GZIP_CODEC;
+    }
+
+    public static byte[] compress(SnapshotCodec codec, byte[] snapshot) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(snapshot.length / 4 + HEADER_SIZE);
+        compress(codec, snapshot, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Writes the compressed snapshot to the given stream, without buffering the compressed snapshot in heap.
+     *
+     * @param codec    codec to compress with
+     * @param snapshot the snapshot
+     * @param out      stream to write to, which is flushed but left open
+     * @throws IOException if the compressed snapshot cannot be written
+     */
+    public static void compress(SnapshotCodec codec, byte[] snapshot, OutputStream out) throws IOException {
+        if (codec.getId() != GZIP_CODEC.getId()) {
+            out.write(ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(HEADER_MAGIC)
+                    .put(codec.getId())
+                    .putInt(snapshot.length)
+                    .array());
+        }
+        try (OutputStream compressedOut = codec.compress(new UnclosedOutputStream(out))) {
+            compressedOut.write(snapshot);
+        }
+    }
+
+    /**
+     * Decompresses a snapshot written by {@link #compress(SnapshotCodec, byte[])} with any of the codecs.
+     *
+     * @param compressedSnapshot the compressed snapshot
+     * @return the snapshot
+     * @throws IOException if the codec of the snapshot is not known or the snapshot cannot be decompressed
+     */
+    public static byte[] decompress(byte[] compressedSnapshot) throws IOException {
+        return decompress(new ByteArrayInputStream(compressedSnapshot));
+    }
+
+    /**
+     * Reads a snapshot written by {@link #compress(SnapshotCodec, byte[], OutputStream)} with any of the codecs,
+     * without buffering the compressed snapshot in heap.
+     *
+     * @param in stream of the compressed snapshot, which is closed once read
+     * @return the snapshot
+     * @throws IOException if the codec of the snapshot is not known or the snapshot cannot be decompressed
+     */
+    public static byte[] decompress(InputStream in) throws IOException {
+        try (PushbackInputStream compressedIn = new PushbackInputStream(in, 2)) {
+            byte[] magic = new byte[2];
+            int magicLength = 0;
+            int length;
+            while (magicLength < magic.length &&
+                    (length = compressedIn.read(magic, magicLength, magic.length - magicLength)) > 0) {
+                magicLength += length;
+            }
+            compressedIn.unread(magic, 0, magicLength);
+            if (magicLength == 2 && magic[0] == GZIP_MAGIC_FIRST_BYTE && magic[1] == GZIP_MAGIC_SECOND_BYTE) {
+                try (InputStream snapshotIn = GZIP_CODEC.decompress(compressedIn)) {
+                    return readSnapshot(snapshotIn);
+                }
+            }
+            DataInputStream headerIn = new DataInputStream(compressedIn);
+            if (magicLength < 2 || headerIn.readInt() != HEADER_MAGIC) {
+                throw new IOException("Snapshot is not compressed with a known codec");
+            }
+            byte codecId = headerIn.readByte();
+            SnapshotCodec codec = codecs.get(codecId);
+            if (codec == null) {
+                throw new IOException("Snapshot is compressed with the unknown codec id " + codecId +
+                        ", configure the codec in the state persistence configuration to load it");
+            }
+            byte[] snapshot = new byte[headerIn.readInt()];
+            try (DataInputStream snapshotIn = new DataInputStream(codec.decompress(compressedIn))) {
+                snapshotIn.readFully(snapshot);
+            } catch (LinkageError e) {
+                throw new IOException("Snapshot is compressed with the codec " + codec.getName() + ", which is " +
+                        "not available in this node. " + e.getMessage(), e);
+            }
+            return snapshot;
+        }
+    }
+
+    private static byte[] readSnapshot(InputStream snapshotIn) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(BUFFER_SIZE);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int length;
+        while ((length = snapshotIn.read(buffer)) > 0) {
+            out.write(buffer, 0, length);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Checks whether the codec can compress and decompress a snapshot, as the libraries of the codecs other than
+     * GZIP may not be available at runtime.
+     */
+    private static boolean isAvailable(SnapshotCodec codec) {
+        Boolean available = availableCodecs.get(codec.getId());
+        if (available != null) {
+            return available;
+        }
+        byte[] probe = "snapshot".getBytes(StandardCharsets.UTF_8);
+        try {
+            available = Arrays.equals(decompress(compress(codec, probe)), probe);
+            if (!available) {
+                log.error("Snapshot compression " + codec.getName() + " does not restore the compressed " +
+                        "snapshots. GZIP compression will be used.");
+            }
+        } catch (IOException | RuntimeException | LinkageError e) {
+            available = false;
+            log.error("Snapshot compression " + codec.getName() + " is not available. GZIP compression will be " +
+                    "used. " + e.getMessage(), e);
+        }
+        availableCodecs.put(codec.getId(), available);
+        return available;
+    }
+
+    /**
+     * Registers a built-in codec, unless the library it depends on is not packaged.
+     */
+    private static void registerBuiltIn(String codecName, Supplier<SnapshotCodec> codecSupplier) {
+        try {
+            register(codecSupplier.get());
+        } catch (LinkageError e) {
+            unavailableBuiltInCodecs.put(codecName, "its library could not be loaded: " + e.getMessage());
+            if (log.isDebugEnabled()) {
+                log.debug("Snapshot compression " + codecName + " is not available. " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private static boolean register(SnapshotCodec codec) {
+        SnapshotCodec existingCodec = codecs.putIfAbsent(codec.getId(), codec);
+        if (existingCodec != null && !existingCodec.getClass().equals(codec.getClass())) {
+            log.error("Snapshot codec " + codec.getName() + " uses the id " + codec.getId() + " of the codec " +
+                    existingCodec.getName() + ". GZIP compression will be used.");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Keeps the stream a compressed snapshot is written to open after the codec stream is closed, so that the
+     * caller can sync it before closing.
+     */
+    private static class UnclosedOutputStream extends FilterOutputStream {
+
+        UnclosedOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+}
@@ -21,13 +21,18 @@ package org.wso2.carbon.streaming.integrator.core.persistence.util;
 import org.apache.log4j.Logger;
 
 import javax.sql.DataSource;
+import javax.sql.rowset.serial.SerialBlob;
+import java.io.ByteArrayInputStream;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Map;
 
 public class DBPersistenceStoreUtils {
     private static final Logger log = Logger.getLogger(DBPersistenceStoreUtils.class);
+    private static final String POSTGRES_DATABASE_TYPE = "postgresql";
 
     /**
      * Method that would create the persistence table
@@ -72,6 +77,41 @@ public class DBPersistenceStoreUtils {
         }
     }
 
+    /**
+     * Sets the snapshot parameter of the insert statement. The snapshot is streamed from the given bytes, except for
+     * PostgreSQL where it is kept as a large object and hence needs to be set as a Blob.
+     */
+    public static void setSnapshot(PreparedStatement stmt, int parameterIndex, byte[] snapshot, String databaseType)
+            throws SQLException {
+        if (POSTGRES_DATABASE_TYPE.equals(databaseType)) {
+            stmt.setBlob(parameterIndex, new SerialBlob(snapshot));
+        } else {
+            stmt.setBinaryStream(parameterIndex, new ByteArrayInputStream(snapshot), snapshot.length);
+        }
+    }
+
+    /**
+     * Reads the batch size of the database persistence stores from the persistence configurations.
+     */
+    public static int getBatchSize(Map configurationMap) {
+        Object batchSizeObject = configurationMap == null ? null :
+                configurationMap.get(PersistenceConstants.DB_PERSISTENCE_BATCH_SIZE);
+        if (!(batchSizeObject instanceof Integer) || (int) batchSizeObject < 1) {
+            return PersistenceConstants.DEFAULT_DB_PERSISTENCE_BATCH_SIZE;
+        }
+        return (int) batchSizeObject;
+    }
+
+    public static void rollback(Connection connection) {
+        if (connection != null) {
+            try {
+                connection.rollback();
+            } catch (SQLException e) {
+                log.error("Unable to rollback the transaction." + e.getMessage(), e);
+            }
+        }
+    }
+
     public static void cleanupConnections(Statement stmt, Connection connection) {
         if (stmt != null) {
             try {
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.persistence.util;
+
+import org.apache.log4j.Logger;
+import org.wso2.carbon.streaming.integrator.core.persistence.compression.SnapshotCodec;
+import org.wso2.carbon.streaming.integrator.core.persistence.compression.SnapshotCompression;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes and reads the snapshots of the file system persistence stores. Snapshots are compressed straight to a
+ * temporary file which is renamed to the revision once complete, so that a revision file is never seen partially
+ * written, and are decompressed straight from the revision file when loaded.
+ */
+public class FileSystemPersistenceStoreUtils {
+    private static final Logger log = Logger.getLogger(FileSystemPersistenceStoreUtils.class);
+    private static final int BUFFER_SIZE = 65536;
+
+    private FileSystemPersistenceStoreUtils() {
+    }
+
+    /**
+     * Writes the compressed snapshot to the revision file.
+     *
+     * @param folder   persistence folder
+     * @param file     revision file
+     * @param snapshot the snapshot
+     * @param codec    codec to compress the snapshot with
+     * @param fsync    whether to sync the revision to the disk before returning
+     * @throws IOException if the revision cannot be written
+     */
+    public static void writeSnapshot(String folder, File file, byte[] snapshot, SnapshotCodec codec, boolean fsync)
+            throws IOException {
+        Path tempDirectory = getTempDirectory(folder);
+        Path parentDirectory = file.toPath().toAbsolutePath().getParent();
+        Files.createDirectories(tempDirectory);
+        Files.createDirectories(parentDirectory);
+        Path tempFile = Files.createTempFile(tempDirectory, file.getName(), PersistenceConstants.TEMP_FILE_SUFFIX);
+        try {
+            try (FileChannel fileChannel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+                OutputStream out = new BufferedOutputStream(Channels.newOutputStream(fileChannel), BUFFER_SIZE);
+                SnapshotCompression.compress(codec, snapshot, out);
+                if (fsync) {
+                    fileChannel.force(true);
+                }
+            }
+            Files.move(tempFile, file.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+            if (fsync) {
+                syncDirectory(parentDirectory);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Reads the snapshot of the revision file.
+     *
+     * @param file revision file
+     * @return the snapshot
+     * @throws IOException if the revision cannot be read or decompressed
+     */
+    public static byte[] readSnapshot(File file) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file.toPath()), BUFFER_SIZE)) {
+            return SnapshotCompression.decompress(in);
+        }
+    }
+
+    /**
+     * Deletes the temporary files of the revisions which were being written when the server stopped.
+     *
+     * @param folder persistence folder
+     */
+    public static void cleanTempFiles(String folder) {
+        Path tempDirectory = getTempDirectory(folder);
+        if (!Files.isDirectory(tempDirectory)) {
+            return;
+        }
+        try (DirectoryStream<Path> tempFiles = Files.newDirectoryStream(tempDirectory,
+                "*" + PersistenceConstants.TEMP_FILE_SUFFIX)) {
+            for (Path tempFile : tempFiles) {
+                Files.deleteIfExists(tempFile);
+            }
+        } catch (IOException e) {
+            log.warn("Error in deleting the incomplete revisions in " + tempDirectory + ". " + e.getMessage(), e);
+        }
+    }
+
+    private static Path getTempDirectory(String folder) {
+        return new File(folder, PersistenceConstants.TEMP_FOLDER_NAME).toPath().toAbsolutePath();
+    }
+
+    private static void syncDirectory(Path directory) {
+        try (FileChannel directoryChannel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            directoryChannel.force(true);
+        } catch (IOException e) {
+            // directories cannot be opened for syncing on some platforms, where the rename is durable on its own
+            if (log.isDebugEnabled()) {
+                log.debug("Cannot sync the persistence directory " + directory + ". " + e.getMessage());
+            }
+        }
+    }
+}
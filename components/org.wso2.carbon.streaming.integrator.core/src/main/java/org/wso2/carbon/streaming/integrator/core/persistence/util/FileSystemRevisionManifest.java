@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.persistence.util;
+
+import org.apache.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * Append-only catalog of the revision files of a Siddhi app persisted by a file system persistence store, so that
+ * the revisions can be looked up without listing the app directory. Each added or removed revision is appended to
+ * the manifest file in the app directory, which is rewritten with the remaining revisions once most of its lines
+ * are stale.
+ * <p>
+ * The revision files are always created and deleted before the manifest is updated, hence the manifest is only
+ * trusted when it was modified after the app directory, and is rebuilt by listing the directory otherwise, e.g.
+ * after a crash in between. As another node may persist to the same directory over a shared file system, the
+ * catalog is to be reloaded once {@link #isStale()}. This class is not thread safe.
+ */
+public class FileSystemRevisionManifest {
+    private static final Logger log = Logger.getLogger(FileSystemRevisionManifest.class);
+    private static final int COMPACTION_THRESHOLD = 1000;
+    private static final char ADDED = '+';
+    private static final char REMOVED = '-';
+    private final Path directory;
+    private final Path manifestFile;
+    private final NavigableSet<String> revisions = new TreeSet<>();
+    private boolean manifestWritten = false;
+    private int manifestLineCount = 0;
+    private FileTime directoryModifiedTime;
+    private FileTime manifestModifiedTime;
+    private long manifestSize = -1;
+
+    public FileSystemRevisionManifest(File directory) {
+        this.directory = directory.toPath();
+        this.manifestFile = this.directory.resolve(PersistenceConstants.REVISION_MANIFEST_FILE);
+        load(true);
+    }
+
+    /**
+     * @return revision file names of the Siddhi app in ascending order
+     */
+    public NavigableSet<String> getRevisions() {
+        return Collections.unmodifiableNavigableSet(revisions);
+    }
+
+    /**
+     * Records a revision file, to be called once the file is written.
+     *
+     * @param revision revision file name
+     * @return true if the revision was not recorded already
+     */
+    public boolean add(String revision) {
+        if (revisions.add(revision)) {
+            append(Collections.singletonList(ADDED + revision));
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Records the removal of revision files, to be called once the files are deleted.
+     */
+    public void remove(Collection<String> removedRevisions) {
+        List<String> lines = new ArrayList<>(removedRevisions.size());
+        for (String revision : removedRevisions) {
+            if (revisions.remove(revision)) {
+                lines.add(REMOVED + revision);
+            }
+        }
+        if (!lines.isEmpty()) {
+            append(lines);
+        }
+    }
+
+    /**
+     * Forgets all the revisions, to be called once the app directory is cleared.
+     */
+    public void clear() {
+        revisions.clear();
+        manifestWritten = false;
+        manifestLineCount = 0;
+        try {
+            Files.deleteIfExists(manifestFile);
+        } catch (IOException e) {
+            log.warn("Error in deleting the revision manifest " + manifestFile + ". " + e.getMessage(), e);
+        }
+        recordModification();
+    }
+
+    /**
+     * @return true if the app directory or the manifest was modified since this catalog last read or wrote them,
+     * e.g. by another node persisting to the same directory
+     */
+    public boolean isStale() {
+        BasicFileAttributes manifestAttributes = readAttributes(manifestFile);
+        return !Objects.equals(directoryModifiedTime, getModifiedTime(readAttributes(directory))) ||
+                !Objects.equals(manifestModifiedTime, getModifiedTime(manifestAttributes)) ||
+                manifestSize != (manifestAttributes == null ? -1 : manifestAttributes.size());
+    }
+
+    /**
+     * Reads the revisions again from the manifest, or from the app directory when the manifest is older. The
+     * manifest is not rewritten, as it may be in use by the node which modified it.
+     */
+    public void reload() {
+        revisions.clear();
+        manifestWritten = false;
+        manifestLineCount = 0;
+        load(false);
+    }
+
+    private void load(boolean rewriteStaleManifest) {
+        if (!Files.isDirectory(directory)) {
+            recordModification();
+            return;
+        }
+        try {
+            if (Files.exists(manifestFile) && Files.getLastModifiedTime(manifestFile).compareTo(
+                    Files.getLastModifiedTime(directory)) > 0) {
+                List<String> lines = Files.readAllLines(manifestFile, StandardCharsets.UTF_8);
+                for (String line : lines) {
+                    if (line.isEmpty()) {
+                        continue;
+                    }
+                    if (line.charAt(0) == ADDED) {
+                        revisions.add(line.substring(1));
+                    } else if (line.charAt(0) == REMOVED) {
+                        revisions.remove(line.substring(1));
+                    }
+                }
+                manifestWritten = true;
+                manifestLineCount = lines.size();
+                recordModification();
+                return;
+            }
+        } catch (IOException e) {
+            log.warn("Error in reading the revision manifest " + manifestFile + ", hence the revisions will be " +
+                    "listed from the directory. " + e.getMessage(), e);
+            revisions.clear();
+        }
+        try (DirectoryStream<Path> revisionFiles = Files.newDirectoryStream(directory)) {
+            for (Path revisionFile : revisionFiles) {
+                String fileName = revisionFile.getFileName().toString();
+                if (!fileName.startsWith(".") && Files.isRegularFile(revisionFile)) {
+                    revisions.add(fileName);
+                }
+            }
+        } catch (IOException e) {
+            log.error("Error in listing the revisions in " + directory + ". " + e.getMessage(), e);
+        }
+        if (rewriteStaleManifest) {
+            writeManifest();
+        } else {
+            recordModification();
+        }
+    }
+
+    private void append(List<String> lines) {
+        if (!manifestWritten) {
+            writeManifest();
+            return;
+        }
+        try {
+            Files.write(manifestFile, lines, StandardCharsets.UTF_8, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+            manifestLineCount += lines.size();
+            recordModification();
+        } catch (IOException e) {
+            log.warn("Error in updating the revision manifest " + manifestFile + ". " + e.getMessage(), e);
+            writeManifest();
+            return;
+        }
+        if (manifestLineCount > COMPACTION_THRESHOLD && manifestLineCount > 2 * revisions.size()) {
+            writeManifest();
+        }
+    }
+
+    private void writeManifest() {
+        Path tempFile = directory.resolve(PersistenceConstants.REVISION_MANIFEST_FILE +
+                PersistenceConstants.TEMP_FILE_SUFFIX);
+        List<String> lines = new ArrayList<>(revisions.size());
+        for (String revision : revisions) {
+            lines.add(ADDED + revision);
+        }
+        try {
+            Files.createDirectories(directory);
+            Files.write(tempFile, lines, StandardCharsets.UTF_8);
+            Files.move(tempFile, manifestFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            // renaming modifies the directory, hence the manifest is touched again to be newer than it
+            Files.write(manifestFile, Collections.singletonList(""), StandardCharsets.UTF_8,
+                    StandardOpenOption.APPEND);
+            manifestWritten = true;
+            manifestLineCount = lines.size() + 1;
+            recordModification();
+        } catch (IOException e) {
+            log.warn("Error in writing the revision manifest " + manifestFile + ", hence the revisions will be " +
+                    "listed from the directory on restart. " + e.getMessage(), e);
+            manifestWritten = false;
+            try {
+                Files.deleteIfExists(manifestFile);
+                Files.deleteIfExists(tempFile);
+            } catch (IOException ignored) {
+                // the directory is listed again on restart as the manifest is older than it
+            }
+            recordModification();
+        }
+    }
+
+    private void recordModification() {
+        BasicFileAttributes manifestAttributes = readAttributes(manifestFile);
+        directoryModifiedTime = getModifiedTime(readAttributes(directory));
+        manifestModifiedTime = getModifiedTime(manifestAttributes);
+        manifestSize = manifestAttributes == null ? -1 : manifestAttributes.size();
+    }
+
+    private static BasicFileAttributes readAttributes(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static FileTime getModifiedTime(BasicFileAttributes attributes) {
+        return attributes == null ? null : attributes.lastModifiedTime();
+    }
+}
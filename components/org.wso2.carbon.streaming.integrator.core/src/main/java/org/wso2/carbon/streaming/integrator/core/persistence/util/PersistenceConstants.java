@@ -27,9 +27,15 @@ public class PersistenceConstants {
     public static final String STATE_PERSISTENCE_REVISIONS_TO_KEEP = "revisionsToKeep";
     public static final String STATE_PERSISTENCE_CONFIGS = "config";
     public static final String DEFAULT_FILE_PERSISTENCE_FOLDER = "siddhi-app-persistence";
+    public static final String FILE_PERSISTENCE_FSYNC = "fsync";
+    public static final String TEMP_FOLDER_NAME = ".tmp";
+    public static final String TEMP_FILE_SUFFIX = ".tmp";
+    public static final String REVISION_MANIFEST_FILE = ".revisions";
     public static final String REVISION_SEPARATOR = "__";
     public static final String DEFAULT_DB_PERSISTENCE_DATASOURCE = "WSO2_CARBON_DB";
     public static final String DEFAULT_DB_PERSISTENCE_TABLE_NAME = "PERSISTENCE_TABLE";
+    public static final String DB_PERSISTENCE_BATCH_SIZE = "batchSize";
+    public static final int DEFAULT_DB_PERSISTENCE_BATCH_SIZE = 100;
     public static final String CREATE_TABLE = "CREATE_TABLE";
     public static final String INSERT_INTO_TABLE = "INSERT_INTO_TABLE";
     public static final String IS_TABLE_EXISTS = "IS_TABLE_EXISTS";
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.persistence.util;
+
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Group commit of the snapshots saved concurrently to a database persistence store. Siddhi hands the snapshots of a
+ * persistence round to the store one at a time, from several threads. A caller finding no batch in progress writes
+ * all the snapshots queued so far as one batch, while the other callers wait for the batch holding their snapshot to
+ * be written. Hence a round of many snapshots takes a few transactions instead of one per snapshot, and each caller
+ * still returns only after its own snapshot is committed.
+ *
+ * @param <T> type of the queued snapshots
+ */
+public class SnapshotBatchWriter<T> {
+    private final BatchWriter<T> batchWriter;
+    private final int maxBatchSize;
+    private final Queue<PendingWrite<T>> pendingWrites = new ArrayDeque<>();
+    private boolean writing = false;
+
+    public SnapshotBatchWriter(BatchWriter<T> batchWriter, int maxBatchSize) {
+        this.batchWriter = batchWriter;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Writes the snapshot along with the snapshots queued by the other callers meanwhile.
+     *
+     * @param snapshot snapshot to be written
+     * @throws SQLException if the batch holding the snapshot could not be written
+     */
+    public void write(T snapshot) throws SQLException {
+        PendingWrite<T> pendingWrite = new PendingWrite<>(snapshot);
+        boolean interrupted = false;
+        synchronized (pendingWrites) {
+            pendingWrites.add(pendingWrite);
+            while (writing && !pendingWrite.done) {
+                try {
+                    pendingWrites.wait();
+                } catch (InterruptedException e) {
+                    // the snapshot is already queued, hence wait till it is written
+                    interrupted = true;
+                }
+            }
+            if (!pendingWrite.done) {
+                writing = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (!pendingWrite.done) {
+            try {
+                while (!pendingWrite.done) {
+                    writeBatch();
+                }
+            } finally {
+                // hand over the snapshots queued meanwhile to one of the waiting callers
+                synchronized (pendingWrites) {
+                    writing = false;
+                    pendingWrites.notifyAll();
+                }
+            }
+        }
+        if (pendingWrite.error != null) {
+            throw pendingWrite.error;
+        }
+    }
+
+    private void writeBatch() {
+        List<PendingWrite<T>> batch = new ArrayList<>();
+        synchronized (pendingWrites) {
+            while (!pendingWrites.isEmpty() && batch.size() < maxBatchSize) {
+                batch.add(pendingWrites.poll());
+            }
+        }
+        List<T> snapshots = new ArrayList<>(batch.size());
+        for (PendingWrite<T> pendingWrite : batch) {
+            snapshots.add(pendingWrite.snapshot);
+        }
+        SQLException error = null;
+        try {
+            batchWriter.write(snapshots);
+        } catch (SQLException e) {
+            error = e;
+        } catch (RuntimeException e) {
+            error = new SQLException(e.getMessage(), e);
+        }
+        synchronized (pendingWrites) {
+            for (PendingWrite<T> pendingWrite : batch) {
+                pendingWrite.error = error;
+                pendingWrite.done = true;
+            }
+            pendingWrites.notifyAll();
+        }
+    }
+
+    /**
+     * Writes a batch of snapshots in a single transaction.
+     *
+     * @param <T> type of the snapshots
+     */
+    public interface BatchWriter<T> {
+        void write(List<T> snapshots) throws SQLException;
+    }
+
+    private static class PendingWrite<T> {
+        private final T snapshot;
+        private boolean done = false;
+        private SQLException error;
+
+        PendingWrite(T snapshot) {
+            this.snapshot = snapshot;
+        }
+    }
+}
@@ -18,19 +18,27 @@
 
 package org.wso2.carbon.streaming.integrator.core.siddhi.error.handler;
 
+import com.lmax.disruptor.EventHandler;
+import io.siddhi.core.util.SiddhiConstants;
 import io.siddhi.core.util.error.handler.exception.ErrorStoreException;
 import io.siddhi.core.util.error.handler.model.ErrorEntry;
+import io.siddhi.core.util.error.handler.model.PublishableErrorEntry;
 import io.siddhi.core.util.error.handler.store.ErrorStore;
 import io.siddhi.core.util.error.handler.util.ErroneousEventType;
 import io.siddhi.core.util.error.handler.util.ErrorOccurrence;
 import io.siddhi.core.util.error.handler.util.ErrorType;
+import io.siddhi.core.util.statistics.BufferedEventsTracker;
+import io.siddhi.core.util.statistics.EventBufferHolder;
+import io.siddhi.core.util.statistics.ThroughputTracker;
 import org.apache.log4j.Logger;
 import org.wso2.carbon.datasource.core.exception.DataSourceException;
+import org.wso2.carbon.streaming.integrator.common.BatchReplayableErrorStore;
 import org.wso2.carbon.streaming.integrator.core.internal.StreamProcessorDataHolder;
 import org.wso2.carbon.streaming.integrator.core.siddhi.error.handler.dto.RDBMSQueryConfigurationEntry;
 import org.wso2.carbon.streaming.integrator.core.siddhi.error.handler.exception.DatabaseUnsupportedException;
 import org.wso2.carbon.streaming.integrator.core.siddhi.error.handler.exception.DatasourceConfigurationException;
 import org.wso2.carbon.streaming.integrator.core.siddhi.error.handler.util.DBErrorStoreUtils;
+import org.wso2.carbon.streaming.integrator.core.siddhi.error.handler.util.ErrorEntryBatchHandler;
 import org.wso2.carbon.streaming.integrator.core.siddhi.error.handler.util.ExecutionInfo;
 import org.wso2.carbon.streaming.integrator.core.siddhi.error.handler.util.RDBMSConfiguration;
 import org.wso2.carbon.streaming.integrator.core.siddhi.error.handler.util.SiddhiErrorHandlerConstants;
@@ -50,11 +58,15 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Denotes an Error Store which stores erroneous events collected from Siddhi in a configured database.
+ * Erroneous events taken from the buffer of the error store are written to the database in batches.
+ * The remaining capacity of the buffer and the number of erroneous events dropped as the buffer is full are reported
+ * as metrics.
  */
-public class DBErrorStore extends ErrorStore {
+public class DBErrorStore extends ErrorStore implements BatchReplayableErrorStore {
 
     private static final Logger log = Logger.getLogger(DBErrorStore.class);
     private static final String POSTGRES_DATABASE_TYPE = "postgresql";
@@ -67,6 +79,13 @@ public class DBErrorStore extends ErrorStore {
     private String tableName;
     private String databaseType;
     private String databaseVersion;
+    private volatile int batchSize = SiddhiErrorHandlerConstants.DEFAULT_BATCH_SIZE;
+    private ErrorEntryBatchHandler errorEntryBatchHandler;
+    private volatile boolean dropWhenBufferFull = true;
+    private final AtomicLong acceptedEntryCount = new AtomicLong();
+    private final AtomicLong droppedEntryCount = new AtomicLong();
+    private volatile boolean metricsRegistered = false;
+    private volatile ThroughputTracker droppedEntryTracker;
 
     @Override
     public void setProperties(Map properties) {
@@ -100,6 +119,10 @@ public class DBErrorStore extends ErrorStore {
             } else {
                 tableName = String.valueOf(tableObject);
             }
+            Object batchSizeObject = configurationMap.get(SiddhiErrorHandlerConstants.BATCH_SIZE);
+            if (batchSizeObject instanceof Integer && (Integer) batchSizeObject > 0) {
+                batchSize = (Integer) batchSizeObject;
+            }
         } else {
             datasourceName = SiddhiErrorHandlerConstants.DEFAULT_DB_ERROR_STORE_DATASOURCE;
             tableName = SiddhiErrorHandlerConstants.DEFAULT_DB_ERROR_STORE_TABLE_NAME;
@@ -128,6 +151,99 @@ public class DBErrorStore extends ErrorStore {
         }
 
         initializeDatabaseExecutionInfo();
+        DBErrorStoreUtils.createTableIfNotExists(executionInfo, datasource, datasourceName, tableName);
+    }
+
+    @Override
+    public void setDropWhenBufferFull(boolean dropWhenBufferFull) {
+        super.setDropWhenBufferFull(dropWhenBufferFull);
+        this.dropWhenBufferFull = dropWhenBufferFull;
+    }
+
+    /**
+     * Handles the erroneous events taken from the buffer of the error store in batches of up to the configured batch
+     * size. This is called by the constructor of the error store, hence the batch size is read when handling.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    protected EventHandler<PublishableErrorEntry>[] getEventHandler() {
+        errorEntryBatchHandler = new ErrorEntryBatchHandler(this::saveEntries, () -> batchSize);
+        return new EventHandler[]{errorEntryBatchHandler};
+    }
+
+    /**
+     * Drops the erroneous event instead of passing it to the buffer of the error store when the buffer is full and
+     * erroneous events are to be dropped, so that the dropped events are counted. Events are passed to the buffer by
+     * one thread at a time, hence the buffer has at least the remaining capacity checked.
+     */
+    @Override
+    protected synchronized void produce(long timestamp, String siddhiAppName, String streamName, byte[] eventAsBytes,
+                                        String cause, byte[] stackTraceAsBytes, byte[] originalPayloadAsBytes,
+                                        String errorOccurrence, String eventType, String errorType) {
+        registerMetrics();
+        if (dropWhenBufferFull && getRemainingCapacity() == 0) {
+            onDropped();
+            return;
+        }
+        acceptedEntryCount.incrementAndGet();
+        super.produce(timestamp, siddhiAppName, streamName, eventAsBytes, cause, stackTraceAsBytes,
+            originalPayloadAsBytes, errorOccurrence, eventType, errorType);
+    }
+
+    /**
+     * The buffer is created by the constructor of the error store, before the configured buffer size is set, hence
+     * it always has the default size.
+     *
+     * @return number of erroneous events that can be passed to the buffer without waiting or being dropped
+     */
+    public long getRemainingCapacity() {
+        long bufferedEntryCount = acceptedEntryCount.get() - errorEntryBatchHandler.getHandledEntryCount();
+        return Math.max(0, SiddhiErrorHandlerConstants.ERROR_STORE_BUFFER_SIZE - bufferedEntryCount);
+    }
+
+    public long getDroppedEntryCount() {
+        return droppedEntryCount.get();
+    }
+
+    private void onDropped() {
+        long dropped = droppedEntryCount.incrementAndGet();
+        if (droppedEntryTracker != null && StreamProcessorDataHolder.isStatisticsEnabled()) {
+            droppedEntryTracker.eventIn();
+        }
+        if (dropped == 1 || dropped % SiddhiErrorHandlerConstants.DROPPED_ENTRIES_LOG_INTERVAL == 0) {
+            log.warn("Error store buffer is full, " + dropped + " erroneous events have been dropped so far.");
+        }
+    }
+
+    /**
+     * Registers the metrics once statistics are enabled, which happens after the error store is initialized.
+     */
+    private void registerMetrics() {
+        if (metricsRegistered || !StreamProcessorDataHolder.isStatisticsEnabled() ||
+            StreamProcessorDataHolder.getStatisticsConfiguration() == null ||
+            StreamProcessorDataHolder.getStatisticsManager() == null) {
+            return;
+        }
+        BufferedEventsTracker remainingCapacityTracker = StreamProcessorDataHolder.getStatisticsConfiguration().
+            getFactory().createBufferSizeTracker(StreamProcessorDataHolder.getStatisticsManager());
+        remainingCapacityTracker.registerEventBufferHolder(new EventBufferHolder() {
+            @Override
+            public long getBufferedEvents() {
+                return getRemainingCapacity();
+            }
+
+            @Override
+            public boolean containsBufferedEvents() {
+                return getRemainingCapacity() > 0;
+            }
+        }, SiddhiErrorHandlerConstants.ERROR_STORE_METRICS_PREFIX + SiddhiConstants.METRIC_DELIMITER +
+            SiddhiErrorHandlerConstants.ERROR_STORE_METRICS_REMAINING_CAPACITY);
+        remainingCapacityTracker.enableEventBufferHolderMetrics();
+        droppedEntryTracker = StreamProcessorDataHolder.getStatisticsConfiguration().getFactory().
+            createThroughputTracker(SiddhiErrorHandlerConstants.ERROR_STORE_METRICS_PREFIX +
+                    SiddhiConstants.METRIC_DELIMITER + SiddhiErrorHandlerConstants.ERROR_STORE_METRICS_DROPPED_ENTRIES,
+                StreamProcessorDataHolder.getStatisticsManager());
+        metricsRegistered = true;
     }
 
     private void initializeDatabaseExecutionInfo() {
@@ -148,6 +264,8 @@ public class DBErrorStore extends ErrorStore {
         executionInfo.setPreparedSelectWithLimitOffsetStatement(databaseQueryEntries.getSelectWithLimitOffsetQuery());
         executionInfo.setPreparedMinimalSelectWithLimitOffsetStatement(
             databaseQueryEntries.getMinimalSelectWithLimitOffsetQuery());
+        executionInfo.setPreparedSelectAfterIdWithLimitStatement(databaseQueryEntries.getSelectAfterIdWithLimitQuery());
+        executionInfo.setPreparedSelectMaxIdStatement(databaseQueryEntries.getSelectMaxIdQuery());
         executionInfo.setPreparedSelectCountStatement(databaseQueryEntries.getSelectCountQuery());
         executionInfo.setPreparedSelectCountBySiddhiAppNameStatement(
             databaseQueryEntries.getSelectCountBySiddhiAppNameQuery());
@@ -160,54 +278,87 @@ public class DBErrorStore extends ErrorStore {
     protected void saveEntry(long timestamp, String siddhiAppName, String streamName, byte[] eventAsBytes, String cause,
                              byte[] stackTraceAsBytes, byte[] originalPayloadAsBytes, String errorOccurrence,
                              String eventType, String errorType) throws ErrorStoreException {
-        DBErrorStoreUtils.createTableIfNotExists(executionInfo, datasource, datasourceName, tableName);
+        PublishableErrorEntry errorEntry = new PublishableErrorEntry();
+        errorEntry.setTimestamp(timestamp);
+        errorEntry.setSiddhiAppName(siddhiAppName);
+        errorEntry.setStreamName(streamName);
+        errorEntry.setEventAsBytes(eventAsBytes);
+        errorEntry.setCause(cause);
+        errorEntry.setStackTraceAsBytes(stackTraceAsBytes);
+        errorEntry.setOriginalPayloadAsBytes(originalPayloadAsBytes);
+        errorEntry.setErrorOccurrence(errorOccurrence);
+        errorEntry.setEventType(eventType);
+        errorEntry.setErrorType(errorType);
+        try {
+            saveEntries(Collections.singletonList(errorEntry));
+        } catch (SQLException e) {
+            throw new ErrorStoreException("Error while saving to " + datasourceName, e);
+        }
+    }
+
+    private void saveEntries(List<PublishableErrorEntry> errorEntries) throws SQLException {
         Connection con = null;
         PreparedStatement stmt = null;
         try {
             con = datasource.getConnection();
             con.setAutoCommit(false);
+            boolean isOracleDriver = con.getMetaData().getDriverName().contains("Oracle");
 
             stmt = con.prepareStatement(executionInfo.getPreparedInsertStatement());
-            stmt.setLong(1, timestamp);
-            stmt.setString(2,siddhiAppName);
-            stmt.setString(3,streamName);
-            cause = (cause.length() > 1000) ? cause.substring(0,997) + "..." : cause ;
-            stmt.setString(5,cause);
-            stmt.setString(8,errorOccurrence);
-            stmt.setString(9,eventType);
-            stmt.setString(10,errorType);
-
-            if (databaseType.equals(POSTGRES_DATABASE_TYPE)) {
-                stmt.setBlob(4, new SerialBlob(eventAsBytes));
-                stmt.setBlob(6, new SerialBlob(stackTraceAsBytes));
-                stmt.setBlob(7, new SerialBlob(originalPayloadAsBytes));
-            } else if (con.getMetaData().getDriverName().contains("Oracle")) {
-                InputStream eventInputStream = new ByteArrayInputStream(eventAsBytes);
-                stmt.setBinaryStream(4, eventInputStream, eventAsBytes.length);
-
-                InputStream stackTraceInputStream = new ByteArrayInputStream(stackTraceAsBytes);
-                stmt.setBinaryStream(6, stackTraceInputStream, stackTraceAsBytes.length);
-
-                InputStream originalPayloadInputStream = new ByteArrayInputStream(originalPayloadAsBytes);
-                stmt.setBinaryStream(7, originalPayloadInputStream, originalPayloadAsBytes.length);
-            } else {
-                Blob eventBlob = con.createBlob();
-                eventBlob.setBytes(1, eventAsBytes);
-                stmt.setBlob(4, eventBlob);
+            for (PublishableErrorEntry errorEntry : errorEntries) {
+                stmt.setLong(1, errorEntry.getTimestamp());
+                stmt.setString(2, errorEntry.getSiddhiAppName());
+                stmt.setString(3, errorEntry.getStreamName());
+                String cause = errorEntry.getCause();
+                cause = (cause.length() > 1000) ? cause.substring(0, 997) + "..." : cause;
+                stmt.setString(5, cause);
+                stmt.setString(8, errorEntry.getErrorOccurrence());
+                stmt.setString(9, errorEntry.getEventType());
+                stmt.setString(10, errorEntry.getErrorType());
+
+                byte[] eventAsBytes = errorEntry.getEventAsBytes();
+                byte[] stackTraceAsBytes = errorEntry.getStackTraceAsBytes();
+                byte[] originalPayloadAsBytes = errorEntry.getOriginalPayloadAsBytes();
+                if (databaseType.equals(POSTGRES_DATABASE_TYPE)) {
+                    stmt.setBlob(4, new SerialBlob(eventAsBytes));
+                    stmt.setBlob(6, new SerialBlob(stackTraceAsBytes));
+                    stmt.setBlob(7, new SerialBlob(originalPayloadAsBytes));
+                } else if (isOracleDriver) {
+                    InputStream eventInputStream = new ByteArrayInputStream(eventAsBytes);
+                    stmt.setBinaryStream(4, eventInputStream, eventAsBytes.length);
+
+                    InputStream stackTraceInputStream = new ByteArrayInputStream(stackTraceAsBytes);
+                    stmt.setBinaryStream(6, stackTraceInputStream, stackTraceAsBytes.length);
+
+                    InputStream originalPayloadInputStream = new ByteArrayInputStream(originalPayloadAsBytes);
+                    stmt.setBinaryStream(7, originalPayloadInputStream, originalPayloadAsBytes.length);
+                } else {
+                    Blob eventBlob = con.createBlob();
+                    eventBlob.setBytes(1, eventAsBytes);
+                    stmt.setBlob(4, eventBlob);
 
-                Blob stackTraceBlob = con.createBlob();
-                stackTraceBlob.setBytes(1, stackTraceAsBytes);
-                stmt.setBlob(6, stackTraceBlob);
+                    Blob stackTraceBlob = con.createBlob();
+                    stackTraceBlob.setBytes(1, stackTraceAsBytes);
+                    stmt.setBlob(6, stackTraceBlob);
 
-                Blob originalPayloadBlob = con.createBlob();
-                originalPayloadBlob.setBytes(1, originalPayloadAsBytes);
-                stmt.setBlob(7, originalPayloadBlob);
+                    Blob originalPayloadBlob = con.createBlob();
+                    originalPayloadBlob.setBytes(1, originalPayloadAsBytes);
+                    stmt.setBlob(7, originalPayloadBlob);
+                }
+                stmt.addBatch();
             }
 
-            stmt.executeUpdate();
+            stmt.executeBatch();
             con.commit();
         } catch (SQLException e) {
-            log.error("Error while saving to " + datasourceName, e);
+            if (con != null) {
+                try {
+                    con.rollback();
+                } catch (SQLException ex) {
+                    log.error("Unable to rollback saving to " + datasourceName, ex);
+                }
+            }
+            throw new SQLException("Error while saving to " + datasourceName, e);
         } finally {
             DBErrorStoreUtils.cleanupConnections(stmt, con);
         }
@@ -260,6 +411,52 @@ public class DBErrorStore extends ErrorStore {
         }
     }
 
+    @Override
+    public List<ErrorEntry> loadErrorEntries(String siddhiAppName, int afterId, int maxId, int limit) {
+        Connection con = null;
+        PreparedStatement stmt = null;
+        try {
+            con = datasource.getConnection();
+            con.setAutoCommit(false);
+            stmt = con.prepareStatement(executionInfo.getPreparedSelectAfterIdWithLimitStatement());
+            stmt.setString(1, siddhiAppName);
+            stmt.setInt(2, afterId);
+            stmt.setInt(3, maxId);
+            stmt.setInt(4, limit);
+            return getErrorEntries(true, con, stmt);
+        } catch (SQLException e) {
+            log.error(String.format("Error while retrieving erroneous events of Siddhi app: %s after id: %s from the " +
+                "datasource: %s", siddhiAppName, afterId, datasourceName), e);
+            return null;
+        } finally {
+            DBErrorStoreUtils.cleanupConnections(stmt, con);
+        }
+    }
+
+    @Override
+    public int getMaxErrorEntryId(String siddhiAppName) {
+        Connection con = null;
+        PreparedStatement stmt = null;
+        int maxId = -1;
+        try {
+            con = datasource.getConnection();
+            con.setAutoCommit(false);
+            stmt = con.prepareStatement(executionInfo.getPreparedSelectMaxIdStatement());
+            stmt.setString(1, siddhiAppName);
+            try (ResultSet resultSet = stmt.executeQuery()) {
+                con.commit();
+                // The maximum is null, which is read as 0, when there are no error entries.
+                maxId = resultSet.next() ? resultSet.getInt(SiddhiErrorHandlerConstants.MAX_ID) : 0;
+            }
+        } catch (SQLException e) {
+            log.error(String.format("Error while retrieving the largest error entry id of Siddhi app: %s",
+                siddhiAppName), e);
+        } finally {
+            DBErrorStoreUtils.cleanupConnections(stmt, con);
+        }
+        return maxId;
+    }
+
     @Override
     public ErrorEntry loadErrorEntry(int id) {
         Connection con = null;
@@ -408,6 +605,39 @@ public class DBErrorStore extends ErrorStore {
         }
     }
 
+    @Override
+    public boolean discardErrorEntries(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return true;
+        }
+        Connection con = null;
+        PreparedStatement stmt = null;
+        try {
+            con = datasource.getConnection();
+            con.setAutoCommit(false);
+            stmt = con.prepareStatement(executionInfo.getPreparedDeleteStatement());
+            for (int id : ids) {
+                stmt.setInt(1, id);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            con.commit();
+            return true;
+        } catch (SQLException e) {
+            log.error(String.format("Failed to delete %s error entries.", ids.size()), e);
+            if (con != null) {
+                try {
+                    con.rollback();
+                } catch (SQLException ex) {
+                    log.error("Failed to rollback the deletion of error entries.", ex);
+                }
+            }
+            return false;
+        } finally {
+            DBErrorStoreUtils.cleanupConnections(stmt, con);
+        }
+    }
+
     @Override
     public void discardErrorEntries(String siddhiAppName) {
         Connection con = null;
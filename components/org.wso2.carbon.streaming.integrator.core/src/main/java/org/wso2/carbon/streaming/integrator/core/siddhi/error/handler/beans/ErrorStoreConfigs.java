@@ -28,6 +28,8 @@ public class ErrorStoreConfigs {
     private String table = "SIDDHI_ERROR_STORE_TABLE";
     @Element(description = "Database query map")
     private List<Queries> queries;
+    @Element(description = "Maximum number of erroneous events written to the database in a single batch")
+    private int batchSize = 100;
 
     public String getDatasource() {
         return datasource;
@@ -52,4 +54,12 @@ public class ErrorStoreConfigs {
     public void setQueries(List<Queries> queries) {
         this.queries = queries;
     }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
 }
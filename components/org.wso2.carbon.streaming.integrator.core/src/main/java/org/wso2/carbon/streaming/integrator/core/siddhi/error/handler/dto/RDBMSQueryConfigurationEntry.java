@@ -31,6 +31,8 @@ public class RDBMSQueryConfigurationEntry {
     private String selectSingleQuery;
     private String selectWithLimitOffsetQuery;
     private String minimalSelectWithLimitOffsetQuery;
+    private String selectAfterIdWithLimitQuery;
+    private String selectMaxIdQuery;
     private String selectCountQuery;
     private String selectCountBySiddhiAppNameQuery;
     private String deleteQuery;
@@ -117,6 +119,22 @@ public class RDBMSQueryConfigurationEntry {
         this.minimalSelectWithLimitOffsetQuery = minimalSelectWithLimitOffsetQuery;
     }
 
+    public String getSelectAfterIdWithLimitQuery() {
+        return selectAfterIdWithLimitQuery;
+    }
+
+    public void setSelectAfterIdWithLimitQuery(String selectAfterIdWithLimitQuery) {
+        this.selectAfterIdWithLimitQuery = selectAfterIdWithLimitQuery;
+    }
+
+    public String getSelectMaxIdQuery() {
+        return selectMaxIdQuery;
+    }
+
+    public void setSelectMaxIdQuery(String selectMaxIdQuery) {
+        this.selectMaxIdQuery = selectMaxIdQuery;
+    }
+
     public String getSelectCountBySiddhiAppNameQuery() {
         return selectCountBySiddhiAppNameQuery;
     }
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core.siddhi.error.handler.util;
+
+import com.lmax.disruptor.Sequence;
+import com.lmax.disruptor.SequenceReportingEventHandler;
+import io.siddhi.core.util.error.handler.model.PublishableErrorEntry;
+import org.apache.log4j.Logger;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntSupplier;
+
+/**
+ * Handles the entries taken from the buffer of an error store, writing them in batches. A batch is written when the
+ * buffer has no more entries to be handled, or when it reaches the maximum batch size. The entries are the slots of
+ * the buffer, which are not reused until the batch taken from the buffer is handled, hence they are not copied.
+ * When a batch cannot be written, its entries are written one at a time, so that only the failing entries are lost.
+ */
+public class ErrorEntryBatchHandler implements SequenceReportingEventHandler<PublishableErrorEntry> {
+    private static final Logger log = Logger.getLogger(ErrorEntryBatchHandler.class);
+    private final BatchWriter batchWriter;
+    private final IntSupplier maxBatchSize;
+    private final List<PublishableErrorEntry> batch = new ArrayList<>();
+    private volatile Sequence sequence;
+
+    public ErrorEntryBatchHandler(BatchWriter batchWriter, IntSupplier maxBatchSize) {
+        this.batchWriter = batchWriter;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    @Override
+    public void setSequenceCallback(Sequence sequence) {
+        this.sequence = sequence;
+    }
+
+    @Override
+    public void onEvent(PublishableErrorEntry errorEntry, long sequence, boolean endOfBatch) {
+        batch.add(errorEntry);
+        if (endOfBatch || batch.size() >= maxBatchSize.getAsInt()) {
+            try {
+                batchWriter.write(batch);
+            } catch (SQLException | RuntimeException e) {
+                if (batch.size() == 1) {
+                    log.error("Failed to write an entry to the error store. The entry is lost.", e);
+                } else {
+                    log.warn("Failed to write a batch of " + batch.size() + " entries to the error store. " +
+                        "The entries will be written one at a time.", e);
+                    writeOneAtATime();
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * @return number of entries taken from the buffer and released, as reported to the buffer, which reuses their
+     * slots only after that
+     */
+    public long getHandledEntryCount() {
+        Sequence sequence = this.sequence;
+        return sequence == null ? 0 : sequence.get() + 1;
+    }
+
+    private void writeOneAtATime() {
+        int failedEntryCount = 0;
+        Exception lastFailure = null;
+        for (PublishableErrorEntry errorEntry : batch) {
+            try {
+                batchWriter.write(Collections.singletonList(errorEntry));
+            } catch (SQLException | RuntimeException e) {
+                failedEntryCount++;
+                lastFailure = e;
+            }
+        }
+        if (failedEntryCount > 0) {
+            log.error("Failed to write " + failedEntryCount + " of " + batch.size() + " entries to the error " +
+                "store. The entries are lost.", lastFailure);
+        }
+    }
+
+    /**
+     * Writes a batch of entries to an error store.
+     */
+    @FunctionalInterface
+    public interface BatchWriter {
+        void write(List<PublishableErrorEntry> errorEntries) throws SQLException;
+    }
+}
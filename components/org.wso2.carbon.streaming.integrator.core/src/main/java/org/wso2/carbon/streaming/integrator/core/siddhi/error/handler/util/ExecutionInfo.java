@@ -31,6 +31,8 @@ public class ExecutionInfo {
     private String preparedSelectSingleStatement;
     private String preparedSelectWithLimitOffsetStatement;
     private String preparedMinimalSelectWithLimitOffsetStatement;
+    private String preparedSelectAfterIdWithLimitStatement;
+    private String preparedSelectMaxIdStatement;
     private String preparedSelectCountStatement;
     private String preparedSelectCountBySiddhiAppNameStatement;
     private String preparedDeleteStatement;
@@ -103,6 +105,22 @@ public class ExecutionInfo {
         this.preparedMinimalSelectWithLimitOffsetStatement = preparedMinimalSelectWithLimitOffsetStatement;
     }
 
+    public String getPreparedSelectAfterIdWithLimitStatement() {
+        return preparedSelectAfterIdWithLimitStatement;
+    }
+
+    public void setPreparedSelectAfterIdWithLimitStatement(String preparedSelectAfterIdWithLimitStatement) {
+        this.preparedSelectAfterIdWithLimitStatement = preparedSelectAfterIdWithLimitStatement;
+    }
+
+    public String getPreparedSelectMaxIdStatement() {
+        return preparedSelectMaxIdStatement;
+    }
+
+    public void setPreparedSelectMaxIdStatement(String preparedSelectMaxIdStatement) {
+        this.preparedSelectMaxIdStatement = preparedSelectMaxIdStatement;
+    }
+
     public String getPreparedSelectCountStatement() {
         return preparedSelectCountStatement;
     }
@@ -78,6 +78,11 @@ public class RDBMSConfiguration {
             databaseQueryEntries.setMinimalSelectWithLimitOffsetQuery(
                 queryManager.getQuery(SiddhiErrorHandlerConstants.MINIMAL_SELECT_WITH_LIMIT_OFFSET).
                     replace(SiddhiErrorHandlerConstants.PLACEHOLDER_TABLE_NAME, tableName));
+            databaseQueryEntries.setSelectAfterIdWithLimitQuery(
+                queryManager.getQuery(SiddhiErrorHandlerConstants.SELECT_AFTER_ID_WITH_LIMIT).
+                    replace(SiddhiErrorHandlerConstants.PLACEHOLDER_TABLE_NAME, tableName));
+            databaseQueryEntries.setSelectMaxIdQuery(queryManager.getQuery(SiddhiErrorHandlerConstants.SELECT_MAX_ID).
+                replace(SiddhiErrorHandlerConstants.PLACEHOLDER_TABLE_NAME, tableName));
             databaseQueryEntries.setSelectCountQuery(queryManager.getQuery(SiddhiErrorHandlerConstants.SELECT_COUNT).
                 replace(SiddhiErrorHandlerConstants.PLACEHOLDER_TABLE_NAME, tableName));
             databaseQueryEntries.setSelectCountBySiddhiAppNameQuery(
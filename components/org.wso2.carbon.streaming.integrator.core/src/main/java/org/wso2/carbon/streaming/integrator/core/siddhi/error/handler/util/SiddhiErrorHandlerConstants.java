@@ -29,6 +29,13 @@ public class SiddhiErrorHandlerConstants {
     public static final String ERROR_STORE_NS = "error.store";
     public static final String BUFFER_SIZE = "bufferSize";
     public static final String DROP_WHEN_BUFFER_FULL = "dropWhenBufferFull";
+    public static final int ERROR_STORE_BUFFER_SIZE = 1024;
+    public static final long DROPPED_ENTRIES_LOG_INTERVAL = 10000;
+    public static final String ERROR_STORE_METRICS_PREFIX = "org.wso2.error.store";
+    public static final String ERROR_STORE_METRICS_REMAINING_CAPACITY = "buffer.remaining.capacity";
+    public static final String ERROR_STORE_METRICS_DROPPED_ENTRIES = "dropped";
+    public static final String BATCH_SIZE = "batchSize";
+    public static final int DEFAULT_BATCH_SIZE = 100;
     public static final String ERROR_STORE_CONFIGS = "config";
     public static final String DEFAULT_DB_ERROR_STORE_DATASOURCE = "WSO2_CARBON_DB";
     public static final String DEFAULT_DB_ERROR_STORE_TABLE_NAME = "SIDDHI_ERROR_STORE_TABLE";
@@ -41,6 +48,8 @@ public class SiddhiErrorHandlerConstants {
     public static final String SELECT_SINGLE = "SELECT_SINGLE";
     public static final String SELECT_WITH_LIMIT_OFFSET = "SELECT_WITH_LIMIT_OFFSET";
     public static final String MINIMAL_SELECT_WITH_LIMIT_OFFSET = "MINIMAL_SELECT_WITH_LIMIT_OFFSET";
+    public static final String SELECT_AFTER_ID_WITH_LIMIT = "SELECT_AFTER_ID_WITH_LIMIT";
+    public static final String SELECT_MAX_ID = "SELECT_MAX_ID";
     public static final String SELECT_COUNT = "SELECT_COUNT";
     public static final String SELECT_COUNT_BY_SIDDHI_APP_NAME = "SELECT_COUNT_BY_SIDDHI_APP_NAME";
     public static final String DELETE = "DELETE";
@@ -59,6 +68,7 @@ public class SiddhiErrorHandlerConstants {
     public static final String EVENT_TYPE = "eventType";
     public static final String ERROR_TYPE = "errorType";
     public static final String ENTRIES_COUNT = "entriesCount";
+    public static final String MAX_ID = "maxId";
 
     public static final String LIMIT = "limit";
     public static final String OFFSET = "offset";
@@ -19,19 +19,18 @@
 package org.wso2.carbon.streaming.integrator.core.util;
 
 import org.apache.log4j.Logger;
-import org.wso2.carbon.streaming.integrator.core.event.queue.EventDataMetaInfo;
-import org.wso2.carbon.streaming.integrator.core.event.queue.EventMetaInfo;
+import org.wso2.carbon.streaming.integrator.core.event.queue.EventSchema;
+import org.wso2.carbon.streaming.integrator.core.event.queue.EventSchemaResolver;
 import org.wso2.carbon.streaming.integrator.core.event.queue.QueuedEvent;
-import io.siddhi.core.event.Event;
 import io.siddhi.query.api.definition.Attribute;
+import org.wso2.carbon.streaming.integrator.core.ha.transport.EventSchemaRegistry;
 import org.wso2.carbon.streaming.integrator.core.ha.util.HAConstants;
 
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.nio.ByteBuffer;
-import java.nio.charset.Charset;
-import java.util.Arrays;
+import java.nio.charset.StandardCharsets;
 
 /**
  * This is a Util class help to convert from Siddhi event to Binary message.
@@ -39,105 +38,158 @@ import java.util.Arrays;
 public class BinaryEventConverter {
     private static final Logger log = Logger.getLogger(BinaryEventConverter.class);
 
+    /**
+     * Converts the events to an event message. Each event refers to the {@link EventSchema} of its source handler by
+     * the schema id, hence the schemas need to be announced to the passive node before sending the message.
+     *
+     * @param queuedEvents events to be synced to the passive node
+     * @return event message
+     * @throws IOException if an error occurs while converting
+     */
     public static ByteBuffer convertToBinaryMessage(QueuedEvent[] queuedEvents)
             throws IOException {
-        ByteBuffer messageBuffer = null;
-        for (QueuedEvent queuedEvent : queuedEvents) {
-            Event event = queuedEvent.getEvent();
-            int allTrpSyncPropertiesByteLength = 0;
-            int messageSize = 4 + BinaryMessageConverterUtil.getSize(queuedEvent.getSourceHandlerElementId());
-            EventMetaInfo eventMetaInfo = getEventMetaInfo(event);
-            String attributes = Arrays.toString(eventMetaInfo.getAttributeTypeOrder());
+        return convertToBinaryMessage(queuedEvents, EventSchemaRegistry::getSchema);
+    }
 
-            messageSize += BinaryMessageConverterUtil.getSize(attributes) + BinaryMessageConverterUtil.getSize
-                    (queuedEvent.getSequenceID()) + BinaryMessageConverterUtil.getSize(queuedEvent.getSiddhiAppName())
-                    + BinaryMessageConverterUtil.getSize(queuedEvent.getEvent().getTimestamp()) + getEventSize(event) +
-                    4;
+    /**
+     * Converts the events to an event message, referring to the schemas given by the resolver.
+     *
+     * @param queuedEvents   events to be converted
+     * @param schemaResolver resolves the {@link EventSchema} of each event
+     * @return event message
+     * @throws IOException if an error occurs while converting
+     */
+    public static ByteBuffer convertToBinaryMessage(QueuedEvent[] queuedEvents, EventSchemaResolver schemaResolver)
+            throws IOException {
+        int messageSize = 1 + 4;
+        int[] schemaIds = new int[queuedEvents.length];
+        Object[][] eventData = new Object[queuedEvents.length][];
+        for (int i = 0; i < queuedEvents.length; i++) {
+            QueuedEvent queuedEvent = queuedEvents[i];
+            eventData[i] = encodeData(queuedEvent.getEvent().getData());
+            schemaIds[i] = schemaResolver.getSchema(queuedEvent.getSiddhiAppName(),
+                    queuedEvent.getSourceHandlerElementId(), getAttributeTypes(eventData[i])).getSchemaId();
+            messageSize += 8 + 4 + getTransportSyncPropertiesSize(queuedEvent.getTransportSyncProperties()) +
+                    getEventSize(eventData[i]);
+        }
 
+        ByteBuffer messageBuffer = ByteBuffer.wrap(new byte[messageSize]);
+        messageBuffer.put(HAConstants.EVENT_SYNC_PROTOCOL_VERSION);
+        messageBuffer.putInt(queuedEvents.length);
+        for (int i = 0; i < queuedEvents.length; i++) {
+            QueuedEvent queuedEvent = queuedEvents[i];
+            messageBuffer.putLong(queuedEvent.getSequenceID());
+            messageBuffer.putInt(schemaIds[i]);
             String[] trpSyncProperties = queuedEvent.getTransportSyncProperties();
             if (trpSyncProperties != null) {
+                messageBuffer.putInt(trpSyncProperties.length);
                 for (String property : trpSyncProperties) {
-                    allTrpSyncPropertiesByteLength += property.length();
-                    messageSize += 4;
-                }
-                if (trpSyncProperties.length != 0) {
-                    messageSize += 4 + allTrpSyncPropertiesByteLength;
+                    byte[] propertyBytes = property.getBytes(StandardCharsets.UTF_8);
+                    messageBuffer.putInt(propertyBytes.length);
+                    messageBuffer.put(propertyBytes);
                 }
+            } else {
+                messageBuffer.putInt(0);
             }
-            messageBuffer = ByteBuffer.wrap(new byte[messageSize]);
-            messageBuffer.putInt(queuedEvents.length);
-            messageBuffer.putLong(queuedEvent.getSequenceID());
-            messageBuffer.putInt((queuedEvent.getSourceHandlerElementId()).length());
-            messageBuffer.put(((queuedEvent.getSourceHandlerElementId()).getBytes(Charset.defaultCharset())));
-            messageBuffer.putInt((queuedEvent.getSiddhiAppName()).length());
-            messageBuffer.put(((queuedEvent.getSiddhiAppName()).getBytes(Charset.defaultCharset())));
-            messageBuffer.putInt(allTrpSyncPropertiesByteLength);
-
-            if (trpSyncProperties != null) {
-                messageBuffer.putInt(trpSyncProperties.length);
-                if (trpSyncProperties.length != 0) {
-                    for (String property : trpSyncProperties) {
-                        messageBuffer.putInt(property.length());
-                        messageBuffer.put((property.getBytes(Charset.defaultCharset())));
-                    }
-                }
+            messageBuffer.putLong(queuedEvent.getEvent().getTimestamp());
+            for (Object aData : eventData[i]) {
+                BinaryMessageConverterUtil.assignData(aData, messageBuffer);
             }
-            messageBuffer.putInt(attributes.length());
-            messageBuffer.put(((attributes).getBytes(Charset.defaultCharset())));
-            messageBuffer.putLong(event.getTimestamp());
+        }
+        return messageBuffer;
+    }
 
-            if (event.getData() != null && event.getData().length != 0) {
-                Object[] data = event.getData();
-                for (int i = 0; i < data.length; i++) {
-                    Object aData = new Object();
-                    if (data[i] instanceof String) {
-                        try {
-                            aData = URLEncoder.encode(data[i].toString(), HAConstants.DEFAULT_CHARSET);
-                        } catch (UnsupportedEncodingException e) {
-                            log.error("Error occurred while encoding the data using UTF-8 ", e);
-                        }
-                    } else {
-                        aData = data[i];
-                    }
-                    BinaryMessageConverterUtil.assignData(aData, messageBuffer);
-                }
-            }
+    /**
+     * Converts the event schema to a schema message which announces it to the passive node.
+     *
+     * @param eventSchema schema of the events of a source handler
+     * @return schema message
+     */
+    public static ByteBuffer convertToBinaryMessage(EventSchema eventSchema) {
+        byte[] siddhiAppName = eventSchema.getSiddhiAppName().getBytes(StandardCharsets.UTF_8);
+        byte[] sourceHandlerElementId = eventSchema.getSourceHandlerElementId().getBytes(StandardCharsets.UTF_8);
+        Attribute.Type[] attributeTypes = eventSchema.getAttributeTypes();
+        ByteBuffer messageBuffer = ByteBuffer.wrap(new byte[1 + 4 + 4 + siddhiAppName.length + 4 +
+                sourceHandlerElementId.length + 4 + attributeTypes.length]);
+        messageBuffer.put(HAConstants.EVENT_SYNC_PROTOCOL_VERSION);
+        messageBuffer.putInt(eventSchema.getSchemaId());
+        messageBuffer.putInt(siddhiAppName.length);
+        messageBuffer.put(siddhiAppName);
+        messageBuffer.putInt(sourceHandlerElementId.length);
+        messageBuffer.put(sourceHandlerElementId);
+        messageBuffer.putInt(attributeTypes.length);
+        for (Attribute.Type attributeType : attributeTypes) {
+            messageBuffer.put((byte) attributeType.ordinal());
         }
         return messageBuffer;
     }
 
-    private static int getEventSize(Event event) {
-        int eventSize = 8;
-        Object[] data = event.getData();
+    /**
+     * Estimates the size of the event in an event message without encoding it.
+     *
+     * @param queuedEvent event to be synced to the passive node
+     * @return estimated size in bytes
+     */
+    public static int getEstimatedSize(QueuedEvent queuedEvent) {
+        int size = 8 + 4 + 4 + 8;
+        Object[] data = queuedEvent.getEvent().getData();
         if (data != null) {
-            for (int i = 0; i < data.length; i++) {
-                Object aData = new Object();
-                if (data[i] instanceof String) {
-                    try {
-                        aData = URLEncoder.encode(data[i].toString(), HAConstants.DEFAULT_CHARSET);
-                    } catch (UnsupportedEncodingException e) {
-                        log.error("Error occurred  while encoding the data using UTF-8 ", e);
-                    }
-                } else {
-                    aData = data[i];
+            for (Object aData : data) {
+                size += BinaryMessageConverterUtil.getSize(aData);
+            }
+        }
+        String[] trpSyncProperties = queuedEvent.getTransportSyncProperties();
+        if (trpSyncProperties != null) {
+            for (String property : trpSyncProperties) {
+                size += 4 + property.length();
+            }
+        }
+        return size;
+    }
+
+    private static Object[] encodeData(Object[] data) {
+        if (data == null) {
+            return new Object[0];
+        }
+        Object[] encodedData = new Object[data.length];
+        for (int i = 0; i < data.length; i++) {
+            if (data[i] instanceof String) {
+                try {
+                    encodedData[i] = URLEncoder.encode(data[i].toString(), HAConstants.DEFAULT_CHARSET);
+                } catch (UnsupportedEncodingException e) {
+                    log.error("Error occurred while encoding the data using UTF-8 ", e);
+                    encodedData[i] = new Object();
                 }
-                eventSize += BinaryMessageConverterUtil.getSize(aData);
+            } else {
+                encodedData[i] = data[i];
             }
         }
-        return eventSize;
+        return encodedData;
     }
 
-    private static EventMetaInfo getEventMetaInfo(Event event) {
+    private static int getTransportSyncPropertiesSize(String[] trpSyncProperties) {
+        int size = 4;
+        if (trpSyncProperties != null) {
+            for (String property : trpSyncProperties) {
+                size += 4 + property.getBytes(StandardCharsets.UTF_8).length;
+            }
+        }
+        return size;
+    }
+
+    private static int getEventSize(Object[] data) {
         int eventSize = 8;
-        Object[] data = event.getData();
-        Attribute.Type[] attributeTypeOrder = new Attribute.Type[data.length];
-        EventDataMetaInfo eventDataMetaInfo;
+        for (Object aData : data) {
+            eventSize += BinaryMessageConverterUtil.getSize(aData);
+        }
+        return eventSize;
+    }
+
+    private static Attribute.Type[] getAttributeTypes(Object[] data) {
+        Attribute.Type[] attributeTypes = new Attribute.Type[data.length];
         for (int i = 0; i < data.length; i++) {
-            Object aData = data[i];
-            eventDataMetaInfo = BinaryMessageConverterUtil.getEventMetaInfo(aData);
-            eventSize += eventDataMetaInfo.getEventSize();
-            attributeTypeOrder[i] = eventDataMetaInfo.getAttributeType();
+            attributeTypes[i] = BinaryMessageConverterUtil.getEventMetaInfo(data[i]).getAttributeType();
         }
-        return new EventMetaInfo(eventSize, attributeTypeOrder);
+        return attributeTypes;
     }
 }
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core;
+
+import com.lmax.disruptor.Sequence;
+import io.siddhi.core.util.error.handler.model.PublishableErrorEntry;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.streaming.integrator.core.siddhi.error.handler.util.ErrorEntryBatchHandler;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class ErrorEntryBatchHandlerTest {
+
+    @Test
+    public void testEntriesAreWrittenAtEndOfBatch() {
+        List<List<Long>> batches = new ArrayList<>();
+        ErrorEntryBatchHandler handler = new ErrorEntryBatchHandler(errorEntries -> batches.add(
+                timestamps(errorEntries)), () -> 100);
+        handler.onEvent(createErrorEntry(0), 0, false);
+        handler.onEvent(createErrorEntry(1), 1, false);
+        Assert.assertTrue(batches.isEmpty(), "Entries are written before the end of the batch");
+        handler.onEvent(createErrorEntry(2), 2, true);
+        handler.onEvent(createErrorEntry(3), 3, true);
+        Assert.assertEquals(batches, Arrays.asList(Arrays.asList(0L, 1L, 2L), Arrays.asList(3L)));
+    }
+
+    @Test
+    public void testBatchesAreLimitedToMaxBatchSize() {
+        List<List<Long>> batches = new ArrayList<>();
+        ErrorEntryBatchHandler handler = new ErrorEntryBatchHandler(errorEntries -> batches.add(
+                timestamps(errorEntries)), () -> 2);
+        for (int i = 0; i < 5; i++) {
+            handler.onEvent(createErrorEntry(i), i, i == 4);
+        }
+        Assert.assertEquals(batches, Arrays.asList(Arrays.asList(0L, 1L), Arrays.asList(2L, 3L),
+                Arrays.asList(4L)));
+    }
+
+    @Test
+    public void testFailedBatchIsWrittenOneAtATime() {
+        List<List<Long>> batches = new ArrayList<>();
+        ErrorEntryBatchHandler handler = new ErrorEntryBatchHandler(errorEntries -> {
+            if (errorEntries.size() > 1) {
+                throw new SQLException("Batch is too large");
+            }
+            if (errorEntries.get(0).getTimestamp() == 1) {
+                throw new SQLException("Entry is malformed");
+            }
+            batches.add(timestamps(errorEntries));
+        }, () -> 100);
+        handler.onEvent(createErrorEntry(0), 0, false);
+        handler.onEvent(createErrorEntry(1), 1, false);
+        handler.onEvent(createErrorEntry(2), 2, true);
+        handler.onEvent(createErrorEntry(3), 3, true);
+        Assert.assertEquals(batches, Arrays.asList(Arrays.asList(0L), Arrays.asList(2L), Arrays.asList(3L)));
+    }
+
+    @Test
+    public void testFailedEntryIsNotWrittenAgain() {
+        List<List<Long>> batches = new ArrayList<>();
+        ErrorEntryBatchHandler handler = new ErrorEntryBatchHandler(errorEntries -> {
+            if (errorEntries.get(0).getTimestamp() == 0) {
+                throw new SQLException("Database is unavailable");
+            }
+            batches.add(timestamps(errorEntries));
+        }, () -> 100);
+        handler.onEvent(createErrorEntry(0), 0, true);
+        handler.onEvent(createErrorEntry(1), 1, true);
+        Assert.assertEquals(batches, Arrays.asList(Arrays.asList(1L)));
+    }
+
+    @Test
+    public void testHandledEntryCountFollowsReportedSequence() {
+        ErrorEntryBatchHandler handler = new ErrorEntryBatchHandler(errorEntries -> {
+        }, () -> 100);
+        Assert.assertEquals(handler.getHandledEntryCount(), 0);
+        Sequence sequence = new Sequence();
+        handler.setSequenceCallback(sequence);
+        Assert.assertEquals(handler.getHandledEntryCount(), 0);
+        sequence.set(4);
+        Assert.assertEquals(handler.getHandledEntryCount(), 5);
+    }
+
+    private List<Long> timestamps(List<PublishableErrorEntry> errorEntries) {
+        List<Long> timestamps = new ArrayList<>();
+        for (PublishableErrorEntry errorEntry : errorEntries) {
+            timestamps.add(errorEntry.getTimestamp());
+        }
+        return timestamps;
+    }
+
+    private PublishableErrorEntry createErrorEntry(long timestamp) {
+        PublishableErrorEntry errorEntry = new PublishableErrorEntry();
+        errorEntry.setTimestamp(timestamp);
+        return errorEntry;
+    }
+}
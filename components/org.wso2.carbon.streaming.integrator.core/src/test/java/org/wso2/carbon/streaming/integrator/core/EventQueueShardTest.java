@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core;
+
+import io.siddhi.core.event.Event;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.streaming.integrator.core.event.queue.EventQueueShard;
+import org.wso2.carbon.streaming.integrator.core.event.queue.EventSpillStore;
+import org.wso2.carbon.streaming.integrator.core.event.queue.QueuedEvent;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class EventQueueShardTest {
+
+    @Test
+    public void testTruncate() {
+        EventQueueShard eventQueueShard = new EventQueueShard();
+        for (long i = 1; i <= 5000; i++) {
+            eventQueueShard.add(createQueuedEvent(i));
+        }
+        Assert.assertEquals(eventQueueShard.truncate(3001), 3000);
+        Assert.assertEquals(eventQueueShard.size(), 2000);
+        Assert.assertEquals(eventQueueShard.truncate(2000), 0);
+        Assert.assertFalse(eventQueueShard.add(createQueuedEvent(3000)));
+
+        List<QueuedEvent> queuedEvents = drainAll(eventQueueShard);
+        Assert.assertEquals(queuedEvents.size(), 2000);
+        Assert.assertEquals(queuedEvents.get(0).getSequenceID(), 3001);
+        Assert.assertEquals(queuedEvents.get(1999).getSequenceID(), 5000);
+        Assert.assertEquals(eventQueueShard.size(), 0);
+    }
+
+    @Test
+    public void testTruncateOutOfOrderEvents() {
+        EventQueueShard eventQueueShard = new EventQueueShard();
+        // swap each pair of events, so that events straddle the segment boundaries
+        for (long i = 1; i <= 4096; i += 2) {
+            eventQueueShard.add(createQueuedEvent(i + 1));
+            eventQueueShard.add(createQueuedEvent(i));
+        }
+        eventQueueShard.add(createQueuedEvent(10));
+        Assert.assertEquals(eventQueueShard.truncate(2049), 2049);
+
+        List<QueuedEvent> queuedEvents = drainAll(eventQueueShard);
+        Assert.assertEquals(queuedEvents.size(), 2048);
+        for (int i = 0; i < queuedEvents.size(); i++) {
+            Assert.assertEquals(queuedEvents.get(i).getSequenceID(), 2049 + i);
+        }
+    }
+
+    @Test
+    public void testSpillToDisk() throws Exception {
+        Path spillDirectory = Files.createTempDirectory("ha-event-buffer");
+        EventSpillStore spillStore = new EventSpillStore(spillDirectory.toString(), 1);
+        EventQueueShard eventQueueShard = new EventQueueShard(spillStore);
+        for (long i = 1; i <= 5000; i++) {
+            eventQueueShard.add(createQueuedEvent(i));
+        }
+        Assert.assertEquals(countFiles(spillDirectory), 3);
+        Assert.assertEquals(eventQueueShard.truncate(1500), 1499);
+        Assert.assertEquals(countFiles(spillDirectory), 1);
+        Assert.assertEquals(eventQueueShard.size(), 3501);
+
+        List<QueuedEvent> queuedEvents = drainAll(eventQueueShard);
+        Assert.assertEquals(queuedEvents.size(), 3501);
+        for (int i = 0; i < queuedEvents.size(); i++) {
+            QueuedEvent queuedEvent = queuedEvents.get(i);
+            Assert.assertEquals(queuedEvent.getSequenceID(), 1500 + i);
+            Assert.assertEquals(queuedEvent.getEvent().getData(), new Object[]{1500L + i, "event " + (1500 + i)});
+        }
+        Assert.assertEquals(countFiles(spillDirectory), 0);
+        Assert.assertEquals(spillStore.getHeapBytes(), 0);
+        Files.delete(spillDirectory);
+    }
+
+    @Test
+    public void testReplaySpilledSegmentsOneAtATime() throws Exception {
+        Path spillDirectory = Files.createTempDirectory("ha-event-buffer");
+        EventSpillStore spillStore = new EventSpillStore(spillDirectory.toString(), 1);
+        EventQueueShard eventQueueShard = new EventQueueShard(spillStore);
+        for (long i = 1; i <= 8192; i++) {
+            eventQueueShard.add(createQueuedEvent(i));
+        }
+        Assert.assertEquals(countFiles(spillDirectory), 7);
+
+        long expectedSequenceId = 1;
+        for (int segment = 0; segment < 8; segment++) {
+            List<QueuedEvent> queuedEvents = eventQueueShard.drainNext();
+            Assert.assertEquals(queuedEvents.size(), 1024);
+            for (QueuedEvent queuedEvent : queuedEvents) {
+                Assert.assertEquals(queuedEvent.getSequenceID(), expectedSequenceId++);
+            }
+            // the spill file of a replayed segment is deleted right away
+            Assert.assertEquals(countFiles(spillDirectory), Math.max(0, 6 - segment));
+            Assert.assertEquals(eventQueueShard.size(), 8192 - 1024 * (segment + 1));
+        }
+        Assert.assertTrue(eventQueueShard.drainNext().isEmpty());
+        Assert.assertEquals(spillStore.getHeapBytes(), 0);
+        Files.delete(spillDirectory);
+    }
+
+    @Test
+    public void testReplaySpilledOutOfOrderEvents() throws Exception {
+        Path spillDirectory = Files.createTempDirectory("ha-event-buffer");
+        EventSpillStore spillStore = new EventSpillStore(spillDirectory.toString(), 1);
+        EventQueueShard eventQueueShard = new EventQueueShard(spillStore);
+        // events of a concurrent source handler lag behind, so that they are spilled with the segment after them
+        for (long i = 1; i <= 4096; i++) {
+            if (i % 100 != 0) {
+                eventQueueShard.add(createQueuedEvent(i));
+            }
+            if (i % 100 == 50 && i > 50) {
+                eventQueueShard.add(createQueuedEvent(i - 50));
+            }
+        }
+        Assert.assertTrue(countFiles(spillDirectory) > 0);
+
+        List<QueuedEvent> queuedEvents = drainAll(eventQueueShard);
+        Assert.assertEquals(queuedEvents.size(), 4096);
+        for (int i = 0; i < queuedEvents.size(); i++) {
+            Assert.assertEquals(queuedEvents.get(i).getSequenceID(), i + 1);
+        }
+        Assert.assertEquals(countFiles(spillDirectory), 0);
+        Assert.assertEquals(spillStore.getHeapBytes(), 0);
+        Files.delete(spillDirectory);
+    }
+
+    private static List<QueuedEvent> drainAll(EventQueueShard eventQueueShard) {
+        List<QueuedEvent> queuedEvents = new ArrayList<>();
+        List<QueuedEvent> nextEvents;
+        while (!(nextEvents = eventQueueShard.drainNext()).isEmpty()) {
+            queuedEvents.addAll(nextEvents);
+        }
+        return queuedEvents;
+    }
+
+    private static long countFiles(Path directory) throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    private static QueuedEvent createQueuedEvent(long sequenceId) {
+        return new QueuedEvent("TestApp", "source-1", sequenceId, new Event(sequenceId,
+                new Object[]{sequenceId, "event " + sequenceId}),
+                null);
+    }
+}
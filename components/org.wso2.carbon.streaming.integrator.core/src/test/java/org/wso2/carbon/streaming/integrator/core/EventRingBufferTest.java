@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.streaming.integrator.core.ha.transport.EventRingBuffer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class EventRingBufferTest {
+
+    @Test
+    public void testCapacity() {
+        Assert.assertEquals(new EventRingBuffer<Long>(1).capacity(), 4);
+        Assert.assertEquals(new EventRingBuffer<Long>(8).capacity(), 8);
+        Assert.assertEquals(new EventRingBuffer<Long>(1000).capacity(), 1024);
+    }
+
+    @Test
+    public void testFullBuffer() {
+        EventRingBuffer<Long> ringBuffer = new EventRingBuffer<>(8);
+        for (long i = 0; i < 8; i++) {
+            Assert.assertTrue(ringBuffer.offer(i));
+        }
+        Assert.assertFalse(ringBuffer.offer(8L));
+        Assert.assertEquals(ringBuffer.size(), 8);
+
+        Assert.assertEquals(ringBuffer.poll(), Long.valueOf(0));
+        Assert.assertTrue(ringBuffer.offer(8L));
+        Assert.assertFalse(ringBuffer.offer(9L));
+        for (long i = 1; i <= 8; i++) {
+            Assert.assertEquals(ringBuffer.poll(), Long.valueOf(i));
+        }
+        Assert.assertNull(ringBuffer.poll());
+        Assert.assertEquals(ringBuffer.size(), 0);
+    }
+
+    @Test
+    public void testWrapAround() {
+        EventRingBuffer<Long> ringBuffer = new EventRingBuffer<>(4);
+        long next = 0;
+        long expected = 0;
+        // vary the number of buffered items, so that the positions wrap around the slots at different offsets
+        for (int round = 0; round < 10000; round++) {
+            int noOfItems = round % ringBuffer.capacity() + 1;
+            for (int i = 0; i < noOfItems; i++) {
+                Assert.assertTrue(ringBuffer.offer(next++));
+            }
+            Assert.assertEquals(ringBuffer.size(), noOfItems);
+            for (int i = 0; i < noOfItems; i++) {
+                Assert.assertEquals(ringBuffer.poll(), Long.valueOf(expected++));
+            }
+        }
+        Assert.assertEquals(expected, next);
+        Assert.assertNull(ringBuffer.poll());
+    }
+
+    @Test
+    public void testConcurrentProducers() throws Exception {
+        int noOfProducers = 8;
+        int itemsPerProducer = 100000;
+        EventRingBuffer<long[]> ringBuffer = new EventRingBuffer<>(64);
+        ExecutorService executorService = Executors.newFixedThreadPool(noOfProducers);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        try {
+            List<Future<Object>> producers = new ArrayList<>();
+            for (int p = 0; p < noOfProducers; p++) {
+                long producerId = p;
+                producers.add(executorService.submit(() -> {
+                    startLatch.await();
+                    for (long i = 0; i < itemsPerProducer; i++) {
+                        long[] item = new long[]{producerId, i};
+                        while (!ringBuffer.offer(item)) {
+                            Thread.yield();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            startLatch.countDown();
+
+            long[] lastReceived = new long[noOfProducers];
+            Arrays.fill(lastReceived, -1);
+            long received = 0;
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+            while (received < (long) noOfProducers * itemsPerProducer) {
+                Assert.assertTrue(System.nanoTime() < deadline, "Timed out after receiving " + received + " items");
+                long[] item = ringBuffer.poll();
+                if (item == null) {
+                    Thread.yield();
+                    continue;
+                }
+                int producerId = (int) item[0];
+                // items of each producer are received in the order they are offered
+                Assert.assertEquals(item[1], lastReceived[producerId] + 1);
+                lastReceived[producerId] = item[1];
+                received++;
+            }
+            for (Future<Object> producer : producers) {
+                producer.get();
+            }
+            Assert.assertNull(ringBuffer.poll());
+            Assert.assertEquals(ringBuffer.size(), 0);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+}
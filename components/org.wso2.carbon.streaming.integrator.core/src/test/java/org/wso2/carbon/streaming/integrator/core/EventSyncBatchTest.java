@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.siddhi.core.event.Event;
+import io.siddhi.query.api.definition.Attribute;
+import org.apache.log4j.Logger;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.streaming.integrator.core.event.queue.EventSchema;
+import org.wso2.carbon.streaming.integrator.core.event.queue.QueuedEvent;
+import org.wso2.carbon.streaming.integrator.core.ha.tcp.SiddhiEventConverter;
+import org.wso2.carbon.streaming.integrator.core.ha.transport.EventComposite;
+import org.wso2.carbon.streaming.integrator.core.ha.transport.EventSchemaRegistry;
+import org.wso2.carbon.streaming.integrator.core.ha.transport.handlers.MessageDecoder;
+import org.wso2.carbon.streaming.integrator.core.ha.transport.handlers.MessageEncoder;
+import org.wso2.carbon.streaming.integrator.core.ha.util.HAConstants;
+import org.wso2.carbon.streaming.integrator.core.util.BinaryEventConverter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class EventSyncBatchTest {
+    private static final Logger log = Logger.getLogger(EventSyncBatchTest.class);
+    private static final String SIDDHI_APP_NAME = "TestApp";
+    private static final String SOURCE_HANDLER_ID = "source-1";
+    private static final String SESSION_ID = "session-1";
+
+    @Test
+    public void testBatchRoundTrip() throws Exception {
+        QueuedEvent[] queuedEvents = createQueuedEvents(0, 100);
+        List<EventComposite> eventComposites = new ArrayList<>();
+        eventComposites.add(new EventComposite(SESSION_ID, HAConstants.CHANNEL_ID_MESSAGE,
+                BinaryEventConverter.convertToBinaryMessage(queuedEvents).array()));
+
+        Map<Integer, EventSchema> schemaMap = new HashMap<>();
+        List<QueuedEvent> receivedEvents = new ArrayList<>();
+        List<ByteBuf> frames = transfer(withSchemaMessage(eventComposites));
+        Assert.assertEquals(frames.size(), 2);
+        for (ByteBuf frame : frames) {
+            readFrame(frame, schemaMap, receivedEvents);
+        }
+
+        Assert.assertEquals(receivedEvents.size(), queuedEvents.length);
+        for (int i = 0; i < queuedEvents.length; i++) {
+            QueuedEvent sent = queuedEvents[i];
+            QueuedEvent received = receivedEvents.get(i);
+            Assert.assertEquals(received.getSequenceID(), sent.getSequenceID());
+            Assert.assertEquals(received.getSiddhiAppName(), SIDDHI_APP_NAME);
+            Assert.assertEquals(received.getSourceHandlerElementId(), SOURCE_HANDLER_ID);
+            Assert.assertEquals(received.getEvent().getTimestamp(), sent.getEvent().getTimestamp());
+            Assert.assertEquals(received.getEvent().getData(), sent.getEvent().getData());
+            Assert.assertEquals(received.getTransportSyncProperties(), sent.getTransportSyncProperties());
+        }
+    }
+
+    @Test(dependsOnMethods = "testBatchRoundTrip")
+    public void testBatchThroughput() throws Exception {
+        int noOfEvents = 100000;
+        int batchSize = 100;
+
+        long startTime = System.nanoTime();
+        List<EventComposite> eventComposites = new ArrayList<>(noOfEvents);
+        for (int i = 0; i < noOfEvents; i++) {
+            eventComposites.add(new EventComposite(SESSION_ID, HAConstants.CHANNEL_ID_MESSAGE,
+                    BinaryEventConverter.convertToBinaryMessage(createQueuedEvents(i, 1)).array()));
+        }
+        int singleEventCount = readEvents(transfer(withSchemaMessage(eventComposites)));
+        long singleEventTime = System.nanoTime() - startTime;
+
+        startTime = System.nanoTime();
+        eventComposites = new ArrayList<>(noOfEvents / batchSize);
+        for (int i = 0; i < noOfEvents; i += batchSize) {
+            eventComposites.add(new EventComposite(SESSION_ID, HAConstants.CHANNEL_ID_MESSAGE,
+                    BinaryEventConverter.convertToBinaryMessage(createQueuedEvents(i, batchSize)).array()));
+        }
+        int batchedEventCount = readEvents(transfer(withSchemaMessage(eventComposites)));
+        long batchedTime = System.nanoTime() - startTime;
+
+        Assert.assertEquals(singleEventCount, noOfEvents);
+        Assert.assertEquals(batchedEventCount, noOfEvents);
+        log.info("Event sync throughput with one event per message: " +
+                (noOfEvents * 1000000000L / singleEventTime) + " events/sec, with " + batchSize +
+                " events per message: " + (noOfEvents * 1000000000L / batchedTime) + " events/sec");
+    }
+
+    private static QueuedEvent[] createQueuedEvents(int offset, int noOfEvents) {
+        QueuedEvent[] queuedEvents = new QueuedEvent[noOfEvents];
+        for (int i = 0; i < noOfEvents; i++) {
+            int index = offset + i;
+            Event event = new Event(1000L + index, new Object[]{"IBM & WSO2 " + index, index, (long) index,
+                    index * 1.5, index * 0.5f, index % 2 == 0});
+            queuedEvents[i] = new QueuedEvent(SIDDHI_APP_NAME, SOURCE_HANDLER_ID, index + 1, event,
+                    index == 0 ? new String[]{"offset-" + index} : null);
+        }
+        return queuedEvents;
+    }
+
+    private static List<EventComposite> withSchemaMessage(List<EventComposite> eventComposites) {
+        EventSchema eventSchema = EventSchemaRegistry.getSchema(SIDDHI_APP_NAME, SOURCE_HANDLER_ID,
+                new Attribute.Type[]{Attribute.Type.STRING, Attribute.Type.INT, Attribute.Type.LONG,
+                        Attribute.Type.DOUBLE, Attribute.Type.FLOAT, Attribute.Type.BOOL});
+        List<EventComposite> messages = new ArrayList<>(eventComposites.size() + 1);
+        messages.add(new EventComposite(SESSION_ID, HAConstants.CHANNEL_ID_SCHEMA_MESSAGE,
+                BinaryEventConverter.convertToBinaryMessage(eventSchema).array()));
+        messages.addAll(eventComposites);
+        return messages;
+    }
+
+    /**
+     * Writes the messages through the {@link MessageEncoder} of the active node and reads them through the
+     * {@link MessageDecoder} of the passive node.
+     */
+    private static List<ByteBuf> transfer(List<EventComposite> eventComposites) {
+        EmbeddedChannel clientChannel = new EmbeddedChannel(new MessageEncoder());
+        EmbeddedChannel serverChannel = new EmbeddedChannel(new MessageDecoder(new AtomicInteger(),
+                Integer.MAX_VALUE));
+        List<ByteBuf> frames = new ArrayList<>();
+        for (EventComposite eventComposite : eventComposites) {
+            clientChannel.writeOutbound(eventComposite);
+            ByteBuf encoded;
+            while ((encoded = clientChannel.readOutbound()) != null) {
+                serverChannel.writeInbound(encoded);
+            }
+            ByteBuf frame;
+            while ((frame = serverChannel.readInbound()) != null) {
+                frames.add(frame);
+            }
+        }
+        clientChannel.finish();
+        serverChannel.finish();
+        return frames;
+    }
+
+    private static int readEvents(List<ByteBuf> frames) throws Exception {
+        Map<Integer, EventSchema> schemaMap = new HashMap<>();
+        List<QueuedEvent> receivedEvents = new ArrayList<>();
+        for (ByteBuf frame : frames) {
+            readFrame(frame, schemaMap, receivedEvents);
+        }
+        return receivedEvents.size();
+    }
+
+    private static void readFrame(ByteBuf frame, Map<Integer, EventSchema> schemaMap,
+                                  List<QueuedEvent> receivedEvents) throws Exception {
+        try {
+            int channelIdSize = frame.readInt();
+            String channelId = frame.toString(frame.readerIndex(), channelIdSize, StandardCharsets.UTF_8);
+            frame.skipBytes(channelIdSize);
+            ByteBuf data = frame.readSlice(frame.readInt());
+            if (HAConstants.CHANNEL_ID_SCHEMA_MESSAGE.equals(channelId)) {
+                EventSchema eventSchema = SiddhiEventConverter.getEventSchema(data);
+                schemaMap.put(eventSchema.getSchemaId(), eventSchema);
+            } else {
+                for (QueuedEvent queuedEvent : SiddhiEventConverter.getQueuedEvents(data, schemaMap::get)) {
+                    receivedEvents.add(queuedEvent);
+                }
+            }
+        } finally {
+            frame.release();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core;
+
+import io.siddhi.core.event.Event;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.streaming.integrator.core.event.queue.QueuedEvent;
+import org.wso2.carbon.streaming.integrator.core.ha.transport.EventSyncBatcher;
+import org.wso2.carbon.streaming.integrator.core.ha.transport.EventSyncConnectionPoolFactory;
+import org.wso2.carbon.streaming.integrator.core.ha.transport.EventSyncConnectionPoolManager;
+import org.wso2.carbon.streaming.integrator.core.ha.util.HAConstants;
+
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class EventSyncBatcherTest {
+    private static final String SIDDHI_APP_NAME = "TestApp";
+    private static final String SOURCE_HANDLER_ID = "source-1";
+
+    @AfterMethod
+    public void tearDown() {
+        EventSyncConnectionPoolManager.uninitializeConnectionPool();
+    }
+
+    @Test
+    public void testConcurrentProducersWithoutConnection() throws Exception {
+        int noOfProducers = 4;
+        int eventsPerProducer = 20000;
+        EventSyncBatcher eventSyncBatcher = new EventSyncBatcher(128,
+                HAConstants.EVENT_SYNC_QUEUE_FULL_POLICY_BLOCK, 4096, 1);
+        ExecutorService executorService = Executors.newFixedThreadPool(noOfProducers);
+        try {
+            List<Future<Object>> producers = new ArrayList<>();
+            for (int p = 0; p < noOfProducers; p++) {
+                int producerId = p;
+                producers.add(executorService.submit(() -> {
+                    for (int i = 0; i < eventsPerProducer; i += 10) {
+                        eventSyncBatcher.add(createQueuedEvents(producerId * eventsPerProducer + i, 10));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<Object> producer : producers) {
+                producer.get(60, TimeUnit.SECONDS);
+            }
+            // there is no connection pool to the passive node, hence every batch written is dropped
+            waitForDroppedEvents(eventSyncBatcher, noOfProducers * eventsPerProducer);
+            Assert.assertEquals(eventSyncBatcher.getQueueSize(), 0);
+        } finally {
+            executorService.shutdownNow();
+            eventSyncBatcher.shutdown();
+        }
+    }
+
+    @Test
+    public void testDropWhenFull() throws Exception {
+        EventSyncBatcher eventSyncBatcher = new EventSyncBatcher(16,
+                HAConstants.EVENT_SYNC_QUEUE_FULL_POLICY_DROP, 4096, 1);
+        try {
+            eventSyncBatcher.add(createQueuedEvents(0, 1000));
+            // each event is either dropped as the queue is full, or written and dropped for lack of a connection
+            waitForDroppedEvents(eventSyncBatcher, 1000);
+            Assert.assertEquals(eventSyncBatcher.getQueueSize(), 0);
+        } finally {
+            eventSyncBatcher.shutdown();
+        }
+    }
+
+    @Test
+    public void testDropDuringConnectionRetryInterval() throws Exception {
+        int port;
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            port = serverSocket.getLocalPort();
+        }
+        EventSyncConnectionPoolManager.initializeConnectionPool(
+                new EventSyncConnectionPoolFactory("localhost", port), 1, 1, 1, 1000, 60000);
+        EventSyncBatcher eventSyncBatcher = new EventSyncBatcher(1024,
+                HAConstants.EVENT_SYNC_QUEUE_FULL_POLICY_BLOCK, 256, 1);
+        try {
+            // the first batch is refused by the passive node, the rest are dropped while waiting to retry
+            for (int i = 0; i < 100; i++) {
+                eventSyncBatcher.add(createQueuedEvents(i * 10, 10));
+            }
+            waitForDroppedEvents(eventSyncBatcher, 1000);
+            Assert.assertEquals(eventSyncBatcher.getQueueSize(), 0);
+        } finally {
+            eventSyncBatcher.shutdown();
+        }
+    }
+
+    private static void waitForDroppedEvents(EventSyncBatcher eventSyncBatcher, long expected)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30000;
+        while (eventSyncBatcher.getDroppedEventCount() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(eventSyncBatcher.getDroppedEventCount(), expected);
+    }
+
+    private static QueuedEvent[] createQueuedEvents(int offset, int noOfEvents) {
+        QueuedEvent[] queuedEvents = new QueuedEvent[noOfEvents];
+        for (int i = 0; i < noOfEvents; i++) {
+            int index = offset + i;
+            queuedEvents[i] = new QueuedEvent(SIDDHI_APP_NAME, SOURCE_HANDLER_ID, index + 1,
+                    new Event(1000L + index, new Object[]{"WSO2", index, (long) index}), null);
+        }
+        return queuedEvents;
+    }
+}
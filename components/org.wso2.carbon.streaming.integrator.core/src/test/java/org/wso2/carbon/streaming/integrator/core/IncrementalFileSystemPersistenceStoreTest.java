@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core;
+
+import io.siddhi.core.util.persistence.util.IncrementalSnapshotInfo;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.streaming.integrator.core.persistence.IncrementalFileSystemPersistenceStore;
+import org.wso2.carbon.streaming.integrator.core.persistence.IncrementalSnapshotPrefetcher;
+import org.wso2.carbon.streaming.integrator.core.persistence.util.PersistenceConstants;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public class IncrementalFileSystemPersistenceStoreTest {
+    private static final String SIDDHI_APP_NAME = "TestApp";
+
+    @Test
+    public void testRevisionManifest() throws IOException {
+        Path folder = Files.createTempDirectory("siddhi-app-persistence");
+        IncrementalFileSystemPersistenceStore persistenceStore = createPersistenceStore(folder);
+        persistenceStore.save(createSnapshotInfo(1, IncrementalSnapshotInfo.SnapshotType.BASE), createSnapshot());
+        persistenceStore.save(createSnapshotInfo(2, IncrementalSnapshotInfo.SnapshotType.INCREMENT),
+                createSnapshot());
+        persistenceStore.save(createSnapshotInfo(3, IncrementalSnapshotInfo.SnapshotType.INCREMENT),
+                createSnapshot());
+        persistenceStore.save(createSnapshotInfo(3, IncrementalSnapshotInfo.SnapshotType.PERIODIC),
+                createSnapshot());
+        Assert.assertEquals(persistenceStore.getLastRevision(SIDDHI_APP_NAME), "3__" + SIDDHI_APP_NAME);
+        Assert.assertEquals(persistenceStore.getListOfRevisionsToLoad(2, SIDDHI_APP_NAME).size(), 2);
+
+        // the new base snapshot replaces the older base and incremental snapshots
+        persistenceStore.save(createSnapshotInfo(4, IncrementalSnapshotInfo.SnapshotType.BASE), createSnapshot());
+        Path appFolder = folder.resolve(SIDDHI_APP_NAME);
+        Assert.assertEquals(countRevisionFiles(appFolder), 2);
+        Assert.assertEquals(persistenceStore.getListOfRevisionsToLoad(Long.MAX_VALUE, SIDDHI_APP_NAME).size(), 2);
+        Assert.assertEquals(createPersistenceStore(folder)
+                .getListOfRevisionsToLoad(Long.MAX_VALUE, SIDDHI_APP_NAME).size(), 2);
+
+        // revisions written without updating the manifest are found by listing the directory
+        Files.write(appFolder.resolve(createSnapshotInfo(5, IncrementalSnapshotInfo.SnapshotType.INCREMENT)
+                .getRevision()), createSnapshot());
+        IncrementalFileSystemPersistenceStore restartedPersistenceStore = createPersistenceStore(folder);
+        Assert.assertEquals(restartedPersistenceStore.getLastRevision(SIDDHI_APP_NAME), "5__" + SIDDHI_APP_NAME);
+        Assert.assertEquals(restartedPersistenceStore.load(createSnapshotInfo(4,
+                IncrementalSnapshotInfo.SnapshotType.BASE)), "snapshot".getBytes(StandardCharsets.UTF_8));
+
+        restartedPersistenceStore.clearAllRevisions(SIDDHI_APP_NAME);
+        Assert.assertNull(restartedPersistenceStore.getLastRevision(SIDDHI_APP_NAME));
+        Assert.assertNull(createPersistenceStore(folder).getLastRevision(SIDDHI_APP_NAME));
+    }
+
+    @Test
+    public void testRevisionsPersistedByAnotherNode() throws IOException {
+        Path folder = Files.createTempDirectory("siddhi-app-persistence");
+        IncrementalFileSystemPersistenceStore activePersistenceStore = createPersistenceStore(folder);
+        IncrementalFileSystemPersistenceStore standbyPersistenceStore = createPersistenceStore(folder);
+        activePersistenceStore.save(createSnapshotInfo(1, IncrementalSnapshotInfo.SnapshotType.BASE),
+                createSnapshot());
+        Assert.assertEquals(standbyPersistenceStore.getLastRevision(SIDDHI_APP_NAME), "1__" + SIDDHI_APP_NAME);
+
+        // the index of the standby node is rebuilt once the active node persists to the shared directory
+        activePersistenceStore.save(createSnapshotInfo(2, IncrementalSnapshotInfo.SnapshotType.INCREMENT),
+                createSnapshot());
+        Assert.assertEquals(standbyPersistenceStore.getLastRevision(SIDDHI_APP_NAME), "2__" + SIDDHI_APP_NAME);
+        activePersistenceStore.save(createSnapshotInfo(3, IncrementalSnapshotInfo.SnapshotType.BASE),
+                createSnapshot());
+        Assert.assertEquals(standbyPersistenceStore.getListOfRevisionsToLoad(Long.MAX_VALUE, SIDDHI_APP_NAME)
+                .size(), 1);
+    }
+
+    @Test
+    public void testRestorePrefetch() {
+        List<IncrementalSnapshotInfo> loadedRevisions = Collections.synchronizedList(new ArrayList<>());
+        IncrementalSnapshotPrefetcher prefetcher = new IncrementalSnapshotPrefetcher(snapshotInfo -> {
+            loadedRevisions.add(snapshotInfo);
+            return snapshotInfo.getRevision().getBytes(StandardCharsets.UTF_8);
+        });
+        IncrementalSnapshotInfo oldBase = createSnapshotInfo(1, IncrementalSnapshotInfo.SnapshotType.BASE);
+        IncrementalSnapshotInfo oldIncrement = createSnapshotInfo(2, IncrementalSnapshotInfo.SnapshotType.INCREMENT);
+        IncrementalSnapshotInfo base = createSnapshotInfo(3, IncrementalSnapshotInfo.SnapshotType.BASE);
+        IncrementalSnapshotInfo increment = createSnapshotInfo(4, IncrementalSnapshotInfo.SnapshotType.INCREMENT);
+        IncrementalSnapshotInfo oldPeriodic = createSnapshotInfo(1, IncrementalSnapshotInfo.SnapshotType.PERIODIC);
+        IncrementalSnapshotInfo periodic = createSnapshotInfo(2, IncrementalSnapshotInfo.SnapshotType.PERIODIC);
+        prefetcher.prefetch(SIDDHI_APP_NAME,
+                Arrays.asList(oldBase, oldIncrement, base, increment, oldPeriodic, periodic));
+
+        // loaded in the order Siddhi restores them, newest first
+        for (IncrementalSnapshotInfo snapshotInfo : Arrays.asList(increment, base, periodic)) {
+            Assert.assertEquals(prefetcher.load(snapshotInfo),
+                    snapshotInfo.getRevision().getBytes(StandardCharsets.UTF_8));
+        }
+        // revisions replaced by the newer base and periodic snapshots are not loaded
+        Assert.assertEquals(loadedRevisions.size(), 3);
+        Assert.assertFalse(loadedRevisions.contains(oldBase));
+        Assert.assertFalse(loadedRevisions.contains(oldIncrement));
+        Assert.assertFalse(loadedRevisions.contains(oldPeriodic));
+
+        // revisions which are not prefetched are loaded directly
+        Assert.assertEquals(prefetcher.load(oldBase), oldBase.getRevision().getBytes(StandardCharsets.UTF_8));
+        Assert.assertEquals(loadedRevisions.size(), 4);
+    }
+
+    private static IncrementalFileSystemPersistenceStore createPersistenceStore(Path folder) {
+        IncrementalFileSystemPersistenceStore persistenceStore = new IncrementalFileSystemPersistenceStore();
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(PersistenceConstants.STATE_PERSISTENCE_CONFIGS,
+                Collections.singletonMap("location", folder.toString()));
+        persistenceStore.setProperties(properties);
+        return persistenceStore;
+    }
+
+    private static IncrementalSnapshotInfo createSnapshotInfo(long time, IncrementalSnapshotInfo.SnapshotType type) {
+        return new IncrementalSnapshotInfo(SIDDHI_APP_NAME, "partition", "query1", "element1", time, type, "key");
+    }
+
+    private static byte[] createSnapshot() {
+        return "snapshot".getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static long countRevisionFiles(Path appFolder) throws IOException {
+        try (Stream<Path> files = Files.list(appFolder)) {
+            return files.filter(file -> !file.getFileName().toString().startsWith(".")).count();
+        }
+    }
+}
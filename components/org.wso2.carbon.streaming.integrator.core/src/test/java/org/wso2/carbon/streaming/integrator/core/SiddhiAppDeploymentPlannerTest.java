@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.streaming.integrator.core.internal.SiddhiAppDeploymentPlanner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+public class SiddhiAppDeploymentPlannerTest {
+
+    @Test
+    public void testAppsSharingStoresAreGrouped() throws IOException {
+        Path folder = Files.createTempDirectory("siddhi-apps");
+        File app1 = createSiddhiApp(folder, "App1", "@store(type='rdbms', datasource='DS', table.name='Orders') " +
+                "define table OrderTable (id string, amount double);");
+        File app2 = createSiddhiApp(folder, "App2", "define table OrderTable (id string, amount double);");
+        File app3 = createSiddhiApp(folder, "App3", "@store(type='rdbms', datasource='DS') " +
+                "define table Orders (id string, amount double);");
+        File app4 = createSiddhiApp(folder, "App4", "@store(type='rdbms', datasource='DS') " +
+                "define table Payments (id string, amount double);");
+        File invalidApp = createSiddhiApp(folder, "App5", "define table");
+
+        List<List<File>> deploymentGroups = SiddhiAppDeploymentPlanner.plan(
+                Arrays.asList(app1, app2, app3, app4, invalidApp));
+
+        // apps using the rdbms table 'Orders' are deployed one after the other, the rest independently
+        Assert.assertEquals(deploymentGroups.size(), 4);
+        Assert.assertEquals(deploymentGroups.get(0), Arrays.asList(app1, app3));
+        Assert.assertEquals(deploymentGroups.get(1), Arrays.asList(app2));
+        Assert.assertEquals(deploymentGroups.get(2), Arrays.asList(app4));
+        Assert.assertEquals(deploymentGroups.get(3), Arrays.asList(invalidApp));
+    }
+
+    private static File createSiddhiApp(Path folder, String siddhiAppName, String definitions) throws IOException {
+        String siddhiApp = "@App:name('" + siddhiAppName + "') define stream InputStream (id string, amount double); " +
+                definitions;
+        return Files.write(folder.resolve(siddhiAppName + ".siddhi"), siddhiApp.getBytes(StandardCharsets.UTF_8))
+                .toFile();
+    }
+}
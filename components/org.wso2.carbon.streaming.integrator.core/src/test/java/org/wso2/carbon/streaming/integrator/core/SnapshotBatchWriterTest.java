@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.streaming.integrator.core.persistence.util.SnapshotBatchWriter;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class SnapshotBatchWriterTest {
+
+    @Test
+    public void testConcurrentWritesAreBatched() throws Exception {
+        List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch firstBatchStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstBatch = new CountDownLatch(1);
+        SnapshotBatchWriter<Integer> batchWriter = new SnapshotBatchWriter<>(snapshots -> {
+            batches.add(new ArrayList<>(snapshots));
+            firstBatchStarted.countDown();
+            try {
+                releaseFirstBatch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, 100);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(11);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            futures.add(executorService.submit(() -> {
+                batchWriter.write(0);
+                return null;
+            }));
+            Assert.assertTrue(firstBatchStarted.await(5, TimeUnit.SECONDS));
+            for (int i = 1; i <= 10; i++) {
+                int snapshot = i;
+                futures.add(executorService.submit(() -> {
+                    batchWriter.write(snapshot);
+                    return null;
+                }));
+            }
+            // let the writes queue up behind the first batch
+            Thread.sleep(200);
+            releaseFirstBatch.countDown();
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        Assert.assertEquals(batches.size(), 2);
+        Assert.assertEquals(batches.get(0), Collections.singletonList(0));
+        Assert.assertEquals(batches.get(1).size(), 10);
+    }
+
+    @Test
+    public void testBatchSizeIsLimited() throws Exception {
+        List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch firstBatchStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstBatch = new CountDownLatch(1);
+        SnapshotBatchWriter<Integer> batchWriter = new SnapshotBatchWriter<>(snapshots -> {
+            batchSizes.add(snapshots.size());
+            firstBatchStarted.countDown();
+            try {
+                releaseFirstBatch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, 3);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            futures.add(executorService.submit(() -> {
+                batchWriter.write(0);
+                return null;
+            }));
+            Assert.assertTrue(firstBatchStarted.await(5, TimeUnit.SECONDS));
+            for (int i = 1; i <= 7; i++) {
+                int snapshot = i;
+                futures.add(executorService.submit(() -> {
+                    batchWriter.write(snapshot);
+                    return null;
+                }));
+            }
+            Thread.sleep(200);
+            releaseFirstBatch.countDown();
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        int written = 0;
+        for (int batchSize : batchSizes) {
+            Assert.assertTrue(batchSize <= 3);
+            written += batchSize;
+        }
+        Assert.assertEquals(written, 8);
+    }
+
+    @Test
+    public void testFailedBatchIsReportedToTheWriter() {
+        SnapshotBatchWriter<Integer> batchWriter = new SnapshotBatchWriter<>(snapshots -> {
+            if (snapshots.contains(1)) {
+                throw new SQLException("Write failed");
+            }
+        }, 100);
+        try {
+            batchWriter.write(1);
+            Assert.fail("Failed batch is not reported");
+        } catch (SQLException e) {
+            Assert.assertEquals(e.getMessage(), "Write failed");
+        }
+        try {
+            batchWriter.write(2);
+        } catch (SQLException e) {
+            Assert.fail("Failed batch is reported to the next writer");
+        }
+    }
+}
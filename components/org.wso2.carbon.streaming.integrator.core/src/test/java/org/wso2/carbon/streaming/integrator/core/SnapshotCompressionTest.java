@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.streaming.integrator.core.ha.util.CompressionUtil;
+import org.wso2.carbon.streaming.integrator.core.persistence.compression.GzipSnapshotCodec;
+import org.wso2.carbon.streaming.integrator.core.persistence.compression.SnapshotCodec;
+import org.wso2.carbon.streaming.integrator.core.persistence.compression.SnapshotCompression;
+import org.wso2.carbon.streaming.integrator.core.persistence.util.FileSystemPersistenceStoreUtils;
+import org.wso2.carbon.streaming.integrator.core.persistence.util.PersistenceConstants;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.stream.Stream;
+
+public class SnapshotCompressionTest {
+
+    @Test
+    public void testLoadGzipSnapshot() throws IOException {
+        byte[] snapshot = createSnapshot();
+        byte[] compressedSnapshot = SnapshotCompression.compress(SnapshotCompression.getCodec(null), snapshot);
+        // snapshots of the default codec are readable by the nodes which only know GZIP
+        Assert.assertEquals(CompressionUtil.decompressGZIP(compressedSnapshot), snapshot);
+        Assert.assertEquals(SnapshotCompression.decompress(CompressionUtil.compressGZIP(snapshot)), snapshot);
+    }
+
+    @Test
+    public void testLoadSnapshotOfEachCodec() throws IOException {
+        byte[] snapshot = createSnapshot();
+        for (String codecName : new String[]{"gzip", "lz4"}) {
+            SnapshotCodec codec = SnapshotCompression.getCodec(
+                    Collections.singletonMap(SnapshotCompression.COMPRESSION_PROPERTY, codecName));
+            Assert.assertEquals(codec.getName(), codecName);
+            byte[] compressedSnapshot = SnapshotCompression.compress(codec, snapshot);
+            Assert.assertTrue(compressedSnapshot.length < snapshot.length);
+            Assert.assertEquals(SnapshotCompression.decompress(compressedSnapshot), snapshot);
+        }
+    }
+
+    @Test
+    public void testInvalidCodec() {
+        SnapshotCodec codec = SnapshotCompression.getCodec(
+                Collections.singletonMap(SnapshotCompression.COMPRESSION_PROPERTY, "snappy"));
+        Assert.assertEquals(codec.getName(), GzipSnapshotCodec.NAME);
+    }
+
+    @Test
+    public void testWriteSnapshotFile() throws IOException {
+        Path folder = Files.createTempDirectory("siddhi-app-persistence");
+        File file = new File(folder.toFile(), "TestApp" + File.separator + "1000__TestApp");
+        byte[] snapshot = createSnapshot();
+        for (String codecName : new String[]{"gzip", "lz4"}) {
+            FileSystemPersistenceStoreUtils.writeSnapshot(folder.toString(), file, snapshot, SnapshotCompression
+                    .getCodec(Collections.singletonMap(SnapshotCompression.COMPRESSION_PROPERTY, codecName)), true);
+            Assert.assertEquals(FileSystemPersistenceStoreUtils.readSnapshot(file), snapshot);
+        }
+        Path tempFolder = folder.resolve(PersistenceConstants.TEMP_FOLDER_NAME);
+        try (Stream<Path> tempFiles = Files.list(tempFolder)) {
+            Assert.assertEquals(tempFiles.count(), 0);
+        }
+        Files.createFile(tempFolder.resolve("1001__TestApp" + PersistenceConstants.TEMP_FILE_SUFFIX));
+        FileSystemPersistenceStoreUtils.cleanTempFiles(folder.toString());
+        try (Stream<Path> tempFiles = Files.list(tempFolder)) {
+            Assert.assertEquals(tempFiles.count(), 0);
+        }
+    }
+
+    @Test
+    public void testUnavailableCodec() {
+        // a codec whose library is missing at runtime falls back to GZIP instead of failing every persistence
+        SnapshotCodec codec = SnapshotCompression.getCodec(Collections.singletonMap(
+                SnapshotCompression.COMPRESSION_PROPERTY, UnavailableSnapshotCodec.class.getName()));
+        Assert.assertEquals(codec.getName(), GzipSnapshotCodec.NAME);
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testLoadUnknownSnapshot() throws IOException {
+        SnapshotCompression.decompress(createSnapshot());
+    }
+
+    private static byte[] createSnapshot() {
+        StringBuilder snapshot = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            snapshot.append("event-").append(i % 100).append(',').append(i).append(';');
+        }
+        return snapshot.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Codec failing as if its compression library is not packaged.
+     */
+    public static class UnavailableSnapshotCodec implements SnapshotCodec {
+
+        @Override
+        public byte getId() {
+            return 100;
+        }
+
+        @Override
+        public String getName() {
+            return "unavailable";
+        }
+
+        @Override
+        public OutputStream compress(OutputStream out) {
+            throw new NoClassDefFoundError("net/jpountz/lz4/LZ4FrameOutputStream");
+        }
+
+        @Override
+        public InputStream decompress(InputStream in) {
+            throw new NoClassDefFoundError("net/jpountz/lz4/LZ4FrameInputStream");
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.streaming.integrator.core;
+
+import io.siddhi.core.SiddhiAppRuntime;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.streaming.integrator.core.event.queue.EventListMapManager;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests promoting the passive node, which must process the messages received from the active node before taking
+ * over the state of the Siddhi apps.
+ */
+public class StandbyPromotionTest {
+
+    @Test
+    public void testPendingMessagesAreProcessedBeforePromotion() throws Exception {
+        AtomicInteger pendingMessageCount = new AtomicInteger(3);
+        AtomicInteger processedMessageCount = new AtomicInteger();
+        Thread messageHandler = new Thread(() -> {
+            try {
+                while (pendingMessageCount.get() > 0) {
+                    Thread.sleep(100);
+                    processedMessageCount.incrementAndGet();
+                    pendingMessageCount.decrementAndGet();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        messageHandler.start();
+        Map<String, SiddhiAppRuntime> standbyRuntimes =
+                EventListMapManager.promoteStandbyRuntimes(pendingMessageCount::get, 60000);
+        Assert.assertEquals(processedMessageCount.get(), 3,
+                "The standby runtimes are promoted before the received messages are processed");
+        Assert.assertTrue(standbyRuntimes.isEmpty());
+        messageHandler.join();
+    }
+
+    @Test
+    public void testPromotionProceedsOnceTimedOut() {
+        long startTime = System.currentTimeMillis();
+        Map<String, SiddhiAppRuntime> standbyRuntimes = EventListMapManager.promoteStandbyRuntimes(() -> 3, 300);
+        long elapsedTime = System.currentTimeMillis() - startTime;
+        Assert.assertTrue(elapsedTime >= 300, "Stopped waiting for the received messages before the timeout");
+        Assert.assertTrue(elapsedTime < 5000, "Kept waiting for the received messages after the timeout");
+        Assert.assertTrue(standbyRuntimes.isEmpty());
+    }
+
+    @Test
+    public void testPromotionProceedsOnceInterrupted() {
+        Thread.currentThread().interrupt();
+        try {
+            Map<String, SiddhiAppRuntime> standbyRuntimes =
+                    EventListMapManager.promoteStandbyRuntimes(() -> 3, 60000);
+            Assert.assertTrue(standbyRuntimes.isEmpty());
+            Assert.assertTrue(Thread.currentThread().isInterrupted(), "The interrupt is not restored");
+        } finally {
+            Thread.interrupted();
+        }
+    }
+}